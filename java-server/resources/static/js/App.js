@@ -3,6 +3,8 @@ let socket;
 let resultChart;
 let currentTaskId = null;
 let taskStatus = {};
+// Results being received as binary frames, by task id
+let pendingResults = {};
 
 let chartData = {
   labels: [],
@@ -31,15 +33,22 @@ function connectWebSocket() {
 
   console.log(`Connecting to WebSocket at ${wsUrl}`);
   socket = new WebSocket(wsUrl);
+  socket.binaryType = "arraybuffer";
 
   socket.onopen = function () {
     console.log("WebSocket connection established");
+    // Receive results as little-endian float frames instead of JSON numbers
+    socket.send(JSON.stringify({ action: "format", format: "binary" }));
     document.getElementById("status-indicator").className = "connected";
     document.getElementById("connection-status").textContent = "Connected";
     logMessage("Connected to ML Hybrid System");
   };
 
   socket.onmessage = function (event) {
+    if (event.data instanceof ArrayBuffer) {
+      handleResultFrame(event.data);
+      return;
+    }
     console.log("Message received:", event.data);
 
     // Try to parse the message as JSON
@@ -58,6 +67,12 @@ function connectWebSocket() {
           if (data.taskId === currentTaskId) {
             updateInputData(data.data);
           }
+        } else if (data.status === "completed" && data.encoding === "binary") {
+          logMessage(`${message} - Generated ${data.elements} results`);
+          pendingResults[data.taskId] = {
+            values: new Float32Array(data.elements),
+            received: 0,
+          };
         } else if (data.status === "completed") {
           logMessage(`${message} - Generated ${data.data.length} results`);
           if (data.taskId === currentTaskId) {
@@ -92,6 +107,32 @@ function connectWebSocket() {
   };
 }
 
+// Decode a binary result frame (layout documented in the README)
+function handleResultFrame(buffer) {
+  const view = new DataView(buffer);
+  const idLength = view.getUint16(2, true);
+  const offset = view.getInt32(12, true);
+  const count = view.getInt32(16, true);
+  const taskId = new TextDecoder().decode(new Uint8Array(buffer, 20, idLength));
+  const dataStart = 20 + ((idLength + 3) & ~3);
+
+  const pending = pendingResults[taskId];
+  if (!pending) {
+    return;
+  }
+  for (let i = 0; i < count; i++) {
+    pending.values[offset + i] = view.getFloat32(dataStart + i * 4, true);
+  }
+  pending.received += count;
+
+  if (pending.received >= pending.values.length) {
+    delete pendingResults[taskId];
+    if (taskId === currentTaskId) {
+      updateResultData(Array.from(pending.values));
+    }
+  }
+}
+
 // Log a message to the UI
 function logMessage(message) {
   const log = document.getElementById("log");
@@ -0,0 +1,21 @@
+package com.mlhybrid.benchmark;
+
+import com.mlhybrid.model.Matrix;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic inputs shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {}
+
+    static Matrix randomMatrix(int rows, int cols, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        float[] data = new float[rows * cols];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (float) random.nextDouble(-1.0, 1.0);
+        }
+        return new Matrix(rows, cols, data);
+    }
+}
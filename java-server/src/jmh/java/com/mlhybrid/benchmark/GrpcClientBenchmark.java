@@ -0,0 +1,127 @@
+package com.mlhybrid.benchmark;
+
+import com.mlhybrid.grpc.CallScheduler;
+import com.mlhybrid.grpc.ComputeBatcher;
+import com.mlhybrid.grpc.GrpcBackend;
+import com.mlhybrid.grpc.GrpcChannelPool;
+import com.mlhybrid.grpc.GrpcClientService;
+import com.mlhybrid.grpc.MLGrpc;
+import com.mlhybrid.grpc.MatrixComputeRequest;
+import com.mlhybrid.grpc.MatrixComputeResponse;
+import com.mlhybrid.grpc.ResiliencePolicy;
+import com.mlhybrid.metrics.PipelineMetrics;
+import com.mlhybrid.tracing.PipelineTracer;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * End-to-end {@link GrpcClientService#matrixCompute} against an in-process
+ * fake {@code ML} service that echoes operand A, isolating the Java-side
+ * conversion and transport cost from any real computation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class GrpcClientBenchmark {
+
+    @Param({ "64", "256", "512" })
+    private int size;
+
+    private Server server;
+    private GrpcChannelPool channelPool;
+    private GrpcClientService clientService;
+    private com.mlhybrid.model.MatrixComputeRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+            .directExecutor()
+            .addService(new EchoService())
+            .build()
+            .start();
+
+        ManagedChannel channel = InProcessChannelBuilder.forName(name)
+            .directExecutor()
+            .build();
+        channelPool = new GrpcChannelPool(
+            List.of(new GrpcBackend(name, channel)),
+            GrpcChannelPool.Strategy.ROUND_ROBIN
+        );
+        CallScheduler scheduler = new CallScheduler(channelPool);
+        ResiliencePolicy resilience = new ResiliencePolicy();
+        PipelineTracer tracer = new PipelineTracer(
+            OpenTelemetry.noop().getTracer("benchmark")
+        );
+        clientService = new GrpcClientService(
+            scheduler,
+            new ComputeBatcher(scheduler, resilience, tracer),
+            new PipelineMetrics(new SimpleMeterRegistry()),
+            tracer,
+            resilience
+        );
+        ReflectionTestUtils.setField(
+            clientService,
+            "streamThresholdElements",
+            Long.MAX_VALUE
+        );
+
+        request = new com.mlhybrid.model.MatrixComputeRequest(
+            BenchmarkData.randomMatrix(size, size, 1),
+            BenchmarkData.randomMatrix(size, size, 2),
+            "bench",
+            "add"
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        channelPool.shutdown();
+        server.shutdownNow().awaitTermination();
+    }
+
+    @Benchmark
+    public com.mlhybrid.model.MatrixComputeResponse matrixCompute() {
+        return clientService.matrixCompute(request);
+    }
+
+    /**
+     * Stand-in for the Rust server: returns operand A unchanged
+     */
+    static class EchoService extends MLGrpc.MLImplBase {
+
+        @Override
+        public void matrixCompute(
+            MatrixComputeRequest request,
+            StreamObserver<MatrixComputeResponse> responseObserver
+        ) {
+            responseObserver.onNext(
+                MatrixComputeResponse.newBuilder()
+                    .setTaskId(request.getTaskId())
+                    .setStatus("completed")
+                    .setResult(request.getMatrixA())
+                    .build()
+            );
+            responseObserver.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.mlhybrid.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mlhybrid.model.MatrixComputeRequest;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Jackson encode/decode of a two-operand {@link MatrixComputeRequest}, as
+ * done by Spring for {@code /api/matrix/compute}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({ "64", "512" })
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MatrixComputeRequest request;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        request = new MatrixComputeRequest(
+            BenchmarkData.randomMatrix(size, size, 1),
+            BenchmarkData.randomMatrix(size, size, 2),
+            "bench",
+            "multiply"
+        );
+        json = objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public MatrixComputeRequest deserialize() throws IOException {
+        return objectMapper.readValue(json, MatrixComputeRequest.class);
+    }
+}
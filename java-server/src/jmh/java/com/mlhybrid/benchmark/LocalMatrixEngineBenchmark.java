@@ -0,0 +1,60 @@
+package com.mlhybrid.benchmark;
+
+import com.mlhybrid.compute.LocalMatrixEngine;
+import com.mlhybrid.model.Matrix;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Throughput of the in-process matrix engine, to pick
+ * {@code matrix.local.max-elements} against the gRPC round trip measured by
+ * {@link GrpcClientBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class LocalMatrixEngineBenchmark {
+
+    @Param({ "16", "64", "256", "512" })
+    private int size;
+
+    private LocalMatrixEngine engine;
+    private Matrix a;
+    private Matrix b;
+
+    @Setup
+    public void setup() {
+        engine = new LocalMatrixEngine();
+        engine.init();
+        a = BenchmarkData.randomMatrix(size, size, 42);
+        b = BenchmarkData.randomMatrix(size, size, 43);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return engine.multiply(a, b);
+    }
+
+    @Benchmark
+    public Matrix transpose() {
+        return engine.transpose(a);
+    }
+
+    @Benchmark
+    public Matrix add() {
+        return engine.add(a, b);
+    }
+}
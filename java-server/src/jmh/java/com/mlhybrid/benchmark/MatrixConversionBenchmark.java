@@ -0,0 +1,74 @@
+package com.mlhybrid.benchmark;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.mlhybrid.model.Matrix;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of converting between the model {@link Matrix} and its gRPC message,
+ * alone and together with encoding and parsing the message. The
+ * {@code repeated} round trip sends the values in the repeated {@code data}
+ * field for comparison with the packed encoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MatrixConversionBenchmark {
+
+    @Param({ "64", "512", "2048" })
+    private int size;
+
+    private Matrix matrix;
+    private com.mlhybrid.grpc.Matrix grpcMatrix;
+
+    @Setup
+    public void setup() {
+        matrix = BenchmarkData.randomMatrix(size, size, 42);
+        grpcMatrix = matrix.toGrpcMatrix();
+    }
+
+    @Benchmark
+    public Matrix packedRoundTrip() throws InvalidProtocolBufferException {
+        byte[] wire = matrix.toGrpcMatrix().toByteArray();
+        return Matrix.fromGrpcMatrix(
+            com.mlhybrid.grpc.Matrix.parseFrom(wire)
+        );
+    }
+
+    @Benchmark
+    public float[] repeatedRoundTrip() throws InvalidProtocolBufferException {
+        com.mlhybrid.grpc.Matrix.Builder builder =
+            com.mlhybrid.grpc.Matrix.newBuilder()
+                .setRows(matrix.getRows())
+                .setCols(matrix.getCols());
+        for (float value : matrix.getData()) {
+            builder.addData(value);
+        }
+        com.mlhybrid.grpc.Matrix parsed = com.mlhybrid.grpc.Matrix.parseFrom(
+            builder.build().toByteArray()
+        );
+        float[] values = new float[parsed.getDataCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = parsed.getData(i);
+        }
+        return values;
+    }
+
+    @Benchmark
+    public com.mlhybrid.grpc.Matrix toGrpcMatrix() {
+        return matrix.toGrpcMatrix();
+    }
+
+    @Benchmark
+    public Matrix fromGrpcMatrix() {
+        return Matrix.fromGrpcMatrix(grpcMatrix);
+    }
+}
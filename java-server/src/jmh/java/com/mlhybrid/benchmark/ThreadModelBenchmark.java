@@ -0,0 +1,190 @@
+package com.mlhybrid.benchmark;
+
+import com.mlhybrid.config.VirtualThreads;
+import com.mlhybrid.grpc.CallScheduler;
+import com.mlhybrid.grpc.ComputeBatcher;
+import com.mlhybrid.grpc.GrpcBackend;
+import com.mlhybrid.grpc.GrpcChannelPool;
+import com.mlhybrid.grpc.GrpcClientService;
+import com.mlhybrid.grpc.MLGrpc;
+import com.mlhybrid.grpc.MatrixComputeRequest;
+import com.mlhybrid.grpc.MatrixComputeResponse;
+import com.mlhybrid.grpc.ResiliencePolicy;
+import com.mlhybrid.metrics.PipelineMetrics;
+import com.mlhybrid.tracing.PipelineTracer;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * A burst of concurrent blocking {@link GrpcClientService#matrixCompute}
+ * calls against an in-process fake that answers after a fixed delay,
+ * standing in for GPU time. The calls wait on the same asynchronous path
+ * the controllers use. Compares Tomcat's default model, a pool of 200
+ * platform threads, with a virtual thread per call
+ * ({@code threads.virtual.enabled}). The {@code virtual} runs need Java 21.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ThreadModelBenchmark {
+
+    /** Tomcat's default {@code server.tomcat.threads.max} */
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({ "platform", "virtual" })
+    private String threads;
+
+    @Param({ "200", "2000", "10000" })
+    private int calls;
+
+    @Param({ "20" })
+    private int latencyMs;
+
+    private Server server;
+    private ScheduledExecutorService gpu;
+    private GrpcChannelPool channelPool;
+    private GrpcClientService clientService;
+    private ExecutorService executor;
+    private com.mlhybrid.model.MatrixComputeRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if ("virtual".equals(threads) && !VirtualThreads.isAvailable()) {
+            throw new IllegalStateException(
+                "Virtual threads need Java 21 or later"
+            );
+        }
+        executor = "virtual".equals(threads)
+            ? VirtualThreads.newThreadPerTaskExecutor("bench-")
+            : Executors.newFixedThreadPool(PLATFORM_THREADS);
+
+        gpu = Executors.newScheduledThreadPool(4);
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+            .directExecutor()
+            .addService(new DelayedEchoService(gpu, latencyMs))
+            .build()
+            .start();
+
+        ManagedChannel channel = InProcessChannelBuilder.forName(name)
+            .directExecutor()
+            .build();
+        channelPool = new GrpcChannelPool(
+            List.of(new GrpcBackend(name, channel)),
+            GrpcChannelPool.Strategy.ROUND_ROBIN
+        );
+        CallScheduler scheduler = new CallScheduler(channelPool);
+        ResiliencePolicy resilience = new ResiliencePolicy();
+        PipelineTracer tracer = new PipelineTracer(
+            OpenTelemetry.noop().getTracer("benchmark")
+        );
+        clientService = new GrpcClientService(
+            scheduler,
+            new ComputeBatcher(scheduler, resilience, tracer),
+            new PipelineMetrics(new SimpleMeterRegistry()),
+            tracer,
+            resilience
+        );
+        ReflectionTestUtils.setField(
+            clientService,
+            "streamThresholdElements",
+            Long.MAX_VALUE
+        );
+
+        request = new com.mlhybrid.model.MatrixComputeRequest(
+            BenchmarkData.randomMatrix(16, 16, 1),
+            BenchmarkData.randomMatrix(16, 16, 2),
+            "bench",
+            "add"
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        channelPool.shutdown();
+        server.shutdownNow().awaitTermination();
+        gpu.shutdownNow();
+    }
+
+    /**
+     * Time until all calls of the burst have been answered
+     */
+    @Benchmark
+    public int burst() throws InterruptedException, ExecutionException {
+        List<Future<com.mlhybrid.model.MatrixComputeResponse>> results =
+            new ArrayList<>(calls);
+        for (int i = 0; i < calls; i++) {
+            results.add(
+                executor.submit(() -> clientService.matrixCompute(request))
+            );
+        }
+        int completed = 0;
+        for (Future<com.mlhybrid.model.MatrixComputeResponse> result : results) {
+            if ("completed".equals(result.get().getStatus())) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Stand-in for the Rust server: returns operand A after a delay,
+     * without holding a server thread meanwhile
+     */
+    static class DelayedEchoService extends MLGrpc.MLImplBase {
+
+        private final ScheduledExecutorService gpu;
+        private final int latencyMs;
+
+        DelayedEchoService(ScheduledExecutorService gpu, int latencyMs) {
+            this.gpu = gpu;
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public void matrixCompute(
+            MatrixComputeRequest request,
+            StreamObserver<MatrixComputeResponse> responseObserver
+        ) {
+            MatrixComputeResponse response = MatrixComputeResponse.newBuilder()
+                .setTaskId(request.getTaskId())
+                .setStatus("completed")
+                .setResult(request.getMatrixA())
+                .build();
+            gpu.schedule(
+                () -> {
+                    responseObserver.onNext(response);
+                    responseObserver.onCompleted();
+                },
+                latencyMs,
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+}
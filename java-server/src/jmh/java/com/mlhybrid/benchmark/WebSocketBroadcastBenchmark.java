@@ -0,0 +1,72 @@
+package com.mlhybrid.benchmark;
+
+import com.mlhybrid.metrics.PipelineMetrics;
+import com.mlhybrid.tracing.PipelineTracer;
+import com.mlhybrid.websocket.WebSocketBroadcaster;
+import com.mlhybrid.websocket.WebSocketHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Fan-out of a task event through {@link WebSocketHandler#broadcastMessage}
+ * to N connected sessions. This measures the caller-side cost; delivery
+ * happens on the broadcaster's own threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class WebSocketBroadcastBenchmark {
+
+    @Param({ "1", "100", "1000" })
+    private int sessions;
+
+    private WebSocketBroadcaster broadcaster;
+    private WebSocketHandler handler;
+    private Map<String, Object> message;
+
+    @Setup
+    public void setup() {
+        broadcaster = new WebSocketBroadcaster(256, 4, 65536, false);
+        handler = new WebSocketHandler(
+            broadcaster,
+            new PipelineMetrics(new SimpleMeterRegistry()),
+            new PipelineTracer(OpenTelemetry.noop().getTracer("benchmark"))
+        );
+        for (int i = 0; i < sessions; i++) {
+            handler.afterConnectionEstablished(
+                new BenchmarkWebSocketSession("session-" + i)
+            );
+        }
+
+        message = new HashMap<>();
+        message.put("taskId", "matrix-bench");
+        message.put("status", "completed");
+        message.put("operation", "multiply");
+        message.put("executionTimeMs", 12L);
+        message.put("rows", 512);
+        message.put("cols", 512);
+    }
+
+    @TearDown
+    public void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Benchmark
+    public void broadcastMessage() {
+        message.put("timestamp", System.currentTimeMillis());
+        handler.broadcastMessage(message);
+    }
+}
@@ -0,0 +1,138 @@
+package com.mlhybrid.cache;
+
+import com.mlhybrid.model.Matrix;
+import com.mlhybrid.model.MatrixComputeRequest;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Content address of a matrix computation: the operation plus a SHA-256
+ * digest over the dimensions and data of both operands. A stored operand
+ * contributes its handle, itself such a digest, instead of its data.
+ */
+public final class MatrixCacheKey {
+
+    private static final int DIGEST_BUFFER_FLOATS = 4096;
+
+    private final String operation;
+    private final byte[] digest;
+    private final int hash;
+
+    private MatrixCacheKey(String operation, byte[] digest) {
+        this.operation = operation;
+        this.digest = digest;
+        this.hash = 31 * operation.hashCode() + Arrays.hashCode(digest);
+    }
+
+    public static MatrixCacheKey of(MatrixComputeRequest request) {
+        MessageDigest sha256 = sha256();
+        ByteBuffer buffer = digestBuffer();
+        update(sha256, buffer, request.getMatrixA());
+        update(sha256, buffer, request.getMatrixB());
+
+        return new MatrixCacheKey(
+            String.valueOf(request.getOperation()),
+            sha256.digest()
+        );
+    }
+
+    /**
+     * SHA-256 digest of a matrix's dimensions and data as a hex string,
+     * used as the handle of a stored operand
+     */
+    static String handleOf(Matrix matrix) {
+        MessageDigest sha256 = sha256();
+        updateData(sha256, digestBuffer(), matrix);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : sha256.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static ByteBuffer digestBuffer() {
+        return ByteBuffer.allocate(DIGEST_BUFFER_FLOATS * Float.BYTES).order(
+            ByteOrder.LITTLE_ENDIAN
+        );
+    }
+
+    private static void update(
+        MessageDigest sha256,
+        ByteBuffer buffer,
+        Matrix matrix
+    ) {
+        buffer.clear();
+        if (matrix == null) {
+            // Distinguish an absent operand from an empty one
+            buffer.putInt(-1);
+            buffer.flip();
+            sha256.update(buffer);
+            return;
+        }
+        if (matrix.getHandle() != null) {
+            // A stored operand's handle is already a digest of its data
+            buffer.putInt(-2);
+            buffer.flip();
+            sha256.update(buffer);
+            sha256.update(
+                matrix.getHandle().getBytes(StandardCharsets.US_ASCII)
+            );
+            return;
+        }
+        updateData(sha256, buffer, matrix);
+    }
+
+    private static void updateData(
+        MessageDigest sha256,
+        ByteBuffer buffer,
+        Matrix matrix
+    ) {
+        buffer.clear();
+        float[] data = matrix.getData();
+        buffer.putInt(matrix.getRows()).putInt(matrix.getCols()).putInt(
+            data.length
+        );
+        for (float value : data) {
+            if (buffer.remaining() < Float.BYTES) {
+                buffer.flip();
+                sha256.update(buffer);
+                buffer.clear();
+            }
+            buffer.putFloat(value);
+        }
+        buffer.flip();
+        sha256.update(buffer);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MatrixCacheKey)) {
+            return false;
+        }
+        MatrixCacheKey other = (MatrixCacheKey) o;
+        return (
+            operation.equals(other.operation) &&
+            Arrays.equals(digest, other.digest)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
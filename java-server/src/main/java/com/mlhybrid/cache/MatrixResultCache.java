@@ -0,0 +1,98 @@
+package com.mlhybrid.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mlhybrid.model.Matrix;
+import com.mlhybrid.model.MatrixComputeRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Content-addressed cache of deterministic matrix results.
+ * <p>
+ * Entries are keyed by {@link MatrixCacheKey} and weighted by the number
+ * of floats in the result, bounded by {@code matrix.cache.max-weight};
+ * Caffeine's W-TinyLFU policy decides what to evict.
+ */
+@Component
+public class MatrixResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        MatrixResultCache.class
+    );
+
+    private Cache<MatrixCacheKey, Matrix> cache;
+
+    @Value("${matrix.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${matrix.cache.max-weight:16777216}")
+    private long maxWeight;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+            .maximumWeight(maxWeight)
+            .weigher((MatrixCacheKey key, Matrix value) ->
+                Math.max(1, value.getData().length)
+            )
+            .recordStats()
+            .build();
+        logger.info(
+            "Matrix result cache {} with max weight {} floats",
+            enabled ? "enabled" : "disabled",
+            maxWeight
+        );
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Key for a request, or {@code null} when caching is disabled
+     */
+    public MatrixCacheKey keyFor(MatrixComputeRequest request) {
+        return enabled ? MatrixCacheKey.of(request) : null;
+    }
+
+    public Matrix get(MatrixCacheKey key) {
+        return key != null ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(MatrixCacheKey key, Matrix result) {
+        if (key != null && result != null) {
+            cache.put(key, result);
+        }
+    }
+
+    public Cache<MatrixCacheKey, Matrix> getCache() {
+        return cache;
+    }
+
+    /**
+     * Hit/miss and size figures for the status endpoint
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("entries", cache.estimatedSize());
+        result.put(
+            "weightedSize",
+            cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L)
+        );
+        result.put("maxWeight", maxWeight);
+        return result;
+    }
+}
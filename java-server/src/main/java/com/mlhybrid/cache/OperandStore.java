@@ -0,0 +1,202 @@
+package com.mlhybrid.cache;
+
+import com.mlhybrid.model.Matrix;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Matrices uploaded once and referred to by handle in later requests, such
+ * as model weights applied to many inputs.
+ * <p>
+ * Operands are held off-heap in direct buffers, so that large matrices
+ * neither add to heap pressure nor get copied by the collector, up to
+ * {@code matrix.operands.max-bytes}. Beyond that the least recently used
+ * operands are dropped; unlike the result cache, eviction is strictly LRU
+ * so that a freshly uploaded operand is never the first to go. A handle is
+ * the SHA-256 digest of the operand's dimensions and data, so storing the
+ * same matrix twice yields the same handle and a handle always stands for
+ * the same values, also on the Rust servers that keep copies of it.
+ */
+@Component
+public class OperandStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        OperandStore.class
+    );
+
+    private static final class StoredOperand {
+
+        final int rows;
+        final int cols;
+        final FloatBuffer data;
+
+        StoredOperand(int rows, int cols, FloatBuffer data) {
+            this.rows = rows;
+            this.cols = cols;
+            this.data = data;
+        }
+
+        long bytes() {
+            return (long) data.capacity() * Float.BYTES;
+        }
+    }
+
+    @Value("${matrix.operands.max-bytes:268435456}")
+    private long maxBytes;
+
+    // Access-ordered, so iteration starts at the least recently used
+    private final LinkedHashMap<String, StoredOperand> operands =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long evictions;
+
+    /**
+     * Store a matrix, or refresh it if it is already stored
+     *
+     * @return the matrix's handle
+     * @throws IllegalArgumentException if the matrix's data does not match
+     *         its dimensions or the matrix is larger than the store
+     */
+    public String put(Matrix matrix) {
+        float[] values = matrix.getData();
+        if (
+            matrix.getRows() < 0 ||
+            matrix.getCols() < 0 ||
+            (long) matrix.getRows() * matrix.getCols() != values.length
+        ) {
+            throw new IllegalArgumentException(
+                "Matrix has " + values.length + " values but is declared " +
+                matrix.getRows() + "x" + matrix.getCols()
+            );
+        }
+        long size = (long) values.length * Float.BYTES;
+        if (size > Math.min(maxBytes, Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException(
+                "Matrix of " + size + " bytes exceeds the operand store limit"
+            );
+        }
+
+        Matrix content = new Matrix(matrix.getRows(), matrix.getCols(), values);
+        String handle = MatrixCacheKey.handleOf(content);
+        synchronized (this) {
+            if (operands.get(handle) != null) {
+                return handle;
+            }
+        }
+
+        FloatBuffer data = ByteBuffer.allocateDirect((int) size)
+            .order(ByteOrder.nativeOrder())
+            .asFloatBuffer();
+        data.put(values).rewind();
+        StoredOperand operand = new StoredOperand(
+            matrix.getRows(),
+            matrix.getCols(),
+            data.asReadOnlyBuffer()
+        );
+
+        int count;
+        long held;
+        synchronized (this) {
+            if (operands.putIfAbsent(handle, operand) != null) {
+                return handle;
+            }
+            bytes += operand.bytes();
+            evict();
+            count = operands.size();
+            held = bytes;
+        }
+        logger.info(
+            "Stored operand {} ({}x{}), {} operands in {} bytes",
+            handle,
+            matrix.getRows(),
+            matrix.getCols(),
+            count,
+            held
+        );
+        return handle;
+    }
+
+    /**
+     * The operand stored under a handle, copied onto the heap, or
+     * {@code null} if there is none
+     */
+    public Matrix get(String handle) {
+        StoredOperand operand;
+        synchronized (this) {
+            operand = operands.get(handle);
+        }
+        if (operand == null) {
+            return null;
+        }
+        float[] values = new float[operand.data.capacity()];
+        operand.data.duplicate().get(values);
+        Matrix matrix = new Matrix(operand.rows, operand.cols, values);
+        matrix.setHandle(handle);
+        return matrix;
+    }
+
+    /**
+     * Replace a matrix given by handle with the stored operand. Matrices
+     * without a handle are returned as they are.
+     *
+     * @throws UnknownOperandException if no operand is stored under the
+     *         handle
+     */
+    public Matrix resolve(Matrix matrix) {
+        if (matrix == null || matrix.getHandle() == null) {
+            return matrix;
+        }
+        Matrix stored = get(matrix.getHandle());
+        if (stored == null) {
+            throw new UnknownOperandException(matrix.getHandle());
+        }
+        return stored;
+    }
+
+    /**
+     * Drop an operand
+     *
+     * @return whether it was stored
+     */
+    public synchronized boolean remove(String handle) {
+        StoredOperand operand = operands.remove(handle);
+        if (operand == null) {
+            return false;
+        }
+        bytes -= operand.bytes();
+        return true;
+    }
+
+    /**
+     * Size figures for the status endpoint
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("operands", operands.size());
+        result.put("bytes", bytes);
+        result.put("maxBytes", maxBytes);
+        result.put("evictionCount", evictions);
+        return result;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, StoredOperand>> oldest = operands
+            .entrySet()
+            .iterator();
+        while (bytes > maxBytes && oldest.hasNext()) {
+            Map.Entry<String, StoredOperand> entry = oldest.next();
+            oldest.remove();
+            bytes -= entry.getValue().bytes();
+            evictions++;
+            logger.info("Evicted operand {}", entry.getKey());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.mlhybrid.cache;
+
+/**
+ * A request referred to an operand handle the {@link OperandStore} does not
+ * hold, because it was never stored or has been evicted or removed.
+ */
+public class UnknownOperandException extends RuntimeException {
+
+    private final String handle;
+
+    public UnknownOperandException(String handle) {
+        super("Unknown operand handle: " + handle);
+        this.handle = handle;
+    }
+
+    public String getHandle() {
+        return handle;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mlhybrid.compression;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content codings a response body can be compressed with, and their
+ * negotiation from an {@code Accept-Encoding} header.
+ */
+public enum ContentCoding {
+    ZSTD("zstd"),
+    GZIP("gzip");
+
+    private static final int GZIP_BUFFER_BYTES = 8192;
+
+    private final String name;
+
+    ContentCoding(String name) {
+        this.name = name;
+    }
+
+    /** Value of the {@code Content-Encoding} header */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Stream compressing into {@code out} at the given level; closing it
+     * finishes the compressed body and closes {@code out}
+     */
+    public OutputStream compress(OutputStream out, int level)
+        throws IOException {
+        if (this == ZSTD) {
+            return new ZstdOutputStream(out, level);
+        }
+        return new GZIPOutputStream(out, GZIP_BUFFER_BYTES) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    /**
+     * The accepted coding with the highest quality, zstd on a tie, or
+     * {@code null} when neither is accepted. Codings not named take the
+     * quality of {@code *}, if given.
+     */
+    public static ContentCoding negotiate(
+        String acceptEncoding,
+        boolean zstdEnabled
+    ) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double[] qualities = { -1, -1 };
+        double anyQuality = 0;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("*")) {
+                anyQuality = quality;
+            }
+            for (ContentCoding coding : values()) {
+                if (coding.name.equals(name)) {
+                    qualities[coding.ordinal()] = quality;
+                }
+            }
+        }
+
+        ContentCoding best = null;
+        double bestQuality = 0;
+        for (ContentCoding coding : values()) {
+            double quality = qualities[coding.ordinal()] < 0
+                ? anyQuality
+                : qualities[coding.ordinal()];
+            if (
+                (coding != ZSTD || zstdEnabled) && quality > bestQuality
+            ) {
+                best = coding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,333 @@
+package com.mlhybrid.compression;
+
+import com.github.luben.zstd.util.Native;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Compresses {@code /api} response bodies with zstd or gzip, as negotiated
+ * by the request's {@code Accept-Encoding}. The first {@code min-bytes} of
+ * a body are held back, so that small bodies go out as they are and only
+ * larger ones are compressed as they are written. Asynchronous responses
+ * are compressed when they are written in their async dispatch.
+ */
+@Component
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        ResponseCompressionFilter.class
+    );
+
+    private final boolean enabled;
+    private final int minBytes;
+    private final int gzipLevel;
+    private final int zstdLevel;
+    private final boolean zstdAvailable;
+
+    public ResponseCompressionFilter(
+        @Value("${http.compression.enabled:true}") boolean enabled,
+        @Value("${http.compression.min-bytes:2048}") int minBytes,
+        @Value("${http.compression.gzip-level:6}") int gzipLevel,
+        @Value("${http.compression.zstd-level:3}") int zstdLevel
+    ) {
+        this.enabled = enabled;
+        this.minBytes = minBytes;
+        this.gzipLevel = gzipLevel;
+        this.zstdLevel = zstdLevel;
+        this.zstdAvailable = enabled && loadZstd();
+    }
+
+    private static boolean loadZstd() {
+        try {
+            Native.load();
+            return true;
+        } catch (LinkageError e) {
+            logger.warn(
+                "zstd is not available on this platform, responses are compressed with gzip only: {}",
+                e.getMessage()
+            );
+            return false;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        FilterChain chain
+    ) throws ServletException, IOException {
+        // The async dispatch may be handed the response wrapped before
+        CompressingResponse compressing = WebUtils.getNativeResponse(
+            response,
+            CompressingResponse.class
+        );
+        if (compressing == null) {
+            if (!isAsyncDispatch(request)) {
+                response.addHeader(
+                    HttpHeaders.VARY,
+                    HttpHeaders.ACCEPT_ENCODING
+                );
+            }
+            ContentCoding coding = ContentCoding.negotiate(
+                request.getHeader(HttpHeaders.ACCEPT_ENCODING),
+                zstdAvailable
+            );
+            if (coding == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            compressing = new CompressingResponse(
+                response,
+                coding,
+                coding == ContentCoding.ZSTD ? zstdLevel : gzipLevel
+            );
+            response = compressing;
+        }
+
+        chain.doFilter(request, response);
+        if (!request.isAsyncStarted()) {
+            compressing.finish();
+        }
+    }
+
+    /**
+     * Response whose body is held back until it reaches {@code minBytes}
+     * and compressed from then on
+     */
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final ContentCoding coding;
+        private final int level;
+        private CompressingOutputStream stream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        CompressingResponse(
+            HttpServletResponse response,
+            ContentCoding coding,
+            int level
+        ) {
+            super(response);
+            this.coding = coding;
+            this.level = level;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (stream == null) {
+                stream = new CompressingOutputStream(this);
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                writer = new PrintWriter(
+                    new OutputStreamWriter(
+                        getOutputStream(),
+                        Charset.forName(getCharacterEncoding())
+                    )
+                );
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = value != null ? Long.parseLong(value) : -1;
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setHeader(name, value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            setHeader(name, Integer.toString(value));
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            addHeader(name, Integer.toString(value));
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            // Committing before the body is measured would fix its headers
+            if (stream == null || stream.target != null) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (stream != null && stream.target == null) {
+                stream.buffered = 0;
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            resetBuffer();
+            contentLength = -1;
+            super.reset();
+        }
+
+        /**
+         * Write out whatever is still held back and finish compressing
+         */
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.finish();
+            } else if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+        }
+
+        /**
+         * Start writing the body through, compressed or as it is
+         */
+        OutputStream open(boolean compress) throws IOException {
+            OutputStream body = super.getOutputStream();
+            if (
+                !compress ||
+                getHeader(HttpHeaders.CONTENT_ENCODING) != null ||
+                isCommitted()
+            ) {
+                if (contentLength >= 0 && !isCommitted()) {
+                    super.setContentLengthLong(contentLength);
+                }
+                return body;
+            }
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, coding.getName());
+            return coding.compress(body, level);
+        }
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        private final CompressingResponse response;
+        private final byte[] held = new byte[minBytes];
+        private int buffered;
+        private OutputStream target;
+        private boolean finished;
+
+        CompressingOutputStream(CompressingResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+            throws IOException {
+            if (target == null) {
+                if (buffered + length < held.length) {
+                    System.arraycopy(bytes, offset, held, buffered, length);
+                    buffered += length;
+                    return;
+                }
+                start(true);
+            }
+            target.write(bytes, offset, length);
+        }
+
+        /**
+         * Held back bytes stay until the body is large enough or finished
+         */
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (target == null) {
+                start(false);
+            }
+            target.close();
+        }
+
+        private void start(boolean compress) throws IOException {
+            target = response.open(compress);
+            target.write(held, 0, buffered);
+            buffered = 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            throw new UnsupportedOperationException(
+                "Compressed responses are written blocking"
+            );
+        }
+    }
+}
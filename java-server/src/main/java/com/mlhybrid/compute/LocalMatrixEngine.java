@@ -0,0 +1,444 @@
+package com.mlhybrid.compute;
+
+import com.mlhybrid.grpc.SchedulerRejectedException;
+import com.mlhybrid.model.Matrix;
+import com.mlhybrid.model.MatrixComputeRequest;
+import com.mlhybrid.model.MatrixComputeResponse;
+import io.grpc.Status;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pure-Java implementation of the matrix operations of
+ * {@code rust-server/src/matrix_ops.rs}, with the same statuses and error
+ * messages.
+ * <p>
+ * Used for inputs of at most {@code matrix.local.max-elements} values per
+ * operand, where the network hop costs more than the math, and as a
+ * fallback when the Rust servers are unavailable or saturated. Multiply
+ * and transpose are cache-blocked; large inputs are split by row range
+ * over a dedicated fork/join pool. The inner loops are written over
+ * contiguous rows so that the JIT can vectorize them.
+ */
+@Component
+public class LocalMatrixEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        LocalMatrixEngine.class
+    );
+
+    // Same messages as MatrixError in matrix_ops.rs
+    static final String DIMENSION_MISMATCH =
+        "Matrix dimensions do not match for the requested operation";
+    static final String NON_SQUARE =
+        "Operation requires a square matrix";
+    static final String SINGULAR =
+        "Matrix is singular and cannot be inverted";
+    static final String INVALID_OPERATION =
+        "Invalid matrix operation requested";
+
+    /** Tile edge for blocked multiply and transpose, in elements */
+    private static final int BLOCK = 64;
+
+    /** Multiply-adds (or element copies) below which a task runs inline */
+    private static final long SEQUENTIAL_WORK = 1L << 18;
+
+    private ForkJoinPool pool;
+
+    @Value("${matrix.local.enabled:true}")
+    private boolean enabled;
+
+    @Value("${matrix.local.max-elements:4096}")
+    private int maxElements;
+
+    @Value("${matrix.local.fallback:true}")
+    private boolean fallback;
+
+    @Value("${matrix.local.fallback-max-elements:1048576}")
+    private int fallbackMaxElements;
+
+    @Value("${matrix.local.parallelism:0}")
+    private int parallelism;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0
+            ? parallelism
+            : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        logger.info(
+            "Local matrix engine: {} threads, local up to {} elements, fallback {}",
+            threads,
+            enabled ? maxElements : 0,
+            fallback ? "up to " + fallbackMaxElements + " elements" : "off"
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Whether the request is small enough to be computed here rather than
+     * on the GPU
+     */
+    public boolean prefersLocal(MatrixComputeRequest request) {
+        return prefersLocal(largestOperand(request));
+    }
+
+    /**
+     * Whether operands and results of at most {@code elements} values each
+     * are small enough to be computed here rather than on the GPU
+     */
+    public boolean prefersLocal(long elements) {
+        return enabled && elements <= maxElements;
+    }
+
+    /**
+     * Whether a failed remote call should be retried locally: the call was
+     * rejected by the scheduler or the backend was unreachable, overloaded
+     * or too slow
+     */
+    public boolean shouldFallback(
+        MatrixComputeRequest request,
+        Throwable error
+    ) {
+        return shouldFallback(largestOperand(request), error);
+    }
+
+    /**
+     * {@link #shouldFallback(MatrixComputeRequest, Throwable)} for a
+     * computation whose operands and results have at most {@code elements}
+     * values each
+     */
+    public boolean shouldFallback(long elements, Throwable error) {
+        if (!fallback || elements > fallbackMaxElements) {
+            return false;
+        }
+        if (error instanceof SchedulerRejectedException) {
+            return true;
+        }
+        Status.Code code = Status.fromThrowable(error).getCode();
+        return (
+            code == Status.Code.UNAVAILABLE ||
+            code == Status.Code.RESOURCE_EXHAUSTED ||
+            code == Status.Code.DEADLINE_EXCEEDED
+        );
+    }
+
+    /**
+     * Compute on the engine's pool, off the calling thread
+     */
+    public CompletableFuture<MatrixComputeResponse> computeAsync(
+        MatrixComputeRequest request
+    ) {
+        return supplyAsync(() -> compute(request));
+    }
+
+    /**
+     * Run a computation made of several engine operations on the engine's
+     * pool, off the calling thread
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> computation) {
+        return CompletableFuture.supplyAsync(computation, pool);
+    }
+
+    /**
+     * Compute on the calling thread, splitting large operations over the
+     * engine's pool
+     */
+    public MatrixComputeResponse compute(MatrixComputeRequest request) {
+        long start = System.nanoTime();
+        Matrix a = request.getMatrixA();
+        Matrix b = request.getMatrixB();
+        if (a == null) {
+            return failed(request, "Missing matrix A");
+        }
+
+        Matrix result;
+        try {
+            switch (String.valueOf(request.getOperation())) {
+                case "multiply":
+                    result = multiply(a, required(b));
+                    break;
+                case "transpose":
+                    result = transpose(a);
+                    break;
+                case "inverse":
+                    result = inverse(a);
+                    break;
+                case "add":
+                    result = add(a, required(b));
+                    break;
+                case "subtract":
+                    result = subtract(a, required(b));
+                    break;
+                default:
+                    throw new ArithmeticException(INVALID_OPERATION);
+            }
+        } catch (ArithmeticException e) {
+            return failed(request, e.getMessage());
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        logger.debug(
+            "Computed {} locally for task {} in {} ms",
+            request.getOperation(),
+            request.getTaskId(),
+            elapsedMs
+        );
+        return new MatrixComputeResponse(
+            result,
+            request.getTaskId(),
+            "completed",
+            "",
+            elapsedMs
+        );
+    }
+
+    /**
+     * C = A * B, blocked over the inner and column dimensions so that a
+     * tile of B stays in cache while it is applied to a range of rows
+     */
+    public Matrix multiply(Matrix a, Matrix b) {
+        checkShape(a);
+        checkShape(b);
+        if (a.getCols() != b.getRows()) {
+            throw new ArithmeticException(DIMENSION_MISMATCH);
+        }
+        int m = a.getCols();
+        int n = b.getCols();
+        float[] ad = a.getData();
+        float[] bd = b.getData();
+        float[] c = new float[a.getRows() * n];
+
+        forRows(
+            a.getRows(),
+            (long) m * n,
+            (from, to) -> {
+                for (int kk = 0; kk < m; kk += BLOCK) {
+                    int kEnd = Math.min(kk + BLOCK, m);
+                    for (int jj = 0; jj < n; jj += BLOCK) {
+                        int jEnd = Math.min(jj + BLOCK, n);
+                        for (int i = from; i < to; i++) {
+                            int aRow = i * m;
+                            int cRow = i * n;
+                            for (int k = kk; k < kEnd; k++) {
+                                float aik = ad[aRow + k];
+                                int bRow = k * n;
+                                for (int j = jj; j < jEnd; j++) {
+                                    c[cRow + j] += aik * bd[bRow + j];
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        );
+        return new Matrix(a.getRows(), n, c);
+    }
+
+    /**
+     * B = A^T, copied tile by tile so both sides are walked in cache-sized
+     * pieces
+     */
+    public Matrix transpose(Matrix a) {
+        checkShape(a);
+        int rows = a.getRows();
+        int cols = a.getCols();
+        float[] ad = a.getData();
+        float[] t = new float[ad.length];
+
+        forRows(
+            rows,
+            cols,
+            (from, to) -> {
+                for (int ii = from; ii < to; ii += BLOCK) {
+                    int iEnd = Math.min(ii + BLOCK, to);
+                    for (int jj = 0; jj < cols; jj += BLOCK) {
+                        int jEnd = Math.min(jj + BLOCK, cols);
+                        for (int i = ii; i < iEnd; i++) {
+                            for (int j = jj; j < jEnd; j++) {
+                                t[j * rows + i] = ad[i * cols + j];
+                            }
+                        }
+                    }
+                }
+            }
+        );
+        return new Matrix(cols, rows, t);
+    }
+
+    /**
+     * B = A^(-1) of a 2x2 matrix by the closed-form adjugate over the
+     * determinant, in single precision. The Rust server only inverts 2x2
+     * matrices so far, so other sizes are refused as well, and a request
+     * fails the same way wherever it is routed.
+     */
+    public Matrix inverse(Matrix a) {
+        checkShape(a);
+        if (a.getRows() != a.getCols()) {
+            throw new ArithmeticException(NON_SQUARE);
+        }
+        if (a.getRows() != 2) {
+            throw new ArithmeticException(INVALID_OPERATION);
+        }
+        float[] ad = a.getData();
+        float det = ad[0] * ad[3] - ad[1] * ad[2];
+        if (Math.abs(det) < 1e-10f) {
+            throw new ArithmeticException(SINGULAR);
+        }
+        float invDet = 1 / det;
+        return new Matrix(
+            2,
+            2,
+            new float[] {
+                ad[3] * invDet,
+                -ad[1] * invDet,
+                -ad[2] * invDet,
+                ad[0] * invDet
+            }
+        );
+    }
+
+    public Matrix add(Matrix a, Matrix b) {
+        return elementwise(a, b, false);
+    }
+
+    public Matrix subtract(Matrix a, Matrix b) {
+        return elementwise(a, b, true);
+    }
+
+    private Matrix elementwise(Matrix a, Matrix b, boolean subtract) {
+        checkShape(a);
+        checkShape(b);
+        if (a.getRows() != b.getRows() || a.getCols() != b.getCols()) {
+            throw new ArithmeticException(DIMENSION_MISMATCH);
+        }
+        int cols = a.getCols();
+        float[] ad = a.getData();
+        float[] bd = b.getData();
+        float[] c = new float[ad.length];
+
+        forRows(
+            a.getRows(),
+            cols,
+            (from, to) -> {
+                int end = to * cols;
+                if (subtract) {
+                    for (int i = from * cols; i < end; i++) {
+                        c[i] = ad[i] - bd[i];
+                    }
+                } else {
+                    for (int i = from * cols; i < end; i++) {
+                        c[i] = ad[i] + bd[i];
+                    }
+                }
+            }
+        );
+        return new Matrix(a.getRows(), cols, c);
+    }
+
+    /**
+     * Run {@code body} over {@code [0, rows)}, split into row ranges on the
+     * pool when the total work is large enough to be worth it
+     */
+    private void forRows(int rows, long workPerRow, RowRange body) {
+        long work = rows * Math.max(1, workPerRow);
+        if (work <= SEQUENTIAL_WORK || rows < 2) {
+            body.apply(0, rows);
+            return;
+        }
+        int minRows = (int) Math.max(
+            1,
+            SEQUENTIAL_WORK / Math.max(1, workPerRow)
+        );
+        RowTask task = new RowTask(body, 0, rows, minRows);
+        if (ForkJoinTask.getPool() == pool) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    private static Matrix required(Matrix b) {
+        if (b == null) {
+            throw new ArithmeticException(DIMENSION_MISMATCH);
+        }
+        return b;
+    }
+
+    private static void checkShape(Matrix matrix) {
+        long elements = (long) matrix.getRows() * matrix.getCols();
+        if (elements != matrix.getData().length) {
+            throw new ArithmeticException(DIMENSION_MISMATCH);
+        }
+    }
+
+    private static long largestOperand(MatrixComputeRequest request) {
+        long largest = 0;
+        if (request.getMatrixA() != null) {
+            largest = request.getMatrixA().getData().length;
+        }
+        if (request.getMatrixB() != null) {
+            largest = Math.max(largest, request.getMatrixB().getData().length);
+        }
+        return largest;
+    }
+
+    private static MatrixComputeResponse failed(
+        MatrixComputeRequest request,
+        String error
+    ) {
+        return new MatrixComputeResponse(
+            null,
+            request.getTaskId(),
+            "failed",
+            error,
+            0
+        );
+    }
+
+    @FunctionalInterface
+    private interface RowRange {
+        void apply(int from, int to);
+    }
+
+    private static class RowTask extends RecursiveAction {
+
+        private final RowRange body;
+        private final int from;
+        private final int to;
+        private final int minRows;
+
+        RowTask(RowRange body, int from, int to, int minRows) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.minRows = minRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= minRows) {
+                body.apply(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                new RowTask(body, from, mid, minRows),
+                new RowTask(body, mid, to, minRows)
+            );
+        }
+    }
+}
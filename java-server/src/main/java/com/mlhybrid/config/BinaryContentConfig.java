@@ -0,0 +1,73 @@
+package com.mlhybrid.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mlhybrid.ingest.RawFloatHttpMessageConverter;
+import com.mlhybrid.metrics.PipelineMetrics;
+import com.mlhybrid.metrics.TimedCborHttpMessageConverter;
+import com.mlhybrid.metrics.TimedSmileHttpMessageConverter;
+import java.util.List;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Binary content types for request and response bodies, chosen by
+ * {@code Content-Type} and {@code Accept}: {@code application/cbor},
+ * {@code application/x-jackson-smile} and raw float32
+ * {@code application/octet-stream} (see
+ * {@link RawFloatHttpMessageConverter}). JSON stays the default for
+ * clients that accept anything.
+ */
+@Configuration
+public class BinaryContentConfig implements WebMvcConfigurer {
+
+    private final PipelineMetrics metrics;
+
+    public BinaryContentConfig(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Replaces the default CBOR converter with a timed one sharing Spring
+     * Boot's Jackson settings
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+        Jackson2ObjectMapperBuilder builder
+    ) {
+        return new TimedCborHttpMessageConverter(
+            builder.factory(new CBORFactory()).build(),
+            metrics
+        );
+    }
+
+    /**
+     * Replaces the default Smile converter with a timed one sharing Spring
+     * Boot's Jackson settings
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+        Jackson2ObjectMapperBuilder builder
+    ) {
+        return new TimedSmileHttpMessageConverter(
+            builder.factory(new SmileFactory()).build(),
+            metrics
+        );
+    }
+
+    /**
+     * The raw float converter goes last, so that it is only chosen when
+     * asked for by name
+     */
+    @Override
+    public void extendMessageConverters(
+        List<HttpMessageConverter<?>> converters
+    ) {
+        converters.add(new RawFloatHttpMessageConverter(metrics));
+    }
+}
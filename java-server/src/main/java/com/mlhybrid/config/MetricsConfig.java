@@ -0,0 +1,40 @@
+package com.mlhybrid.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mlhybrid.cache.MatrixResultCache;
+import com.mlhybrid.metrics.PipelineMetrics;
+import com.mlhybrid.metrics.TimedJacksonHttpMessageConverter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Replaces Spring Boot's default JSON converter with one that times
+     * request decoding and response encoding
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+        ObjectMapper objectMapper,
+        PipelineMetrics metrics
+    ) {
+        return new TimedJacksonHttpMessageConverter(objectMapper, metrics);
+    }
+
+    /**
+     * Hit, miss, eviction and size figures of the matrix result cache
+     */
+    @Bean
+    public MeterBinder matrixResultCacheMetrics(MatrixResultCache resultCache) {
+        return registry ->
+            CaffeineCacheMetrics.monitor(
+                registry,
+                resultCache.getCache(),
+                "matrix-results"
+            );
+    }
+}
@@ -0,0 +1,101 @@
+package com.mlhybrid.config;
+
+import com.mlhybrid.tracing.FileSpanExporter;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TracingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        TracingConfig.class
+    );
+
+    @Value("${tracing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tracing.exporter:none}")
+    private String exporter;
+
+    @Value("${tracing.file.path:traces.jsonl}")
+    private String filePath;
+
+    @Value("${tracing.sample-ratio:1.0}")
+    private double sampleRatio;
+
+    @Value("${spring.application.name:ml-hybrid-java-server}")
+    private String serviceName;
+
+    /**
+     * Span pipeline: parent-based ratio sampling and, with
+     * {@code tracing.exporter=file}, batched export to a JSON-lines file
+     */
+    @Bean(destroyMethod = "close")
+    public SdkTracerProvider sdkTracerProvider() throws IOException {
+        SdkTracerProviderBuilder builder = SdkTracerProvider.builder()
+            .setResource(
+                Resource.getDefault()
+                    .merge(
+                        Resource.create(
+                            Attributes.of(
+                                AttributeKey.stringKey("service.name"),
+                                serviceName
+                            )
+                        )
+                    )
+            )
+            .setSampler(
+                Sampler.parentBased(Sampler.traceIdRatioBased(sampleRatio))
+            );
+
+        if (enabled && "file".equalsIgnoreCase(exporter)) {
+            Path path = Path.of(filePath).toAbsolutePath();
+            builder.addSpanProcessor(
+                BatchSpanProcessor.builder(new FileSpanExporter(path)).build()
+            );
+            logger.info("Exporting trace spans to {}", path);
+        }
+        return builder.build();
+    }
+
+    /**
+     * W3C trace-context propagation over HTTP headers and gRPC metadata;
+     * a no-op implementation with {@code tracing.enabled=false}
+     */
+    @Bean
+    public OpenTelemetry openTelemetry(SdkTracerProvider tracerProvider) {
+        if (!enabled) {
+            return OpenTelemetry.noop();
+        }
+        return OpenTelemetrySdk.builder()
+            .setTracerProvider(tracerProvider)
+            .setPropagators(
+                ContextPropagators.create(
+                    W3CTraceContextPropagator.getInstance()
+                )
+            )
+            .build();
+    }
+
+    @Bean
+    public Tracer tracer(OpenTelemetry openTelemetry) {
+        return openTelemetry.getTracer("com.mlhybrid");
+    }
+}
@@ -0,0 +1,52 @@
+package com.mlhybrid.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Opt-in virtual-thread execution mode, {@code threads.virtual.enabled}.
+ * <p>
+ * Tomcat then processes each request on a new virtual thread instead of
+ * its bounded worker pool. Reading and writing large bodies and blocking
+ * stub calls then park a cheap virtual thread rather than hold one of
+ * {@code server.tomcat.threads.max} platform threads, so concurrency is
+ * bounded by {@code server.tomcat.max-connections} and the scheduler
+ * instead. gRPC callbacks and WebSocket sends switch to virtual threads as
+ * well (see {@code GrpcChannelPool} and {@code WebSocketBroadcaster}). On
+ * a JVM without virtual threads the setting is ignored with a warning.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        VirtualThreadConfig.class
+    );
+
+    @Value("${threads.virtual.enabled:false}")
+    private boolean enabled;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+        if (!enabled) {
+            return protocolHandler -> {};
+        }
+        if (!VirtualThreads.isAvailable()) {
+            logger.warn(
+                "threads.virtual.enabled is set but Java {} has no virtual threads; using platform threads",
+                System.getProperty("java.version")
+            );
+            return protocolHandler -> {};
+        }
+        logger.info(
+            "Request handling, gRPC callbacks and WebSocket sends run on virtual threads"
+        );
+        return protocolHandler ->
+            protocolHandler.setExecutor(
+                VirtualThreads.newThreadPerTaskExecutor("http-")
+            );
+    }
+}
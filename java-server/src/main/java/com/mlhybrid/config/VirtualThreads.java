@@ -0,0 +1,100 @@
+package com.mlhybrid.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads, looked up reflectively so that the server still builds
+ * for and runs on Java 11. They are available from Java 21 (and on 19/20
+ * with {@code --enable-preview}).
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = method(Thread.class, "ofVirtual");
+    private static final boolean AVAILABLE = probe();
+
+    private VirtualThreads() {}
+
+    /**
+     * Whether this JVM can start virtual threads
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Factory of virtual threads named {@code prefix} plus a counter
+     *
+     * @throws UnsupportedOperationException if virtual threads are not
+     *         available
+     */
+    public static ThreadFactory factory(String prefix) {
+        if (OF_VIRTUAL == null) {
+            throw new UnsupportedOperationException(
+                "Virtual threads need Java 21 or later"
+            );
+        }
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = builderType
+                .getMethod("name", String.class, long.class)
+                .invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType
+                .getMethod("factory")
+                .invoke(builder);
+        } catch (InvocationTargetException e) {
+            // Preview API without --enable-preview
+            throw new UnsupportedOperationException(
+                "Virtual threads are not enabled: " + e.getCause(),
+                e.getCause()
+            );
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException(
+                "Virtual threads are not available",
+                e
+            );
+        }
+    }
+
+    /**
+     * Executor that starts a new virtual thread per task, for blocking work
+     * that would otherwise need a large platform thread pool
+     *
+     * @throws UnsupportedOperationException if virtual threads are not
+     *         available
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        ThreadFactory factory = factory(prefix);
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException(
+                "Virtual threads are not available",
+                e
+            );
+        }
+    }
+
+    private static Method method(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static boolean probe() {
+        try {
+            factory("probe-");
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+}
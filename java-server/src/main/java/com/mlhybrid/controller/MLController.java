@@ -1,15 +1,29 @@
 package com.mlhybrid.controller;
 
+import com.mlhybrid.grpc.CallScheduler.Priority;
 import com.mlhybrid.grpc.GrpcClientService;
+import com.mlhybrid.grpc.SchedulerRejectedException;
+import com.mlhybrid.metrics.PipelineMetrics;
 import com.mlhybrid.model.ComputeRequest;
 import com.mlhybrid.model.ComputeResponse;
+import com.mlhybrid.model.FloatArrayList;
+import com.mlhybrid.task.TaskRecord;
+import com.mlhybrid.task.TaskRegistry;
+import com.mlhybrid.tracing.PipelineTracer;
 import com.mlhybrid.websocket.WebSocketHandler;
+import io.grpc.Status;
+import io.opentelemetry.context.Context;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,36 +37,77 @@ public class MLController {
 
     private final GrpcClientService grpcClientService;
     private final WebSocketHandler webSocketHandler;
+    private final TaskRegistry taskRegistry;
+    private final PipelineMetrics metrics;
+    private final PipelineTracer tracer;
 
     @Autowired
     public MLController(
         GrpcClientService grpcClientService,
-        WebSocketHandler webSocketHandler
+        WebSocketHandler webSocketHandler,
+        TaskRegistry taskRegistry,
+        PipelineMetrics metrics,
+        PipelineTracer tracer
     ) {
         this.grpcClientService = grpcClientService;
         this.webSocketHandler = webSocketHandler;
+        this.taskRegistry = taskRegistry;
+        this.metrics = metrics;
+        this.tracer = tracer;
     }
 
+    /**
+     * Run a computation. With {@code async=true} the request is answered
+     * with 202 Accepted right away and the result is polled from
+     * {@code /api/tasks/{taskId}}. The {@code X-Priority} header
+     * ({@code interactive} or {@code batch}) selects the scheduling class;
+     * asynchronous jobs default to batch. Answers 409 when the task is
+     * cancelled, 429 when the scheduler queue is full, 503 when no backend
+     * is reachable and 504 when the Rust server misses the call's deadline.
+     */
     @PostMapping("/compute")
-    public ResponseEntity<ComputeResponse> compute(
-        @RequestBody ComputeRequest request
+    public CompletableFuture<ResponseEntity<ComputeResponse>> compute(
+        @RequestBody ComputeRequest request,
+        @RequestParam(name = "async", defaultValue = "false") boolean async,
+        @RequestHeader(name = "X-Priority", required = false) String priority
     ) {
+        long start = System.nanoTime();
+
         // Generate a task ID if not provided
         if (request.getTaskId() == null || request.getTaskId().isEmpty()) {
             request.setTaskId(UUID.randomUUID().toString());
         }
 
         logger.info("Received compute request: {}", request);
+        tracer.tagRequest(
+            request.getTaskId(),
+            PipelineMetrics.COMPUTE,
+            request.getData() != null ? request.getData().size() : 0
+        );
+
+        TaskRecord task = null;
+        if (async) {
+            try {
+                task = taskRegistry.submit(request.getTaskId(), "compute");
+            } catch (IllegalStateException e) {
+                return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(errorResponse(request, e))
+                );
+            }
+        }
 
         // Notify clients that computation has started
         webSocketHandler.sendTaskUpdate(
             request.getTaskId(),
+            request.getTaskType(),
             "started",
             request.getData()
         );
 
+        CompletableFuture<ComputeResponse> call;
         try {
-            // Call the Rust gRPC service
+            // Call the Rust gRPC service without holding the servlet thread
             List<Float> data = request.getData();
             String taskType = request.getTaskType() != null
                 ? request.getTaskType()
@@ -65,44 +120,183 @@ public class MLController {
                 data.size()
             );
 
-            ComputeResponse response = grpcClientService.compute(
+            call = grpcClientService.computeAsync(
                 data,
                 request.getTaskId(),
-                taskType
+                taskType,
+                Priority.fromString(
+                    priority,
+                    async ? Priority.BATCH : Priority.INTERACTIVE
+                )
             );
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<ComputeResponse> rpc = call;
+        // Completion runs on gRPC threads; keep it in the request's trace
+        CompletableFuture<ResponseEntity<ComputeResponse>> outcome = call.handle(
+            Context.current()
+                .wrapFunction((response, error) ->
+                    error == null
+                        ? computeCompleted(request, response)
+                        : computeFailed(request, unwrap(error))
+                )
+        );
+        outcome.thenRun(() ->
+            metrics.record(
+                PipelineMetrics.HANDLE,
+                PipelineMetrics.COMPUTE,
+                request.getData() != null ? request.getData().size() : 0,
+                start
+            )
+        );
+        if (task == null || isRejected(outcome)) {
+            return outcome;
+        }
+
+        TaskRecord job = task;
+        job.attach(rpc);
+        outcome.thenAccept(response ->
+            job.finish(!rpc.isCompletedExceptionally(), response.getBody())
+        );
 
-            // Notify clients that computation is complete
+        ComputeResponse accepted = new ComputeResponse();
+        accepted.setTaskId(request.getTaskId());
+        accepted.setStatus(TaskRecord.RUNNING);
+        return CompletableFuture.completedFuture(
+            ResponseEntity.accepted()
+                .location(URI.create("/api/tasks/" + request.getTaskId()))
+                .body(accepted)
+        );
+    }
+
+    private ResponseEntity<ComputeResponse> computeCompleted(
+        ComputeRequest request,
+        ComputeResponse response
+    ) {
+        // Notify clients that computation is complete
+        webSocketHandler.sendTaskResult(
+            request.getTaskId(),
+            request.getTaskType(),
+            FloatArrayList.toFloatArray(response.getResult())
+        );
+
+        logger.info(
+            "Task completed: {}, results: {}",
+            request.getTaskId(),
+            response.getResult().size()
+        );
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<ComputeResponse> computeFailed(
+        ComputeRequest request,
+        Throwable e
+    ) {
+        if (e instanceof SchedulerRejectedException) {
+            logger.warn(
+                "Rejected task {}: {}",
+                request.getTaskId(),
+                e.getMessage()
+            );
             webSocketHandler.sendTaskUpdate(
                 request.getTaskId(),
-                "completed",
-                response.getResult()
+                request.getTaskType(),
+                "error",
+                Map.of("error", e.getMessage())
             );
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(errorResponse(request, e));
+        }
 
-            logger.info(
-                "Task completed: {}, results: {}",
+        if (e instanceof CancellationException) {
+            logger.info("Task cancelled: {}", request.getTaskId());
+            webSocketHandler.sendTaskUpdate(
                 request.getTaskId(),
-                response.getResult().size()
+                request.getTaskType(),
+                TaskRecord.CANCELLED,
+                Map.of()
             );
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Error processing computation: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(errorResponse(request, "Task cancelled"));
+        }
 
-            // Notify clients about the error
-            webSocketHandler.sendTaskUpdate(
+        HttpStatus status = failureStatus(e, HttpStatus.OK);
+        if (status == HttpStatus.OK) {
+            logger.error("Error processing computation: {}", e.getMessage(), e);
+        } else {
+            logger.warn(
+                "Task {} failed: {}",
                 request.getTaskId(),
-                "error",
-                Map.of("error", e.getMessage())
+                e.getMessage()
             );
+        }
+
+        // Notify clients about the error
+        webSocketHandler.sendTaskUpdate(
+            request.getTaskId(),
+            request.getTaskType(),
+            "error",
+            Map.of("error", String.valueOf(e.getMessage()))
+        );
+
+        return ResponseEntity.status(status).body(errorResponse(request, e));
+    }
+
+    private static ComputeResponse errorResponse(
+        ComputeRequest request,
+        Throwable e
+    ) {
+        return errorResponse(request, e.getMessage());
+    }
 
-            // Create error response
-            ComputeResponse errorResponse = new ComputeResponse();
-            errorResponse.setTaskId(request.getTaskId());
-            errorResponse.setStatus("error: " + e.getMessage());
+    private static ComputeResponse errorResponse(
+        ComputeRequest request,
+        String error
+    ) {
+        ComputeResponse errorResponse = new ComputeResponse();
+        errorResponse.setTaskId(request.getTaskId());
+        errorResponse.setStatus("error: " + error);
+        return errorResponse;
+    }
 
-            return ResponseEntity.ok(errorResponse);
+    /**
+     * Whether the scheduler already turned the request away
+     */
+    private static boolean isRejected(
+        CompletableFuture<ResponseEntity<ComputeResponse>> outcome
+    ) {
+        return (
+            outcome.isDone() &&
+            outcome.join().getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+        );
+    }
+
+    /**
+     * HTTP status for a failed call: 503 when no backend was reachable,
+     * 504 when the call ran out of its deadline
+     */
+    private static HttpStatus failureStatus(
+        Throwable e,
+        HttpStatus otherwise
+    ) {
+        switch (Status.fromThrowable(e).getCode()) {
+            case UNAVAILABLE:
+                return HttpStatus.SERVICE_UNAVAILABLE;
+            case DEADLINE_EXCEEDED:
+                return HttpStatus.GATEWAY_TIMEOUT;
+            default:
+                return otherwise;
         }
     }
 
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+            ? error.getCause()
+            : error;
+    }
+
     @GetMapping("/status")
     public ResponseEntity<String> status() {
         return ResponseEntity.ok("ML Hybrid System is running");
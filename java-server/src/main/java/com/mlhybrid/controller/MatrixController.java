@@ -1,16 +1,50 @@
 package com.mlhybrid.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.mlhybrid.cache.MatrixCacheKey;
+import com.mlhybrid.cache.MatrixResultCache;
+import com.mlhybrid.cache.OperandStore;
+import com.mlhybrid.cache.UnknownOperandException;
+import com.mlhybrid.compute.LocalMatrixEngine;
+import com.mlhybrid.expression.ExpressionExecutor;
+import com.mlhybrid.expression.ExpressionPlan;
+import com.mlhybrid.grpc.CallScheduler.Priority;
 import com.mlhybrid.grpc.GrpcClientService;
+import com.mlhybrid.grpc.SchedulerRejectedException;
+import com.mlhybrid.grpc.TiledMultiplyExecutor;
+import com.mlhybrid.ingest.MappedMatrix;
+import com.mlhybrid.ingest.MatrixFileNotFoundException;
+import com.mlhybrid.ingest.MatrixFileStore;
+import com.mlhybrid.ingest.StreamingMatrixRequest;
+import com.mlhybrid.metrics.PipelineMetrics;
 import com.mlhybrid.model.Matrix;
 import com.mlhybrid.model.MatrixComputeRequest;
 import com.mlhybrid.model.MatrixComputeResponse;
+import com.mlhybrid.model.MatrixExpressionRequest;
+import com.mlhybrid.model.MatrixFileComputeRequest;
+import com.mlhybrid.model.ResultPrecision;
+import com.mlhybrid.task.TaskRecord;
+import com.mlhybrid.tracing.PipelineTracer;
+import com.mlhybrid.task.TaskRegistry;
 import com.mlhybrid.websocket.WebSocketHandler;
+import io.grpc.Status;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -28,13 +62,65 @@ public class MatrixController {
     @Autowired
     private WebSocketHandler webSocketHandler;
 
+    @Autowired
+    private MatrixResultCache resultCache;
+
+    @Autowired
+    private OperandStore operandStore;
+
+    @Autowired
+    private MatrixFileStore matrixFiles;
+
+    @Autowired
+    private TaskRegistry taskRegistry;
+
+    @Autowired
+    private LocalMatrixEngine localEngine;
+
+    @Autowired
+    private TiledMultiplyExecutor tiledExecutor;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private PipelineTracer tracer;
+
+    @Autowired
+    private ExpressionExecutor expressionExecutor;
+
     /**
-     * Endpoint for matrix computation operations
+     * Endpoint for matrix computation operations. The servlet thread is
+     * released while the Rust server works on the request. With
+     * {@code async=true} the request is answered with 202 Accepted right
+     * away and the result is polled from {@code /api/tasks/{taskId}}.
+     * The {@code X-Priority} header ({@code interactive} or {@code batch})
+     * selects the scheduling class; asynchronous jobs default to batch.
+     * Operands may be given by the handle of a stored matrix, see
+     * {@link #storeOperand}; an unknown handle answers 404. With
+     * {@code precision} ({@code fp16}, {@code bf16} or {@code int8}) the
+     * result is returned in that precision, see {@link ResultPrecision}, as
+     * are those of the other compute endpoints. Answers 429 when
+     * the scheduler queue is full, 503 when no backend is reachable and 504
+     * when the Rust server misses the call's deadline.
      */
     @PostMapping("/compute")
-    public ResponseEntity<?> compute(
-        @RequestBody MatrixComputeRequest request
+    public CompletableFuture<ResponseEntity<?>> compute(
+        @RequestBody MatrixComputeRequest request,
+        @RequestParam(name = "async", defaultValue = "false") boolean async,
+        @RequestHeader(name = "X-Priority", required = false) String priority,
+        @RequestParam(name = "precision", required = false) String precision
     ) {
+        long start = System.nanoTime();
+        ResultPrecision resultPrecision;
+        try {
+            resultPrecision = ResultPrecision.fromString(precision);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()))
+            );
+        }
         if (request.getTaskId() == null || request.getTaskId().isEmpty()) {
             request.setTaskId("matrix-" + UUID.randomUUID().toString());
         }
@@ -44,11 +130,26 @@ public class MatrixController {
             request.getOperation(),
             request.getTaskId()
         );
+        try {
+            request.setMatrixA(operandStore.resolve(request.getMatrixA()));
+            request.setMatrixB(operandStore.resolve(request.getMatrixB()));
+        } catch (UnknownOperandException e) {
+            return CompletableFuture.completedFuture(
+                unknownOperand(e, request.getTaskId())
+            );
+        }
+        tracer.tagRequest(
+            request.getTaskId(),
+            request.getOperation(),
+            elementCount(request)
+        );
 
         // Validate input matrices
         if (request.getMatrixA() == null) {
-            return ResponseEntity.badRequest()
-                .body(Map.of("error", "Matrix A is required"));
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(Map.of("error", "Matrix A is required"))
+            );
         }
 
         // For operations requiring two matrices, validate matrix B
@@ -56,67 +157,916 @@ public class MatrixController {
             requiresMatrixB(request.getOperation()) &&
             request.getMatrixB() == null
         ) {
-            return ResponseEntity.badRequest()
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(
+                        Map.of(
+                            "error",
+                            "Matrix B is required for " +
+                            request.getOperation() +
+                            " operation"
+                        )
+                    )
+            );
+        }
+
+        // Every path relies on the values filling the declared shape
+        String shapeError = shapeError("A", request.getMatrixA());
+        if (shapeError == null && request.getMatrixB() != null) {
+            shapeError = shapeError("B", request.getMatrixB());
+        }
+        if (shapeError != null) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(
+                        Map.of(
+                            "error",
+                            shapeError,
+                            "taskId",
+                            request.getTaskId()
+                        )
+                    )
+            );
+        }
+
+        TaskRecord task = null;
+        if (async) {
+            try {
+                task = taskRegistry.submit(request.getTaskId(), "matrix");
+            } catch (IllegalStateException e) {
+                return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(
+                            Map.of(
+                                "error",
+                                e.getMessage(),
+                                "taskId",
+                                request.getTaskId()
+                            )
+                        )
+                );
+            }
+        }
+
+        CompletableFuture<ResponseEntity<?>> outcome = inPrecision(
+            execute(
+                request,
+                Priority.fromString(
+                    priority,
+                    async ? Priority.BATCH : Priority.INTERACTIVE
+                ),
+                task
+            ),
+            resultPrecision
+        );
+        outcome.thenRun(() ->
+            metrics.record(
+                PipelineMetrics.HANDLE,
+                request.getOperation(),
+                elementCount(request),
+                start
+            )
+        );
+        if (task == null || isRejected(outcome)) {
+            return outcome;
+        }
+
+        TaskRecord job = task;
+        outcome.thenAccept(response ->
+            job.finish(
+                response.getStatusCode().is2xxSuccessful(),
+                response.getBody()
+            )
+        );
+        return CompletableFuture.completedFuture(
+            ResponseEntity.accepted()
+                .location(URI.create("/api/tasks/" + request.getTaskId()))
                 .body(
-                    Map.of(
-                        "error",
-                        "Matrix B is required for " +
-                        request.getOperation() +
-                        " operation"
+                    new MatrixComputeResponse(
+                        null,
+                        request.getTaskId(),
+                        TaskRecord.RUNNING,
+                        "",
+                        0
                     )
+                )
+        );
+    }
+
+    /**
+     * Evaluate an expression over named operands in one request, e.g.
+     * {@code inverse(A) * B + C}. The expression is optimized before it
+     * runs and its intermediate results are not returned to the client.
+     * Answers 400 for a malformed expression or incompatible shapes;
+     * otherwise like {@link #compute}.
+     */
+    @PostMapping("/expression")
+    public CompletableFuture<ResponseEntity<?>> expression(
+        @RequestBody MatrixExpressionRequest request,
+        @RequestHeader(name = "X-Priority", required = false) String priority,
+        @RequestParam(name = "precision", required = false) String precision
+    ) {
+        long start = System.nanoTime();
+        ResultPrecision resultPrecision;
+        try {
+            resultPrecision = ResultPrecision.fromString(precision);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()))
+            );
+        }
+        String taskId = request.getTaskId() == null ||
+            request.getTaskId().isEmpty()
+            ? "expression-" + UUID.randomUUID().toString()
+            : request.getTaskId();
+
+        Map<String, Matrix> operands = new HashMap<>();
+        if (request.getOperands() != null) {
+            try {
+                for (Map.Entry<String, Matrix> operand : request
+                    .getOperands()
+                    .entrySet()) {
+                    operands.put(
+                        operand.getKey(),
+                        operandStore.resolve(operand.getValue())
+                    );
+                }
+            } catch (UnknownOperandException e) {
+                return CompletableFuture.completedFuture(
+                    unknownOperand(e, taskId)
                 );
+            }
         }
 
-        // Broadcast task started event via WebSocket
-        broadcastTaskStarted(request);
+        ExpressionPlan plan;
+        try {
+            plan = ExpressionPlan.compile(operands, request.getExpression());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage(), "taskId", taskId))
+            );
+        }
+
+        logger.info(
+            "Received matrix expression: taskId={}, operands={}, steps={}, multiply-adds={} (as written {})",
+            taskId,
+            plan.getOperandNames(),
+            plan.getSteps().size(),
+            (long) plan.getWork(),
+            (long) plan.getNaiveWork()
+        );
+        tracer.tagRequest(
+            taskId,
+            PipelineMetrics.EXPRESSION,
+            plan.getOperandElements()
+        );
+
+        // Stands in for the expression in responses and broadcasts
+        MatrixComputeRequest task = new MatrixComputeRequest(
+            null,
+            null,
+            taskId,
+            PipelineMetrics.EXPRESSION
+        );
+        broadcastTaskStarted(task);
 
-        // Process the request
+        CompletableFuture<MatrixComputeResponse> call;
         try {
-            // Send the request to the Rust server via gRPC
-            MatrixComputeResponse response = grpcClientService.matrixCompute(
-                request
-            );
-
-            // For successful operations, broadcast the result
-            if ("completed".equals(response.getStatus())) {
-                broadcastTaskCompleted(response);
-                return ResponseEntity.ok(response);
-            } else {
-                // Handle computation errors
-                broadcastTaskFailed(response);
-                return ResponseEntity.unprocessableEntity()
+            call = expressionExecutor.evaluate(
+                taskId,
+                plan,
+                Priority.fromString(priority, Priority.INTERACTIVE)
+            );
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        Context traceContext = Context.current();
+        CompletableFuture<ResponseEntity<?>> outcome = call.handle(
+            traceContext.wrapFunction((response, error) ->
+                error != null
+                    ? handleError(task, unwrap(error))
+                    : handleResponse(task, response)
+            )
+        );
+        outcome.thenRun(() ->
+            metrics.record(
+                PipelineMetrics.HANDLE,
+                PipelineMetrics.EXPRESSION,
+                plan.getOperandElements(),
+                start
+            )
+        );
+        return inPrecision(outcome, resultPrecision);
+    }
+
+    /**
+     * Compute on matrices kept in files, see {@link #uploadFile}. The
+     * operands are memory-mapped and streamed to the Rust server in chunks
+     * without being copied onto the heap, so they may be far larger than a
+     * JSON body; the result is returned as JSON. Such requests always go to
+     * the Rust server, are not cached and do not fall back to the local
+     * engine. Answers 404 for an unknown file and 400 for an invalid one;
+     * otherwise like {@link #compute}.
+     */
+    @PostMapping("/compute/file")
+    public CompletableFuture<ResponseEntity<?>> computeFile(
+        @RequestBody MatrixFileComputeRequest request,
+        @RequestHeader(name = "X-Priority", required = false) String priority,
+        @RequestParam(name = "precision", required = false) String precision
+    ) {
+        long start = System.nanoTime();
+        ResultPrecision resultPrecision;
+        try {
+            resultPrecision = ResultPrecision.fromString(precision);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()))
+            );
+        }
+        String taskId = request.getTaskId() == null ||
+            request.getTaskId().isEmpty()
+            ? "matrix-" + UUID.randomUUID().toString()
+            : request.getTaskId();
+        String operation = request.getOperation();
+
+        if (request.getMatrixA() == null) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(Map.of("error", "Matrix A is required"))
+            );
+        }
+        if (requiresMatrixB(operation) && request.getMatrixB() == null) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(
+                        Map.of(
+                            "error",
+                            "Matrix B is required for " +
+                            operation +
+                            " operation"
+                        )
+                    )
+            );
+        }
+
+        MappedMatrix a;
+        MappedMatrix b;
+        try {
+            a = matrixFiles.open(request.getMatrixA());
+            b = request.getMatrixB() != null
+                ? matrixFiles.open(request.getMatrixB())
+                : null;
+        } catch (MatrixFileNotFoundException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage(), "taskId", taskId))
+            );
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage(), "taskId", taskId))
+            );
+        }
+
+        long elements = a.getElements() + (b != null ? b.getElements() : 0);
+        logger.info(
+            "Received matrix file compute request: operation={}, taskId={}, A={}x{}, B={}",
+            operation,
+            taskId,
+            a.getRows(),
+            a.getCols(),
+            b != null ? b.getRows() + "x" + b.getCols() : "none"
+        );
+        tracer.tagRequest(taskId, operation, elements);
+
+        // Stands in for the request in responses and broadcasts
+        MatrixComputeRequest task = new MatrixComputeRequest(
+            null,
+            null,
+            taskId,
+            operation
+        );
+        broadcastTaskStarted(task);
+
+        CompletableFuture<MatrixComputeResponse> call;
+        try {
+            call = tracer.traced(
+                "matrix.remote",
+                taskId,
+                () ->
+                    grpcClientService.matrixComputeStream(
+                        taskId,
+                        operation,
+                        a,
+                        b,
+                        Priority.fromString(priority, Priority.INTERACTIVE)
+                    )
+            );
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        Context traceContext = Context.current();
+        CompletableFuture<ResponseEntity<?>> outcome = call.handle(
+            traceContext.wrapFunction((response, error) ->
+                error != null
+                    ? handleError(task, unwrap(error))
+                    : handleResponse(task, response)
+            )
+        );
+        outcome.thenRun(() ->
+            metrics.record(PipelineMetrics.HANDLE, operation, elements, start)
+        );
+        return inPrecision(outcome, resultPrecision);
+    }
+
+    /**
+     * Matrix computation whose JSON body is forwarded to the Rust server
+     * while it is still arriving, for multi-megabyte operands. The body has
+     * the form of {@link #compute}'s, with {@code operation} before the
+     * operands and each operand's {@code rows} and {@code cols} before its
+     * {@code data}. Operand values are decoded straight into primitive row
+     * blocks that are streamed over {@code MatrixComputeStream} as they are
+     * read, so the request is never held whole. Such requests always go to
+     * the Rust server, are not cached, retried or hedged and do not fall
+     * back to the local engine. Answers 400 for a malformed body; otherwise
+     * like {@link #compute}.
+     */
+    @PostMapping("/compute/stream")
+    public CompletableFuture<ResponseEntity<?>> computeStream(
+        @RequestBody StreamingMatrixRequest request,
+        @RequestHeader(name = "X-Priority", required = false) String priority,
+        @RequestParam(name = "precision", required = false) String precision
+    ) {
+        long start = System.nanoTime();
+        ResultPrecision resultPrecision;
+        try {
+            resultPrecision = ResultPrecision.fromString(precision);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()))
+            );
+        }
+        String taskId = request.getTaskId() == null ||
+            request.getTaskId().isEmpty()
+            ? "matrix-" + UUID.randomUUID().toString()
+            : request.getTaskId();
+        String operation = request.getOperation();
+
+        if (operation == null || operation.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest()
                     .body(
                         Map.of(
                             "error",
-                            response.getErrorMessage(),
+                            "operation must precede the operands",
                             "taskId",
-                            response.getTaskId(),
-                            "status",
-                            response.getStatus()
+                            taskId
                         )
-                    );
+                    )
+            );
+        }
+
+        logger.info(
+            "Received streamed matrix compute request: operation={}, taskId={}",
+            operation,
+            taskId
+        );
+
+        // Stands in for the request in responses and broadcasts
+        MatrixComputeRequest task = new MatrixComputeRequest(
+            null,
+            null,
+            taskId,
+            operation
+        );
+        broadcastTaskStarted(task);
+
+        CompletableFuture<MatrixComputeResponse> call;
+        try {
+            call = tracer.traced(
+                "matrix.remote",
+                taskId,
+                () -> {
+                    try {
+                        return grpcClientService.matrixComputeStream(
+                            taskId,
+                            request,
+                            Priority.fromString(priority, Priority.INTERACTIVE)
+                        );
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            );
+        } catch (UncheckedIOException e) {
+            return CompletableFuture.completedFuture(
+                invalidStream(task, bodyError(e.getCause()))
+            );
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        String missing = !request.hasMatrixA()
+            ? "Matrix A is required"
+            : requiresMatrixB(operation) && !request.hasMatrixB()
+                ? "Matrix B is required for " + operation + " operation"
+                : null;
+        if (missing != null && !call.isDone()) {
+            call.cancel(true);
+            return CompletableFuture.completedFuture(
+                invalidStream(task, missing)
+            );
+        }
+
+        long elements = request.getElements();
+        tracer.tagRequest(taskId, operation, elements);
+        Context traceContext = Context.current();
+        CompletableFuture<ResponseEntity<?>> outcome = call.handle(
+            traceContext.wrapFunction((response, error) ->
+                error != null
+                    ? handleError(task, unwrap(error))
+                    : handleResponse(task, response)
+            )
+        );
+        outcome.thenRun(() ->
+            metrics.record(PipelineMetrics.HANDLE, operation, elements, start)
+        );
+        return inPrecision(outcome, resultPrecision);
+    }
+
+    /**
+     * Upload a matrix file for {@link #computeFile} as the raw request
+     * body: a {@code .npy} float32 array, or row-major float32 data whose
+     * dimensions are given when it is used. The body is streamed to disk.
+     */
+    @PostMapping(value = "/files", consumes = "application/octet-stream")
+    public ResponseEntity<?> uploadFile(InputStream body) {
+        Map<String, Object> file;
+        try {
+            file = matrixFiles.upload(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.created(
+            URI.create("/api/matrix/files/" + file.get("file"))
+        ).body(file);
+    }
+
+    /**
+     * Delete an uploaded matrix file
+     */
+    @DeleteMapping("/files/{file}")
+    public ResponseEntity<?> deleteFile(@PathVariable String file) {
+        if (!matrixFiles.delete(file)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Unknown matrix file: " + file));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Store a matrix for later requests, which refer to it as
+     * {@code {"handle": "..."}} in place of its data. Storing the same
+     * matrix again returns the same handle.
+     */
+    @PostMapping("/operands")
+    public ResponseEntity<?> storeOperand(@RequestBody Matrix matrix) {
+        String handle;
+        try {
+            handle = operandStore.put(matrix);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.created(
+            URI.create("/api/matrix/operands/" + handle)
+        ).body(
+            Map.of(
+                "handle",
+                handle,
+                "rows",
+                matrix.getRows(),
+                "cols",
+                matrix.getCols()
+            )
+        );
+    }
+
+    /**
+     * Drop a stored matrix
+     */
+    @DeleteMapping("/operands/{handle}")
+    public ResponseEntity<?> removeOperand(@PathVariable String handle) {
+        if (!operandStore.remove(handle)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Unknown operand handle: " + handle));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Size figures of the operand store
+     */
+    @GetMapping("/operands")
+    public ResponseEntity<Map<String, Object>> operandStats() {
+        return ResponseEntity.ok(operandStore.stats());
+    }
+
+    /**
+     * Serve a validated request from the cache, the local engine or the
+     * Rust server, falling back to the local engine when the Rust server
+     * is unavailable or saturated
+     *
+     * @param task job record to attach the gRPC call to, or {@code null}
+     */
+    private CompletableFuture<ResponseEntity<?>> execute(
+        MatrixComputeRequest request,
+        Priority priority,
+        TaskRecord task
+    ) {
+        // Broadcast task started event via WebSocket
+        broadcastTaskStarted(request);
+
+        // Identical operation and operands produce the same result
+        long cacheStart = System.nanoTime();
+        Span cacheSpan = tracer.start("matrix.cache", request.getTaskId());
+        MatrixCacheKey cacheKey = resultCache.keyFor(request);
+        Matrix cached = resultCache.get(cacheKey);
+        if (cacheKey != null) {
+            metrics.record(
+                PipelineMetrics.CACHE,
+                request.getOperation(),
+                elementCount(request),
+                cacheStart
+            );
+        }
+        cacheSpan.setAttribute("cache.hit", cached != null);
+        cacheSpan.end();
+        if (cached != null) {
+            logger.info(
+                "Serving matrix result from cache for task: {}",
+                request.getTaskId()
+            );
+            return CompletableFuture.completedFuture(
+                handleResponse(
+                    request,
+                    new MatrixComputeResponse(
+                        cached,
+                        request.getTaskId(),
+                        "completed",
+                        "",
+                        0
+                    )
+                )
+            );
+        }
+
+        // Small operands cost less to compute here than to ship to the GPU
+        if (localEngine.prefersLocal(request)) {
+            long localStart = System.nanoTime();
+            Span localSpan = tracer.start("matrix.local", request.getTaskId());
+            MatrixComputeResponse response;
+            try (Scope ignored = localSpan.makeCurrent()) {
+                response = localEngine.compute(request);
+            } finally {
+                localSpan.end();
             }
+            metrics.record(
+                PipelineMetrics.LOCAL,
+                request.getOperation(),
+                elementCount(request),
+                localStart
+            );
+            return CompletableFuture.completedFuture(
+                handleComputed(request, cacheKey, response)
+            );
+        }
+
+        // Send the request to the Rust server via gRPC, spreading large
+        // multiplies over all backends
+        CompletableFuture<MatrixComputeResponse> call;
+        try {
+            call = tracer.traced(
+                "matrix.remote",
+                request.getTaskId(),
+                () ->
+                    tiledExecutor.shouldTile(request)
+                        ? tiledExecutor.multiply(request, priority)
+                        : grpcClientService.matrixComputeAsync(request, priority)
+            );
         } catch (Exception e) {
-            logger.error(
-                "Error processing matrix computation: {}",
-                e.getMessage(),
-                e
+            call = CompletableFuture.failedFuture(e);
+        }
+        if (task != null) {
+            task.attach(call);
+        }
+
+        // Completion runs on gRPC threads; keep it in the request's trace
+        Context traceContext = Context.current();
+        return call
+            .handle(
+                traceContext.wrapFunction((response, error) ->
+                    error == null
+                        ? CompletableFuture.completedFuture(response)
+                        : fallback(request, unwrap(error))
+                )
+            )
+            .thenCompose(response -> response)
+            .handle(
+                traceContext.wrapFunction((response, error) -> {
+                    if (error != null) {
+                        return handleError(request, unwrap(error));
+                    }
+                    return handleComputed(request, cacheKey, response);
+                })
             );
+    }
 
-            // Broadcast error via WebSocket
-            broadcastTaskError(request.getTaskId(), e.getMessage());
+    /**
+     * Recompute a request whose gRPC call failed on the local engine, if
+     * the failure qualifies, otherwise pass the failure on
+     */
+    private CompletableFuture<MatrixComputeResponse> fallback(
+        MatrixComputeRequest request,
+        Throwable error
+    ) {
+        if (!localEngine.shouldFallback(request, error)) {
+            return CompletableFuture.failedFuture(error);
+        }
+        logger.warn(
+            "Computing matrix task {} locally: {}",
+            request.getTaskId(),
+            error.getMessage()
+        );
+        long start = System.nanoTime();
+        return tracer
+            .traced(
+                "matrix.local",
+                request.getTaskId(),
+                () -> localEngine.computeAsync(request)
+            )
+            .whenComplete((response, failure) ->
+                metrics.record(
+                    PipelineMetrics.LOCAL,
+                    request.getOperation(),
+                    elementCount(request),
+                    start
+                )
+            );
+    }
+
+    /**
+     * Cache a successful result and map the response
+     */
+    private ResponseEntity<?> handleComputed(
+        MatrixComputeRequest request,
+        MatrixCacheKey cacheKey,
+        MatrixComputeResponse response
+    ) {
+        if ("completed".equals(response.getStatus())) {
+            resultCache.put(cacheKey, response.getResultMatrix());
+        }
+        return handleResponse(request, response);
+    }
+
+    /**
+     * Hit/miss statistics of the matrix result cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(resultCache.stats());
+    }
+
+    /**
+     * Map a finished gRPC matrix response to the HTTP response
+     */
+    private ResponseEntity<?> handleResponse(
+        MatrixComputeRequest request,
+        MatrixComputeResponse response
+    ) {
+        // For successful operations, broadcast the result
+        if ("completed".equals(response.getStatus())) {
+            broadcastTaskCompleted(request, response);
+            return ResponseEntity.ok(response);
+        }
+
+        // Handle computation errors
+        broadcastTaskFailed(request, response);
+        return ResponseEntity.unprocessableEntity()
+            .body(
+                Map.of(
+                    "error",
+                    response.getErrorMessage(),
+                    "taskId",
+                    response.getTaskId(),
+                    "status",
+                    response.getStatus()
+                )
+            );
+    }
+
+    /**
+     * Return the result of a successful response, and of the job polled
+     * for it, in the precision the client asked for. The cached and
+     * broadcast result keeps full precision, so the response is a copy
+     * sharing the values.
+     */
+    private static CompletableFuture<ResponseEntity<?>> inPrecision(
+        CompletableFuture<ResponseEntity<?>> outcome,
+        ResultPrecision precision
+    ) {
+        if (precision == ResultPrecision.FLOAT32) {
+            return outcome;
+        }
+        return outcome.thenApply(entity -> {
+            if (!(entity.getBody() instanceof MatrixComputeResponse)) {
+                return entity;
+            }
+            MatrixComputeResponse response =
+                (MatrixComputeResponse) entity.getBody();
+            if (response.getResultMatrix() == null) {
+                return entity;
+            }
+            return ResponseEntity.status(entity.getStatusCode())
+                .headers(entity.getHeaders())
+                .header("X-Result-Precision", precision.getName())
+                .body(response.withResultPrecision(precision));
+        });
+    }
 
-            return ResponseEntity.internalServerError()
+    /**
+     * Map a failed gRPC call to the HTTP response
+     */
+    private ResponseEntity<?> handleError(
+        MatrixComputeRequest request,
+        Throwable e
+    ) {
+        if (e instanceof SchedulerRejectedException) {
+            logger.warn(
+                "Rejected matrix task {}: {}",
+                request.getTaskId(),
+                e.getMessage()
+            );
+            broadcastTaskError(request, e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
                 .body(
                     Map.of(
                         "error",
-                        "Error processing matrix computation: " +
                         e.getMessage(),
                         "taskId",
                         request.getTaskId()
                     )
                 );
         }
+
+        if (e instanceof CancellationException) {
+            logger.info("Matrix task cancelled: {}", request.getTaskId());
+            broadcastTaskCancelled(request);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(
+                    Map.of(
+                        "error",
+                        "Task cancelled",
+                        "taskId",
+                        request.getTaskId()
+                    )
+                );
+        }
+
+        HttpStatus status = failureStatus(e, HttpStatus.INTERNAL_SERVER_ERROR);
+        if (status == HttpStatus.INTERNAL_SERVER_ERROR) {
+            logger.error(
+                "Error processing matrix computation: {}",
+                e.getMessage(),
+                e
+            );
+        } else {
+            logger.warn(
+                "Matrix task {} failed: {}",
+                request.getTaskId(),
+                e.getMessage()
+            );
+        }
+
+        // Broadcast error via WebSocket
+        broadcastTaskError(request, e.getMessage());
+
+        return ResponseEntity.status(status)
+            .body(
+                Map.of(
+                    "error",
+                    "Error processing matrix computation: " + e.getMessage(),
+                    "taskId",
+                    request.getTaskId()
+                )
+            );
+    }
+
+    /**
+     * Answer a streamed request whose body turned out to be invalid after
+     * its call had started
+     */
+    private ResponseEntity<?> invalidStream(
+        MatrixComputeRequest request,
+        String error
+    ) {
+        logger.warn(
+            "Invalid streamed matrix request {}: {}",
+            request.getTaskId(),
+            error
+        );
+        broadcastTaskError(request, error);
+        return ResponseEntity.badRequest()
+            .body(Map.of("error", error, "taskId", request.getTaskId()));
+    }
+
+    private static String bodyError(IOException e) {
+        return e instanceof JsonProcessingException
+            ? ((JsonProcessingException) e).getOriginalMessage()
+            : String.valueOf(e.getMessage());
+    }
+
+    private static ResponseEntity<?> unknownOperand(
+        UnknownOperandException e,
+        String taskId
+    ) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+            .body(Map.of("error", e.getMessage(), "taskId", taskId));
+    }
+
+    /**
+     * Whether the scheduler already turned the request away
+     */
+    private static boolean isRejected(
+        CompletableFuture<ResponseEntity<?>> outcome
+    ) {
+        return (
+            outcome.isDone() &&
+            outcome.join().getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+        );
+    }
+
+    private static long elementCount(MatrixComputeRequest request) {
+        long count = 0;
+        if (request.getMatrixA() != null) {
+            count += request.getMatrixA().getData().length;
+        }
+        if (request.getMatrixB() != null) {
+            count += request.getMatrixB().getData().length;
+        }
+        return count;
+    }
+
+    /**
+     * HTTP status for a failed call: 503 when no backend was reachable,
+     * 504 when the call ran out of its deadline
+     */
+    private static HttpStatus failureStatus(
+        Throwable e,
+        HttpStatus otherwise
+    ) {
+        switch (Status.fromThrowable(e).getCode()) {
+            case UNAVAILABLE:
+                return HttpStatus.SERVICE_UNAVAILABLE;
+            case DEADLINE_EXCEEDED:
+                return HttpStatus.GATEWAY_TIMEOUT;
+            default:
+                return otherwise;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+            ? error.getCause()
+            : error;
+    }
+
+    /**
+     * Describe how a matrix's values fail to fill its declared shape
+     *
+     * @return the error, or {@code null} if the shape is consistent
+     */
+    private static String shapeError(String name, Matrix matrix) {
+        if (
+            matrix.getRows() >= 0 &&
+            matrix.getCols() >= 0 &&
+            (long) matrix.getRows() * matrix.getCols() ==
+            matrix.getData().length
+        ) {
+            return null;
+        }
+        return (
+            "Matrix " + name + " has " + matrix.getData().length +
+            " values but is declared " + matrix.getRows() + "x" +
+            matrix.getCols()
+        );
     }
 
     /**
@@ -146,16 +1096,25 @@ public class MatrixController {
     /**
      * Broadcast task completed event via WebSocket
      */
-    private void broadcastTaskCompleted(MatrixComputeResponse response) {
+    private void broadcastTaskCompleted(
+        MatrixComputeRequest request,
+        MatrixComputeResponse response
+    ) {
         Map<String, Object> message = new HashMap<>();
         message.put("taskId", response.getTaskId());
         message.put("status", "completed");
+        message.put("operation", request.getOperation());
         message.put("executionTimeMs", response.getExecutionTimeMs());
         message.put("timestamp", System.currentTimeMillis());
 
         if (response.getResultMatrix() != null) {
             message.put("rows", response.getResultMatrix().getRows());
             message.put("cols", response.getResultMatrix().getCols());
+            webSocketHandler.broadcastResult(
+                message,
+                response.getResultMatrix()
+            );
+            return;
         }
 
         webSocketHandler.broadcastMessage(message);
@@ -164,23 +1123,44 @@ public class MatrixController {
     /**
      * Broadcast task failed event via WebSocket
      */
-    private void broadcastTaskFailed(MatrixComputeResponse response) {
+    private void broadcastTaskFailed(
+        MatrixComputeRequest request,
+        MatrixComputeResponse response
+    ) {
         Map<String, Object> message = new HashMap<>();
         message.put("taskId", response.getTaskId());
         message.put("status", "failed");
+        message.put("operation", request.getOperation());
         message.put("error", response.getErrorMessage());
         message.put("timestamp", System.currentTimeMillis());
 
         webSocketHandler.broadcastMessage(message);
     }
 
+    /**
+     * Broadcast task cancelled event via WebSocket
+     */
+    private void broadcastTaskCancelled(MatrixComputeRequest request) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("taskId", request.getTaskId());
+        message.put("status", TaskRecord.CANCELLED);
+        message.put("operation", request.getOperation());
+        message.put("timestamp", System.currentTimeMillis());
+
+        webSocketHandler.broadcastMessage(message);
+    }
+
     /**
      * Broadcast error via WebSocket
      */
-    private void broadcastTaskError(String taskId, String errorMessage) {
+    private void broadcastTaskError(
+        MatrixComputeRequest request,
+        String errorMessage
+    ) {
         Map<String, Object> message = new HashMap<>();
-        message.put("taskId", taskId);
+        message.put("taskId", request.getTaskId());
         message.put("status", "error");
+        message.put("operation", request.getOperation());
         message.put("error", errorMessage);
         message.put("timestamp", System.currentTimeMillis());
 
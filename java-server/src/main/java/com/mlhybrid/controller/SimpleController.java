@@ -1,9 +1,15 @@
 package com.mlhybrid.controller;
 
+import com.mlhybrid.grpc.CallScheduler;
+import com.mlhybrid.grpc.GrpcBackend;
+import com.mlhybrid.grpc.GrpcChannelPool;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -14,6 +20,18 @@ public class SimpleController {
         SimpleController.class
     );
 
+    private final GrpcChannelPool channelPool;
+    private final CallScheduler scheduler;
+
+    @Autowired
+    public SimpleController(
+        GrpcChannelPool channelPool,
+        CallScheduler scheduler
+    ) {
+        this.channelPool = channelPool;
+        this.scheduler = scheduler;
+    }
+
     @GetMapping("/status")
     public Map<String, Object> getStatus() {
         logger.info("Status endpoint called");
@@ -27,10 +45,28 @@ public class SimpleController {
     @GetMapping("/rust-status")
     public Map<String, Object> getRustStatus() {
         logger.info("Rust status endpoint called");
+        List<Map<String, Object>> backends = new ArrayList<>();
+        boolean connected = false;
+        for (GrpcBackend backend : channelPool.getBackends()) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("address", backend.getTarget());
+            entry.put("ready", backend.isReady());
+            entry.put("current_load", backend.getCurrentLoad());
+            entry.put("outstanding", backend.getOutstanding());
+            entry.put("circuit", backend.getCircuitState());
+            entry.put("gpu_info", backend.getGpuInfo());
+            entry.put("error", backend.getLastError());
+            backends.add(entry);
+            connected |= backend.isReady();
+        }
+
         Map<String, Object> response = new HashMap<>();
-        response.put("connected", true);
+        response.put("connected", connected);
         response.put("rust_service", "ML GPU Server");
-        response.put("rust_address", "localhost:50051");
+        response.put("rust_address", backends.get(0).get("address"));
+        response.put("load_balancing", channelPool.getStrategy());
+        response.put("backends", backends);
+        response.put("scheduler", scheduler.stats());
         return response;
     }
 }
@@ -0,0 +1,70 @@
+package com.mlhybrid.controller;
+
+import com.mlhybrid.task.TaskRecord;
+import com.mlhybrid.task.TaskRegistry;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Status, results and cancellation of jobs submitted with
+ * {@code async=true} to the compute endpoints.
+ */
+@RestController
+@RequestMapping("/api/tasks")
+public class TaskController {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        TaskController.class
+    );
+
+    private final TaskRegistry taskRegistry;
+
+    @Autowired
+    public TaskController(TaskRegistry taskRegistry) {
+        this.taskRegistry = taskRegistry;
+    }
+
+    @GetMapping("/{taskId}")
+    public ResponseEntity<?> getTask(@PathVariable String taskId) {
+        Optional<TaskRecord> task = taskRegistry.get(taskId);
+        if (task.isEmpty()) {
+            return notFound(taskId);
+        }
+        return ResponseEntity.ok(task.get());
+    }
+
+    /**
+     * Cancel a running job; the in-flight gRPC call is cancelled as well
+     */
+    @DeleteMapping("/{taskId}")
+    public ResponseEntity<?> cancelTask(@PathVariable String taskId) {
+        TaskRecord task = taskRegistry.get(taskId).orElse(null);
+        if (task == null) {
+            return notFound(taskId);
+        }
+        if (!task.cancel()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(
+                    Map.of(
+                        "error",
+                        "Task already " + task.getStatus(),
+                        "taskId",
+                        taskId
+                    )
+                );
+        }
+        logger.info("Cancelled task {}", taskId);
+        return ResponseEntity.ok(task);
+    }
+
+    private static ResponseEntity<?> notFound(String taskId) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+            .body(Map.of("error", "Unknown task", "taskId", taskId));
+    }
+}
@@ -0,0 +1,424 @@
+package com.mlhybrid.expression;
+
+import com.mlhybrid.compute.LocalMatrixEngine;
+import com.mlhybrid.grpc.CallScheduler.Priority;
+import com.mlhybrid.grpc.GrpcClientService;
+import com.mlhybrid.grpc.TiledMultiplyExecutor;
+import com.mlhybrid.metrics.PipelineMetrics;
+import com.mlhybrid.model.Matrix;
+import com.mlhybrid.model.MatrixComputeRequest;
+import com.mlhybrid.model.MatrixComputeResponse;
+import com.mlhybrid.tracing.PipelineTracer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evaluates compiled {@link ExpressionPlan}s.
+ * <p>
+ * An expression whose operands and intermediates are all small enough for
+ * the {@link LocalMatrixEngine} is evaluated here. Otherwise, if its
+ * operands and result add up to at most
+ * {@code matrix.expression.single-call-max-elements} values, the whole
+ * plan is sent in one {@code MatrixExpression} call and intermediates
+ * never cross the network. Larger expressions are evaluated step by step,
+ * each step going wherever a single matrix request would (locally, tiled
+ * or to one backend) as soon as its inputs are ready, so that independent
+ * branches run in parallel. Failures that qualify fall back to the local
+ * engine, like single requests do.
+ */
+@Component
+public class ExpressionExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        ExpressionExecutor.class
+    );
+
+    private final GrpcClientService grpcClientService;
+    private final TiledMultiplyExecutor tiledExecutor;
+    private final LocalMatrixEngine localEngine;
+    private final PipelineMetrics metrics;
+    private final PipelineTracer tracer;
+
+    @Value("${matrix.expression.single-call-max-elements:524288}")
+    private long singleCallMaxElements;
+
+    @Autowired
+    public ExpressionExecutor(
+        GrpcClientService grpcClientService,
+        TiledMultiplyExecutor tiledExecutor,
+        LocalMatrixEngine localEngine,
+        PipelineMetrics metrics,
+        PipelineTracer tracer
+    ) {
+        this.grpcClientService = grpcClientService;
+        this.tiledExecutor = tiledExecutor;
+        this.localEngine = localEngine;
+        this.metrics = metrics;
+        this.tracer = tracer;
+    }
+
+    /**
+     * Evaluate a plan. Resolves to a {@code failed} response if a step
+     * fails on the server, and exceptionally if a call fails. Cancelling
+     * the returned future cancels all running calls.
+     */
+    public CompletableFuture<MatrixComputeResponse> evaluate(
+        String taskId,
+        ExpressionPlan plan,
+        Priority priority
+    ) {
+        if (plan.getSteps().isEmpty()) {
+            return CompletableFuture.completedFuture(
+                completed(taskId, plan.getResultOperand(), 0)
+            );
+        }
+
+        if (localEngine.prefersLocal(plan.getLargestElements())) {
+            long start = System.nanoTime();
+            Span span = tracer.start("matrix.local", taskId);
+            try (Scope ignored = span.makeCurrent()) {
+                return CompletableFuture.completedFuture(
+                    evaluateLocally(taskId, plan)
+                );
+            } finally {
+                span.end();
+                metrics.record(
+                    PipelineMetrics.LOCAL,
+                    PipelineMetrics.EXPRESSION,
+                    plan.getOperandElements(),
+                    start
+                );
+            }
+        }
+
+        boolean singleCall =
+            plan.getOperandElements() + plan.getResultElements() <=
+            singleCallMaxElements;
+        CompletableFuture<MatrixComputeResponse> remote;
+        try {
+            remote = tracer.traced(
+                "matrix.remote",
+                taskId,
+                () ->
+                    singleCall
+                        ? grpcClientService.matrixExpressionAsync(
+                            taskId,
+                            plan,
+                            priority
+                        )
+                        : evaluateStepwise(taskId, plan, priority)
+            );
+        } catch (Exception e) {
+            remote = CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<MatrixComputeResponse> call = remote;
+        Context traceContext = Context.current();
+        CompletableFuture<MatrixComputeResponse> result = call
+            .handle(
+                traceContext.wrapFunction((response, error) ->
+                    error == null || !singleCall
+                        ? forward(response, error)
+                        : fallback(taskId, plan, unwrap(error))
+                )
+            )
+            .thenCompose(response -> response);
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Evaluate all steps on the calling thread
+     */
+    private MatrixComputeResponse evaluateLocally(
+        String taskId,
+        ExpressionPlan plan
+    ) {
+        long start = System.nanoTime();
+        List<Matrix> values = new ArrayList<>(plan.getOperands());
+        List<ExpressionPlan.Step> steps = plan.getSteps();
+        for (int i = 0; i < steps.size(); i++) {
+            ExpressionPlan.Step step = steps.get(i);
+            MatrixComputeResponse response = localEngine.compute(
+                stepRequest(
+                    taskId,
+                    i,
+                    step,
+                    values.get(step.getLeft()),
+                    step.getRight() >= 0 ? values.get(step.getRight()) : null
+                )
+            );
+            if (!"completed".equals(response.getStatus())) {
+                return failed(taskId, response);
+            }
+            values.add(response.getResultMatrix());
+        }
+        return completed(
+            taskId,
+            values.get(values.size() - 1),
+            (System.nanoTime() - start) / 1_000_000
+        );
+    }
+
+    /**
+     * Evaluate the plan one step per call, starting each step as soon as
+     * its inputs are available. Intermediates are held here until the
+     * expression is done.
+     */
+    private CompletableFuture<MatrixComputeResponse> evaluateStepwise(
+        String taskId,
+        ExpressionPlan plan,
+        Priority priority
+    ) {
+        long start = System.nanoTime();
+        logger.info(
+            "Evaluating expression for task {} step by step: {} steps",
+            taskId,
+            plan.getSteps().size()
+        );
+
+        Context traceContext = Context.current();
+        CompletableFuture<MatrixComputeResponse> result =
+            new CompletableFuture<>();
+        List<CompletableFuture<MatrixComputeResponse>> calls =
+            new ArrayList<>();
+        List<CompletableFuture<MatrixComputeResponse>> values =
+            new ArrayList<>();
+        for (Matrix operand : plan.getOperands()) {
+            values.add(
+                CompletableFuture.completedFuture(completed(taskId, operand, 0))
+            );
+        }
+
+        List<ExpressionPlan.Step> steps = plan.getSteps();
+        for (int i = 0; i < steps.size(); i++) {
+            int index = i;
+            ExpressionPlan.Step step = steps.get(i);
+            CompletableFuture<MatrixComputeResponse> left = values.get(
+                step.getLeft()
+            );
+            CompletableFuture<MatrixComputeResponse> right =
+                step.getRight() >= 0 ? values.get(step.getRight()) : left;
+            values.add(
+                left
+                    .thenCombine(
+                        right,
+                        traceContext.wrapFunction((a, b) -> {
+                            // A failed input fails everything after it
+                            if (!isCompleted(a)) {
+                                return CompletableFuture.completedFuture(a);
+                            }
+                            if (!isCompleted(b)) {
+                                return CompletableFuture.completedFuture(b);
+                            }
+                            if (result.isDone()) {
+                                return CompletableFuture.<MatrixComputeResponse>failedFuture(
+                                    new CancellationException()
+                                );
+                            }
+                            return computeStep(
+                                stepRequest(
+                                    taskId,
+                                    index,
+                                    step,
+                                    a.getResultMatrix(),
+                                    step.getRight() >= 0
+                                        ? b.getResultMatrix()
+                                        : null
+                                ),
+                                priority,
+                                calls
+                            );
+                        })
+                    )
+                    .thenCompose(call -> call)
+            );
+        }
+
+        values
+            .get(values.size() - 1)
+            .whenComplete((response, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(unwrap(error));
+                } else if (!isCompleted(response)) {
+                    result.complete(failed(taskId, response));
+                } else {
+                    result.complete(
+                        completed(
+                            taskId,
+                            response.getResultMatrix(),
+                            (System.nanoTime() - start) / 1_000_000
+                        )
+                    );
+                }
+            });
+        result.whenComplete((response, error) -> {
+            if (error != null) {
+                List<CompletableFuture<MatrixComputeResponse>> running;
+                synchronized (calls) {
+                    running = new ArrayList<>(calls);
+                }
+                for (CompletableFuture<MatrixComputeResponse> call : running) {
+                    call.cancel(false);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Compute one step the way a single matrix request would be
+     *
+     * @param calls calls started so far, to cancel when the expression
+     *        fails
+     */
+    private CompletableFuture<MatrixComputeResponse> computeStep(
+        MatrixComputeRequest request,
+        Priority priority,
+        List<CompletableFuture<MatrixComputeResponse>> calls
+    ) {
+        if (localEngine.prefersLocal(request)) {
+            return localEngine.computeAsync(request);
+        }
+        CompletableFuture<MatrixComputeResponse> call;
+        try {
+            call = tiledExecutor.shouldTile(request)
+                ? tiledExecutor.multiply(request, priority)
+                : grpcClientService.matrixComputeAsync(request, priority);
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        synchronized (calls) {
+            calls.add(call);
+        }
+        return call
+            .handle((response, error) -> {
+                if (error == null) {
+                    return CompletableFuture.completedFuture(response);
+                }
+                Throwable cause = unwrap(error);
+                if (!localEngine.shouldFallback(request, cause)) {
+                    return CompletableFuture.<MatrixComputeResponse>failedFuture(
+                        cause
+                    );
+                }
+                logger.warn(
+                    "Computing expression step {} locally: {}",
+                    request.getTaskId(),
+                    cause.getMessage()
+                );
+                return localEngine.computeAsync(request);
+            })
+            .thenCompose(response -> response);
+    }
+
+    /**
+     * Re-evaluate a plan whose {@code MatrixExpression} call failed on the
+     * local engine, if the failure qualifies, otherwise pass the failure on
+     */
+    private CompletableFuture<MatrixComputeResponse> fallback(
+        String taskId,
+        ExpressionPlan plan,
+        Throwable error
+    ) {
+        if (!localEngine.shouldFallback(plan.getLargestElements(), error)) {
+            return CompletableFuture.failedFuture(error);
+        }
+        logger.warn(
+            "Evaluating expression for task {} locally: {}",
+            taskId,
+            error.getMessage()
+        );
+        long start = System.nanoTime();
+        return tracer
+            .traced(
+                "matrix.local",
+                taskId,
+                () -> localEngine.supplyAsync(() -> evaluateLocally(taskId, plan))
+            )
+            .whenComplete((response, failure) ->
+                metrics.record(
+                    PipelineMetrics.LOCAL,
+                    PipelineMetrics.EXPRESSION,
+                    plan.getOperandElements(),
+                    start
+                )
+            );
+    }
+
+    private static MatrixComputeRequest stepRequest(
+        String taskId,
+        int index,
+        ExpressionPlan.Step step,
+        Matrix left,
+        Matrix right
+    ) {
+        return new MatrixComputeRequest(
+            left,
+            right,
+            taskId + "/" + index,
+            step.getOperation()
+        );
+    }
+
+    private static CompletableFuture<MatrixComputeResponse> forward(
+        MatrixComputeResponse response,
+        Throwable error
+    ) {
+        return error == null
+            ? CompletableFuture.completedFuture(response)
+            : CompletableFuture.failedFuture(unwrap(error));
+    }
+
+    private static boolean isCompleted(MatrixComputeResponse response) {
+        return "completed".equals(response.getStatus());
+    }
+
+    private static MatrixComputeResponse completed(
+        String taskId,
+        Matrix result,
+        long executionTimeMs
+    ) {
+        return new MatrixComputeResponse(
+            result,
+            taskId,
+            "completed",
+            "",
+            executionTimeMs
+        );
+    }
+
+    private static MatrixComputeResponse failed(
+        String taskId,
+        MatrixComputeResponse step
+    ) {
+        return new MatrixComputeResponse(
+            null,
+            taskId,
+            "failed",
+            step.getErrorMessage(),
+            step.getExecutionTimeMs()
+        );
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+            ? error.getCause()
+            : error;
+    }
+}
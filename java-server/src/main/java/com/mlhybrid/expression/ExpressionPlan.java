@@ -0,0 +1,568 @@
+package com.mlhybrid.expression;
+
+import com.mlhybrid.model.ExpressionNode;
+import com.mlhybrid.model.Matrix;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A matrix expression compiled into a sequence of single operations.
+ * <p>
+ * Values are numbered the way the {@code MatrixExpression} RPC numbers
+ * them: the referenced operands first, then the result of each step, so
+ * that a step only reads operands and results of earlier steps. The last
+ * value is the result of the expression.
+ * <p>
+ * Compiling flattens nested products and sums, drops double transposes,
+ * orders every product chain for the fewest multiply-adds (the classic
+ * matrix-chain dynamic program, since {@code A*B*C} may be far cheaper as
+ * {@code A*(B*C)}) and computes identical subexpressions only once.
+ */
+public final class ExpressionPlan {
+
+    /** Nesting depth beyond which an expression is refused */
+    static final int MAX_DEPTH = 64;
+
+    /** Number of nodes beyond which an expression is refused */
+    static final int MAX_NODES = 1024;
+
+    /**
+     * Factors beyond which a product chain is refused, as ordering it
+     * takes time cubic and memory quadratic in their number
+     */
+    static final int MAX_FACTORS = 256;
+
+    /**
+     * One operation of the plan, reading one or two earlier values
+     */
+    public static final class Step {
+
+        private final String operation;
+        private final int left;
+        private final int right;
+        private final int rows;
+        private final int cols;
+
+        Step(String operation, int left, int right, int rows, int cols) {
+            this.operation = operation;
+            this.left = left;
+            this.right = right;
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public int getLeft() {
+            return left;
+        }
+
+        /**
+         * @return the second input, or {@code -1} for a unary operation
+         */
+        public int getRight() {
+            return right;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getCols() {
+            return cols;
+        }
+    }
+
+    private final List<String> operandNames;
+    private final List<Matrix> operands;
+    private final List<Step> steps;
+    private final double work;
+    private final double naiveWork;
+
+    private ExpressionPlan(
+        List<String> operandNames,
+        List<Matrix> operands,
+        List<Step> steps,
+        double work,
+        double naiveWork
+    ) {
+        this.operandNames = operandNames;
+        this.operands = operands;
+        this.steps = steps;
+        this.work = work;
+        this.naiveWork = naiveWork;
+    }
+
+    /**
+     * Compile an expression over the given operands
+     *
+     * @throws IllegalArgumentException if the expression is malformed,
+     *         references an unknown operand or combines matrices of
+     *         incompatible shapes
+     */
+    public static ExpressionPlan compile(
+        Map<String, Matrix> operands,
+        ExpressionNode expression
+    ) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Expression is required");
+        }
+        return new Compiler(
+            operands != null ? operands : Collections.emptyMap()
+        ).compile(expression);
+    }
+
+    /**
+     * Names of the operands the expression references, in value order
+     */
+    public List<String> getOperandNames() {
+        return operandNames;
+    }
+
+    /**
+     * The operands the expression references, in value order
+     */
+    public List<Matrix> getOperands() {
+        return operands;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * The operand the expression reduces to when it has no steps
+     */
+    public Matrix getResultOperand() {
+        return steps.isEmpty() ? operands.get(0) : null;
+    }
+
+    /**
+     * Values in all referenced operands
+     */
+    public long getOperandElements() {
+        long count = 0;
+        for (Matrix operand : operands) {
+            count += operand.getData().length;
+        }
+        return count;
+    }
+
+    /**
+     * Values in the result of the expression
+     */
+    public long getResultElements() {
+        if (steps.isEmpty()) {
+            return operands.get(0).getData().length;
+        }
+        Step last = steps.get(steps.size() - 1);
+        return (long) last.getRows() * last.getCols();
+    }
+
+    /**
+     * Values in the largest operand or intermediate result
+     */
+    public long getLargestElements() {
+        long largest = 0;
+        for (Matrix operand : operands) {
+            largest = Math.max(largest, operand.getData().length);
+        }
+        for (Step step : steps) {
+            largest = Math.max(largest, (long) step.getRows() * step.getCols());
+        }
+        return largest;
+    }
+
+    /**
+     * Multiply-adds and element operations of the planned steps
+     */
+    public double getWork() {
+        return work;
+    }
+
+    /**
+     * Work of evaluating the expression as written: products left to
+     * right and repeated subexpressions each time they occur
+     */
+    public double getNaiveWork() {
+        return naiveWork;
+    }
+
+    /**
+     * Expression tree with products and sums flattened, before it is
+     * turned into steps
+     */
+    private static final class Term {
+
+        /** Operation, or {@code null} for an operand */
+        final String op;
+        final List<Term> args;
+        final String operand;
+        final int rows;
+        final int cols;
+
+        Term(String op, List<Term> args, String operand, int rows, int cols) {
+            this.op = op;
+            this.args = args;
+            this.operand = operand;
+            this.rows = rows;
+            this.cols = cols;
+        }
+    }
+
+    private static final class Compiler {
+
+        private final Map<String, Matrix> available;
+        private final Map<String, Integer> operandIndex = new LinkedHashMap<>();
+        private final List<Step> steps = new ArrayList<>();
+        private final Map<String, Integer> computed = new HashMap<>();
+        private final List<int[]> shapes = new ArrayList<>();
+        private double work;
+        private double naiveWork;
+        private int nodes;
+
+        Compiler(Map<String, Matrix> available) {
+            this.available = available;
+        }
+
+        ExpressionPlan compile(ExpressionNode expression) {
+            Term root = parse(expression, 0);
+            collectOperands(root);
+            emit(root);
+
+            List<String> names = new ArrayList<>(operandIndex.keySet());
+            List<Matrix> matrices = new ArrayList<>(names.size());
+            for (String name : names) {
+                matrices.add(available.get(name));
+            }
+            return new ExpressionPlan(
+                Collections.unmodifiableList(names),
+                Collections.unmodifiableList(matrices),
+                Collections.unmodifiableList(steps),
+                work,
+                naiveWork
+            );
+        }
+
+        private Term parse(ExpressionNode node, int depth) {
+            if (node == null) {
+                throw new IllegalArgumentException("Empty expression node");
+            }
+            if (depth > MAX_DEPTH) {
+                throw new IllegalArgumentException(
+                    "Expression is nested more than " + MAX_DEPTH + " levels"
+                );
+            }
+            if (++nodes > MAX_NODES) {
+                throw new IllegalArgumentException(
+                    "Expression has more than " + MAX_NODES + " nodes"
+                );
+            }
+            if (node.getOp() == null) {
+                return operand(node.getOperand());
+            }
+
+            String op = node.getOp();
+            List<Term> args = new ArrayList<>();
+            if (node.getArgs() != null) {
+                for (ExpressionNode arg : node.getArgs()) {
+                    args.add(parse(arg, depth + 1));
+                }
+            }
+
+            switch (op) {
+                case "multiply":
+                    arity(op, args, 2, Integer.MAX_VALUE);
+                    return multiply(flatten(op, args));
+                case "add":
+                    arity(op, args, 2, Integer.MAX_VALUE);
+                    return elementwise(op, flatten(op, args));
+                case "subtract":
+                    arity(op, args, 2, 2);
+                    return elementwise(op, args);
+                case "transpose": {
+                    arity(op, args, 1, 1);
+                    Term arg = args.get(0);
+                    if ("transpose".equals(arg.op)) {
+                        return arg.args.get(0);
+                    }
+                    return new Term(op, args, null, arg.cols, arg.rows);
+                }
+                case "inverse": {
+                    arity(op, args, 1, 1);
+                    Term arg = args.get(0);
+                    if (arg.rows != arg.cols) {
+                        throw new IllegalArgumentException(
+                            "Cannot invert a non-square " + shape(arg) +
+                            " matrix"
+                        );
+                    }
+                    return new Term(op, args, null, arg.rows, arg.cols);
+                }
+                default:
+                    throw new IllegalArgumentException(
+                        "Unknown operation '" + op + "', expected one of " +
+                        "multiply, add, subtract, transpose, inverse"
+                    );
+            }
+        }
+
+        private Term operand(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException(
+                    "Expression node needs an op or an operand name"
+                );
+            }
+            Matrix matrix = available.get(name);
+            if (matrix == null) {
+                throw new IllegalArgumentException(
+                    "Unknown operand '" + name + "'"
+                );
+            }
+            if (
+                matrix.getRows() < 0 ||
+                matrix.getCols() < 0 ||
+                (long) matrix.getRows() * matrix.getCols() !=
+                matrix.getData().length
+            ) {
+                throw new IllegalArgumentException(
+                    "Operand '" + name + "' has " + matrix.getData().length +
+                    " values but is declared " + matrix.getRows() + "x" +
+                    matrix.getCols()
+                );
+            }
+            return new Term(null, null, name, matrix.getRows(), matrix.getCols());
+        }
+
+        private static void arity(String op, List<Term> args, int min, int max) {
+            if (args.size() < min || args.size() > max) {
+                String expected = min == max
+                    ? String.valueOf(min)
+                    : "at least " + min;
+                throw new IllegalArgumentException(
+                    "'" + op + "' takes " + expected + " argument" +
+                    (min == 1 && max == 1 ? "" : "s") + ", got " + args.size()
+                );
+            }
+        }
+
+        /**
+         * Splice the arguments of nested nodes of the same associative
+         * operation into their parent
+         */
+        private static List<Term> flatten(String op, List<Term> args) {
+            List<Term> flat = new ArrayList<>();
+            for (Term arg : args) {
+                if (op.equals(arg.op)) {
+                    flat.addAll(arg.args);
+                } else {
+                    flat.add(arg);
+                }
+            }
+            return flat;
+        }
+
+        private static Term multiply(List<Term> factors) {
+            if (factors.size() > MAX_FACTORS) {
+                throw new IllegalArgumentException(
+                    "Product chain has more than " + MAX_FACTORS + " factors"
+                );
+            }
+            for (int i = 1; i < factors.size(); i++) {
+                Term left = factors.get(i - 1);
+                Term right = factors.get(i);
+                if (left.cols != right.rows) {
+                    throw new IllegalArgumentException(
+                        "Cannot multiply " + shape(left) + " by " +
+                        shape(right)
+                    );
+                }
+            }
+            return new Term(
+                "multiply",
+                factors,
+                null,
+                factors.get(0).rows,
+                factors.get(factors.size() - 1).cols
+            );
+        }
+
+        private static Term elementwise(String op, List<Term> args) {
+            Term first = args.get(0);
+            for (Term arg : args) {
+                if (arg.rows != first.rows || arg.cols != first.cols) {
+                    throw new IllegalArgumentException(
+                        "Cannot " + op + " " + shape(first) + " and " +
+                        shape(arg) + " matrices"
+                    );
+                }
+            }
+            return new Term(op, args, null, first.rows, first.cols);
+        }
+
+        /**
+         * Number the operands in order of first reference, ahead of any
+         * step result
+         */
+        private void collectOperands(Term term) {
+            if (term.op == null) {
+                if (!operandIndex.containsKey(term.operand)) {
+                    operandIndex.put(term.operand, shapes.size());
+                    shapes.add(new int[] { term.rows, term.cols });
+                }
+                return;
+            }
+            for (Term arg : term.args) {
+                collectOperands(arg);
+            }
+        }
+
+        /**
+         * Emit the steps computing a term
+         *
+         * @return the value holding the term's result
+         */
+        private int emit(Term term) {
+            if (term.op == null) {
+                return operandIndex.get(term.operand);
+            }
+            int[] args = new int[term.args.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = emit(term.args.get(i));
+            }
+
+            switch (term.op) {
+                case "multiply":
+                    return chain(args);
+                case "add":
+                case "subtract": {
+                    int value = args[0];
+                    for (int i = 1; i < args.length; i++) {
+                        naiveWork += (double) term.rows * term.cols;
+                        value = step(term.op, value, args[i]);
+                    }
+                    return value;
+                }
+                default:
+                    naiveWork += cost(term.op, args[0], -1);
+                    return step(term.op, args[0], -1);
+            }
+        }
+
+        /**
+         * Emit a product chain in the order that needs the fewest
+         * multiply-adds
+         */
+        private int chain(int[] factors) {
+            int n = factors.length;
+            // Factor i is dims[i] x dims[i + 1]
+            long[] dims = new long[n + 1];
+            for (int i = 0; i < n; i++) {
+                dims[i] = shapes.get(factors[i])[0];
+            }
+            dims[n] = shapes.get(factors[n - 1])[1];
+
+            for (int i = 1; i < n; i++) {
+                naiveWork += (double) dims[0] * dims[i] * dims[i + 1];
+            }
+
+            // cost[i][j]: cheapest product of factors i..j, split[i][j]:
+            // the factor it ends its left half with
+            double[][] cost = new double[n][n];
+            int[][] split = new int[n][n];
+            for (int length = 2; length <= n; length++) {
+                for (int i = 0; i + length - 1 < n; i++) {
+                    int j = i + length - 1;
+                    cost[i][j] = Double.MAX_VALUE;
+                    for (int k = i; k < j; k++) {
+                        double c =
+                            cost[i][k] +
+                            cost[k + 1][j] +
+                            (double) dims[i] * dims[k + 1] * dims[j + 1];
+                        if (c < cost[i][j]) {
+                            cost[i][j] = c;
+                            split[i][j] = k;
+                        }
+                    }
+                }
+            }
+            return product(factors, split, 0, n - 1);
+        }
+
+        private int product(int[] factors, int[][] split, int i, int j) {
+            if (i == j) {
+                return factors[i];
+            }
+            int k = split[i][j];
+            return step(
+                "multiply",
+                product(factors, split, i, k),
+                product(factors, split, k + 1, j)
+            );
+        }
+
+        /**
+         * Add a step unless the same operation over the same values has
+         * been emitted before
+         *
+         * @return the value holding the step's result
+         */
+        private int step(String operation, int left, int right) {
+            // Elementwise addition is commutative, also in floating point
+            String key = "add".equals(operation)
+                ? operation + ":" + Math.min(left, right) + ":" +
+                  Math.max(left, right)
+                : operation + ":" + left + ":" + right;
+            Integer existing = computed.get(key);
+            if (existing != null) {
+                return existing;
+            }
+
+            int[] a = shapes.get(left);
+            int rows;
+            int cols;
+            switch (operation) {
+                case "multiply":
+                    rows = a[0];
+                    cols = shapes.get(right)[1];
+                    break;
+                case "transpose":
+                    rows = a[1];
+                    cols = a[0];
+                    break;
+                default:
+                    rows = a[0];
+                    cols = a[1];
+            }
+            work += cost(operation, left, right);
+
+            int value = shapes.size();
+            steps.add(new Step(operation, left, right, rows, cols));
+            shapes.add(new int[] { rows, cols });
+            computed.put(key, value);
+            return value;
+        }
+
+        private double cost(String operation, int left, int right) {
+            int[] a = shapes.get(left);
+            switch (operation) {
+                case "multiply":
+                    return (double) a[0] * a[1] * shapes.get(right)[1];
+                case "inverse":
+                    return Math.pow(a[0], 3);
+                default:
+                    return (double) a[0] * a[1];
+            }
+        }
+
+        private static String shape(Term term) {
+            return term.rows + "x" + term.cols;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.mlhybrid.grpc;
+
+/**
+ * AIMD concurrency limit for one backend.
+ * <p>
+ * Each completed call is a sample of how long it waited on the server
+ * beyond its own execution time. While that queueing delay stays under the
+ * target and the limit is being used, the limit grows by about one per
+ * window of {@code limit} calls; an overload error or a delay above the
+ * target shrinks it by {@code backoffRatio}, at most once per window.
+ */
+class AdaptiveLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetQueueDelayMs;
+    private final double backoffRatio;
+    private double limit;
+    private int samplesUntilDecrease;
+
+    AdaptiveLimit(
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        long targetQueueDelayMs,
+        double backoffRatio
+    ) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.targetQueueDelayMs = targetQueueDelayMs;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.min(
+            this.maxLimit,
+            Math.max(this.minLimit, initialLimit)
+        );
+    }
+
+    int get() {
+        return (int) limit;
+    }
+
+    /**
+     * @param queueDelayMs round-trip time minus server execution time, or
+     *        a negative value if unknown
+     * @param overloaded   whether the call failed with an overload status
+     * @param inFlight     calls in flight when this one completed
+     */
+    void onSample(long queueDelayMs, boolean overloaded, int inFlight) {
+        if (samplesUntilDecrease > 0) {
+            samplesUntilDecrease--;
+        }
+        if (overloaded || queueDelayMs > targetQueueDelayMs) {
+            if (samplesUntilDecrease == 0) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                samplesUntilDecrease = get();
+            }
+        } else if (inFlight * 2 >= limit) {
+            // Only probe upwards while the current limit is actually used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package com.mlhybrid.grpc;
+
+import io.grpc.Deadline;
+import io.grpc.Status;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control in front of the gRPC backends.
+ * <p>
+ * Each backend accepts at most its {@link AdaptiveLimit} of concurrent
+ * calls. Calls beyond that wait in one of two FIFO queues and are started
+ * as capacity frees up, {@link Priority#INTERACTIVE} before
+ * {@link Priority#BATCH}. Once {@code grpc.scheduler.queue-capacity} calls
+ * are waiting, new calls are rejected with a
+ * {@link SchedulerRejectedException}; an interactive call first displaces
+ * the newest waiting batch call. While the circuits of all backends are
+ * open, calls fail right away with {@code UNAVAILABLE} instead of waiting.
+ * A call whose deadline passes while it waits fails with
+ * {@code DEADLINE_EXCEEDED} right then, without being started, so that a
+ * backlog here is not taken for a slow or failing backend.
+ */
+@Component
+public class CallScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        CallScheduler.class
+    );
+
+    public enum Priority {
+        INTERACTIVE,
+        BATCH;
+
+        /**
+         * Parse a priority such as {@code "batch"}, falling back to the
+         * given default for missing or unknown values
+         */
+        public static Priority fromString(String value, Priority fallback) {
+            if (value != null) {
+                for (Priority priority : values()) {
+                    if (priority.name().equalsIgnoreCase(value.trim())) {
+                        return priority;
+                    }
+                }
+            }
+            return fallback;
+        }
+    }
+
+    /**
+     * A call that can be started on whichever backend has capacity
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        CompletableFuture<T> start(GrpcBackend backend);
+    }
+
+    private final GrpcChannelPool channelPool;
+    private final Map<GrpcBackend, BackendState> states = new HashMap<>();
+    private final ArrayDeque<Pending<?>> interactive = new ArrayDeque<>();
+    private final ArrayDeque<Pending<?>> batch = new ArrayDeque<>();
+
+    @Value("${grpc.scheduler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${grpc.scheduler.initial-limit:16}")
+    private int initialLimit;
+
+    @Value("${grpc.scheduler.min-limit:2}")
+    private int minLimit;
+
+    @Value("${grpc.scheduler.max-limit:256}")
+    private int maxLimit;
+
+    @Value("${grpc.scheduler.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${grpc.scheduler.target-queue-delay-ms:50}")
+    private long targetQueueDelayMs;
+
+    @Value("${grpc.scheduler.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Autowired
+    public CallScheduler(GrpcChannelPool channelPool) {
+        this.channelPool = channelPool;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            logger.info(
+                "Call scheduler enabled: initial limit {} per backend ({}-{}), queue capacity {}",
+                initialLimit,
+                minLimit,
+                maxLimit,
+                queueCapacity
+            );
+        }
+    }
+
+    /**
+     * Start a call now if a backend has capacity, otherwise queue it.
+     * Cancelling the returned future removes a queued call or cancels a
+     * started one.
+     *
+     * @param serverTimeMs extracts the server-side execution time from a
+     *        result, or {@code null} if the response carries none
+     * @param deadline     the call's deadline, or {@code null} for none
+     */
+    public <T> CompletableFuture<T> submit(
+        Priority priority,
+        Call<T> call,
+        ToLongFunction<? super T> serverTimeMs,
+        Deadline deadline
+    ) {
+        if (deadline != null && deadline.isExpired()) {
+            return CompletableFuture.failedFuture(expired());
+        }
+        if (!enabled) {
+            GrpcBackend backend;
+            try {
+                backend = channelPool.select();
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return startUnscheduled(call, backend);
+        }
+
+        Pending<T> pending = new Pending<>(
+            priority,
+            call,
+            serverTimeMs,
+            deadline
+        );
+        GrpcBackend backend;
+        Pending<?> displaced = null;
+        synchronized (this) {
+            backend = reserve(b -> true);
+            if (backend == null) {
+                if (!channelPool.anyAllowsCalls()) {
+                    return CompletableFuture.failedFuture(
+                        new CircuitOpenException()
+                    );
+                }
+                if (queuedCount() >= queueCapacity) {
+                    if (priority != Priority.INTERACTIVE || batch.isEmpty()) {
+                        return CompletableFuture.failedFuture(
+                            rejection(priority)
+                        );
+                    }
+                    displaced = batch.pollLast();
+                }
+                queueFor(priority).addLast(pending);
+            }
+        }
+
+        if (displaced != null) {
+            displaced.result.completeExceptionally(rejection(Priority.BATCH));
+        }
+        if (backend != null) {
+            start(pending, backend);
+        } else {
+            pending.result.whenComplete((value, error) -> {
+                if (pending.result.isCancelled()) {
+                    synchronized (this) {
+                        queueFor(pending.priority).remove(pending);
+                    }
+                }
+            });
+            if (deadline != null) {
+                // Fail at the deadline even if no call completes to sweep
+                // the queue before then
+                CompletableFuture.delayedExecutor(
+                    deadline.timeRemaining(TimeUnit.NANOSECONDS),
+                    TimeUnit.NANOSECONDS
+                ).execute(() -> expire(pending));
+            }
+        }
+        return pending.result;
+    }
+
+    /**
+     * Start a call right away on an eligible backend with spare capacity,
+     * without queueing. Used for hedged calls, which are only worth sending
+     * while there is idle capacity.
+     *
+     * @return the started call, or {@code null} if no eligible backend has
+     *         capacity
+     */
+    public <T> CompletableFuture<T> trySubmit(
+        Call<T> call,
+        ToLongFunction<? super T> serverTimeMs,
+        Predicate<GrpcBackend> eligible,
+        Deadline deadline
+    ) {
+        if (deadline != null && deadline.isExpired()) {
+            return null;
+        }
+        if (!enabled) {
+            GrpcBackend backend = channelPool.select(eligible);
+            return backend != null ? startUnscheduled(call, backend) : null;
+        }
+
+        GrpcBackend backend;
+        synchronized (this) {
+            backend = reserve(eligible);
+        }
+        if (backend == null) {
+            return null;
+        }
+        Pending<T> pending = new Pending<>(
+            Priority.INTERACTIVE,
+            call,
+            serverTimeMs,
+            deadline
+        );
+        start(pending, backend);
+        return pending.result;
+    }
+
+    /**
+     * Limits, in-flight calls and queue lengths for the status endpoint
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("queuedInteractive", interactive.size());
+        result.put("queuedBatch", batch.size());
+        Map<String, Object> backends = new LinkedHashMap<>();
+        for (Map.Entry<GrpcBackend, BackendState> entry : states.entrySet()) {
+            backends.put(
+                entry.getKey().getTarget(),
+                Map.of(
+                    "limit",
+                    entry.getValue().limit.get(),
+                    "inFlight",
+                    entry.getValue().inFlight
+                )
+            );
+        }
+        result.put("backends", backends);
+        return result;
+    }
+
+    private <T> void start(Pending<T> pending, GrpcBackend backend) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<T> call;
+        try {
+            call = pending.call.start(backend);
+        } catch (RuntimeException e) {
+            backend.abandonAdmission();
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> started = call;
+        pending.result.whenComplete((value, error) -> {
+            if (pending.result.isCancelled()) {
+                started.cancel(false);
+            }
+        });
+        started.whenComplete((value, error) -> {
+            // Without a server execution time the latency says nothing
+            // about queueing, so only errors drive the limit down
+            long queueDelayMs = -1;
+            if (error == null && pending.serverTimeMs != null) {
+                long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+                queueDelayMs = Math.max(
+                    0,
+                    elapsedMs - pending.serverTimeMs.applyAsLong(value)
+                );
+            }
+            completed(backend, queueDelayMs, error);
+
+            if (error != null) {
+                pending.result.completeExceptionally(error);
+            } else {
+                pending.result.complete(value);
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> startUnscheduled(
+        Call<T> call,
+        GrpcBackend backend
+    ) {
+        try {
+            return call.start(backend);
+        } catch (RuntimeException e) {
+            backend.abandonAdmission();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Release the backend's slot, adapt its limit and start as many queued
+     * calls as there is now capacity for
+     */
+    private void completed(
+        GrpcBackend backend,
+        long queueDelayMs,
+        Throwable error
+    ) {
+        List<Pending<?>> ready = new ArrayList<>();
+        List<GrpcBackend> targets = new ArrayList<>();
+        List<Pending<?>> stranded = new ArrayList<>();
+        List<Pending<?>> expired = new ArrayList<>();
+        synchronized (this) {
+            BackendState state = state(backend);
+            state.inFlight--;
+            if (!isCancelled(error)) {
+                int before = state.limit.get();
+                state.limit.onSample(
+                    queueDelayMs,
+                    isOverloaded(error),
+                    state.inFlight + 1
+                );
+                if (state.limit.get() != before) {
+                    logger.debug(
+                        "Concurrency limit for {} now {}",
+                        backend.getTarget(),
+                        state.limit.get()
+                    );
+                }
+            }
+
+            while (queuedCount() > 0) {
+                ArrayDeque<Pending<?>> queue = !interactive.isEmpty()
+                    ? interactive
+                    : batch;
+                if (queue.peekFirst().isExpired()) {
+                    expired.add(queue.pollFirst());
+                    continue;
+                }
+                GrpcBackend target = reserve(b -> true);
+                if (target == null) {
+                    break;
+                }
+                ready.add(queue.pollFirst());
+                targets.add(target);
+            }
+
+            // With every circuit open and nothing in flight, no completion
+            // is left to start the waiting calls
+            if (
+                queuedCount() > 0 &&
+                inFlightCount() == 0 &&
+                !channelPool.anyAllowsCalls()
+            ) {
+                stranded.addAll(interactive);
+                stranded.addAll(batch);
+                interactive.clear();
+                batch.clear();
+            }
+        }
+
+        for (int i = 0; i < ready.size(); i++) {
+            start(ready.get(i), targets.get(i));
+        }
+        for (Pending<?> pending : stranded) {
+            pending.result.completeExceptionally(new CircuitOpenException());
+        }
+        for (Pending<?> pending : expired) {
+            pending.result.completeExceptionally(expired());
+        }
+    }
+
+    /**
+     * Fail a call whose deadline has passed, if it is still queued
+     */
+    private void expire(Pending<?> pending) {
+        boolean queued;
+        synchronized (this) {
+            queued = queueFor(pending.priority).remove(pending);
+        }
+        if (queued) {
+            pending.result.completeExceptionally(expired());
+        }
+    }
+
+    /**
+     * Pick an eligible backend with spare capacity and take a slot on it.
+     * Must hold the lock.
+     */
+    private GrpcBackend reserve(Predicate<GrpcBackend> eligible) {
+        GrpcBackend backend = channelPool.select(b -> {
+            BackendState state = state(b);
+            return eligible.test(b) && state.inFlight < state.limit.get();
+        });
+        if (backend != null) {
+            state(backend).inFlight++;
+        }
+        return backend;
+    }
+
+    private BackendState state(GrpcBackend backend) {
+        return states.computeIfAbsent(backend, b -> new BackendState());
+    }
+
+    private ArrayDeque<Pending<?>> queueFor(Priority priority) {
+        return priority == Priority.INTERACTIVE ? interactive : batch;
+    }
+
+    private int queuedCount() {
+        return interactive.size() + batch.size();
+    }
+
+    private int inFlightCount() {
+        int count = 0;
+        for (BackendState state : states.values()) {
+            count += state.inFlight;
+        }
+        return count;
+    }
+
+    private SchedulerRejectedException rejection(Priority priority) {
+        logger.warn("Rejecting {} call: scheduler queue is full", priority);
+        return new SchedulerRejectedException(
+            "Server busy: " + queueCapacity + " requests already queued"
+        );
+    }
+
+    private static RuntimeException expired() {
+        return Status.DEADLINE_EXCEEDED.withDescription(
+            "Deadline exceeded while waiting in the scheduler queue"
+        ).asRuntimeException();
+    }
+
+    private static boolean isCancelled(Throwable error) {
+        return (
+            error instanceof CancellationException ||
+            (error != null &&
+                Status.fromThrowable(error).getCode() == Status.Code.CANCELLED)
+        );
+    }
+
+    private static boolean isOverloaded(Throwable error) {
+        if (error == null) {
+            return false;
+        }
+        Status.Code code = Status.fromThrowable(error).getCode();
+        return (
+            code == Status.Code.RESOURCE_EXHAUSTED ||
+            code == Status.Code.UNAVAILABLE ||
+            code == Status.Code.DEADLINE_EXCEEDED
+        );
+    }
+
+    private class BackendState {
+
+        private final AdaptiveLimit limit = new AdaptiveLimit(
+            initialLimit,
+            minLimit,
+            maxLimit,
+            targetQueueDelayMs,
+            backoffRatio
+        );
+        private int inFlight;
+    }
+
+    private static class Pending<T> {
+
+        private final Priority priority;
+        private final Call<T> call;
+        private final ToLongFunction<? super T> serverTimeMs;
+        private final Deadline deadline;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Pending(
+            Priority priority,
+            Call<T> call,
+            ToLongFunction<? super T> serverTimeMs,
+            Deadline deadline
+        ) {
+            this.priority = priority;
+            this.call = call;
+            this.serverTimeMs = serverTimeMs;
+            this.deadline = deadline;
+        }
+
+        boolean isExpired() {
+            return deadline != null && deadline.isExpired();
+        }
+    }
+}
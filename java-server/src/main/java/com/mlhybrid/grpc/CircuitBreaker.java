@@ -0,0 +1,151 @@
+package com.mlhybrid.grpc;
+
+import io.grpc.Status;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker for one backend.
+ * <p>
+ * After {@code failureThreshold} consecutive failed calls the circuit opens
+ * and the backend receives no calls for {@code openMs}. It is then half
+ * open: a single trial call is let through, which closes the circuit if it
+ * succeeds and opens it again if it fails. Only errors that point at the
+ * backend itself count as failures; cancellations, overload and requests
+ * the server refused as invalid do not.
+ */
+class CircuitBreaker {
+
+    static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    static final long DEFAULT_OPEN_MS = 10000;
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntilNanos;
+    private boolean trialInFlight;
+    private boolean trialStarted;
+
+    CircuitBreaker(int failureThreshold, long openMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+    }
+
+    /**
+     * Whether a call may be started now. Only a hint for picking a backend;
+     * {@link #tryAcquire()} decides.
+     */
+    synchronized boolean allowsCalls() {
+        switch (state) {
+            case OPEN:
+                return System.nanoTime() - openUntilNanos >= 0;
+            case HALF_OPEN:
+                return !trialInFlight;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Admit a call, claiming the trial if the circuit is not closed. Once
+     * the open period is over, the first caller gets the trial and every
+     * other caller is refused until its outcome is known. A claimed call
+     * that is not started must be given back with {@link #abandon()}.
+     *
+     * @return whether the call may be started
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case OPEN:
+                if (System.nanoTime() - openUntilNanos < 0) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                break;
+            case HALF_OPEN:
+                if (trialInFlight) {
+                    return false;
+                }
+                break;
+            default:
+                return true;
+        }
+        trialInFlight = true;
+        trialStarted = false;
+        return true;
+    }
+
+    /**
+     * Record the start of an admitted call
+     */
+    synchronized void onCallStarted() {
+        if (trialInFlight) {
+            trialStarted = true;
+        }
+    }
+
+    /**
+     * Give back an admission whose call was never started, so that a trial
+     * claimed for it does not keep the circuit half open for good
+     */
+    synchronized void abandon() {
+        if (state == State.HALF_OPEN && trialInFlight && !trialStarted) {
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * Record the outcome of a call
+     *
+     * @param error the call's failure, or {@code null} on success
+     * @return the state after the call
+     */
+    synchronized State onCallFinished(Throwable error) {
+        if (error == null) {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        } else if (isBackendFailure(error)) {
+            consecutiveFailures++;
+            if (
+                state == State.HALF_OPEN ||
+                consecutiveFailures >= failureThreshold
+            ) {
+                state = State.OPEN;
+                openUntilNanos = System.nanoTime() + openNanos;
+                trialInFlight = false;
+            }
+        } else if (state == State.HALF_OPEN) {
+            // Inconclusive trial, let the next call try again
+            trialInFlight = false;
+        }
+        return state;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private static boolean isBackendFailure(Throwable error) {
+        if (error instanceof CancellationException) {
+            return false;
+        }
+        switch (Status.fromThrowable(error).getCode()) {
+            case UNAVAILABLE:
+            case DEADLINE_EXCEEDED:
+            case INTERNAL:
+            case UNKNOWN:
+            case DATA_LOSS:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
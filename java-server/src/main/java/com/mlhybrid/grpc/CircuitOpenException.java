@@ -0,0 +1,20 @@
+package com.mlhybrid.grpc;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+
+/**
+ * Thrown when the circuits of all backends are open and a call is failed
+ * without being sent. Carries {@code UNAVAILABLE} like an unreachable
+ * backend, but is not retried.
+ */
+public class CircuitOpenException extends StatusRuntimeException {
+
+    public CircuitOpenException() {
+        super(
+            Status.UNAVAILABLE.withDescription(
+                "Circuit open for all Rust backends"
+            )
+        );
+    }
+}
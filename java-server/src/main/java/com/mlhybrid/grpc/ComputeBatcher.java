@@ -0,0 +1,307 @@
+package com.mlhybrid.grpc;
+
+import com.mlhybrid.grpc.CallScheduler.Priority;
+import com.mlhybrid.tracing.PipelineTracer;
+import com.mlhybrid.tracing.TracingClientInterceptor;
+import io.grpc.Deadline;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micro-batching stage for small {@code Compute} calls.
+ * <p>
+ * Concurrent requests with the same task type are collected for up to
+ * {@code grpc.batch.max-size} items or {@code grpc.batch.max-delay-us}
+ * microseconds, sent to Rust as one {@code ComputeBatched} RPC, and the
+ * responses are fanned back out to each waiting caller in request order.
+ * A batch is traced as a {@code grpc.batch} span linked to the requests in
+ * it and carrying their task ids.
+ */
+@Component
+public class ComputeBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        ComputeBatcher.class
+    );
+
+    private final CallScheduler scheduler;
+    private final ResiliencePolicy resilience;
+    private final PipelineTracer tracer;
+    private final Map<String, PendingBatch> pending = new HashMap<>();
+    private ScheduledExecutorService timer;
+
+    @Value("${grpc.batch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${grpc.batch.max-size:32}")
+    private int maxSize;
+
+    @Value("${grpc.batch.max-delay-us:500}")
+    private long maxDelayMicros;
+
+    @Value("${grpc.batch.max-elements:4096}")
+    private int maxElements;
+
+    @Autowired
+    public ComputeBatcher(
+        CallScheduler scheduler,
+        ResiliencePolicy resilience,
+        PipelineTracer tracer
+    ) {
+        this.scheduler = scheduler;
+        this.resilience = resilience;
+        this.tracer = tracer;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "compute-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info(
+            "Compute batching enabled: max {} requests, {}us delay, {} elements per request",
+            maxSize,
+            maxDelayMicros,
+            maxElements
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Whether the request is small enough to be worth coalescing
+     */
+    public boolean accepts(ComputeRequest request) {
+        return (
+            enabled &&
+            PackedFloats.count(request.getPackedData()) <= maxElements
+        );
+    }
+
+    /**
+     * Queue a request for the next batch of its task type. A batch is
+     * admitted by the {@link CallScheduler} as interactive if any of its
+     * requests is.
+     */
+    public CompletableFuture<ComputeResponse> submit(
+        ComputeRequest request,
+        Priority priority
+    ) {
+        PendingCall call = new PendingCall(request, priority);
+        String taskType = request.getTaskType();
+        List<PendingCall> ready = null;
+
+        synchronized (pending) {
+            PendingBatch batch = pending.get(taskType);
+            if (batch == null) {
+                batch = new PendingBatch();
+                pending.put(taskType, batch);
+                PendingBatch scheduled = batch;
+                batch.flushTimer = timer.schedule(
+                    () -> flush(taskType, scheduled),
+                    maxDelayMicros,
+                    TimeUnit.MICROSECONDS
+                );
+            }
+            batch.calls.add(call);
+            if (batch.calls.size() >= maxSize) {
+                pending.remove(taskType);
+                batch.flushTimer.cancel(false);
+                ready = batch.calls;
+            }
+        }
+
+        if (ready != null) {
+            dispatch(ready);
+        }
+        return call.future;
+    }
+
+    private void flush(String taskType, PendingBatch batch) {
+        synchronized (pending) {
+            if (pending.get(taskType) != batch) {
+                // Already dispatched because it filled up
+                return;
+            }
+            pending.remove(taskType);
+        }
+        dispatch(batch.calls);
+    }
+
+    private void dispatch(List<PendingCall> calls) {
+        Priority priority = Priority.BATCH;
+        for (PendingCall call : calls) {
+            if (call.priority == Priority.INTERACTIVE) {
+                priority = Priority.INTERACTIVE;
+            }
+        }
+
+        if (calls.size() == 1) {
+            // Nothing to coalesce, avoid the batch envelope
+            PendingCall call = calls.get(0);
+            Deadline deadline = resilience.computeDeadline(
+                PackedFloats.count(call.request.getPackedData())
+            );
+            scheduler
+                .submit(
+                    priority,
+                    backend -> sendSingle(call, backend, deadline),
+                    null,
+                    deadline
+                )
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        call.future.completeExceptionally(error);
+                    } else {
+                        call.future.complete(response);
+                    }
+                });
+            return;
+        }
+
+        ComputeBatch.Builder batch = ComputeBatch.newBuilder();
+        for (PendingCall call : calls) {
+            batch.addRequests(call.request);
+        }
+        ComputeBatch request = batch.build();
+        long values = 0;
+        for (PendingCall call : calls) {
+            values += PackedFloats.count(call.request.getPackedData());
+        }
+        Deadline deadline = resilience.computeDeadline(values);
+
+        scheduler
+            .submit(
+                priority,
+                backend -> sendBatch(request, calls, backend, deadline),
+                null,
+                deadline
+            )
+            .whenComplete((response, error) -> {
+                if (
+                    error == null &&
+                    response.getResponsesCount() != calls.size()
+                ) {
+                    error = new IllegalStateException(
+                        "Batch returned " +
+                        response.getResponsesCount() +
+                        " responses for " +
+                        calls.size() +
+                        " requests"
+                    );
+                }
+                for (int i = 0; i < calls.size(); i++) {
+                    if (error != null) {
+                        calls.get(i).future.completeExceptionally(error);
+                    } else {
+                        calls.get(i).future.complete(response.getResponses(i));
+                    }
+                }
+            });
+    }
+
+    private CompletableFuture<ComputeResponse> sendSingle(
+        PendingCall pending,
+        GrpcBackend backend,
+        Deadline deadline
+    ) {
+        ComputeRequest request = pending.request;
+        UnaryCallFuture<ComputeResponse> call = new UnaryCallFuture<>();
+        backend.acquire();
+        try (Scope ignored = pending.traceContext.makeCurrent()) {
+            backend
+                .getAsyncStub()
+                .withOption(TracingClientInterceptor.TASK_ID, request.getTaskId())
+                .withDeadline(deadline)
+                .compute(request, call);
+        }
+        call.whenComplete((response, error) -> backend.release(error));
+        return call;
+    }
+
+    private CompletableFuture<ComputeBatchResponse> sendBatch(
+        ComputeBatch batch,
+        List<PendingCall> calls,
+        GrpcBackend backend,
+        Deadline deadline
+    ) {
+        logger.debug(
+            "Dispatching compute batch of {} requests to {}",
+            batch.getRequestsCount(),
+            backend.getTarget()
+        );
+        List<String> taskIds = new ArrayList<>(calls.size());
+        List<Context> contexts = new ArrayList<>(calls.size());
+        for (PendingCall pending : calls) {
+            taskIds.add(pending.request.getTaskId());
+            contexts.add(pending.traceContext);
+        }
+        Span span = tracer.startShared("grpc.batch", taskIds, contexts);
+
+        UnaryCallFuture<ComputeBatchResponse> call = new UnaryCallFuture<>();
+        backend.acquire();
+        try (Scope ignored = span.makeCurrent()) {
+            backend
+                .getAsyncStub()
+                .withOption(
+                    TracingClientInterceptor.TASK_ID,
+                    String.join(",", taskIds)
+                )
+                .withDeadline(deadline)
+                .computeBatched(batch, call);
+        }
+        call.whenComplete((response, error) -> {
+            backend.release(error);
+            PipelineTracer.end(span, error);
+        });
+        return call;
+    }
+
+    private static class PendingBatch {
+
+        private final List<PendingCall> calls = new ArrayList<>();
+        private ScheduledFuture<?> flushTimer;
+    }
+
+    private static class PendingCall {
+
+        private final ComputeRequest request;
+        private final Priority priority;
+        /** Trace context of the caller, for the call that carries it */
+        private final Context traceContext = Context.current();
+        private final CompletableFuture<ComputeResponse> future =
+            new CompletableFuture<>();
+
+        PendingCall(ComputeRequest request, Priority priority) {
+            this.request = request;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.mlhybrid.grpc;
+
+import io.grpc.ManagedChannel;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single Rust GPU server reachable over one gRPC channel, together with
+ * the health and load figures the pool balances on and its
+ * {@link CircuitBreaker}.
+ */
+public class GrpcBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        GrpcBackend.class
+    );
+
+    /** Stored operands remembered per backend */
+    private static final int MAX_HELD_OPERANDS = 4096;
+
+    private final String target;
+    private final ManagedChannel channel;
+    private final MLGrpc.MLStub asyncStub;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final CircuitBreaker circuitBreaker;
+
+    /** Handles of stored operands this backend has been sent the data of */
+    private final Set<String> heldOperands = Collections.newSetFromMap(
+        Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                    Map.Entry<String, Boolean> eldest
+                ) {
+                    return size() > MAX_HELD_OPERANDS;
+                }
+            }
+        )
+    );
+
+    private volatile boolean ready = true;
+    private volatile float currentLoad;
+    private volatile String gpuInfo = "";
+    private volatile String lastError = "";
+
+    public GrpcBackend(String target, ManagedChannel channel) {
+        this(
+            target,
+            channel,
+            CircuitBreaker.DEFAULT_FAILURE_THRESHOLD,
+            CircuitBreaker.DEFAULT_OPEN_MS
+        );
+    }
+
+    /**
+     * @param failureThreshold consecutive failed calls that open the
+     *        circuit
+     * @param openMs           how long an open circuit keeps calls away
+     */
+    public GrpcBackend(
+        String target,
+        ManagedChannel channel,
+        int failureThreshold,
+        long openMs
+    ) {
+        this.target = target;
+        this.channel = channel;
+        this.asyncStub = MLGrpc.newStub(channel);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public ManagedChannel getChannel() {
+        return channel;
+    }
+
+    public MLGrpc.MLStub getAsyncStub() {
+        return asyncStub;
+    }
+
+    /**
+     * Number of calls currently in flight on this backend
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Record the start of a call admitted by {@link #tryAdmit()}; pair with
+     * {@link #release(Throwable)}
+     */
+    public void acquire() {
+        outstanding.incrementAndGet();
+        circuitBreaker.onCallStarted();
+    }
+
+    /**
+     * Record the end of a call and feed its outcome to the circuit breaker
+     *
+     * @param error the call's failure, or {@code null} on success
+     */
+    public void release(Throwable error) {
+        outstanding.decrementAndGet();
+        CircuitBreaker.State before = circuitBreaker.getState();
+        CircuitBreaker.State after = circuitBreaker.onCallFinished(error);
+        if (after != before) {
+            if (after == CircuitBreaker.State.OPEN) {
+                logger.warn(
+                    "Circuit for backend {} opened after: {}",
+                    target,
+                    error.getMessage()
+                );
+            } else if (after == CircuitBreaker.State.CLOSED) {
+                logger.info("Circuit for backend {} closed", target);
+            }
+        }
+    }
+
+    /**
+     * Whether the stored operand was sent to this backend with its data, so
+     * that it can be sent by handle only. The backend may still have
+     * dropped it since.
+     */
+    boolean holdsOperand(String handle) {
+        return heldOperands.contains(handle);
+    }
+
+    /**
+     * Record that a call carrying the stored operand's data succeeded
+     */
+    void operandSent(String handle) {
+        heldOperands.add(handle);
+    }
+
+    /**
+     * Record that the backend no longer holds the stored operand
+     */
+    void operandDropped(String handle) {
+        heldOperands.remove(handle);
+    }
+
+    /**
+     * Whether the circuit breaker lets a call through to this backend
+     */
+    public boolean allowsCalls() {
+        return circuitBreaker.allowsCalls();
+    }
+
+    /**
+     * Admit a call to this backend, claiming the circuit's trial if it is
+     * half open. A call that is then not started must be given back with
+     * {@link #abandonAdmission()}.
+     *
+     * @return whether the circuit breaker let the call through
+     */
+    boolean tryAdmit() {
+        return circuitBreaker.tryAcquire();
+    }
+
+    /**
+     * Give back an admission whose call was never started
+     */
+    void abandonAdmission() {
+        circuitBreaker.abandon();
+    }
+
+    /**
+     * {@code CLOSED}, {@code OPEN} or {@code HALF_OPEN}
+     */
+    public String getCircuitState() {
+        return circuitBreaker.getState().name();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public float getCurrentLoad() {
+        return currentLoad;
+    }
+
+    public String getGpuInfo() {
+        return gpuInfo;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Apply the result of a {@code Status} RPC
+     */
+    void updateStatus(StatusResponse status) {
+        this.ready = status.getReady();
+        this.currentLoad = status.getCurrentLoad();
+        this.gpuInfo = status.getGpuInfo();
+        this.lastError = status.getError();
+    }
+
+    /**
+     * Mark the backend unreachable after a failed health check
+     */
+    void markUnavailable(String error) {
+        this.ready = false;
+        this.lastError = error;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "GrpcBackend{" +
+            "target='" +
+            target +
+            '\'' +
+            ", ready=" +
+            ready +
+            ", outstanding=" +
+            outstanding.get() +
+            ", circuit=" +
+            circuitBreaker.getState() +
+            ", currentLoad=" +
+            currentLoad +
+            '}'
+        );
+    }
+}
@@ -0,0 +1,36 @@
+package com.mlhybrid.grpc;
+
+import io.grpc.Status;
+
+/**
+ * A gRPC call to the Rust server that failed, with the status it failed
+ * with so that callers can tell an unreachable or slow backend from a
+ * server error.
+ */
+public class GrpcCallException extends RuntimeException {
+
+    private final Status.Code code;
+
+    public GrpcCallException(String message, Throwable cause) {
+        super(message, cause);
+        this.code = Status.fromThrowable(cause).getCode();
+    }
+
+    public Status.Code getCode() {
+        return code;
+    }
+
+    /**
+     * Whether no backend could be reached or accepted the call
+     */
+    public boolean isUnavailable() {
+        return code == Status.Code.UNAVAILABLE;
+    }
+
+    /**
+     * Whether the call ran out of its deadline
+     */
+    public boolean isDeadlineExceeded() {
+        return code == Status.Code.DEADLINE_EXCEEDED;
+    }
+}
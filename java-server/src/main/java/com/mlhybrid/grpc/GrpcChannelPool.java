@@ -0,0 +1,324 @@
+package com.mlhybrid.grpc;
+
+import com.mlhybrid.config.VirtualThreads;
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pool of gRPC channels to one or more Rust GPU servers.
+ * <p>
+ * Backends are listed in {@code grpc.backends} as comma-separated
+ * {@code host:port} pairs; when empty, the single
+ * {@code grpc.server.host}/{@code grpc.server.port} backend is used.
+ * Each backend is polled with the {@code Status} RPC and calls are spread
+ * over the ready ones either round-robin or by least outstanding requests.
+ * Backends whose circuit breaker is open are skipped. With
+ * {@code threads.virtual.enabled}, call callbacks run on virtual threads
+ * instead of gRPC's shared cached pool.
+ */
+@Component
+public class GrpcChannelPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        GrpcChannelPool.class
+    );
+
+    public enum Strategy {
+        ROUND_ROBIN,
+        LEAST_OUTSTANDING;
+
+        static Strategy fromProperty(String value) {
+            if ("least-outstanding".equalsIgnoreCase(value)) {
+                return LEAST_OUTSTANDING;
+            }
+            return ROUND_ROBIN;
+        }
+    }
+
+    private final List<GrpcBackend> backends = new ArrayList<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private ScheduledExecutorService healthChecker;
+    private ExecutorService callbackExecutor;
+    private Strategy strategy;
+
+    @Value("${grpc.server.host:localhost}")
+    private String grpcServerHost;
+
+    @Value("${grpc.server.port:50051}")
+    private int grpcServerPort;
+
+    @Value("${grpc.backends:}")
+    private String backendList;
+
+    @Value("${grpc.load-balancing:round-robin}")
+    private String loadBalancing;
+
+    @Value("${grpc.health.interval-ms:5000}")
+    private long healthIntervalMs;
+
+    @Value("${grpc.health.timeout-ms:2000}")
+    private long healthTimeoutMs;
+
+    @Value("${grpc.circuit-breaker.failure-threshold:5}")
+    private int circuitFailureThreshold;
+
+    @Value("${grpc.circuit-breaker.open-ms:10000}")
+    private long circuitOpenMs;
+
+    @Value("${threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired(required = false)
+    private List<ClientInterceptor> interceptors = new ArrayList<>();
+
+    public GrpcChannelPool() {}
+
+    /**
+     * Pool over pre-built backends, e.g. in-process channels; no health
+     * polling is started for these.
+     */
+    public GrpcChannelPool(List<GrpcBackend> backends, Strategy strategy) {
+        this.backends.addAll(backends);
+        this.strategy = strategy;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!backends.isEmpty()) {
+            return;
+        }
+        strategy = Strategy.fromProperty(loadBalancing);
+
+        List<String> targets = new ArrayList<>();
+        for (String target : backendList.split(",")) {
+            if (!target.isBlank()) {
+                targets.add(target.trim());
+            }
+        }
+        if (targets.isEmpty()) {
+            targets.add(grpcServerHost + ":" + grpcServerPort);
+        }
+
+        if (virtualThreads && VirtualThreads.isAvailable()) {
+            callbackExecutor = VirtualThreads.newThreadPerTaskExecutor(
+                "grpc-callback-"
+            );
+        }
+
+        for (String target : targets) {
+            logger.info("Initializing gRPC channel to {}", target);
+            ManagedChannelBuilder<?> builder = ManagedChannelBuilder.forTarget(
+                target
+            )
+                .usePlaintext()
+                .intercept(interceptors);
+            if (callbackExecutor != null) {
+                builder.executor(callbackExecutor);
+            }
+            ManagedChannel channel = builder.build();
+            backends.add(
+                new GrpcBackend(
+                    target,
+                    channel,
+                    circuitFailureThreshold,
+                    circuitOpenMs
+                )
+            );
+        }
+        logger.info(
+            "gRPC channel pool initialized with {} backend(s), strategy {}",
+            backends.size(),
+            strategy
+        );
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "grpc-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(
+            this::checkHealth,
+            0,
+            healthIntervalMs,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (GrpcBackend backend : backends) {
+            logger.info("Shutting down gRPC channel to {}", backend.getTarget());
+            backend.getChannel().shutdown();
+        }
+        for (GrpcBackend backend : backends) {
+            backend.getChannel().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        if (callbackExecutor != null) {
+            callbackExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Pick the backend for the next call. Ready backends are preferred; if
+     * none reports ready, all backends are considered so that calls still
+     * surface a meaningful gRPC error instead of failing locally.
+     *
+     * @throws CircuitOpenException if the circuits of all backends are
+     *         open
+     */
+    public GrpcBackend select() {
+        GrpcBackend backend = select(b -> true);
+        if (backend == null) {
+            throw new CircuitOpenException();
+        }
+        return backend;
+    }
+
+    /**
+     * Whether any backend's circuit breaker lets calls through
+     */
+    public boolean anyAllowsCalls() {
+        for (GrpcBackend backend : backends) {
+            if (backend.allowsCalls()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pick the backend for the next call among those that are eligible,
+     * e.g. that have spare capacity. The call is admitted by the backend's
+     * circuit breaker; if it is then not started, give the admission back
+     * with {@link GrpcBackend#abandonAdmission()}.
+     *
+     * @return the backend, or {@code null} if none is eligible
+     */
+    public GrpcBackend select(Predicate<GrpcBackend> eligible) {
+        boolean anyReady = false;
+        List<GrpcBackend> candidates = new ArrayList<>(backends.size());
+        for (GrpcBackend backend : backends) {
+            if (backend.isReady() && backend.allowsCalls()) {
+                anyReady = true;
+                if (eligible.test(backend)) {
+                    candidates.add(backend);
+                }
+            }
+        }
+        if (!anyReady) {
+            for (GrpcBackend backend : backends) {
+                if (backend.allowsCalls() && eligible.test(backend)) {
+                    candidates.add(backend);
+                }
+            }
+        }
+        // Admission claims a half-open circuit's trial, so a backend that
+        // refuses is passed over for the next best one
+        while (!candidates.isEmpty()) {
+            GrpcBackend backend = pick(candidates);
+            if (backend.tryAdmit()) {
+                return backend;
+            }
+            candidates.remove(backend);
+        }
+        return null;
+    }
+
+    private GrpcBackend pick(List<GrpcBackend> candidates) {
+        int start = Math.floorMod(nextIndex.getAndIncrement(), candidates.size());
+        if (strategy == Strategy.ROUND_ROBIN) {
+            return candidates.get(start);
+        }
+
+        // Least outstanding requests, ties broken by reported load and then
+        // by the rotating start index so equal backends share the traffic
+        GrpcBackend best = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            GrpcBackend backend = candidates.get((start + i) % candidates.size());
+            if (
+                best == null ||
+                backend.getOutstanding() < best.getOutstanding() ||
+                (backend.getOutstanding() == best.getOutstanding() &&
+                    backend.getCurrentLoad() < best.getCurrentLoad())
+            ) {
+                best = backend;
+            }
+        }
+        return best;
+    }
+
+    public List<GrpcBackend> getBackends() {
+        return Collections.unmodifiableList(backends);
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Poll every backend with the Status RPC and record its readiness
+     */
+    void checkHealth() {
+        for (GrpcBackend backend : backends) {
+            backend
+                .getAsyncStub()
+                .withDeadlineAfter(healthTimeoutMs, TimeUnit.MILLISECONDS)
+                .status(
+                    StatusRequest.newBuilder()
+                        .setClientId("java-server-pool")
+                        .build(),
+                    new StreamObserver<StatusResponse>() {
+                        @Override
+                        public void onNext(StatusResponse status) {
+                            boolean wasReady = backend.isReady();
+                            backend.updateStatus(status);
+                            if (wasReady != status.getReady()) {
+                                logger.info(
+                                    "Backend {} ready={}, load={}",
+                                    backend.getTarget(),
+                                    status.getReady(),
+                                    status.getCurrentLoad()
+                                );
+                            }
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            if (backend.isReady()) {
+                                logger.warn(
+                                    "Backend {} failed health check: {}",
+                                    backend.getTarget(),
+                                    t.getMessage()
+                                );
+                            }
+                            backend.markUnavailable(t.getMessage());
+                        }
+
+                        @Override
+                        public void onCompleted() {}
+                    }
+                );
+        }
+    }
+}
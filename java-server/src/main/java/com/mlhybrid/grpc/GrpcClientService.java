@@ -1,19 +1,46 @@
 package com.mlhybrid.grpc;
 
+import com.mlhybrid.expression.ExpressionPlan;
+import com.mlhybrid.grpc.CallScheduler.Priority;
 import com.mlhybrid.grpc.ComputeRequest;
 import com.mlhybrid.grpc.ComputeResponse;
+import com.mlhybrid.grpc.ExpressionStep;
 import com.mlhybrid.grpc.MLGrpc;
 import com.mlhybrid.grpc.MatrixComputeRequest;
 import com.mlhybrid.grpc.MatrixComputeResponse;
+import com.mlhybrid.grpc.MatrixExpressionRequest;
+import com.mlhybrid.ingest.MappedMatrix;
+import com.mlhybrid.ingest.StreamingMatrixRequest;
+import com.mlhybrid.metrics.PipelineMetrics;
+import com.mlhybrid.model.FloatArrayList;
 import com.mlhybrid.model.Matrix;
-import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
+import com.mlhybrid.tracing.PipelineTracer;
+import com.mlhybrid.tracing.TracingClientInterceptor;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -24,142 +51,1096 @@ public class GrpcClientService {
         GrpcClientService.class
     );
 
-    private ManagedChannel channel;
-    private MLGrpc.MLBlockingStub blockingStub;
+    private final CallScheduler scheduler;
+    private final ComputeBatcher computeBatcher;
+    private final PipelineMetrics metrics;
+    private final PipelineTracer tracer;
+    private final ResiliencePolicy resilience;
 
-    @Value("${grpc.server.host:localhost}")
-    private String grpcServerHost;
+    @Value("${grpc.stream.threshold-elements:524288}")
+    private long streamThresholdElements;
 
-    @Value("${grpc.server.port:50051}")
-    private int grpcServerPort;
+    @Value("${grpc.stream.chunk-elements:262144}")
+    private int streamChunkElements;
 
-    @PostConstruct
-    public void init() {
+    @Autowired
+    public GrpcClientService(
+        CallScheduler scheduler,
+        ComputeBatcher computeBatcher,
+        PipelineMetrics metrics,
+        PipelineTracer tracer,
+        ResiliencePolicy resilience
+    ) {
+        this.scheduler = scheduler;
+        this.computeBatcher = computeBatcher;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.resilience = resilience;
+    }
+
+    /**
+     * Blocking variant of {@link #computeAsync(List, String, String)}; the
+     * call is admitted, retried and traced the same way
+     */
+    public com.mlhybrid.model.ComputeResponse compute(
+        List<Float> data,
+        String taskId,
+        String taskType
+    ) {
+        return await(computeAsync(data, taskId, taskType));
+    }
+
+    /**
+     * Non-blocking variant of {@link #compute}: the returned future completes
+     * on a gRPC executor thread once the Rust server has answered. Small
+     * requests are coalesced by the {@link ComputeBatcher} when enabled.
+     * Cancelling the future cancels the RPC, except for batched requests,
+     * which are only abandoned locally.
+     */
+    public CompletableFuture<com.mlhybrid.model.ComputeResponse> computeAsync(
+        List<Float> data,
+        String taskId,
+        String taskType
+    ) {
+        return computeAsync(data, taskId, taskType, Priority.INTERACTIVE);
+    }
+
+    /**
+     * {@link #computeAsync(List, String, String)} admitted by the
+     * {@link CallScheduler} with the given priority
+     */
+    public CompletableFuture<com.mlhybrid.model.ComputeResponse> computeAsync(
+        List<Float> data,
+        String taskId,
+        String taskType,
+        Priority priority
+    ) {
+        long convertStart = System.nanoTime();
+        ComputeRequest request = buildComputeRequest(data, taskId, taskType);
+        metrics.record(
+            PipelineMetrics.CONVERT,
+            PipelineMetrics.COMPUTE,
+            data.size(),
+            convertStart
+        );
+
+        CompletableFuture<ComputeResponse> call;
+        if (computeBatcher.accepts(request)) {
+            long submitted = System.nanoTime();
+            logger.info("Queueing compute request for batching: {}", taskId);
+            call = computeBatcher.submit(request, priority);
+            // Batched calls are timed as a whole, including the batch delay
+            call.whenComplete((response, error) ->
+                metrics.record(
+                    PipelineMetrics.GRPC,
+                    PipelineMetrics.COMPUTE,
+                    data.size(),
+                    submitted
+                )
+            );
+        } else {
+            Deadline deadline = resilience.computeDeadline(data.size());
+            call = schedule(
+                priority,
+                taskId,
+                PipelineMetrics.COMPUTE,
+                data.size(),
+                deadline,
+                backend -> startCompute(request, backend, deadline),
+                null
+            );
+        }
+
+        CompletableFuture<com.mlhybrid.model.ComputeResponse> result =
+            new CompletableFuture<>();
+        call.whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(computeError(error));
+                return;
+            }
+            long start = System.nanoTime();
+            com.mlhybrid.model.ComputeResponse converted = toComputeResponse(
+                response
+            );
+            metrics.record(
+                PipelineMetrics.CONVERT,
+                PipelineMetrics.COMPUTE,
+                data.size(),
+                start
+            );
+            result.complete(converted);
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<ComputeResponse> startCompute(
+        ComputeRequest request,
+        GrpcBackend backend,
+        Deadline deadline
+    ) {
         logger.info(
-            "Initializing gRPC client to connect to {}:{}",
-            grpcServerHost,
-            grpcServerPort
-        );
-        channel = ManagedChannelBuilder.forAddress(
-            grpcServerHost,
-            grpcServerPort
-        )
-            .usePlaintext()
-            .build();
-        blockingStub = MLGrpc.newBlockingStub(channel);
-        logger.info("gRPC client initialized successfully");
+            "Sending async compute request to Rust server for task: {}",
+            request.getTaskId()
+        );
+        UnaryCallFuture<ComputeResponse> call = new UnaryCallFuture<>();
+        Context.CancellableContext context = cancellableContext();
+        long start = System.nanoTime();
+        backend.acquire();
+        context.run(() ->
+            backend
+                .getAsyncStub()
+                .withOption(TracingClientInterceptor.TASK_ID, request.getTaskId())
+                .withDeadline(deadline)
+                .compute(request, call)
+        );
+        call.whenComplete((response, error) -> {
+            backend.release(error);
+            metrics.record(
+                PipelineMetrics.GRPC,
+                PipelineMetrics.COMPUTE,
+                PackedFloats.count(request.getPackedData()),
+                start
+            );
+        });
+        cancelWith(call, context);
+        return call;
+    }
+
+    /**
+     * Blocking variant of
+     * {@link #matrixComputeAsync(com.mlhybrid.model.MatrixComputeRequest)};
+     * the call is admitted, retried and traced the same way
+     */
+    public com.mlhybrid.model.MatrixComputeResponse matrixCompute(
+        com.mlhybrid.model.MatrixComputeRequest request
+    ) {
+        return await(matrixComputeAsync(request));
+    }
+
+    /**
+     * Non-blocking variant of {@link #matrixCompute}: the returned future
+     * completes on a gRPC executor thread once the Rust server has answered.
+     * Requests whose operands exceed {@code grpc.stream.threshold-elements}
+     * are sent over the chunked streaming RPC, unless they use a stored
+     * operand. Cancelling the future cancels the RPC.
+     */
+    public CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> matrixComputeAsync(
+        com.mlhybrid.model.MatrixComputeRequest request
+    ) {
+        return matrixComputeAsync(request, Priority.INTERACTIVE);
+    }
+
+    /**
+     * {@link #matrixComputeAsync(com.mlhybrid.model.MatrixComputeRequest)}
+     * admitted by the {@link CallScheduler} with the given priority
+     */
+    public CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> matrixComputeAsync(
+        com.mlhybrid.model.MatrixComputeRequest request,
+        Priority priority
+    ) {
+        // Stored operands are sent by handle once a backend holds them
+        boolean stream =
+            elementCount(request) > streamThresholdElements &&
+            !hasStoredOperand(request);
+        Deadline deadline = resilience.matrixDeadline(request);
+        return schedule(
+            priority,
+            request.getTaskId(),
+            request.getOperation(),
+            elementCount(request),
+            deadline,
+            backend ->
+                stream
+                    ? startMatrixStream(request, backend, deadline)
+                    : startMatrixCompute(request, backend, deadline),
+            com.mlhybrid.model.MatrixComputeResponse::getExecutionTimeMs
+        );
+    }
+
+    /**
+     * Send a matrix request over {@code MatrixComputeStream}, writing the
+     * operands in chunks and reassembling the streamed result.
+     */
+    public CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> matrixComputeStream(
+        com.mlhybrid.model.MatrixComputeRequest request
+    ) {
+        Deadline deadline = resilience.matrixDeadline(request);
+        return schedule(
+            Priority.INTERACTIVE,
+            request.getTaskId(),
+            request.getOperation(),
+            elementCount(request),
+            deadline,
+            backend -> startMatrixStream(request, backend, deadline),
+            com.mlhybrid.model.MatrixComputeResponse::getExecutionTimeMs
+        );
+    }
+
+    /**
+     * Send a matrix request on memory-mapped operands over
+     * {@code MatrixComputeStream}. The operands are read from their
+     * mappings chunk by chunk as the transport is ready, so they are never
+     * copied onto the heap as a whole; only the result is.
+     *
+     * @param b matrix B, or {@code null} for single-operand operations
+     */
+    public CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> matrixComputeStream(
+        String taskId,
+        String operation,
+        MappedMatrix a,
+        MappedMatrix b,
+        Priority priority
+    ) {
+        long elements = a.getElements() + (b != null ? b.getElements() : 0);
+        Deadline deadline = resilience.matrixDeadline(operation, a, b);
+        return schedule(
+            priority,
+            taskId,
+            operation,
+            elements,
+            deadline,
+            backend ->
+                startMatrixStream(
+                    taskId,
+                    operation,
+                    elements,
+                    writer -> {
+                        addOperand(writer, MatrixOperand.MATRIX_A, a);
+                        addOperand(writer, MatrixOperand.MATRIX_B, b);
+                    },
+                    backend,
+                    deadline
+                ),
+            com.mlhybrid.model.MatrixComputeResponse::getExecutionTimeMs
+        );
     }
 
-    @PreDestroy
-    public void shutdown() throws InterruptedException {
-        if (channel != null) {
-            logger.info("Shutting down gRPC channel");
-            channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+    /**
+     * Send a matrix request over {@code MatrixComputeStream} while its body
+     * is still arriving. The body is read on the calling thread, which
+     * forwards each block of operand values as soon as it is decoded and
+     * waits while the call cannot take more, so neither the body nor the
+     * operands are ever held whole. The call is not retried or hedged, as
+     * the body can only be read once, and it gets the longest deadline, as
+     * its size is not known up front.
+     *
+     * @return the call, whose failure takes precedence over a body that
+     *         could not be read because the call had already ended
+     * @throws IOException if the body is malformed; the call is cancelled
+     */
+    public CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> matrixComputeStream(
+        String taskId,
+        StreamingMatrixRequest request,
+        Priority priority
+    ) throws IOException {
+        String operation = request.getOperation();
+        Deadline deadline = resilience.streamedBodyDeadline();
+        MatrixChunkPipe pipe = new MatrixChunkPipe(taskId, operation);
+        CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> call =
+            submit(
+                priority,
+                taskId,
+                operation,
+                0,
+                backend ->
+                    startMatrixStream(
+                        taskId,
+                        operation,
+                        request::getElements,
+                        new MatrixChunkReader(pipe),
+                        backend,
+                        deadline
+                    ),
+                // Paced by the body, so its round trip says nothing
+                // about queueing
+                null,
+                deadline
+            );
+        call.whenComplete((response, error) -> pipe.close(error));
+
+        logger.info(
+            "Streaming request body to Rust server for task: {}, operation: {}",
+            taskId,
+            operation
+        );
+        long start = System.nanoTime();
+        try {
+            request.forward(
+                (matrixB, rows, cols, offset, values) ->
+                    pipe.send(
+                        matrixB ? MatrixOperand.MATRIX_B : MatrixOperand.MATRIX_A,
+                        rows,
+                        cols,
+                        offset,
+                        values
+                    ),
+                streamChunkElements
+            );
+        } catch (IOException | RuntimeException e) {
+            if (call.isDone()) {
+                return call;
+            }
+            call.cancel(true);
+            throw e;
         }
+        pipe.complete();
+        // Includes waiting for the transport, which paces the body
+        metrics.record(
+            PipelineMetrics.DECODE,
+            operation,
+            request.getElements(),
+            start
+        );
+        return call;
     }
 
-    public com.mlhybrid.model.ComputeResponse compute(
+    /**
+     * Evaluate a compiled expression in a single {@code MatrixExpression}
+     * call, so that intermediate results stay on the Rust server. Cancelling
+     * the future cancels the RPC.
+     */
+    public CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> matrixExpressionAsync(
+        String taskId,
+        ExpressionPlan plan,
+        Priority priority
+    ) {
+        Deadline deadline = resilience.expressionDeadline(plan);
+        return schedule(
+            priority,
+            taskId,
+            PipelineMetrics.EXPRESSION,
+            plan.getOperandElements(),
+            deadline,
+            backend -> startMatrixExpression(taskId, plan, backend, deadline),
+            com.mlhybrid.model.MatrixComputeResponse::getExecutionTimeMs
+        );
+    }
+
+    /**
+     * Submit a call to the scheduler as a {@link ResilientCall}, retried
+     * and hedged according to the {@link ResiliencePolicy}. All attempts
+     * are started in the trace context of the submitting thread, wherever
+     * they are started from.
+     */
+    private <T> CompletableFuture<T> schedule(
+        Priority priority,
+        String taskId,
+        String operation,
+        long elements,
+        Deadline deadline,
+        CallScheduler.Call<T> call,
+        ToLongFunction<? super T> serverTimeMs
+    ) {
+        io.opentelemetry.context.Context traceContext =
+            io.opentelemetry.context.Context.current();
+        ToLongFunction<? super T> sampled = queueDelaySample(
+            elements,
+            serverTimeMs
+        );
+        return new ResilientCall<T>(
+            resilience,
+            taskId,
+            deadline,
+            resilience.shouldHedge(elements),
+            (attempt, avoid) -> {
+                try (Scope ignored = traceContext.makeCurrent()) {
+                    if (avoid == null) {
+                        return submit(
+                            priority,
+                            taskId,
+                            operation,
+                            elements,
+                            attempt,
+                            sampled,
+                            deadline
+                        );
+                    }
+                    return scheduler.trySubmit(
+                        attempt,
+                        sampled,
+                        backend -> backend != avoid,
+                        deadline
+                    );
+                }
+            },
+            call
+        ).start();
+    }
+
+    /**
+     * The server time to sample the scheduler's queueing delay with, or
+     * {@code null} for calls whose operands take long enough to transfer
+     * that the round trip would pass for queueing on an idle server; those
+     * only drive the limit down by failing
+     */
+    private <T> ToLongFunction<? super T> queueDelaySample(
+        long elements,
+        ToLongFunction<? super T> serverTimeMs
+    ) {
+        return elements > streamThresholdElements ? null : serverTimeMs;
+    }
+
+    /**
+     * Submit one attempt to the scheduler. The wait for admission is timed
+     * and traced as {@code scheduler.queue}.
+     */
+    private <T> CompletableFuture<T> submit(
+        Priority priority,
+        String taskId,
+        String operation,
+        long elements,
+        CallScheduler.Call<T> call,
+        ToLongFunction<? super T> serverTimeMs,
+        Deadline deadline
+    ) {
+        io.opentelemetry.context.Context traceContext =
+            io.opentelemetry.context.Context.current();
+        Span queued = tracer.start("scheduler.queue", taskId);
+        long submitted = System.nanoTime();
+        AtomicBoolean started = new AtomicBoolean();
+
+        CompletableFuture<T> result = scheduler.submit(
+            priority,
+            backend -> {
+                started.set(true);
+                metrics.record(
+                    PipelineMetrics.QUEUE,
+                    operation,
+                    elements,
+                    submitted
+                );
+                queued.end();
+                try (Scope ignored = traceContext.makeCurrent()) {
+                    return call.start(backend);
+                }
+            },
+            serverTimeMs,
+            deadline
+        );
+        result.whenComplete((value, error) -> {
+            // Rejected, displaced or cancelled while waiting
+            if (!started.get()) {
+                PipelineTracer.end(queued, error);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> startMatrixCompute(
+        com.mlhybrid.model.MatrixComputeRequest request,
+        GrpcBackend backend,
+        Deadline deadline
+    ) {
+        String operation = request.getOperation();
+        long elements = elementCount(request);
+        return startWithOperands(
+            backend,
+            Arrays.asList(request.getMatrixA(), request.getMatrixB()),
+            byHandle -> {
+                long convertStart = System.nanoTime();
+                MatrixComputeRequest grpcRequest = buildMatrixComputeRequest(
+                    request,
+                    byHandle
+                );
+                metrics.record(
+                    PipelineMetrics.CONVERT,
+                    operation,
+                    elements,
+                    convertStart
+                );
+
+                logger.info(
+                    "Sending async matrix compute request to Rust server for task: {}, operation: {}",
+                    request.getTaskId(),
+                    request.getOperation()
+                );
+                return startMatrixCall(
+                    request.getTaskId(),
+                    operation,
+                    elements,
+                    backend,
+                    deadline,
+                    (stub, call) -> stub.matrixCompute(grpcRequest, call)
+                );
+            }
+        );
+    }
+
+    private CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> startMatrixExpression(
+        String taskId,
+        ExpressionPlan plan,
+        GrpcBackend backend,
+        Deadline deadline
+    ) {
+        long elements = plan.getOperandElements();
+        return startWithOperands(
+            backend,
+            plan.getOperands(),
+            byHandle -> {
+                long convertStart = System.nanoTime();
+                MatrixExpressionRequest grpcRequest =
+                    buildMatrixExpressionRequest(taskId, plan, byHandle);
+                metrics.record(
+                    PipelineMetrics.CONVERT,
+                    PipelineMetrics.EXPRESSION,
+                    elements,
+                    convertStart
+                );
+
+                logger.info(
+                    "Sending matrix expression to Rust server for task: {}, operands: {}, steps: {}",
+                    taskId,
+                    plan.getOperands().size(),
+                    plan.getSteps().size()
+                );
+                return startMatrixCall(
+                    taskId,
+                    PipelineMetrics.EXPRESSION,
+                    elements,
+                    backend,
+                    deadline,
+                    (stub, call) -> stub.matrixExpression(grpcRequest, call)
+                );
+            }
+        );
+    }
+
+    /**
+     * Start a call, sending the stored operands the backend already holds
+     * by handle only. If the backend has dropped one of them, the call is
+     * repeated once with the data of all operands, which the backend then
+     * keeps for later calls.
+     *
+     * @param start starts the call given the handles to send without data
+     */
+    private CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> startWithOperands(
+        GrpcBackend backend,
+        List<Matrix> operands,
+        Function<Set<String>, CompletableFuture<com.mlhybrid.model.MatrixComputeResponse>> start
+    ) {
+        Set<String> stored = new HashSet<>();
+        Set<String> held = new HashSet<>();
+        for (Matrix operand : operands) {
+            if (
+                operand != null &&
+                operand.getHandle() != null &&
+                operand.getData().length > 0
+            ) {
+                stored.add(operand.getHandle());
+                if (backend.holdsOperand(operand.getHandle())) {
+                    held.add(operand.getHandle());
+                }
+            }
+        }
+        if (stored.isEmpty()) {
+            return start.apply(Collections.emptySet());
+        }
+
+        CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> result =
+            new CompletableFuture<>();
+        AtomicReference<CompletableFuture<com.mlhybrid.model.MatrixComputeResponse>> current =
+            new AtomicReference<>(start.apply(held));
+        current
+            .get()
+            .whenComplete((response, error) -> {
+                if (
+                    error == null ||
+                    held.isEmpty() ||
+                    Status.fromThrowable(error).getCode() !=
+                    Status.Code.NOT_FOUND ||
+                    result.isDone()
+                ) {
+                    completeWithOperands(
+                        backend,
+                        stored,
+                        result,
+                        response,
+                        error
+                    );
+                    return;
+                }
+                logger.info(
+                    "Backend {} no longer holds {} stored operand(s), sending their data",
+                    backend.getTarget(),
+                    held.size()
+                );
+                held.forEach(backend::operandDropped);
+                CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> resent =
+                    start.apply(Collections.emptySet());
+                current.set(resent);
+                if (result.isDone()) {
+                    resent.cancel(false);
+                }
+                resent.whenComplete((value, failure) ->
+                    completeWithOperands(backend, stored, result, value, failure)
+                );
+            });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                current.get().cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private static void completeWithOperands(
+        GrpcBackend backend,
+        Set<String> stored,
+        CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> result,
+        com.mlhybrid.model.MatrixComputeResponse response,
+        Throwable error
+    ) {
+        if (error != null) {
+            result.completeExceptionally(error);
+            return;
+        }
+        stored.forEach(backend::operandSent);
+        result.complete(response);
+    }
+
+    /**
+     * Start a unary RPC answered with a {@code MatrixComputeResponse} and
+     * convert its response
+     */
+    private CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> startMatrixCall(
+        String taskId,
+        String operation,
+        long elements,
+        GrpcBackend backend,
+        Deadline deadline,
+        BiConsumer<MLGrpc.MLStub, StreamObserver<MatrixComputeResponse>> rpc
+    ) {
+        UnaryCallFuture<MatrixComputeResponse> call = new UnaryCallFuture<>();
+        Context.CancellableContext context = cancellableContext();
+        long start = System.nanoTime();
+        backend.acquire();
+        context.run(() ->
+            rpc.accept(
+                backend
+                    .getAsyncStub()
+                    .withOption(TracingClientInterceptor.TASK_ID, taskId)
+                    .withDeadline(deadline),
+                call
+            )
+        );
+
+        CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> result =
+            new CompletableFuture<>();
+        call.whenComplete((response, error) -> {
+            backend.release(error);
+            metrics.record(PipelineMetrics.GRPC, operation, elements, start);
+            if (error != null) {
+                result.completeExceptionally(matrixComputeError(error));
+                return;
+            }
+            long responseStart = System.nanoTime();
+            com.mlhybrid.model.MatrixComputeResponse converted =
+                toMatrixComputeResponse(response);
+            metrics.record(
+                PipelineMetrics.CONVERT,
+                operation,
+                elements,
+                responseStart
+            );
+            result.complete(converted);
+        });
+        cancelWith(result, context);
+        return result;
+    }
+
+    private CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> startMatrixStream(
+        com.mlhybrid.model.MatrixComputeRequest request,
+        GrpcBackend backend,
+        Deadline deadline
+    ) {
+        return startMatrixStream(
+            request.getTaskId(),
+            request.getOperation(),
+            elementCount(request),
+            writer -> {
+                Matrix a = request.getMatrixA();
+                Matrix b = request.getMatrixB();
+                addOperand(writer, MatrixOperand.MATRIX_A, a);
+                addOperand(writer, MatrixOperand.MATRIX_B, b);
+            },
+            backend,
+            deadline
+        );
+    }
+
+    /**
+     * Start a {@code MatrixComputeStream} call whose operands are queued on
+     * a fresh {@link MatrixChunkWriter} by {@code operands}, so that each
+     * attempt writes them from the start
+     */
+    private CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> startMatrixStream(
+        String taskId,
+        String operation,
+        long elements,
+        Consumer<MatrixChunkWriter> operands,
+        GrpcBackend backend,
+        Deadline deadline
+    ) {
+        MatrixChunkWriter writer = new MatrixChunkWriter(
+            taskId,
+            operation,
+            streamChunkElements
+        );
+        operands.accept(writer);
+
+        logger.info(
+            "Streaming matrix compute request to Rust server for task: {}, operation: {}, elements: {}",
+            taskId,
+            operation,
+            elements
+        );
+        return startMatrixStream(
+            taskId,
+            operation,
+            () -> elements,
+            new MatrixChunkReader(writer),
+            backend,
+            deadline
+        );
+    }
+
+    /**
+     * Start a {@code MatrixComputeStream} call whose operands are written
+     * by the request side attached to {@code reader}
+     *
+     * @param elements operand values, read once the call has ended
+     */
+    private CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> startMatrixStream(
+        String taskId,
+        String operation,
+        LongSupplier elements,
+        MatrixChunkReader reader,
+        GrpcBackend backend,
+        Deadline deadline
+    ) {
+        Context.CancellableContext context = cancellableContext();
+        long start = System.nanoTime();
+        backend.acquire();
+        context.run(() ->
+            backend
+                .getAsyncStub()
+                .withOption(TracingClientInterceptor.TASK_ID, taskId)
+                .withDeadline(deadline)
+                .matrixComputeStream(reader)
+        );
+
+        CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> result =
+            new CompletableFuture<>();
+        reader
+            .getResult()
+            .whenComplete((response, error) -> {
+                backend.release(error);
+                // Chunks are converted while they stream, so this includes
+                // the proto conversion of operands and result
+                metrics.record(
+                    PipelineMetrics.GRPC,
+                    operation,
+                    elements.getAsLong(),
+                    start
+                );
+                if (error != null) {
+                    result.completeExceptionally(matrixComputeError(error));
+                } else {
+                    logger.info(
+                        "Received streamed matrix response from Rust server for task: {}",
+                        response.getTaskId()
+                    );
+                    result.complete(response);
+                }
+            });
+        cancelWith(result, context);
+        return result;
+    }
+
+    /**
+     * Context for a single call, so that the call can be cancelled on its
+     * own. It is forked because queued calls are started from the
+     * completion callback of another call, whose context is cancelled as
+     * soon as that call completes.
+     */
+    private static Context.CancellableContext cancellableContext() {
+        return Context.current().fork().withCancellation();
+    }
+
+    /**
+     * Tie a call's context to its future: cancelling the future cancels the
+     * RPC on the Rust server, and completion releases the context.
+     */
+    private static void cancelWith(
+        CompletableFuture<?> future,
+        Context.CancellableContext context
+    ) {
+        future.whenComplete((value, error) -> context.cancel(null));
+    }
+
+    private static void addOperand(
+        MatrixChunkWriter writer,
+        MatrixOperand operand,
+        Matrix matrix
+    ) {
+        if (matrix != null) {
+            writer.add(
+                operand,
+                matrix.getRows(),
+                matrix.getCols(),
+                FloatBuffer.wrap(matrix.getData())
+            );
+        }
+    }
+
+    private static void addOperand(
+        MatrixChunkWriter writer,
+        MatrixOperand operand,
+        MappedMatrix matrix
+    ) {
+        if (matrix == null) {
+            return;
+        }
+        int firstRow = 0;
+        for (FloatBuffer block : matrix.getBlocks()) {
+            writer.add(
+                operand,
+                matrix.getRows(),
+                matrix.getCols(),
+                firstRow,
+                block
+            );
+            firstRow += block.capacity() / Math.max(1, matrix.getCols());
+        }
+    }
+
+    private static long elementCount(
+        com.mlhybrid.model.MatrixComputeRequest request
+    ) {
+        long count = 0;
+        if (request.getMatrixA() != null) {
+            count += request.getMatrixA().getData().length;
+        }
+        if (request.getMatrixB() != null) {
+            count += request.getMatrixB().getData().length;
+        }
+        return count;
+    }
+
+    private ComputeRequest buildComputeRequest(
         List<Float> data,
         String taskId,
         String taskType
     ) {
-        // Build the gRPC request
-        ComputeRequest request = ComputeRequest.newBuilder()
-            .addAllData(data)
+        return ComputeRequest.newBuilder()
+            .setPackedData(PackedFloats.pack(data))
             .setTaskId(taskId)
             .setTaskType(taskType)
             .build();
+    }
 
-        // Call the Rust service
+    private com.mlhybrid.model.ComputeResponse toComputeResponse(
+        ComputeResponse response
+    ) {
         logger.info(
-            "Sending compute request to Rust server for task: {}",
-            taskId
+            "Received response from Rust server for task: {}",
+            response.getTaskId()
         );
-        try {
-            ComputeResponse response = blockingStub.compute(request);
-            logger.info(
-                "Received response from Rust server for task: {}",
-                taskId
+
+        // Convert the gRPC response to our model
+        List<Float> result = response.getPackedResult().isEmpty()
+            ? response.getResultList()
+            : new FloatArrayList(
+                PackedFloats.unpack(response.getPackedResult())
             );
+        return new com.mlhybrid.model.ComputeResponse(
+            result,
+            response.getTaskId(),
+            response.getStatus()
+        );
+    }
 
-            // Convert the gRPC response to our model
-            return new com.mlhybrid.model.ComputeResponse(
-                response.getResultList(),
-                response.getTaskId(),
-                response.getStatus()
+    /**
+     * Wait for a call, rethrowing its failure; an interrupt cancels it
+     */
+    private static <T> T await(CompletableFuture<T> call) {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(
+                "Interrupted waiting for the Rust server",
+                e
             );
-        } catch (Exception e) {
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException
+                ? (RuntimeException) cause
+                : new RuntimeException(cause);
+        }
+    }
+
+    private RuntimeException computeError(Throwable e) {
+        if (e instanceof SchedulerRejectedException) {
+            return (SchedulerRejectedException) e;
+        }
+        if (isCancelled(e)) {
+            logger.info("Compute request cancelled: {}", e.getMessage());
+            return new RuntimeException("Computation request cancelled", e);
+        }
+        GrpcCallException error = callError(
+            "Error processing computation request",
+            e
+        );
+        if (error.isUnavailable() || error.isDeadlineExceeded()) {
+            logger.warn("Rust gRPC call failed: {}", e.getMessage());
+        } else {
             logger.error(
                 "Error calling Rust gRPC service: {}",
                 e.getMessage(),
                 e
             );
-            throw new RuntimeException(
-                "Error processing computation request",
-                e
-            );
         }
+        return error;
     }
 
-    public com.mlhybrid.model.MatrixComputeResponse matrixCompute(
-        com.mlhybrid.model.MatrixComputeRequest request
+    /**
+     * Wrap a failed call, telling an unreachable or slow backend apart
+     * from other errors in the message
+     */
+    private static GrpcCallException callError(String message, Throwable e) {
+        Status status = Status.fromThrowable(e);
+        if (status.getCode() == Status.Code.UNAVAILABLE) {
+            message = "Rust backend unavailable";
+            if (status.getDescription() != null) {
+                message += ": " + status.getDescription();
+            }
+        } else if (status.getCode() == Status.Code.DEADLINE_EXCEEDED) {
+            message = "Rust backend did not respond within the deadline";
+        }
+        return new GrpcCallException(message, e);
+    }
+
+    /**
+     * @param byHandle handles of stored operands to send without their data
+     */
+    private MatrixComputeRequest buildMatrixComputeRequest(
+        com.mlhybrid.model.MatrixComputeRequest request,
+        Set<String> byHandle
     ) {
-        // Build the gRPC request
-        com.mlhybrid.grpc.Matrix matrixA = null;
+        MatrixComputeRequest.Builder builder = MatrixComputeRequest.newBuilder()
+            .setTaskId(request.getTaskId())
+            .setOperation(request.getOperation());
+
         if (request.getMatrixA() != null) {
-            matrixA = request.getMatrixA().toGrpcMatrix();
+            builder.setMatrixA(toGrpcOperand(request.getMatrixA(), byHandle));
         }
-
-        com.mlhybrid.grpc.Matrix matrixB = null;
         if (request.getMatrixB() != null) {
-            matrixB = request.getMatrixB().toGrpcMatrix();
+            builder.setMatrixB(toGrpcOperand(request.getMatrixB(), byHandle));
         }
 
-        MatrixComputeRequest grpcRequest = MatrixComputeRequest.newBuilder()
-            .setTaskId(request.getTaskId())
-            .setOperation(request.getOperation())
-            .setMatrixA(matrixA)
-            .setMatrixB(matrixB)
-            .build();
+        return builder.build();
+    }
 
-        // Call the Rust service
-        logger.info(
-            "Sending matrix compute request to Rust server for task: {}, operation: {}",
-            request.getTaskId(),
-            request.getOperation()
+    private static com.mlhybrid.grpc.Matrix toGrpcOperand(
+        Matrix matrix,
+        Set<String> byHandle
+    ) {
+        return matrix.getHandle() != null &&
+            byHandle.contains(matrix.getHandle())
+            ? matrix.toGrpcReference()
+            : matrix.toGrpcMatrix();
+    }
+
+    private static boolean hasStoredOperand(
+        com.mlhybrid.model.MatrixComputeRequest request
+    ) {
+        return (
+            (request.getMatrixA() != null &&
+                request.getMatrixA().getHandle() != null) ||
+            (request.getMatrixB() != null &&
+                request.getMatrixB().getHandle() != null)
         );
-        try {
-            MatrixComputeResponse grpcResponse = blockingStub.matrixCompute(
-                grpcRequest
-            );
-            logger.info(
-                "Received matrix response from Rust server for task: {}",
-                request.getTaskId()
+    }
+
+    private MatrixExpressionRequest buildMatrixExpressionRequest(
+        String taskId,
+        ExpressionPlan plan,
+        Set<String> byHandle
+    ) {
+        MatrixExpressionRequest.Builder builder =
+            MatrixExpressionRequest.newBuilder().setTaskId(taskId);
+        for (Matrix operand : plan.getOperands()) {
+            builder.addOperands(toGrpcOperand(operand, byHandle));
+        }
+        for (ExpressionPlan.Step step : plan.getSteps()) {
+            builder.addSteps(
+                ExpressionStep.newBuilder()
+                    .setOperation(step.getOperation())
+                    .setLeft(step.getLeft())
+                    .setRight(step.getRight())
             );
+        }
+        return builder.build();
+    }
 
-            // Convert the gRPC response to our model
-            com.mlhybrid.model.Matrix resultMatrix = null;
-            if (grpcResponse.hasResult()) {
-                resultMatrix = Matrix.fromGrpcMatrix(grpcResponse.getResult());
-            }
+    private com.mlhybrid.model.MatrixComputeResponse toMatrixComputeResponse(
+        MatrixComputeResponse grpcResponse
+    ) {
+        logger.info(
+            "Received matrix response from Rust server for task: {}",
+            grpcResponse.getTaskId()
+        );
+
+        // Convert the gRPC response to our model
+        Matrix resultMatrix = null;
+        if (grpcResponse.hasResult()) {
+            resultMatrix = Matrix.fromGrpcMatrix(grpcResponse.getResult());
+        }
 
-            return new com.mlhybrid.model.MatrixComputeResponse(
-                resultMatrix,
-                grpcResponse.getTaskId(),
-                grpcResponse.getStatus(),
-                grpcResponse.getErrorMessage(),
-                grpcResponse.getExecutionTimeMs()
+        return new com.mlhybrid.model.MatrixComputeResponse(
+            resultMatrix,
+            grpcResponse.getTaskId(),
+            grpcResponse.getStatus(),
+            grpcResponse.getErrorMessage(),
+            grpcResponse.getExecutionTimeMs()
+        );
+    }
+
+    private RuntimeException matrixComputeError(Throwable e) {
+        if (isCancelled(e)) {
+            logger.info("Matrix request cancelled: {}", e.getMessage());
+            return new RuntimeException(
+                "Matrix computation request cancelled",
+                e
             );
-        } catch (Exception e) {
+        }
+        GrpcCallException error = callError(
+            "Error processing matrix computation request",
+            e
+        );
+        if (error.getCode() == Status.Code.NOT_FOUND) {
+            // A stored operand the backend has dropped; sent again
+            logger.info("Rust gRPC matrix call failed: {}", e.getMessage());
+        } else if (error.isUnavailable() || error.isDeadlineExceeded()) {
+            logger.warn("Rust gRPC matrix call failed: {}", e.getMessage());
+        } else {
             logger.error(
                 "Error calling Rust gRPC service for matrix operation: {}",
                 e.getMessage(),
                 e
             );
-            throw new RuntimeException(
-                "Error processing matrix computation request",
-                e
-            );
         }
+        return error;
+    }
+
+    private static boolean isCancelled(Throwable e) {
+        return Status.fromThrowable(e).getCode() == Status.Code.CANCELLED;
     }
 }
@@ -0,0 +1,133 @@
+package com.mlhybrid.grpc;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.FloatBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Streams matrix operands to {@code MatrixComputeStream} as they are
+ * produced, such as while a request body is still being read. Unlike
+ * {@link MatrixChunkWriter}, whose operands are all in memory, the
+ * producer pushes blocks of values with {@link #send} and is blocked while
+ * {@link #QUEUED_CHUNKS} chunks wait for the transport, so a slow backend
+ * slows down the producer instead of filling the heap. Chunk values are
+ * sent packed.
+ */
+public class MatrixChunkPipe implements Runnable {
+
+    /** Chunks buffered between the producer and the transport */
+    static final int QUEUED_CHUNKS = 4;
+
+    private final String taskId;
+    private final String operation;
+    private final Queue<MatrixChunk> queue = new ArrayDeque<>();
+
+    private ClientCallStreamObserver<MatrixChunk> requestStream;
+    private boolean first = true;
+    private boolean completed;
+    private boolean done;
+    private Throwable closed;
+
+    public MatrixChunkPipe(String taskId, String operation) {
+        this.taskId = taskId;
+        this.operation = operation;
+    }
+
+    /**
+     * Queue a block of consecutive values of an operand, starting at
+     * {@code offset} in row-major order, blocking while the queue is full.
+     * The values are copied before this returns.
+     *
+     * @throws IOException if the call has ended, or the wait was
+     *         interrupted
+     */
+    public void send(
+        MatrixOperand operand,
+        int rows,
+        int cols,
+        long offset,
+        FloatBuffer values
+    ) throws IOException {
+        int width = Math.max(1, cols);
+        MatrixChunk.Builder chunk = MatrixChunk.newBuilder()
+            .setTaskId(taskId)
+            .setOperand(operand)
+            .setRows(rows)
+            .setCols(cols)
+            .setRowOffset((int) (offset / width))
+            .setColOffset((int) (offset % width))
+            .setPackedData(PackedFloats.pack(values));
+
+        synchronized (this) {
+            if (first) {
+                chunk.setOperation(operation);
+                first = false;
+            }
+            try {
+                while (closed == null && queue.size() >= QUEUED_CHUNKS) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted sending chunk");
+            }
+            if (closed != null) {
+                throw new IOException("Matrix stream has ended", closed);
+            }
+            queue.add(chunk.build());
+        }
+        run();
+    }
+
+    /**
+     * Close the request stream once the queued chunks are written
+     */
+    public void complete() {
+        synchronized (this) {
+            completed = true;
+        }
+        run();
+    }
+
+    /**
+     * Stop accepting chunks because the call has ended, waking a blocked
+     * producer
+     */
+    synchronized void close(Throwable cause) {
+        if (closed == null) {
+            closed = cause != null
+                ? cause
+                : new IllegalStateException("Call completed");
+        }
+        queue.clear();
+        notifyAll();
+    }
+
+    /**
+     * Attach to the outbound side of the call and write when ready
+     */
+    synchronized void start(
+        ClientCallStreamObserver<MatrixChunk> requestStream
+    ) {
+        this.requestStream = requestStream;
+        requestStream.setOnReadyHandler(this);
+    }
+
+    @Override
+    public synchronized void run() {
+        if (requestStream == null || done || closed != null) {
+            return;
+        }
+        while (!queue.isEmpty() && requestStream.isReady()) {
+            requestStream.onNext(queue.poll());
+            notifyAll();
+        }
+        if (queue.isEmpty() && completed) {
+            done = true;
+            requestStream.onCompleted();
+        }
+    }
+}
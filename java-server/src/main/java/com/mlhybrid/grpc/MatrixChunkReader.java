@@ -0,0 +1,119 @@
+package com.mlhybrid.grpc;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import java.nio.FloatBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Response side of {@code MatrixComputeStream}: reassembles the result
+ * chunks into a single primitive array and completes
+ * {@link #getResult()} once the server closes the stream.
+ * <p>
+ * The paired {@link MatrixChunkWriter} or {@link MatrixChunkPipe} is
+ * attached to the request stream before the call starts so that operands
+ * are written under flow control.
+ */
+public class MatrixChunkReader
+    implements ClientResponseObserver<MatrixChunk, MatrixChunk> {
+
+    private final Consumer<ClientCallStreamObserver<MatrixChunk>> requestWriter;
+    private final CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> result =
+        new CompletableFuture<>();
+
+    private String taskId = "";
+    private String status = "";
+    private String errorMessage = "";
+    private long executionTimeMs;
+    private int rows;
+    private int cols;
+    private float[] data;
+
+    public MatrixChunkReader(MatrixChunkWriter writer) {
+        this.requestWriter = writer::start;
+    }
+
+    public MatrixChunkReader(MatrixChunkPipe pipe) {
+        this.requestWriter = pipe::start;
+    }
+
+    public CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> getResult() {
+        return result;
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<MatrixChunk> requestStream) {
+        requestWriter.accept(requestStream);
+    }
+
+    @Override
+    public void onNext(MatrixChunk chunk) {
+        taskId = chunk.getTaskId();
+        status = chunk.getStatus();
+        errorMessage = chunk.getErrorMessage();
+        executionTimeMs = chunk.getExecutionTimeMs();
+
+        if (chunk.getRows() == 0 || chunk.getCols() == 0) {
+            return;
+        }
+        if (data == null) {
+            rows = chunk.getRows();
+            cols = chunk.getCols();
+            data = new float[Math.multiplyExact(rows, cols)];
+        }
+
+        FloatBuffer packed = chunk.getPackedData().isEmpty()
+            ? null
+            : PackedFloats.view(chunk.getPackedData());
+        long offset =
+            (long) chunk.getRowOffset() * cols + chunk.getColOffset();
+        int count = packed != null ? packed.remaining() : chunk.getDataCount();
+        if (
+            chunk.getRowOffset() < 0 ||
+            chunk.getColOffset() < 0 ||
+            chunk.getColOffset() >= cols ||
+            offset + count > data.length
+        ) {
+            throw new IllegalStateException(
+                "Result chunk at row " +
+                chunk.getRowOffset() +
+                ", column " +
+                chunk.getColOffset() +
+                " exceeds " +
+                rows +
+                "x" +
+                cols +
+                " result"
+            );
+        }
+        if (packed != null) {
+            packed.get(data, (int) offset, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            data[(int) offset + i] = chunk.getData(i);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        result.completeExceptionally(t);
+    }
+
+    @Override
+    public void onCompleted() {
+        com.mlhybrid.model.Matrix resultMatrix = data != null
+            ? new com.mlhybrid.model.Matrix(rows, cols, data)
+            : null;
+        result.complete(
+            new com.mlhybrid.model.MatrixComputeResponse(
+                resultMatrix,
+                taskId,
+                status,
+                errorMessage,
+                executionTimeMs
+            )
+        );
+    }
+}
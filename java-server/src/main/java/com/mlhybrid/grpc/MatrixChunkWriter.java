@@ -0,0 +1,158 @@
+package com.mlhybrid.grpc;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams matrix operands to {@code MatrixComputeStream} as
+ * {@link MatrixChunk}s of at most {@code chunkElements} values, so that no
+ * operand is ever built as a single protobuf message. Chunks hold whole
+ * rows where a row fits, and rows wider than a chunk are split across
+ * chunks. Chunk values are sent packed.
+ * <p>
+ * The writer is driven by the call's on-ready handler and only emits
+ * chunks while the transport is ready, which keeps at most a few chunks
+ * buffered regardless of the operand size.
+ */
+public class MatrixChunkWriter implements Runnable {
+
+    private final String taskId;
+    private final String operation;
+    private final int chunkElements;
+    private final List<Operand> operands = new ArrayList<>();
+
+    private ClientCallStreamObserver<MatrixChunk> requestStream;
+    private int operandIndex;
+    private int nextValue;
+    private boolean done;
+
+    public MatrixChunkWriter(String taskId, String operation, int chunkElements) {
+        this.taskId = taskId;
+        this.operation = operation;
+        this.chunkElements = Math.max(1, chunkElements);
+    }
+
+    /**
+     * Queue an operand given as row-major data; the buffer is read from its
+     * current position and is not modified.
+     */
+    public MatrixChunkWriter add(
+        MatrixOperand operand,
+        int rows,
+        int cols,
+        FloatBuffer data
+    ) {
+        operands.add(new Operand(operand, rows, cols, 0, data.duplicate()));
+        return this;
+    }
+
+    /**
+     * Queue a block of whole rows of a larger operand, starting at
+     * {@code firstRow}. An operand that does not fit one buffer, such as a
+     * file mapped in several regions, is added block by block in row order.
+     */
+    public MatrixChunkWriter add(
+        MatrixOperand operand,
+        int rows,
+        int cols,
+        int firstRow,
+        FloatBuffer block
+    ) {
+        operands.add(
+            new Operand(operand, rows, cols, firstRow, block.duplicate())
+        );
+        return this;
+    }
+
+    /**
+     * Attach to the outbound side of the call and start writing when ready
+     */
+    void start(ClientCallStreamObserver<MatrixChunk> requestStream) {
+        this.requestStream = requestStream;
+        requestStream.setOnReadyHandler(this);
+    }
+
+    @Override
+    public synchronized void run() {
+        if (requestStream == null || done) {
+            return;
+        }
+        while (requestStream.isReady()) {
+            if (operandIndex == operands.size()) {
+                done = true;
+                requestStream.onCompleted();
+                return;
+            }
+
+            Operand operand = operands.get(operandIndex);
+            requestStream.onNext(nextChunk(operand));
+            if (nextValue >= operand.data.limit()) {
+                operandIndex++;
+                nextValue = 0;
+            }
+        }
+    }
+
+    private MatrixChunk nextChunk(Operand operand) {
+        int cols = Math.max(1, operand.cols);
+        int start = nextValue;
+        int end = (int) Math.min(
+            (long) start + chunkValues(cols, chunkElements),
+            operand.data.limit()
+        );
+
+        MatrixChunk.Builder chunk = MatrixChunk.newBuilder()
+            .setTaskId(taskId)
+            .setOperand(operand.operand)
+            .setRows(operand.rows)
+            .setCols(operand.cols)
+            .setRowOffset(operand.firstRow + start / cols)
+            .setColOffset(start % cols);
+        if (operandIndex == 0 && start == 0) {
+            chunk.setOperation(operation);
+        }
+
+        FloatBuffer values = operand.data.duplicate();
+        values.position(start).limit(end);
+        chunk.setPackedData(PackedFloats.pack(values));
+
+        // Empty operands still produce one chunk carrying the dimensions
+        nextValue = Math.max(end, 1);
+        return chunk.build();
+    }
+
+    /**
+     * Values per chunk of a matrix with {@code cols} columns: as many
+     * whole rows as fit in {@code chunkElements} values, or part of a row
+     * if a single row does not fit
+     */
+    static int chunkValues(int cols, int chunkElements) {
+        int limit = Math.max(1, chunkElements);
+        return cols > 0 && cols <= limit ? limit / cols * cols : limit;
+    }
+
+    private static class Operand {
+
+        private final MatrixOperand operand;
+        private final int rows;
+        private final int cols;
+        private final int firstRow;
+        private final FloatBuffer data;
+
+        Operand(
+            MatrixOperand operand,
+            int rows,
+            int cols,
+            int firstRow,
+            FloatBuffer data
+        ) {
+            this.operand = operand;
+            this.rows = rows;
+            this.cols = cols;
+            this.firstRow = firstRow;
+            this.data = data.slice();
+        }
+    }
+}
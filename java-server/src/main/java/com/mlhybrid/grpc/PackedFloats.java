@@ -0,0 +1,99 @@
+package com.mlhybrid.grpc;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import com.mlhybrid.model.FloatArrayList;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.List;
+
+/**
+ * Conversion of float values to and from the packed fields of
+ * {@code Matrix}, {@code MatrixChunk}, {@code ComputeRequest} and
+ * {@code ComputeResponse}, which hold them as little-endian float32 bytes.
+ * <p>
+ * Unlike the repeated {@code data} fields, which protobuf reads and writes
+ * one value at a time, packed values move in bulk buffer copies: packing
+ * copies the values once into a fresh buffer that the {@link ByteString}
+ * then wraps without copying again, and unpacking reads them through a
+ * {@link FloatBuffer} view of the received bytes. Heap, direct and mapped
+ * buffers are all handled through the {@code java.nio} API alone.
+ */
+public final class PackedFloats {
+
+    private PackedFloats() {}
+
+    /**
+     * Pack an array of values
+     */
+    public static ByteString pack(float[] values) {
+        return pack(FloatBuffer.wrap(values));
+    }
+
+    /**
+     * Pack the remaining values of a buffer, which is not modified
+     */
+    public static ByteString pack(FloatBuffer values) {
+        ByteBuffer bytes = ByteBuffer.allocate(values.remaining() * Float.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asFloatBuffer().put(values.duplicate());
+        // The buffer is never written again, so it can be shared
+        return UnsafeByteOperations.unsafeWrap(bytes);
+    }
+
+    /**
+     * Pack a list of values. A {@link FloatArrayList} is packed straight
+     * from its array; other lists are unboxed one value at a time.
+     */
+    public static ByteString pack(List<Float> values) {
+        if (values instanceof FloatArrayList) {
+            return pack(((FloatArrayList) values).array());
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(values.size() * Float.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        for (Float value : values) {
+            bytes.putFloat(value);
+        }
+        bytes.flip();
+        return UnsafeByteOperations.unsafeWrap(bytes);
+    }
+
+    /**
+     * Number of packed values, without decoding them
+     */
+    public static int count(ByteString packed) {
+        return packed.size() / Float.BYTES;
+    }
+
+    /**
+     * Read-only view of packed values. It shares the bytes of a flat
+     * {@link ByteString}, such as a parsed field; a composite one is copied
+     * first.
+     *
+     * @throws IllegalArgumentException if the bytes are not a whole number
+     *         of floats
+     */
+    public static FloatBuffer view(ByteString packed) {
+        if (packed.size() % Float.BYTES != 0) {
+            throw new IllegalArgumentException(
+                "Packed data of " + packed.size() +
+                " bytes is not a whole number of floats"
+            );
+        }
+        return packed
+            .asReadOnlyByteBuffer()
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .asFloatBuffer();
+    }
+
+    /**
+     * Packed values copied into a new array
+     */
+    public static float[] unpack(ByteString packed) {
+        FloatBuffer view = view(packed);
+        float[] values = new float[view.remaining()];
+        view.get(values);
+        return values;
+    }
+}
@@ -0,0 +1,236 @@
+package com.mlhybrid.grpc;
+
+import com.mlhybrid.expression.ExpressionPlan;
+import com.mlhybrid.ingest.MappedMatrix;
+import com.mlhybrid.model.Matrix;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deadlines, retries and hedging of gRPC calls.
+ * <p>
+ * Every call gets a deadline of {@code grpc.deadline.base-ms} plus the
+ * estimated work divided by {@code grpc.deadline.work-per-ms}, capped at
+ * {@code grpc.deadline.max-ms} ({@code 0} for none), and kept short of
+ * {@code spring.mvc.async.request-timeout} so that a call never outlives
+ * the HTTP request waiting for it. Work counts the operand values sent plus
+ * the multiply-adds of a {@code multiply} or {@code inverse}, so the
+ * deadline grows with the matrix size and the operation's complexity. The
+ * deadline covers all attempts of a call, including time spent in the
+ * scheduler queue.
+ * <p>
+ * All RPCs of the ML service are pure functions of their request and can
+ * be retried. Attempts failing with {@code UNAVAILABLE} are retried after a
+ * jittered exponential backoff while the deadline leaves room, unless all
+ * circuits are open, and calls still running after
+ * {@code grpc.hedging.delay-ms} are hedged to a second backend; see
+ * {@link ResilientCall}.
+ */
+@Component
+public class ResiliencePolicy {
+
+    /** Time left between a call's deadline and the request's timeout */
+    private static final long ASYNC_TIMEOUT_MARGIN_MS = 5000;
+
+    @Value("${grpc.deadline.base-ms:2000}")
+    private long deadlineBaseMs;
+
+    @Value("${grpc.deadline.work-per-ms:100000}")
+    private long deadlineWorkPerMs;
+
+    @Value("${grpc.deadline.max-ms:55000}")
+    private long deadlineMaxMs;
+
+    /** Tomcat's default applies when the property is not set */
+    @Value("${spring.mvc.async.request-timeout:30s}")
+    private Duration asyncRequestTimeout;
+
+    @Value("${grpc.retry.max-attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${grpc.retry.initial-backoff-ms:50}")
+    private long retryInitialBackoffMs;
+
+    @Value("${grpc.retry.max-backoff-ms:1000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${grpc.hedging.enabled:true}")
+    private boolean hedgingEnabled;
+
+    @Value("${grpc.hedging.delay-ms:500}")
+    private long hedgingDelayMs;
+
+    @Value("${grpc.hedging.max-elements:262144}")
+    private long hedgingMaxElements;
+
+    /**
+     * Deadline for a {@code Compute} call over {@code dataCount} values, or
+     * {@code null} if calls have none
+     */
+    public Deadline computeDeadline(long dataCount) {
+        return deadlineFor(dataCount);
+    }
+
+    /**
+     * Deadline for a matrix call, scaled by its operands and operation, or
+     * {@code null} if calls have none
+     */
+    public Deadline matrixDeadline(
+        com.mlhybrid.model.MatrixComputeRequest request
+    ) {
+        Matrix a = request.getMatrixA();
+        Matrix b = request.getMatrixB();
+        double work = values(a) + values(b);
+        if (a != null) {
+            work += operationWork(
+                request.getOperation(),
+                a.getRows(),
+                a.getCols(),
+                b != null ? b.getCols() : -1
+            );
+        }
+        return deadlineFor(work);
+    }
+
+    /**
+     * Deadline for a matrix call on memory-mapped operands, or {@code null}
+     * if calls have none
+     */
+    public Deadline matrixDeadline(
+        String operation,
+        MappedMatrix a,
+        MappedMatrix b
+    ) {
+        double work =
+            a.getElements() +
+            (b != null ? b.getElements() : 0) +
+            operationWork(
+                operation,
+                a.getRows(),
+                a.getCols(),
+                b != null ? b.getCols() : -1
+            );
+        return deadlineFor(work);
+    }
+
+    /**
+     * Deadline for a {@code MatrixExpression} call, scaled by its operands
+     * and the work of all its steps, or {@code null} if calls have none
+     */
+    public Deadline expressionDeadline(ExpressionPlan plan) {
+        return deadlineFor(plan.getOperandElements() + plan.getWork());
+    }
+
+    /**
+     * Deadline for a call whose operands are forwarded while the request
+     * body is read, so that its work is unknown when it starts: the
+     * {@code grpc.deadline.max-ms} cap, or {@code null} if calls have none
+     */
+    public Deadline streamedBodyDeadline() {
+        long maxMs = maxDeadlineMs();
+        return maxMs <= 0
+            ? null
+            : Deadline.after(maxMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The {@code grpc.deadline.max-ms} cap, lowered to end before the
+     * asynchronous request times out; {@code 0} if calls have no deadline
+     */
+    long maxDeadlineMs() {
+        if (deadlineMaxMs <= 0) {
+            return 0;
+        }
+        if (asyncRequestTimeout == null || asyncRequestTimeout.isNegative()) {
+            return deadlineMaxMs;
+        }
+        long timeoutMs = asyncRequestTimeout.toMillis();
+        if (timeoutMs == 0) {
+            return deadlineMaxMs;
+        }
+        long margin = Math.min(ASYNC_TIMEOUT_MARGIN_MS, timeoutMs / 10);
+        return Math.min(deadlineMaxMs, timeoutMs - margin);
+    }
+
+    /**
+     * Whether a failed attempt may be repeated on a backend
+     */
+    boolean isRetryable(Throwable error) {
+        return (
+            !(error instanceof SchedulerRejectedException) &&
+            !(error instanceof CircuitOpenException) &&
+            Status.fromThrowable(error).getCode() == Status.Code.UNAVAILABLE
+        );
+    }
+
+    int getMaxAttempts() {
+        return Math.max(1, retryMaxAttempts);
+    }
+
+    /**
+     * Delay before the next attempt after {@code attempts} failed ones:
+     * uniformly random up to an exponentially growing cap ("full jitter"),
+     * so that callers failing together do not retry together
+     */
+    long backoffMs(int attempts) {
+        long cap = retryMaxBackoffMs;
+        if (attempts - 1 < 20) {
+            cap = Math.min(cap, retryInitialBackoffMs << (attempts - 1));
+        }
+        return ThreadLocalRandom.current().nextLong(Math.max(1, cap) + 1);
+    }
+
+    /**
+     * Whether a call over {@code elements} operand values is hedged. Large
+     * calls are not, as a second copy would double their transfer.
+     */
+    boolean shouldHedge(long elements) {
+        return hedgingEnabled && elements <= hedgingMaxElements;
+    }
+
+    long getHedgingDelayMs() {
+        return hedgingDelayMs;
+    }
+
+    private Deadline deadlineFor(double work) {
+        long maxMs = maxDeadlineMs();
+        if (maxMs <= 0) {
+            return null;
+        }
+        long ms =
+            deadlineBaseMs + (long) (work / Math.max(1, deadlineWorkPerMs));
+        return Deadline.after(
+            Math.min(maxMs, ms),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Work of an operation beyond reading its operands
+     *
+     * @param colsB columns of matrix B, or -1 without one
+     */
+    private static double operationWork(
+        String operation,
+        int rowsA,
+        int colsA,
+        int colsB
+    ) {
+        if ("multiply".equals(operation) && colsB >= 0) {
+            return (double) rowsA * colsA * colsB;
+        }
+        if ("inverse".equals(operation)) {
+            return Math.pow(rowsA, 3);
+        }
+        return 0;
+    }
+
+    private static long values(Matrix matrix) {
+        return matrix == null ? 0 : matrix.getData().length;
+    }
+}
@@ -0,0 +1,205 @@
+package com.mlhybrid.grpc;
+
+import io.grpc.Deadline;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One logical gRPC call, carried out as one or more attempts.
+ * <p>
+ * An attempt failing with a retryable status is repeated after a jittered
+ * backoff, up to {@code grpc.retry.max-attempts} and only while the call's
+ * deadline leaves time for it. When hedging applies and an attempt is
+ * still running on a backend after {@code grpc.hedging.delay-ms}, a copy is
+ * started on another backend if one has spare capacity. The first response
+ * wins and the other copy is cancelled; a failed copy is only reported once
+ * no other copy is left.
+ */
+class ResilientCall<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        ResilientCall.class
+    );
+
+    /**
+     * Hands an attempt to the {@link CallScheduler}
+     */
+    @FunctionalInterface
+    interface Submitter<T> {
+        /**
+         * @param avoid {@code null} to queue the attempt as usual, or the
+         *        backend a hedged copy must not go to
+         * @return the attempt, or {@code null} if a hedged copy found no
+         *         backend with spare capacity
+         */
+        CompletableFuture<T> submit(
+            CallScheduler.Call<T> call,
+            GrpcBackend avoid
+        );
+    }
+
+    private final ResiliencePolicy policy;
+    private final String taskId;
+    private final Deadline deadline;
+    private final boolean hedge;
+    private final Submitter<T> submitter;
+    private final CallScheduler.Call<T> call;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final List<CompletableFuture<T>> running = new ArrayList<>();
+    private int attempts;
+
+    /**
+     * @param deadline deadline of the whole call, or {@code null} for none
+     * @param hedge    whether slow attempts are hedged
+     */
+    ResilientCall(
+        ResiliencePolicy policy,
+        String taskId,
+        Deadline deadline,
+        boolean hedge,
+        Submitter<T> submitter,
+        CallScheduler.Call<T> call
+    ) {
+        this.policy = policy;
+        this.taskId = taskId;
+        this.deadline = deadline;
+        this.hedge = hedge;
+        this.submitter = submitter;
+        this.call = call;
+    }
+
+    /**
+     * Start the first attempt. Cancelling the returned future cancels all
+     * running attempts.
+     */
+    CompletableFuture<T> start() {
+        result.whenComplete((value, error) -> cancelRunning());
+        attempt();
+        return result;
+    }
+
+    private void attempt() {
+        AtomicReference<GrpcBackend> backend = new AtomicReference<>();
+        CompletableFuture<T> primary;
+        synchronized (this) {
+            attempts++;
+            primary = submitter.submit(
+                b -> {
+                    backend.set(b);
+                    return call.start(b);
+                },
+                null
+            );
+            running.add(primary);
+        }
+        watch(primary);
+
+        if (hedge) {
+            after(policy.getHedgingDelayMs(), () ->
+                hedge(primary, backend.get())
+            );
+        }
+    }
+
+    /**
+     * Send a copy of a slow attempt to another backend
+     *
+     * @param busy the backend the attempt runs on, or {@code null} if it is
+     *        still queued, in which case there is no capacity to hedge with
+     */
+    private void hedge(CompletableFuture<T> primary, GrpcBackend busy) {
+        CompletableFuture<T> copy;
+        synchronized (this) {
+            if (result.isDone() || primary.isDone() || busy == null) {
+                return;
+            }
+            copy = submitter.submit(call, busy);
+            if (copy == null) {
+                return;
+            }
+            running.add(copy);
+        }
+        logger.info(
+            "Hedging task {}: no response from {} after {} ms",
+            taskId,
+            busy.getTarget(),
+            policy.getHedgingDelayMs()
+        );
+        watch(copy);
+    }
+
+    private void watch(CompletableFuture<T> attempt) {
+        attempt.whenComplete((value, error) -> finished(attempt, value, error));
+        if (result.isDone()) {
+            // Cancelled while the attempt was being submitted
+            attempt.cancel(false);
+        }
+    }
+
+    private void finished(
+        CompletableFuture<T> attempt,
+        T value,
+        Throwable error
+    ) {
+        boolean othersRunning;
+        int failedAttempts;
+        synchronized (this) {
+            running.remove(attempt);
+            othersRunning = !running.isEmpty();
+            failedAttempts = attempts;
+        }
+        if (error == null) {
+            result.complete(value);
+            return;
+        }
+        if (result.isDone() || othersRunning) {
+            return;
+        }
+
+        long backoffMs = policy.backoffMs(failedAttempts);
+        if (
+            failedAttempts < policy.getMaxAttempts() &&
+            policy.isRetryable(error) &&
+            (deadline == null ||
+                deadline.timeRemaining(TimeUnit.MILLISECONDS) > backoffMs)
+        ) {
+            logger.warn(
+                "Retrying task {} in {} ms (attempt {} of {}): {}",
+                taskId,
+                backoffMs,
+                failedAttempts + 1,
+                policy.getMaxAttempts(),
+                error.getMessage()
+            );
+            after(backoffMs, () -> {
+                if (!result.isDone()) {
+                    attempt();
+                }
+            });
+        } else {
+            result.completeExceptionally(error);
+        }
+    }
+
+    private void cancelRunning() {
+        List<CompletableFuture<T>> copies;
+        synchronized (this) {
+            copies = new ArrayList<>(running);
+        }
+        for (CompletableFuture<T> copy : copies) {
+            copy.cancel(false);
+        }
+    }
+
+    private static void after(long delayMs, Runnable task) {
+        CompletableFuture.runAsync(
+            task,
+            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS)
+        );
+    }
+}
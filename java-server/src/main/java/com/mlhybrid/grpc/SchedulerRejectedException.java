@@ -0,0 +1,12 @@
+package com.mlhybrid.grpc;
+
+/**
+ * Thrown when the {@link CallScheduler} queue is full and a call is
+ * refused instead of waiting for backend capacity.
+ */
+public class SchedulerRejectedException extends RuntimeException {
+
+    public SchedulerRejectedException(String message) {
+        super(message);
+    }
+}
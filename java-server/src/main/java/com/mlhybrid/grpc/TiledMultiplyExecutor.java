@@ -0,0 +1,360 @@
+package com.mlhybrid.grpc;
+
+import com.mlhybrid.grpc.CallScheduler.Priority;
+import com.mlhybrid.model.Matrix;
+import com.mlhybrid.model.MatrixComputeRequest;
+import com.mlhybrid.model.MatrixComputeResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Splits a large {@code multiply} into independent sub-products so that a
+ * single job is spread over all Rust backends.
+ * <p>
+ * The result C = A * B is cut into a grid of row blocks of A times column
+ * blocks of B. Each tile is sent as its own matrix request through the
+ * {@link CallScheduler}, which places it on whichever backend has capacity
+ * (several tiles may run on one backend), and is copied into the result
+ * as soon as it arrives. The grid aims for
+ * {@code matrix.tiling.tiles-per-backend} tiles per backend with edges of
+ * at least {@code matrix.tiling.min-tile-dim}, split along the longer
+ * side of the result first.
+ */
+@Component
+public class TiledMultiplyExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        TiledMultiplyExecutor.class
+    );
+
+    private final GrpcClientService grpcClientService;
+    private final GrpcChannelPool channelPool;
+
+    @Value("${matrix.tiling.enabled:true}")
+    private boolean enabled;
+
+    @Value("${matrix.tiling.threshold-elements:2097152}")
+    private long thresholdElements;
+
+    @Value("${matrix.tiling.min-tile-dim:256}")
+    private int minTileDim;
+
+    @Value("${matrix.tiling.tiles-per-backend:2}")
+    private int tilesPerBackend;
+
+    @Autowired
+    public TiledMultiplyExecutor(
+        GrpcClientService grpcClientService,
+        GrpcChannelPool channelPool
+    ) {
+        this.grpcClientService = grpcClientService;
+        this.channelPool = channelPool;
+    }
+
+    /**
+     * Whether the request is a well-formed multiply large enough to be
+     * split into at least two tiles
+     */
+    public boolean shouldTile(MatrixComputeRequest request) {
+        return enabled && plan(request) != null;
+    }
+
+    /**
+     * Compute a multiply tile by tile. Resolves to a {@code failed}
+     * response if a tile fails on the server, and exceptionally if a tile
+     * call fails; the remaining tiles are cancelled in that case.
+     * Cancelling the returned future cancels all tile calls.
+     */
+    public CompletableFuture<MatrixComputeResponse> multiply(
+        MatrixComputeRequest request,
+        Priority priority
+    ) {
+        Grid grid = plan(request);
+        if (grid == null) {
+            return grpcClientService.matrixComputeAsync(request, priority);
+        }
+
+        Matrix a = request.getMatrixA();
+        Matrix b = request.getMatrixB();
+        int cols = b.getCols();
+        float[] c = new float[a.getRows() * cols];
+
+        Matrix[] aBlocks = new Matrix[grid.rowTiles];
+        for (int i = 0; i < grid.rowTiles; i++) {
+            aBlocks[i] = rowBlock(a, grid.rowStart(i), grid.rowStart(i + 1));
+        }
+        Matrix[] bBlocks = new Matrix[grid.colTiles];
+        for (int j = 0; j < grid.colTiles; j++) {
+            bBlocks[j] = colBlock(b, grid.colStart(j), grid.colStart(j + 1));
+        }
+
+        logger.info(
+            "Splitting multiply for task {} into {}x{} tiles over {} backends",
+            request.getTaskId(),
+            grid.rowTiles,
+            grid.colTiles,
+            channelPool.getBackends().size()
+        );
+
+        CompletableFuture<MatrixComputeResponse> result =
+            new CompletableFuture<>();
+        List<CompletableFuture<MatrixComputeResponse>> tiles =
+            new ArrayList<>();
+        AtomicInteger remaining = new AtomicInteger(
+            grid.rowTiles * grid.colTiles
+        );
+        AtomicReference<MatrixComputeResponse> failure =
+            new AtomicReference<>();
+        AtomicLong slowestTileMs = new AtomicLong();
+
+        for (int i = 0; i < grid.rowTiles; i++) {
+            for (int j = 0; j < grid.colTiles; j++) {
+                int rowStart = grid.rowStart(i);
+                int rowEnd = grid.rowStart(i + 1);
+                int colStart = grid.colStart(j);
+                int colEnd = grid.colStart(j + 1);
+                CompletableFuture<MatrixComputeResponse> tile =
+                    grpcClientService.matrixComputeAsync(
+                        new MatrixComputeRequest(
+                            aBlocks[i],
+                            bBlocks[j],
+                            request.getTaskId() + "/" + i + "," + j,
+                            "multiply"
+                        ),
+                        priority
+                    );
+                tiles.add(tile);
+                tile.whenComplete((response, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                        return;
+                    }
+                    if (!"completed".equals(response.getStatus())) {
+                        failure.compareAndSet(null, response);
+                    } else if (
+                        !place(
+                            response.getResultMatrix(),
+                            c,
+                            cols,
+                            rowStart,
+                            rowEnd,
+                            colStart,
+                            colEnd
+                        )
+                    ) {
+                        failure.compareAndSet(
+                            null,
+                            failed(request, "Tile result has the wrong shape")
+                        );
+                    }
+                    slowestTileMs.accumulateAndGet(
+                        response.getExecutionTimeMs(),
+                        Math::max
+                    );
+                    if (remaining.decrementAndGet() == 0) {
+                        result.complete(
+                            assemble(request, failure.get(), c, slowestTileMs)
+                        );
+                    }
+                });
+            }
+        }
+
+        result.whenComplete((response, error) -> {
+            if (error != null || result.isCancelled()) {
+                for (CompletableFuture<MatrixComputeResponse> tile : tiles) {
+                    tile.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    private MatrixComputeResponse assemble(
+        MatrixComputeRequest request,
+        MatrixComputeResponse failure,
+        float[] c,
+        AtomicLong slowestTileMs
+    ) {
+        if (failure != null) {
+            return failed(request, failure.getErrorMessage());
+        }
+        // Tiles run concurrently, so the slowest one bounds server time
+        return new MatrixComputeResponse(
+            new Matrix(
+                request.getMatrixA().getRows(),
+                request.getMatrixB().getCols(),
+                c
+            ),
+            request.getTaskId(),
+            "completed",
+            "",
+            slowestTileMs.get()
+        );
+    }
+
+    /**
+     * Tile grid for the request, or {@code null} if it should not be split
+     */
+    private Grid plan(MatrixComputeRequest request) {
+        Matrix a = request.getMatrixA();
+        Matrix b = request.getMatrixB();
+        if (
+            !"multiply".equals(request.getOperation()) ||
+            a == null ||
+            b == null
+        ) {
+            return null;
+        }
+        if (
+            a.getCols() != b.getRows() ||
+            (long) a.getRows() * a.getCols() != a.getData().length ||
+            (long) b.getRows() * b.getCols() != b.getData().length ||
+            (long) a.getData().length + b.getData().length < thresholdElements
+        ) {
+            return null;
+        }
+
+        int rows = a.getRows();
+        int cols = b.getCols();
+        int backends = Math.max(1, channelPool.getBackends().size());
+        int target = backends * Math.max(1, tilesPerBackend);
+        int maxRowTiles = Math.max(1, rows / Math.max(1, minTileDim));
+        int maxColTiles = Math.max(1, cols / Math.max(1, minTileDim));
+
+        // Split rows and columns in proportion to the sides of C so that
+        // tiles stay close to square, which minimizes the operand bytes sent
+        int rowTiles = (int) Math.round(
+            Math.sqrt(target * (double) rows / cols)
+        );
+        rowTiles = Math.max(1, Math.min(maxRowTiles, rowTiles));
+        int colTiles = Math.max(1, Math.min(maxColTiles, target / rowTiles));
+        if (rowTiles * colTiles < 2) {
+            return null;
+        }
+        return new Grid(rows, cols, rowTiles, colTiles);
+    }
+
+    /**
+     * Rows {@code [from, to)} of {@code m}, which are contiguous
+     */
+    private static Matrix rowBlock(Matrix m, int from, int to) {
+        if (from == 0 && to == m.getRows()) {
+            return m;
+        }
+        return new Matrix(
+            to - from,
+            m.getCols(),
+            Arrays.copyOfRange(
+                m.getData(),
+                from * m.getCols(),
+                to * m.getCols()
+            )
+        );
+    }
+
+    /**
+     * Columns {@code [from, to)} of {@code m}, copied row by row
+     */
+    private static Matrix colBlock(Matrix m, int from, int to) {
+        if (from == 0 && to == m.getCols()) {
+            return m;
+        }
+        int width = to - from;
+        float[] data = new float[m.getRows() * width];
+        for (int r = 0; r < m.getRows(); r++) {
+            System.arraycopy(
+                m.getData(),
+                r * m.getCols() + from,
+                data,
+                r * width,
+                width
+            );
+        }
+        return new Matrix(m.getRows(), width, data);
+    }
+
+    /**
+     * Copy a tile into rows {@code [rowStart, rowEnd)} and columns
+     * {@code [colStart, colEnd)} of C
+     *
+     * @return {@code false} if the tile does not have that shape
+     */
+    private static boolean place(
+        Matrix tile,
+        float[] c,
+        int cols,
+        int rowStart,
+        int rowEnd,
+        int colStart,
+        int colEnd
+    ) {
+        if (
+            tile == null ||
+            tile.getRows() != rowEnd - rowStart ||
+            tile.getCols() != colEnd - colStart ||
+            tile.getData().length != tile.getRows() * tile.getCols()
+        ) {
+            return false;
+        }
+        for (int r = 0; r < tile.getRows(); r++) {
+            System.arraycopy(
+                tile.getData(),
+                r * tile.getCols(),
+                c,
+                (rowStart + r) * cols + colStart,
+                tile.getCols()
+            );
+        }
+        return true;
+    }
+
+    private static MatrixComputeResponse failed(
+        MatrixComputeRequest request,
+        String error
+    ) {
+        return new MatrixComputeResponse(
+            null,
+            request.getTaskId(),
+            "failed",
+            error,
+            0
+        );
+    }
+
+    /**
+     * Even split of C into {@code rowTiles x colTiles} blocks
+     */
+    private static class Grid {
+
+        private final int rows;
+        private final int cols;
+        private final int rowTiles;
+        private final int colTiles;
+
+        Grid(int rows, int cols, int rowTiles, int colTiles) {
+            this.rows = rows;
+            this.cols = cols;
+            this.rowTiles = rowTiles;
+            this.colTiles = colTiles;
+        }
+
+        int rowStart(int tile) {
+            return (int) ((long) rows * tile / rowTiles);
+        }
+
+        int colStart(int tile) {
+            return (int) ((long) cols * tile / colTiles);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.mlhybrid.grpc;
+
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Adapts a unary async stub call to a {@link CompletableFuture}.
+ */
+class UnaryCallFuture<T>
+    extends CompletableFuture<T>
+    implements StreamObserver<T> {
+
+    private T value;
+
+    @Override
+    public void onNext(T value) {
+        this.value = value;
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        completeExceptionally(t);
+    }
+
+    @Override
+    public void onCompleted() {
+        complete(value);
+    }
+}
@@ -0,0 +1,114 @@
+package com.mlhybrid.ingest;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A matrix of 32-bit floats read straight from a memory-mapped file.
+ * <p>
+ * The data is never copied onto the heap: it is exposed as read-only
+ * {@link FloatBuffer}s over the mapping, each holding whole rows, and the
+ * operating system pages it in as the buffers are read. A single mapping
+ * cannot exceed 2 GB, so larger files are mapped as several row blocks of
+ * at most {@link #MAX_BLOCK_BYTES}. The mappings stay valid after the file
+ * is closed and are released once the buffers are no longer referenced.
+ */
+public class MappedMatrix {
+
+    /** Upper bound on the size of one mapped region */
+    static final long MAX_BLOCK_BYTES = 1L << 30;
+
+    private final int rows;
+    private final int cols;
+    private final List<FloatBuffer> blocks;
+
+    private MappedMatrix(int rows, int cols, List<FloatBuffer> blocks) {
+        this.rows = rows;
+        this.cols = cols;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Map {@code rows x cols} row-major floats starting at {@code offset}
+     *
+     * @throws IllegalArgumentException if the file is too short or a single
+     *         row does not fit one mapping
+     */
+    static MappedMatrix map(
+        FileChannel channel,
+        long offset,
+        int rows,
+        int cols,
+        ByteOrder order
+    ) throws IOException {
+        if (rows < 0 || cols < 0) {
+            throw new IllegalArgumentException(
+                "Invalid matrix dimensions " + rows + "x" + cols
+            );
+        }
+        long rowBytes = (long) cols * Float.BYTES;
+        if (rowBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "Rows of " + cols + " columns are too long to map"
+            );
+        }
+        long bytes = rowBytes * rows;
+        if (channel.size() - offset < bytes) {
+            throw new IllegalArgumentException(
+                "File holds " + Math.max(0, channel.size() - offset) +
+                " bytes of data but a " + rows + "x" + cols +
+                " matrix needs " + bytes
+            );
+        }
+
+        List<FloatBuffer> blocks = new ArrayList<>();
+        // Rows without columns all fit one empty block
+        int rowsPerBlock = (int) Math.max(
+            1,
+            rowBytes == 0 ? rows : Math.min(rows, MAX_BLOCK_BYTES / rowBytes)
+        );
+        // An empty matrix still gets one block to carry its dimensions
+        for (int row = 0; row == 0 || row < rows; row += rowsPerBlock) {
+            int blockRows = Math.min(rowsPerBlock, rows - row);
+            blocks.add(
+                channel
+                    .map(
+                        FileChannel.MapMode.READ_ONLY,
+                        offset + row * rowBytes,
+                        blockRows * rowBytes
+                    )
+                    .order(order)
+                    .asFloatBuffer()
+            );
+        }
+        return new MappedMatrix(
+            rows,
+            cols,
+            Collections.unmodifiableList(blocks)
+        );
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public long getElements() {
+        return (long) rows * cols;
+    }
+
+    /**
+     * The data as consecutive blocks of whole rows, in row order
+     */
+    public List<FloatBuffer> getBlocks() {
+        return blocks;
+    }
+}
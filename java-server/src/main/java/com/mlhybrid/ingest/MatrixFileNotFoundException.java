@@ -0,0 +1,19 @@
+package com.mlhybrid.ingest;
+
+/**
+ * A request referred to a matrix file that was never uploaded, has been
+ * deleted or does not exist at the given server-local path.
+ */
+public class MatrixFileNotFoundException extends RuntimeException {
+
+    private final String file;
+
+    public MatrixFileNotFoundException(String file) {
+        super("Unknown matrix file: " + file);
+        this.file = file;
+    }
+
+    public String getFile() {
+        return file;
+    }
+}
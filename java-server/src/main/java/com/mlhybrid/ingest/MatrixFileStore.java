@@ -0,0 +1,292 @@
+package com.mlhybrid.ingest;
+
+import com.mlhybrid.model.MatrixFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Matrix files that are memory-mapped rather than parsed, so that operands
+ * far larger than a JSON body can be computed on without the heap ever
+ * holding them.
+ * <p>
+ * Files are uploaded as raw bodies and streamed to
+ * {@code matrix.files.upload-dir}, or read from a path under one of
+ * {@code matrix.files.local-roots}. Both {@code .npy} arrays and raw
+ * row-major float32 data are accepted; see {@link MatrixFile}.
+ */
+@Service
+public class MatrixFileStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        MatrixFileStore.class
+    );
+
+    private static final Pattern UPLOAD_NAME = Pattern.compile(
+        "[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}\\.(npy|f32)"
+    );
+
+    @Value("${matrix.files.upload-dir:${java.io.tmpdir}/mlhybrid-matrices}")
+    private String uploadDir;
+
+    @Value("${matrix.files.max-upload-bytes:8589934592}")
+    private long maxUploadBytes;
+
+    @Value("${matrix.files.local-roots:}")
+    private String[] localRoots;
+
+    private Path uploads;
+    private final List<Path> roots = new ArrayList<>();
+
+    @PostConstruct
+    void init() throws IOException {
+        uploads = Files.createDirectories(Paths.get(uploadDir))
+            .toRealPath();
+        for (String root : localRoots) {
+            if (!root.trim().isEmpty()) {
+                roots.add(Paths.get(root.trim()).toRealPath());
+            }
+        }
+        logger.info(
+            "Matrix files are uploaded to {}; server-local roots: {}",
+            uploads,
+            roots.isEmpty() ? "none" : roots
+        );
+    }
+
+    /**
+     * Stream an uploaded body to a new file. The format is recognized from
+     * the content: {@code .npy} arrays by their magic string, anything else
+     * is taken as raw float32 data.
+     *
+     * @return the file's name, format and size, and for {@code .npy}
+     *         arrays their dimensions
+     * @throws IllegalArgumentException if the body exceeds
+     *         {@code matrix.files.max-upload-bytes} or is not a valid matrix
+     *         file
+     */
+    public Map<String, Object> upload(InputStream body) {
+        String id = UUID.randomUUID().toString();
+        Path part = uploads.resolve(id + ".part");
+        try {
+            long bytes = copy(body, part);
+            Map<String, Object> result = new LinkedHashMap<>();
+            Path target;
+            try (FileChannel channel = FileChannel.open(part)) {
+                if (NpyHeader.isNpy(channel)) {
+                    NpyHeader header = NpyHeader.read(channel);
+                    MappedMatrix.map(
+                        channel,
+                        header.dataOffset,
+                        header.rows,
+                        header.cols,
+                        header.order
+                    );
+                    target = uploads.resolve(id + ".npy");
+                    result.put("file", target.getFileName().toString());
+                    result.put("format", "npy");
+                    result.put("rows", header.rows);
+                    result.put("cols", header.cols);
+                } else if (bytes % Float.BYTES != 0) {
+                    throw new IllegalArgumentException(
+                        "Raw matrix file of " + bytes +
+                        " bytes is not a whole number of floats"
+                    );
+                } else {
+                    target = uploads.resolve(id + ".f32");
+                    result.put("file", target.getFileName().toString());
+                    result.put("format", "raw");
+                }
+            }
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+            result.put("bytes", bytes);
+            logger.info("Stored matrix file {} ({} bytes)", target, bytes);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(part);
+        }
+    }
+
+    /**
+     * Map the matrix a request refers to
+     *
+     * @throws MatrixFileNotFoundException if there is no such file
+     * @throws IllegalArgumentException if the reference or the file is
+     *         invalid, or the path is not under a local root
+     */
+    public MappedMatrix open(MatrixFile ref) {
+        Path path = locate(ref);
+        String format = ref.getFormat() != null
+            ? ref.getFormat()
+            : path.getFileName().toString().endsWith(".npy") ? "npy" : "raw";
+        try (FileChannel channel = FileChannel.open(path)) {
+            if ("npy".equals(format)) {
+                NpyHeader header = NpyHeader.read(channel);
+                checkDimensions(ref, header.rows, header.cols);
+                return MappedMatrix.map(
+                    channel,
+                    header.dataOffset,
+                    header.rows,
+                    header.cols,
+                    header.order
+                );
+            }
+            if (!"raw".equals(format)) {
+                throw new IllegalArgumentException(
+                    "Unknown matrix file format: " + format
+                );
+            }
+            if (ref.getRows() == null || ref.getCols() == null) {
+                throw new IllegalArgumentException(
+                    "Raw matrix files need rows and cols"
+                );
+            }
+            return MappedMatrix.map(
+                channel,
+                0,
+                ref.getRows(),
+                ref.getCols(),
+                byteOrder(ref.getByteOrder())
+            );
+        } catch (NoSuchFileException e) {
+            throw new MatrixFileNotFoundException(name(ref));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Delete an uploaded file. Mappings of it stay readable until they are
+     * released.
+     *
+     * @return whether the file existed
+     */
+    public boolean delete(String file) {
+        if (!UPLOAD_NAME.matcher(file).matches()) {
+            return false;
+        }
+        try {
+            return Files.deleteIfExists(uploads.resolve(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path locate(MatrixFile ref) {
+        if ((ref.getFile() == null) == (ref.getPath() == null)) {
+            throw new IllegalArgumentException(
+                "A matrix file needs exactly one of file or path"
+            );
+        }
+        if (ref.getFile() != null) {
+            if (!UPLOAD_NAME.matcher(ref.getFile()).matches()) {
+                throw new MatrixFileNotFoundException(ref.getFile());
+            }
+            return uploads.resolve(ref.getFile());
+        }
+
+        if (roots.isEmpty()) {
+            throw new IllegalArgumentException(
+                "Server-local matrix files are disabled"
+            );
+        }
+        Path path;
+        try {
+            path = Paths.get(ref.getPath()).toRealPath();
+        } catch (NoSuchFileException e) {
+            throw new MatrixFileNotFoundException(ref.getPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Path root : roots) {
+            if (path.startsWith(root)) {
+                return path;
+            }
+        }
+        throw new IllegalArgumentException(
+            ref.getPath() + " is not under matrix.files.local-roots"
+        );
+    }
+
+    /**
+     * Copy at most {@code matrix.files.max-upload-bytes} of the body
+     */
+    private long copy(InputStream body, Path target) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        long bytes = 0;
+        try (
+            OutputStream out = Files.newOutputStream(
+                target,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                bytes += read;
+                if (bytes > maxUploadBytes) {
+                    throw new IllegalArgumentException(
+                        "Matrix file exceeds " + maxUploadBytes + " bytes"
+                    );
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return bytes;
+    }
+
+    private static void checkDimensions(MatrixFile ref, int rows, int cols) {
+        if (
+            (ref.getRows() != null && ref.getRows() != rows) ||
+            (ref.getCols() != null && ref.getCols() != cols)
+        ) {
+            throw new IllegalArgumentException(
+                name(ref) + " holds a " + rows + "x" + cols + " matrix"
+            );
+        }
+    }
+
+    private static ByteOrder byteOrder(String name) {
+        if (name == null || "little".equalsIgnoreCase(name)) {
+            return ByteOrder.LITTLE_ENDIAN;
+        }
+        if ("big".equalsIgnoreCase(name)) {
+            return ByteOrder.BIG_ENDIAN;
+        }
+        throw new IllegalArgumentException("Unknown byte order: " + name);
+    }
+
+    private static String name(MatrixFile ref) {
+        return ref.getFile() != null ? ref.getFile() : ref.getPath();
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+}
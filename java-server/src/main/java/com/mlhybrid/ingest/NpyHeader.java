@@ -0,0 +1,156 @@
+package com.mlhybrid.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Header of a NumPy {@code .npy} file: where the data starts, its shape and
+ * its byte order. Only C-ordered float32 arrays of up to two dimensions are
+ * accepted; a one-dimensional array is read as a single row.
+ */
+class NpyHeader {
+
+    private static final byte[] MAGIC = {
+        (byte) 0x93,
+        'N',
+        'U',
+        'M',
+        'P',
+        'Y',
+    };
+    private static final int MAX_HEADER_BYTES = 1 << 16;
+    private static final Pattern DESCR = Pattern.compile(
+        "'descr'\\s*:\\s*'([^']*)'"
+    );
+    private static final Pattern FORTRAN_ORDER = Pattern.compile(
+        "'fortran_order'\\s*:\\s*(True|False)"
+    );
+    private static final Pattern SHAPE = Pattern.compile(
+        "'shape'\\s*:\\s*\\(([^)]*)\\)"
+    );
+
+    final long dataOffset;
+    final int rows;
+    final int cols;
+    final ByteOrder order;
+
+    private NpyHeader(long dataOffset, int rows, int cols, ByteOrder order) {
+        this.dataOffset = dataOffset;
+        this.rows = rows;
+        this.cols = cols;
+        this.order = order;
+    }
+
+    /**
+     * Whether the file starts with the {@code .npy} magic string
+     */
+    static boolean isNpy(FileChannel channel) throws IOException {
+        ByteBuffer start = ByteBuffer.allocate(MAGIC.length);
+        channel.read(start, 0);
+        return start.flip().equals(ByteBuffer.wrap(MAGIC));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the file is not a supported
+     *         {@code .npy} array
+     */
+    static NpyHeader read(FileChannel channel) throws IOException {
+        if (!isNpy(channel)) {
+            throw new IllegalArgumentException("Not a .npy file");
+        }
+        ByteBuffer preamble = ByteBuffer.allocate(12)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(preamble, 0);
+        int major = preamble.get(6) & 0xff;
+        long headerBytes;
+        int headerStart;
+        if (major == 1) {
+            headerBytes = preamble.getShort(8) & 0xffff;
+            headerStart = 10;
+        } else if (major == 2 || major == 3) {
+            headerBytes = preamble.getInt(8) & 0xffffffffL;
+            headerStart = 12;
+        } else {
+            throw new IllegalArgumentException(
+                "Unsupported .npy format version " + major
+            );
+        }
+        if (headerBytes > MAX_HEADER_BYTES) {
+            throw new IllegalArgumentException(".npy header is too large");
+        }
+
+        ByteBuffer text = ByteBuffer.allocate((int) headerBytes);
+        channel.read(text, headerStart);
+        String header = new String(
+            text.array(),
+            0,
+            text.position(),
+            major == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1
+        );
+
+        String descr = find(DESCR, header, "descr");
+        ByteOrder order;
+        if ("<f4".equals(descr)) {
+            order = ByteOrder.LITTLE_ENDIAN;
+        } else if (">f4".equals(descr)) {
+            order = ByteOrder.BIG_ENDIAN;
+        } else {
+            throw new IllegalArgumentException(
+                "Only float32 .npy arrays are supported, got '" + descr + "'"
+            );
+        }
+        if ("True".equals(find(FORTRAN_ORDER, header, "fortran_order"))) {
+            throw new IllegalArgumentException(
+                "Fortran-ordered .npy arrays are not supported"
+            );
+        }
+
+        List<Integer> shape = new ArrayList<>();
+        for (String dim : find(SHAPE, header, "shape").split(",")) {
+            if (!dim.trim().isEmpty()) {
+                shape.add(dimension(dim.trim()));
+            }
+        }
+        if (shape.size() > 2) {
+            throw new IllegalArgumentException(
+                "Only .npy arrays of up to two dimensions are supported"
+            );
+        }
+        int rows = shape.size() == 2 ? shape.get(0) : 1;
+        int cols = shape.isEmpty() ? 1 : shape.get(shape.size() - 1);
+        return new NpyHeader(headerStart + headerBytes, rows, cols, order);
+    }
+
+    private static String find(Pattern pattern, String header, String key) {
+        Matcher matcher = pattern.matcher(header);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException(
+                ".npy header has no valid '" + key + "'"
+            );
+        }
+        return matcher.group(1);
+    }
+
+    private static int dimension(String value) {
+        int dimension;
+        try {
+            // Python 2 writers may suffix long integers with L
+            dimension = Integer.parseInt(value.replaceFirst("L$", ""));
+        } catch (NumberFormatException e) {
+            dimension = -1;
+        }
+        if (dimension < 0) {
+            throw new IllegalArgumentException(
+                "Unsupported .npy dimension " + value
+            );
+        }
+        return dimension;
+    }
+}
@@ -0,0 +1,363 @@
+package com.mlhybrid.ingest;
+
+import com.mlhybrid.metrics.ConverterTiming;
+import com.mlhybrid.metrics.PipelineMetrics;
+import com.mlhybrid.model.ComputeRequest;
+import com.mlhybrid.model.ComputeResponse;
+import com.mlhybrid.model.FloatArrayList;
+import com.mlhybrid.model.Matrix;
+import com.mlhybrid.model.MatrixComputeRequest;
+import com.mlhybrid.model.MatrixComputeResponse;
+import com.mlhybrid.model.ResultPrecision;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * {@code application/octet-stream} form of the compute requests and
+ * responses, in which values are raw little-endian float32 as in the
+ * {@code packed_data} of the gRPC messages. Fields are written in order,
+ * all little-endian:
+ * <ul>
+ * <li>string: int32 UTF-8 length ({@code -1} for none), then the bytes</li>
+ * <li>matrix: int32 rows ({@code -1} for none), int32 cols, then
+ *     rows x cols float32 in row-major order</li>
+ * <li>values: int32 count ({@code -1} for none), then the float32s</li>
+ * </ul>
+ * A result matrix in a lower {@link ResultPrecision} has its values as
+ * 2-byte fp16 or bf16, or as int8 preceded by their float32 scale; the
+ * client knows which from the precision it asked for.
+ * A {@link MatrixComputeRequest} is taskId, operation, matrixA, matrixB; a
+ * {@link MatrixComputeResponse} is taskId, status, errorMessage, int64
+ * executionTimeMs, resultMatrix; a {@link ComputeRequest} is taskId,
+ * taskType, data; a {@link ComputeResponse} is taskId, status, result.
+ * <p>
+ * Values are copied between the body and the arrays in bulk through a
+ * little-endian buffer. Other bodies, such as error maps, are not
+ * supported, so clients should also accept JSON.
+ */
+public class RawFloatHttpMessageConverter
+    extends AbstractHttpMessageConverter<Object> {
+
+    private static final Set<Class<?>> TYPES = Set.of(
+        MatrixComputeRequest.class,
+        MatrixComputeResponse.class,
+        ComputeRequest.class,
+        ComputeResponse.class
+    );
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_STRING_BYTES = 1 << 20;
+    private static final int UNSIZED_INITIAL_VALUES = 1 << 16;
+
+    private final ConverterTiming timing;
+
+    public RawFloatHttpMessageConverter(PipelineMetrics metrics) {
+        super(MediaType.APPLICATION_OCTET_STREAM);
+        this.timing = new ConverterTiming(metrics);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return TYPES.contains(clazz);
+    }
+
+    @Override
+    protected Object readInternal(
+        Class<?> clazz,
+        HttpInputMessage inputMessage
+    ) throws IOException, HttpMessageNotReadableException {
+        long start = System.nanoTime();
+        Input in = new Input(inputMessage);
+        Object body;
+        try {
+            if (clazz == MatrixComputeRequest.class) {
+                MatrixComputeRequest request = new MatrixComputeRequest();
+                request.setTaskId(in.readString());
+                request.setOperation(in.readString());
+                request.setMatrixA(in.readMatrix());
+                request.setMatrixB(in.readMatrix());
+                body = request;
+            } else if (clazz == ComputeRequest.class) {
+                ComputeRequest request = new ComputeRequest();
+                request.setTaskId(in.readString());
+                request.setTaskType(in.readString());
+                request.setData(in.readValues());
+                body = request;
+            } else {
+                throw new HttpMessageNotReadableException(
+                    clazz.getSimpleName() + " cannot be read as raw floats",
+                    inputMessage
+                );
+            }
+        } catch (EOFException e) {
+            throw new HttpMessageNotReadableException(
+                "Binary body ends early",
+                e,
+                inputMessage
+            );
+        }
+        timing.decoded(body, start);
+        return body;
+    }
+
+    @Override
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage)
+        throws IOException {
+        long start = System.nanoTime();
+        Output out = new Output(outputMessage);
+        if (body instanceof MatrixComputeResponse) {
+            MatrixComputeResponse response = (MatrixComputeResponse) body;
+            out.writeString(response.getTaskId());
+            out.writeString(response.getStatus());
+            out.writeString(response.getErrorMessage());
+            out.writeLong(response.getExecutionTimeMs());
+            out.writeMatrix(
+                response.getResultMatrix(),
+                response.getResultPrecision()
+            );
+        } else if (body instanceof ComputeResponse) {
+            ComputeResponse response = (ComputeResponse) body;
+            out.writeString(response.getTaskId());
+            out.writeString(response.getStatus());
+            out.writeValues(response.getResult());
+        } else if (body instanceof MatrixComputeRequest) {
+            MatrixComputeRequest request = (MatrixComputeRequest) body;
+            out.writeString(request.getTaskId());
+            out.writeString(request.getOperation());
+            out.writeMatrix(request.getMatrixA(), ResultPrecision.FLOAT32);
+            out.writeMatrix(request.getMatrixB(), ResultPrecision.FLOAT32);
+        } else {
+            ComputeRequest request = (ComputeRequest) body;
+            out.writeString(request.getTaskId());
+            out.writeString(request.getTaskType());
+            out.writeValues(request.getData());
+        }
+        out.flush();
+        timing.encoded(start);
+    }
+
+    /**
+     * Little-endian reads from the request body through a reused buffer
+     */
+    private static class Input {
+
+        private final HttpInputMessage message;
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+        Input(HttpInputMessage message) throws IOException {
+            this.message = message;
+            this.channel = Channels.newChannel(message.getBody());
+            buffer.limit(0);
+        }
+
+        int readInt() throws IOException {
+            require(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        String readString() throws IOException {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > MAX_STRING_BYTES) {
+                throw invalid("String of " + length + " bytes is too long");
+            }
+            byte[] bytes = new byte[length];
+            int read = 0;
+            while (read < length) {
+                require(1);
+                int count = Math.min(length - read, buffer.remaining());
+                buffer.get(bytes, read, count);
+                read += count;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Matrix readMatrix() throws IOException {
+            int rows = readInt();
+            if (rows == -1) {
+                return null;
+            }
+            int cols = readInt();
+            long count = (long) rows * cols;
+            if (rows < 0 || cols < 0 || count > Integer.MAX_VALUE - 8) {
+                throw invalid("Invalid matrix dimensions " + rows + "x" + cols);
+            }
+            return new Matrix(rows, cols, readFloats((int) count));
+        }
+
+        List<Float> readValues() throws IOException {
+            int count = readInt();
+            if (count < 0) {
+                return null;
+            }
+            return new FloatArrayList(readFloats(count));
+        }
+
+        /**
+         * Read {@code count} values. Without a content length the array
+         * grows as values arrive, so that a bogus count cannot allocate
+         * more than the body holds.
+         */
+        private float[] readFloats(int count) throws IOException {
+            long length = message.getHeaders().getContentLength();
+            if (length >= 0 && (long) count * Float.BYTES > length) {
+                throw invalid(count + " values exceed the body length");
+            }
+            float[] values = new float[length >= 0
+                ? count
+                : Math.min(count, UNSIZED_INITIAL_VALUES)];
+            int read = 0;
+            while (read < count) {
+                require(Float.BYTES);
+                if (read == values.length) {
+                    values = Arrays.copyOf(
+                        values,
+                        (int) Math.min(count, 2L * values.length)
+                    );
+                }
+                int n = Math.min(
+                    values.length - read,
+                    buffer.remaining() / Float.BYTES
+                );
+                buffer.asFloatBuffer().get(values, read, n);
+                buffer.position(buffer.position() + n * Float.BYTES);
+                read += n;
+            }
+            return values;
+        }
+
+        /**
+         * Make at least {@code bytes} bytes available in the buffer
+         */
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            try {
+                while (buffer.position() < bytes) {
+                    if (channel.read(buffer) < 0) {
+                        throw new EOFException();
+                    }
+                }
+            } finally {
+                buffer.flip();
+            }
+        }
+
+        private HttpMessageNotReadableException invalid(String reason) {
+            return new HttpMessageNotReadableException(reason, message);
+        }
+    }
+
+    /**
+     * Little-endian writes to the response body through a reused buffer
+     */
+    private static class Output {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+        Output(HttpOutputMessage message) throws IOException {
+            this.channel = Channels.newChannel(message.getBody());
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            int written = 0;
+            while (written < bytes.length) {
+                ensure(1);
+                int count = Math.min(bytes.length - written, buffer.remaining());
+                buffer.put(bytes, written, count);
+                written += count;
+            }
+        }
+
+        void writeMatrix(Matrix matrix, ResultPrecision precision)
+            throws IOException {
+            if (matrix == null) {
+                writeInt(-1);
+                return;
+            }
+            writeInt(matrix.getRows());
+            writeInt(matrix.getCols());
+            float[] values = matrix.getData();
+            float scale = 1;
+            if (precision == ResultPrecision.INT8) {
+                scale = ResultPrecision.int8Scale(values);
+                ensure(Float.BYTES);
+                buffer.putFloat(scale);
+            }
+            int written = 0;
+            while (written < values.length) {
+                ensure(Float.BYTES);
+                int n = Math.min(
+                    values.length - written,
+                    buffer.remaining() / precision.getBytes()
+                );
+                precision.encode(values, written, n, scale, buffer);
+                written += n;
+            }
+        }
+
+        void writeValues(List<Float> values) throws IOException {
+            if (values == null) {
+                writeInt(-1);
+                return;
+            }
+            writeInt(values.size());
+            for (Float value : values) {
+                ensure(Float.BYTES);
+                buffer.putFloat(value);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
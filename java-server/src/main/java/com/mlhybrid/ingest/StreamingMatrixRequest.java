@@ -0,0 +1,350 @@
+package com.mlhybrid.ingest;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Body of a matrix compute request, in the JSON form of
+ * {@code MatrixComputeRequest}, that is read while its operands are
+ * forwarded. Fields before the operands ({@code taskId},
+ * {@code operation}) are read up front by
+ * {@link StreamingMatrixRequestConverter}; {@link #forward} then decodes
+ * the {@code data} arrays token by token into a reused block and hands
+ * each block on as soon as it is full. Blocks hold whole rows where they
+ * fit and parts of a row otherwise, and grow only as values arrive, so
+ * the declared dimensions alone never allocate more than a few values.
+ * <p>
+ * An operand whose {@code rows} and {@code cols} follow its {@code data}
+ * has to be read whole before its first block is known, so clients should
+ * put them first. Stored operands ({@code handle}) are not accepted.
+ */
+public class StreamingMatrixRequest {
+
+    /** Values a block starts out with before it grows */
+    private static final int INITIAL_BLOCK_VALUES = 4096;
+
+    /**
+     * Receives the operands of a request as they are read
+     */
+    public interface BlockSink {
+        /**
+         * Called for each block of consecutive values of an operand, in
+         * order. The values are only valid during the call.
+         *
+         * @param offset position of the block's first value in the
+         *        row-major operand
+         */
+        void block(
+            boolean matrixB,
+            int rows,
+            int cols,
+            long offset,
+            FloatBuffer values
+        ) throws IOException;
+    }
+
+    private final JsonParser parser;
+
+    private String taskId;
+    private String operation;
+    private String nextField;
+    private boolean hasMatrixA;
+    private boolean hasMatrixB;
+    private long elements;
+
+    StreamingMatrixRequest(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Read the fields before the first operand
+     */
+    void readHeader() throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object");
+        }
+        while ((nextField = parser.nextFieldName()) != null) {
+            if (isOperand(nextField)) {
+                return;
+            }
+            parser.nextToken();
+            readField(nextField);
+        }
+    }
+
+    /**
+     * Read the rest of the body, passing the operands to {@code sink} in
+     * blocks of at most {@code blockElements} values, and close it.
+     *
+     * @throws IOException if the body cannot be read or is not a valid
+     *         request; blocks already passed on are not taken back
+     */
+    public void forward(BlockSink sink, int blockElements)
+        throws IOException {
+        try {
+            for (
+                String field = nextField;
+                field != null;
+                field = parser.nextFieldName()
+            ) {
+                JsonToken token = parser.nextToken();
+                if (!isOperand(field)) {
+                    readField(field);
+                } else if (token == JsonToken.START_OBJECT) {
+                    boolean matrixB = "matrixB".equals(field);
+                    readOperand(matrixB, sink, Math.max(1, blockElements));
+                    hasMatrixA |= !matrixB;
+                    hasMatrixB |= matrixB;
+                } else if (token != JsonToken.VALUE_NULL) {
+                    throw new JsonParseException(
+                        parser,
+                        field + " must be an object"
+                    );
+                }
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Whether {@link #forward} read a matrix A
+     */
+    public boolean hasMatrixA() {
+        return hasMatrixA;
+    }
+
+    /**
+     * Whether {@link #forward} read a matrix B
+     */
+    public boolean hasMatrixB() {
+        return hasMatrixB;
+    }
+
+    /**
+     * Operand values read so far
+     */
+    public long getElements() {
+        return elements;
+    }
+
+    private void readField(String field) throws IOException {
+        switch (field) {
+            case "taskId":
+                // Later values are ignored, the call has started by then
+                if (taskId == null) {
+                    taskId = parser.getValueAsString();
+                }
+                break;
+            case "operation":
+                if (operation == null) {
+                    operation = parser.getValueAsString();
+                }
+                break;
+            default:
+                parser.skipChildren();
+                break;
+        }
+    }
+
+    private void readOperand(
+        boolean matrixB,
+        BlockSink sink,
+        int blockElements
+    ) throws IOException {
+        String name = matrixB ? "Matrix B" : "Matrix A";
+        int rows = -1;
+        int cols = -1;
+        float[] whole = null;
+        boolean hasData = false;
+
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "rows":
+                    rows = parser.getValueAsInt(-1);
+                    break;
+                case "cols":
+                    cols = parser.getValueAsInt(-1);
+                    break;
+                case "data":
+                    if (token != JsonToken.START_ARRAY) {
+                        throw new JsonParseException(
+                            parser,
+                            name + " data must be an array"
+                        );
+                    }
+                    hasData = true;
+                    if (rows >= 0 && cols >= 0) {
+                        readBlocks(matrixB, rows, cols, sink, blockElements);
+                    } else {
+                        whole = readAll();
+                    }
+                    break;
+                case "handle":
+                    if (token != JsonToken.VALUE_NULL) {
+                        throw new JsonParseException(
+                            parser,
+                            "Stored operands cannot be streamed"
+                        );
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+
+        if (!hasData || rows < 0 || cols < 0) {
+            throw new JsonParseException(
+                parser,
+                name + " needs rows, cols and data"
+            );
+        }
+        if (whole != null) {
+            checkSize(name, rows, cols, whole.length);
+            elements += whole.length;
+            int blockSize = blockValues(cols, blockElements);
+            int offset = 0;
+            do {
+                int size = Math.min(blockSize, whole.length - offset);
+                sink.block(
+                    matrixB,
+                    rows,
+                    cols,
+                    offset,
+                    FloatBuffer.wrap(whole, offset, size)
+                );
+                offset += Math.max(1, size);
+            } while (offset < whole.length);
+        }
+    }
+
+    /**
+     * Stream a data array of known dimensions in blocks
+     */
+    private void readBlocks(
+        boolean matrixB,
+        int rows,
+        int cols,
+        BlockSink sink,
+        int blockElements
+    ) throws IOException {
+        String name = matrixB ? "Matrix B" : "Matrix A";
+        long expected = (long) rows * cols;
+        int blockSize = (int) Math.min(
+            expected,
+            blockValues(cols, blockElements)
+        );
+        float[] block = new float[Math.min(blockSize, INITIAL_BLOCK_VALUES)];
+        long count = 0;
+        int size = 0;
+        long offset = 0;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            checkNumber(token);
+            if (count == expected) {
+                checkSize(name, rows, cols, count + 1);
+            }
+            if (size == block.length) {
+                block = Arrays.copyOf(
+                    block,
+                    (int) Math.min(2L * size, blockSize)
+                );
+            }
+            block[size++] = parser.getFloatValue();
+            count++;
+            if (size == blockSize) {
+                sink.block(
+                    matrixB,
+                    rows,
+                    cols,
+                    offset,
+                    FloatBuffer.wrap(block, 0, size)
+                );
+                offset += size;
+                size = 0;
+            }
+        }
+        checkSize(name, rows, cols, count);
+        elements += count;
+        // Empty operands still produce one block carrying the dimensions
+        if (size > 0 || expected == 0) {
+            sink.block(
+                matrixB,
+                rows,
+                cols,
+                offset,
+                FloatBuffer.wrap(block, 0, size)
+            );
+        }
+    }
+
+    /**
+     * Values per block of an operand with {@code cols} columns: as many
+     * whole rows as fit in {@code blockElements} values, or part of a row
+     * if a single row does not fit
+     */
+    private static int blockValues(int cols, int blockElements) {
+        return cols > 0 && cols <= blockElements
+            ? blockElements / cols * cols
+            : blockElements;
+    }
+
+    private float[] readAll() throws IOException {
+        float[] buffer = new float[16];
+        int size = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            checkNumber(token);
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = parser.getFloatValue();
+        }
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void checkNumber(JsonToken token) throws JsonParseException {
+        if (
+            token != JsonToken.VALUE_NUMBER_FLOAT &&
+            token != JsonToken.VALUE_NUMBER_INT
+        ) {
+            throw new JsonParseException(
+                parser,
+                "Expected a number in matrix data, got " + token
+            );
+        }
+    }
+
+    private void checkSize(String name, int rows, int cols, long count)
+        throws JsonParseException {
+        long expected = (long) rows * cols;
+        if (count != expected) {
+            throw new JsonParseException(
+                parser,
+                name + " has " +
+                (count > expected ? "more than " + expected : count) +
+                " values for " + rows + "x" + cols
+            );
+        }
+    }
+
+    private static boolean isOperand(String field) {
+        return "matrixA".equals(field) || "matrixB".equals(field);
+    }
+}
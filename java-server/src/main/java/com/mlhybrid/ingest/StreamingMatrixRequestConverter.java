@@ -0,0 +1,73 @@
+package com.mlhybrid.ingest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads a JSON request body as a {@link StreamingMatrixRequest}: only the
+ * fields before the operands are parsed when the controller is invoked,
+ * the rest of the body is left to {@link StreamingMatrixRequest#forward}.
+ * Spring Boot adds this converter ahead of the JSON converter; it only
+ * handles {@link StreamingMatrixRequest} bodies.
+ */
+@Component
+public class StreamingMatrixRequestConverter
+    extends AbstractHttpMessageConverter<StreamingMatrixRequest> {
+
+    private final JsonFactory jsonFactory;
+
+    public StreamingMatrixRequestConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return StreamingMatrixRequest.class == clazz;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected StreamingMatrixRequest readInternal(
+        Class<? extends StreamingMatrixRequest> clazz,
+        HttpInputMessage inputMessage
+    ) throws IOException, HttpMessageNotReadableException {
+        JsonParser parser = jsonFactory.createParser(inputMessage.getBody());
+        StreamingMatrixRequest request = new StreamingMatrixRequest(parser);
+        try {
+            request.readHeader();
+        } catch (JsonProcessingException e) {
+            parser.close();
+            throw new HttpMessageNotReadableException(
+                "JSON parse error: " + e.getOriginalMessage(),
+                e,
+                inputMessage
+            );
+        }
+        return request;
+    }
+
+    @Override
+    protected void writeInternal(
+        StreamingMatrixRequest request,
+        HttpOutputMessage outputMessage
+    ) throws HttpMessageNotWritableException {
+        throw new HttpMessageNotWritableException(
+            "Streaming matrix requests are read only"
+        );
+    }
+}
@@ -0,0 +1,89 @@
+package com.mlhybrid.metrics;
+
+import com.mlhybrid.model.ComputeRequest;
+import com.mlhybrid.model.Matrix;
+import com.mlhybrid.model.MatrixComputeRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Records request decoding and response encoding of the HTTP message
+ * converters as the {@link PipelineMetrics#DECODE} and
+ * {@link PipelineMetrics#ENCODE} phases, whatever the content type. The
+ * operation and size of the decoded request are kept as request attributes
+ * so that the response is tagged the same way.
+ */
+public class ConverterTiming {
+
+    private static final String OPERATION_ATTRIBUTE =
+        ConverterTiming.class.getName() + ".operation";
+    private static final String ELEMENTS_ATTRIBUTE =
+        ConverterTiming.class.getName() + ".elements";
+
+    private final PipelineMetrics metrics;
+
+    public ConverterTiming(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Record the decoding of {@code body}, started at {@code start}
+     */
+    public void decoded(Object body, long start) {
+        String operation = null;
+        long elements = 0;
+        if (body instanceof MatrixComputeRequest) {
+            MatrixComputeRequest request = (MatrixComputeRequest) body;
+            operation = request.getOperation();
+            elements = size(request.getMatrixA()) + size(request.getMatrixB());
+        } else if (body instanceof ComputeRequest) {
+            ComputeRequest request = (ComputeRequest) body;
+            operation = PipelineMetrics.COMPUTE;
+            elements = request.getData() != null ? request.getData().size() : 0;
+        }
+        metrics.record(PipelineMetrics.DECODE, operation, elements, start);
+
+        RequestAttributes attributes =
+            RequestContextHolder.getRequestAttributes();
+        if (attributes != null && operation != null) {
+            attributes.setAttribute(
+                OPERATION_ATTRIBUTE,
+                operation,
+                RequestAttributes.SCOPE_REQUEST
+            );
+            attributes.setAttribute(
+                ELEMENTS_ATTRIBUTE,
+                elements,
+                RequestAttributes.SCOPE_REQUEST
+            );
+        }
+    }
+
+    /**
+     * Record the encoding of the current request's response, started at
+     * {@code start}
+     */
+    public void encoded(long start) {
+        String operation = null;
+        long elements = 0;
+        RequestAttributes attributes =
+            RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object op = attributes.getAttribute(
+                OPERATION_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST
+            );
+            Object count = attributes.getAttribute(
+                ELEMENTS_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST
+            );
+            operation = op != null ? op.toString() : null;
+            elements = count instanceof Long ? (Long) count : 0;
+        }
+        metrics.record(PipelineMetrics.ENCODE, operation, elements, start);
+    }
+
+    private static long size(Matrix matrix) {
+        return matrix != null ? matrix.getData().length : 0;
+    }
+}
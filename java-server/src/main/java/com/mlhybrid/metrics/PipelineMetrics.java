@@ -0,0 +1,115 @@
+package com.mlhybrid.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers for the phases a request goes through on the Java side, recorded
+ * as {@code mlhybrid.pipeline} and tagged with {@code phase},
+ * {@code operation} and {@code size}.
+ * <p>
+ * The size tag buckets the operand element count by the edge of the
+ * equivalent square matrix, so that latency can be compared between
+ * requests of similar weight without a tag per shape.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String METRIC = "mlhybrid.pipeline";
+
+    /** Request body parsed from JSON */
+    public static final String DECODE = "decode";
+    /** Model objects converted to or from protobuf messages */
+    public static final String CONVERT = "convert";
+    /** Waiting for admission by the call scheduler */
+    public static final String QUEUE = "queue";
+    /** Waiting for the Rust server to answer */
+    public static final String GRPC = "grpc";
+    /** Computed by the local matrix engine */
+    public static final String LOCAL = "local";
+    /** Result cache key computed and looked up */
+    public static final String CACHE = "cache";
+    /** Controller entry until the response is ready, for async calls too */
+    public static final String HANDLE = "handle";
+    /** Response body written as JSON */
+    public static final String ENCODE = "encode";
+    /** WebSocket update serialized and queued for subscribers */
+    public static final String BROADCAST = "broadcast";
+
+    /** Operation tag of {@code /api/ml/compute} requests */
+    public static final String COMPUTE = "compute";
+
+    /** Operation tag of {@code /api/matrix/expression} requests */
+    public static final String EXPRESSION = "expression";
+
+    private static final Set<String> OPERATIONS = Set.of(
+        "multiply",
+        "transpose",
+        "inverse",
+        "add",
+        "subtract",
+        COMPUTE,
+        EXPRESSION
+    );
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Record the time since {@code startNanos}, a {@link System#nanoTime()}
+     * reading
+     *
+     * @param operation matrix operation or {@link #COMPUTE}; anything else
+     *        is tagged {@code other} to bound the tag's cardinality
+     * @param elements  operand values of the request
+     */
+    public void record(
+        String phase,
+        String operation,
+        long elements,
+        long startNanos
+    ) {
+        Timer.builder(METRIC)
+            .tag("phase", phase)
+            .tag("operation", operationTag(operation))
+            .tag("size", sizeBucket(elements))
+            .register(registry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    static String operationTag(String operation) {
+        return operation != null && OPERATIONS.contains(operation)
+            ? operation
+            : "other";
+    }
+
+    /**
+     * Size class of a request with {@code elements} operand values
+     */
+    public static String sizeBucket(long elements) {
+        if (elements <= 0) {
+            return "none";
+        }
+        if (elements <= 64 * 64) {
+            return "tiny";
+        }
+        if (elements <= 256 * 256) {
+            return "small";
+        }
+        if (elements <= 1024 * 1024) {
+            return "medium";
+        }
+        if (elements <= 4096 * 4096) {
+            return "large";
+        }
+        return "huge";
+    }
+}
@@ -0,0 +1,63 @@
+package com.mlhybrid.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * JSON converter that records request decoding and response encoding as
+ * the {@link PipelineMetrics#DECODE} and {@link PipelineMetrics#ENCODE}
+ * phases; see {@link ConverterTiming}.
+ */
+public class TimedJacksonHttpMessageConverter
+    extends MappingJackson2HttpMessageConverter {
+
+    private final ConverterTiming timing;
+
+    public TimedJacksonHttpMessageConverter(
+        ObjectMapper objectMapper,
+        PipelineMetrics metrics
+    ) {
+        super(objectMapper);
+        this.timing = new ConverterTiming(metrics);
+    }
+
+    @Override
+    public Object read(
+        Type type,
+        Class<?> contextClass,
+        HttpInputMessage inputMessage
+    ) throws IOException, HttpMessageNotReadableException {
+        long start = System.nanoTime();
+        Object body = super.read(type, contextClass, inputMessage);
+        timing.decoded(body, start);
+        return body;
+    }
+
+    @Override
+    protected Object readInternal(
+        Class<?> clazz,
+        HttpInputMessage inputMessage
+    ) throws IOException, HttpMessageNotReadableException {
+        long start = System.nanoTime();
+        Object body = super.readInternal(clazz, inputMessage);
+        timing.decoded(body, start);
+        return body;
+    }
+
+    @Override
+    protected void writeInternal(
+        Object object,
+        Type type,
+        HttpOutputMessage outputMessage
+    ) throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        super.writeInternal(object, type, outputMessage);
+        timing.encoded(start);
+    }
+}
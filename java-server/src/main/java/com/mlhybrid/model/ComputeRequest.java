@@ -1,9 +1,11 @@
 package com.mlhybrid.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.util.List;
 
 public class ComputeRequest {
 
+    @JsonDeserialize(using = FloatListDeserializer.class)
     private List<Float> data;
     private String taskId;
     private String taskType;
@@ -0,0 +1,72 @@
+package com.mlhybrid.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * A result matrix as written in a lower {@link ResultPrecision}:
+ * {@code {"rows":..,"cols":..,"precision":..,"scale":..,"data":..}} with
+ * the little-endian values as binary data (base64 in JSON) and the scale
+ * only for {@code int8}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "rows", "cols", "precision", "scale", "data" })
+public class EncodedMatrix {
+
+    private final int rows;
+    private final int cols;
+    private final ResultPrecision precision;
+    private final Float scale;
+    private final byte[] data;
+
+    private EncodedMatrix(
+        int rows,
+        int cols,
+        ResultPrecision precision,
+        Float scale,
+        byte[] data
+    ) {
+        this.rows = rows;
+        this.cols = cols;
+        this.precision = precision;
+        this.scale = scale;
+        this.data = data;
+    }
+
+    /**
+     * Encode the values of a matrix in the given precision
+     */
+    public static EncodedMatrix of(Matrix matrix, ResultPrecision precision) {
+        float[] values = matrix.getData();
+        float scale = precision == ResultPrecision.INT8
+            ? ResultPrecision.int8Scale(values)
+            : 1;
+        return new EncodedMatrix(
+            matrix.getRows(),
+            matrix.getCols(),
+            precision,
+            precision == ResultPrecision.INT8 ? scale : null,
+            precision.encode(values, scale)
+        );
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public String getPrecision() {
+        return precision.getName();
+    }
+
+    public Float getScale() {
+        return scale;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
@@ -0,0 +1,59 @@
+package com.mlhybrid.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * Node of a matrix expression: either an operation over argument nodes,
+ * e.g. {@code {"op": "multiply", "args": ["A", "B"]}}, or a reference to a
+ * named operand, written as a bare string.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExpressionNode {
+
+    private String op;
+    private List<ExpressionNode> args;
+    private String operand;
+
+    public ExpressionNode() {}
+
+    public ExpressionNode(String op, List<ExpressionNode> args) {
+        this.op = op;
+        this.args = args;
+    }
+
+    /**
+     * Reference to the operand with the given name
+     */
+    @JsonCreator
+    public static ExpressionNode operand(String name) {
+        ExpressionNode node = new ExpressionNode();
+        node.setOperand(name);
+        return node;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public List<ExpressionNode> getArgs() {
+        return args;
+    }
+
+    public void setArgs(List<ExpressionNode> args) {
+        this.args = args;
+    }
+
+    public String getOperand() {
+        return operand;
+    }
+
+    public void setOperand(String operand) {
+        this.operand = operand;
+    }
+}
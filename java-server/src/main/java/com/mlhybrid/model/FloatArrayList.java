@@ -0,0 +1,57 @@
+package com.mlhybrid.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Fixed-size {@code List<Float>} view of a primitive array, so that decoded
+ * request values take 4 bytes each instead of a boxed {@code Float}
+ */
+public class FloatArrayList extends AbstractList<Float> implements RandomAccess {
+
+    private final float[] values;
+
+    public FloatArrayList(float[] values) {
+        this.values = values;
+    }
+
+    /**
+     * The backing array, not a copy
+     */
+    public float[] array() {
+        return values;
+    }
+
+    /**
+     * The values of a list as a primitive array: the backing array itself
+     * for a {@code FloatArrayList}, an unboxed copy for any other list
+     */
+    public static float[] toFloatArray(List<Float> values) {
+        if (values instanceof FloatArrayList) {
+            return ((FloatArrayList) values).values;
+        }
+        float[] array = new float[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    @Override
+    public Float get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public Float set(int index, Float value) {
+        float previous = values[index];
+        values[index] = value;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+}
@@ -0,0 +1,34 @@
+package com.mlhybrid.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads a JSON number array token by token into a {@code float[]} and
+ * returns it as a {@link FloatArrayList}, so that a large
+ * {@link ComputeRequest} holds 4 bytes per value instead of a boxed
+ * {@code Float} each.
+ */
+public class FloatListDeserializer extends StdDeserializer<List<Float>> {
+
+    public FloatListDeserializer() {
+        super(List.class);
+    }
+
+    @Override
+    public List<Float> deserialize(JsonParser p, DeserializationContext ctxt)
+        throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+            @SuppressWarnings("unchecked")
+            List<Float> unexpected = (List<Float>) ctxt.handleUnexpectedToken(
+                List.class,
+                p
+            );
+            return unexpected;
+        }
+        return new FloatArrayList(MatrixDeserializer.readData(p, ctxt, 0));
+    }
+}
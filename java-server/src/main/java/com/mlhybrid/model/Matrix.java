@@ -1,25 +1,36 @@
 package com.mlhybrid.model;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.mlhybrid.grpc.PackedFloats;
 
 /**
- * Matrix representation for the ML Hybrid System
+ * Matrix representation for the ML Hybrid System.
+ * <p>
+ * Data is kept as a dense row-major {@code float[]} so that large matrices
+ * do not turn into millions of boxed {@code Float} objects on the heap.
  */
+@JsonSerialize(using = MatrixSerializer.class)
+@JsonDeserialize(using = MatrixDeserializer.class)
 public class Matrix {
 
+    private static final float[] EMPTY = new float[0];
+
     private int rows;
     private int cols;
-    private List<Float> data;
+    private float[] data;
+
+    /** Handle of the stored operand this matrix was loaded from, if any */
+    private String handle;
 
     public Matrix() {
-        this.data = new ArrayList<>();
+        this.data = EMPTY;
     }
 
-    public Matrix(int rows, int cols, List<Float> data) {
+    public Matrix(int rows, int cols, float[] data) {
         this.rows = rows;
         this.cols = cols;
-        this.data = data;
+        this.data = data != null ? data : EMPTY;
     }
 
     public int getRows() {
@@ -38,34 +49,68 @@ public class Matrix {
         this.cols = cols;
     }
 
-    public List<Float> getData() {
+    public float[] getData() {
         return data;
     }
 
-    public void setData(List<Float> data) {
-        this.data = data;
+    public void setData(float[] data) {
+        this.data = data != null ? data : EMPTY;
+    }
+
+    public String getHandle() {
+        return handle;
+    }
+
+    public void setHandle(String handle) {
+        this.handle = handle;
     }
 
     /**
-     * Convert this matrix to its gRPC representation
+     * Convert this matrix to its gRPC representation, with the data packed
+     * in one bulk copy
      */
     public com.mlhybrid.grpc.Matrix toGrpcMatrix() {
+        com.mlhybrid.grpc.Matrix.Builder builder =
+            com.mlhybrid.grpc.Matrix.newBuilder()
+                .setRows(rows)
+                .setCols(cols)
+                .setPackedData(PackedFloats.pack(data));
+        if (handle != null) {
+            builder.setHandle(handle);
+        }
+        return builder.build();
+    }
+
+    /**
+     * gRPC representation of a stored operand that refers to the copy the
+     * Rust server already holds, without sending the data again
+     */
+    public com.mlhybrid.grpc.Matrix toGrpcReference() {
         return com.mlhybrid.grpc.Matrix.newBuilder()
             .setRows(rows)
             .setCols(cols)
-            .addAllData(data)
+            .setHandle(handle)
             .build();
     }
 
     /**
-     * Create a Matrix from its gRPC representation
+     * Create a Matrix from its gRPC representation, packed or not, without
+     * boxing
      */
     public static Matrix fromGrpcMatrix(com.mlhybrid.grpc.Matrix grpcMatrix) {
-        return new Matrix(
-            grpcMatrix.getRows(),
-            grpcMatrix.getCols(),
-            grpcMatrix.getDataList()
-        );
+        if (!grpcMatrix.getPackedData().isEmpty()) {
+            return new Matrix(
+                grpcMatrix.getRows(),
+                grpcMatrix.getCols(),
+                PackedFloats.unpack(grpcMatrix.getPackedData())
+            );
+        }
+        int count = grpcMatrix.getDataCount();
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = grpcMatrix.getData(i);
+        }
+        return new Matrix(grpcMatrix.getRows(), grpcMatrix.getCols(), values);
     }
 
     /**
@@ -80,8 +125,8 @@ public class Matrix {
             sb.append("[");
             for (int j = 0; j < cols; j++) {
                 int index = i * cols + j;
-                if (index < data.size()) {
-                    sb.append(String.format("%8.4f", data.get(index)));
+                if (index < data.length) {
+                    sb.append(String.format("%8.4f", data[index]));
                     if (j < cols - 1) {
                         sb.append(", ");
                     }
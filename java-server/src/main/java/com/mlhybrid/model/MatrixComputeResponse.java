@@ -1,5 +1,8 @@
 package com.mlhybrid.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 /**
  * Response object for matrix compute operations
  */
@@ -11,6 +14,9 @@ public class MatrixComputeResponse {
     private String errorMessage;
     private long executionTimeMs;
 
+    /** Precision the result is written in for the client */
+    private ResultPrecision resultPrecision = ResultPrecision.FLOAT32;
+
     public MatrixComputeResponse() {}
 
     public MatrixComputeResponse(
@@ -37,14 +43,51 @@ public class MatrixComputeResponse {
         this.executionTimeMs = executionTimeMs;
     }
 
+    @JsonIgnore
     public Matrix getResultMatrix() {
         return resultMatrix;
     }
 
+    @JsonProperty("resultMatrix")
     public void setResultMatrix(Matrix resultMatrix) {
         this.resultMatrix = resultMatrix;
     }
 
+    /**
+     * The result as written: the matrix itself, or its
+     * {@link EncodedMatrix} in a lower precision
+     */
+    @JsonProperty("resultMatrix")
+    public Object getWrittenResultMatrix() {
+        return resultMatrix == null ||
+            resultPrecision == ResultPrecision.FLOAT32
+            ? resultMatrix
+            : EncodedMatrix.of(resultMatrix, resultPrecision);
+    }
+
+    @JsonIgnore
+    public ResultPrecision getResultPrecision() {
+        return resultPrecision;
+    }
+
+    /**
+     * Copy of this response, sharing its result, that is written in the
+     * given precision
+     */
+    public MatrixComputeResponse withResultPrecision(
+        ResultPrecision precision
+    ) {
+        MatrixComputeResponse copy = new MatrixComputeResponse(
+            resultMatrix,
+            taskId,
+            status,
+            errorMessage,
+            executionTimeMs
+        );
+        copy.resultPrecision = precision;
+        return copy;
+    }
+
     public String getTaskId() {
         return taskId;
     }
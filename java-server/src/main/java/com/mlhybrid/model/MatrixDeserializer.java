@@ -0,0 +1,126 @@
+package com.mlhybrid.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads a {@link Matrix} token by token, decoding the {@code data} array
+ * directly into a {@code float[]}. When {@code rows} and {@code cols}
+ * precede {@code data} the array grows straight to its final size, but
+ * starts no larger than {@link #MAX_PRESIZED} values, so that a small body
+ * claiming huge dimensions cannot allocate more than it holds. A
+ * {@code handle} refers to a stored operand in place of the data.
+ */
+public class MatrixDeserializer extends StdDeserializer<Matrix> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_PRESIZED = 1 << 16;
+    private static final int MAX_VALUES = Integer.MAX_VALUE - 8;
+
+    public MatrixDeserializer() {
+        super(Matrix.class);
+    }
+
+    @Override
+    public Matrix deserialize(JsonParser p, DeserializationContext ctxt)
+        throws IOException {
+        if (!p.isExpectedStartObjectToken()) {
+            return (Matrix) ctxt.handleUnexpectedToken(Matrix.class, p);
+        }
+
+        Matrix matrix = new Matrix();
+        String field;
+        while ((field = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (field) {
+                case "rows":
+                    matrix.setRows(p.getValueAsInt());
+                    break;
+                case "cols":
+                    matrix.setCols(p.getValueAsInt());
+                    break;
+                case "data":
+                    if (token == JsonToken.START_ARRAY) {
+                        matrix.setData(
+                            readData(
+                                p,
+                                ctxt,
+                                (long) matrix.getRows() * matrix.getCols()
+                            )
+                        );
+                    } else if (token != JsonToken.VALUE_NULL) {
+                        ctxt.handleUnexpectedToken(float[].class, p);
+                    }
+                    break;
+                case "handle":
+                    matrix.setHandle(
+                        token == JsonToken.VALUE_NULL
+                            ? null
+                            : p.getValueAsString()
+                    );
+                    break;
+                default:
+                    p.skipChildren();
+                    break;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Read a JSON number array into a primitive buffer. The declared
+     * dimensions, when available, only bound its growth, since they are
+     * not trusted until the values arrive.
+     */
+    static float[] readData(
+        JsonParser p,
+        DeserializationContext ctxt,
+        long expectedSize
+    ) throws IOException {
+        long expected = expectedSize > 0 && expectedSize <= MAX_VALUES
+            ? expectedSize
+            : 0;
+        float[] buffer = new float[expected > 0
+            ? (int) Math.min(expected, MAX_PRESIZED)
+            : INITIAL_CAPACITY];
+        int size = 0;
+
+        JsonToken token;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (
+                token != JsonToken.VALUE_NUMBER_FLOAT &&
+                token != JsonToken.VALUE_NUMBER_INT
+            ) {
+                ctxt.handleUnexpectedToken(Float.TYPE, p);
+            }
+            if (size == buffer.length) {
+                if (size == MAX_VALUES) {
+                    ctxt.reportInputMismatch(
+                        float[].class,
+                        "Matrix data exceeds %d values",
+                        MAX_VALUES
+                    );
+                }
+                buffer = Arrays.copyOf(buffer, grow(size, expected));
+            }
+            buffer[size++] = p.getFloatValue();
+        }
+
+        return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Double the capacity, stopping at the expected size until the values
+     * exceed it
+     */
+    private static int grow(int capacity, long expected) {
+        long doubled = Math.min(2L * capacity, MAX_VALUES);
+        return (int) (capacity < expected
+            ? Math.min(doubled, expected)
+            : doubled);
+    }
+}
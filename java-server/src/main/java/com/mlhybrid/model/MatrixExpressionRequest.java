@@ -0,0 +1,49 @@
+package com.mlhybrid.model;
+
+import java.util.Map;
+
+/**
+ * Request object for evaluating an expression over named matrices
+ */
+public class MatrixExpressionRequest {
+
+    private String taskId;
+    private Map<String, Matrix> operands;
+    private ExpressionNode expression;
+
+    public MatrixExpressionRequest() {}
+
+    public MatrixExpressionRequest(
+        String taskId,
+        Map<String, Matrix> operands,
+        ExpressionNode expression
+    ) {
+        this.taskId = taskId;
+        this.operands = operands;
+        this.expression = expression;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public Map<String, Matrix> getOperands() {
+        return operands;
+    }
+
+    public void setOperands(Map<String, Matrix> operands) {
+        this.operands = operands;
+    }
+
+    public ExpressionNode getExpression() {
+        return expression;
+    }
+
+    public void setExpression(ExpressionNode expression) {
+        this.expression = expression;
+    }
+}
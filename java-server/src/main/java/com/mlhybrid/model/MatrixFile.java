@@ -0,0 +1,80 @@
+package com.mlhybrid.model;
+
+/**
+ * Reference to a matrix kept in a file, either uploaded to
+ * {@code /api/matrix/files} or in a server-local directory.
+ * <p>
+ * A {@code .npy} file describes itself. A raw file holds row-major 32-bit
+ * floats and needs {@code rows}, {@code cols} and, unless little-endian,
+ * {@code byteOrder}.
+ */
+public class MatrixFile {
+
+    private String file;
+    private String path;
+    private String format;
+    private Integer rows;
+    private Integer cols;
+    private String byteOrder;
+
+    public MatrixFile() {}
+
+    public MatrixFile(String file, String format, Integer rows, Integer cols) {
+        this.file = file;
+        this.format = format;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /** Name of an uploaded file */
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    /** Server-local path, only under {@code matrix.files.local-roots} */
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /** {@code npy} or {@code raw}; by default taken from the file extension */
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public Integer getRows() {
+        return rows;
+    }
+
+    public void setRows(Integer rows) {
+        this.rows = rows;
+    }
+
+    public Integer getCols() {
+        return cols;
+    }
+
+    public void setCols(Integer cols) {
+        this.cols = cols;
+    }
+
+    /** {@code little} (default) or {@code big}, for raw files */
+    public String getByteOrder() {
+        return byteOrder;
+    }
+
+    public void setByteOrder(String byteOrder) {
+        this.byteOrder = byteOrder;
+    }
+}
@@ -0,0 +1,58 @@
+package com.mlhybrid.model;
+
+/**
+ * Request object for matrix compute operations on file operands
+ */
+public class MatrixFileComputeRequest {
+
+    private MatrixFile matrixA;
+    private MatrixFile matrixB;
+    private String taskId;
+    private String operation;
+
+    public MatrixFileComputeRequest() {}
+
+    public MatrixFileComputeRequest(
+        MatrixFile matrixA,
+        MatrixFile matrixB,
+        String taskId,
+        String operation
+    ) {
+        this.matrixA = matrixA;
+        this.matrixB = matrixB;
+        this.taskId = taskId;
+        this.operation = operation;
+    }
+
+    public MatrixFile getMatrixA() {
+        return matrixA;
+    }
+
+    public void setMatrixA(MatrixFile matrixA) {
+        this.matrixA = matrixA;
+    }
+
+    public MatrixFile getMatrixB() {
+        return matrixB;
+    }
+
+    public void setMatrixB(MatrixFile matrixB) {
+        this.matrixB = matrixB;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+}
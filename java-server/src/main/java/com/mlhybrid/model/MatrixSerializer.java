@@ -0,0 +1,37 @@
+package com.mlhybrid.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * Writes a {@link Matrix} as {@code {"rows":..,"cols":..,"data":[..]}}
+ * straight from its primitive array.
+ */
+public class MatrixSerializer extends StdSerializer<Matrix> {
+
+    public MatrixSerializer() {
+        super(Matrix.class);
+    }
+
+    @Override
+    public void serialize(
+        Matrix matrix,
+        JsonGenerator gen,
+        SerializerProvider provider
+    ) throws IOException {
+        float[] data = matrix.getData();
+
+        gen.writeStartObject();
+        gen.writeNumberField("rows", matrix.getRows());
+        gen.writeNumberField("cols", matrix.getCols());
+        gen.writeFieldName("data");
+        gen.writeStartArray(data, data.length);
+        for (float value : data) {
+            gen.writeNumber(value);
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+}
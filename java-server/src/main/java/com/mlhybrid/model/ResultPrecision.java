@@ -0,0 +1,172 @@
+package com.mlhybrid.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * Precision a result matrix is returned in. Below {@link #FLOAT32} the
+ * values are written as little-endian bytes: IEEE half floats, bfloat16 (the
+ * upper half of a float32), or signed bytes that are multiplied by a
+ * per-matrix scale. Conversions round to the nearest value.
+ */
+public enum ResultPrecision {
+    FLOAT32("float32", Float.BYTES),
+    FP16("fp16", 2),
+    BF16("bf16", 2),
+    INT8("int8", 1);
+
+    private final String name;
+    private final int bytes;
+
+    ResultPrecision(String name, int bytes) {
+        this.name = name;
+        this.bytes = bytes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Bytes per value */
+    public int getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Parse a precision name; {@code null} or empty is {@link #FLOAT32}
+     *
+     * @throws IllegalArgumentException for an unknown name
+     */
+    public static ResultPrecision fromString(String value) {
+        if (value == null || value.isEmpty()) {
+            return FLOAT32;
+        }
+        String name = value.toLowerCase(Locale.ROOT);
+        for (ResultPrecision precision : values()) {
+            if (precision.name.equals(name)) {
+                return precision;
+            }
+        }
+        throw new IllegalArgumentException(
+            "Unknown precision '" +
+            value +
+            "', expected float32, fp16, bf16 or int8"
+        );
+    }
+
+    /**
+     * Scale of {@link #INT8} values, which maps the largest finite
+     * magnitude to 127; 1 when all values are zero
+     */
+    public static float int8Scale(float[] values) {
+        float max = 0;
+        for (float value : values) {
+            float magnitude = Math.abs(value);
+            if (magnitude > max && magnitude != Float.POSITIVE_INFINITY) {
+                max = magnitude;
+            }
+        }
+        return max > 0 ? max / 127 : 1;
+    }
+
+    /**
+     * Write values in this precision to a little-endian buffer with room
+     * for them. {@link #INT8} values are divided by {@code scale} and
+     * clamped; NaN becomes 0.
+     */
+    public void encode(
+        float[] values,
+        int offset,
+        int length,
+        float scale,
+        ByteBuffer out
+    ) {
+        int end = offset + length;
+        switch (this) {
+            case FLOAT32:
+                out.asFloatBuffer().put(values, offset, length);
+                out.position(out.position() + length * Float.BYTES);
+                break;
+            case FP16:
+                for (int i = offset; i < end; i++) {
+                    out.putShort(toHalf(values[i]));
+                }
+                break;
+            case BF16:
+                for (int i = offset; i < end; i++) {
+                    out.putShort(toBfloat16(values[i]));
+                }
+                break;
+            default:
+                float inverse = 1 / scale;
+                for (int i = offset; i < end; i++) {
+                    float scaled = values[i] * inverse;
+                    out.put(
+                        (byte) Math.max(-127, Math.min(127, Math.round(scaled)))
+                    );
+                }
+        }
+    }
+
+    /**
+     * All values in this precision as little-endian bytes
+     */
+    public byte[] encode(float[] values, float scale) {
+        ByteBuffer out = ByteBuffer.allocate(values.length * bytes)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        encode(values, 0, values.length, scale, out);
+        return out.array();
+    }
+
+    /**
+     * IEEE 754 half float bits of a value, rounding half to even;
+     * magnitudes beyond 65504 become infinity
+     */
+    static short toHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xff;
+        int mantissa = bits & 0x7fffff;
+        if (exponent == 0xff) {
+            // Infinity, or NaN kept quiet
+            return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+        }
+        int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1f) {
+            return (short) (sign | 0x7c00);
+        }
+        if (halfExponent <= 0) {
+            // Subnormal half, or zero below half the smallest one
+            if (halfExponent < -10) {
+                return (short) sign;
+            }
+            return (short) (sign |
+                roundShift(mantissa | 0x800000, 14 - halfExponent));
+        }
+        // A carry out of the mantissa correctly bumps the exponent
+        return (short) (sign |
+            roundShift((halfExponent << 23) | mantissa, 13));
+    }
+
+    /**
+     * bfloat16 bits of a value, rounding half to even
+     */
+    static short toBfloat16(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        if ((bits & 0x7fffffff) > 0x7f800000) {
+            return (short) ((bits >>> 16) | 0x40);
+        }
+        return (short) ((bits + 0x7fff + ((bits >>> 16) & 1)) >>> 16);
+    }
+
+    private static int roundShift(int value, int shift) {
+        int result = value >>> shift;
+        int remainder = value & ((1 << shift) - 1);
+        int half = 1 << (shift - 1);
+        if (remainder > half || (remainder == half && (result & 1) != 0)) {
+            result++;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+package com.mlhybrid.task;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * State of a job submitted through the asynchronous API. A record moves
+ * from {@code running} to exactly one of {@code completed}, {@code failed}
+ * or {@code cancelled}; later transitions are ignored.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskRecord {
+
+    public static final String RUNNING = "running";
+    public static final String COMPLETED = "completed";
+    public static final String FAILED = "failed";
+    public static final String CANCELLED = "cancelled";
+
+    private final String taskId;
+    private final String kind;
+    private final long submittedAt;
+    private volatile String status = RUNNING;
+    private volatile Long finishedAt;
+    private volatile Object result;
+    private CompletableFuture<?> call;
+
+    TaskRecord(String taskId, String kind) {
+        this.taskId = taskId;
+        this.kind = kind;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Response body of the finished job, or {@code null} while running
+     */
+    public Object getResult() {
+        return result;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return !RUNNING.equals(status);
+    }
+
+    /**
+     * Attach the in-flight call so that {@link #cancel()} can abort it. A
+     * call attached after cancellation is cancelled immediately.
+     */
+    public synchronized void attach(CompletableFuture<?> call) {
+        this.call = call;
+        if (CANCELLED.equals(status)) {
+            call.cancel(true);
+        }
+    }
+
+    /**
+     * Record the outcome of the job
+     *
+     * @param success whether the job produced a result
+     * @param result  response body to hand out to pollers
+     */
+    public synchronized void finish(boolean success, Object result) {
+        if (isFinished()) {
+            return;
+        }
+        this.result = result;
+        this.finishedAt = System.currentTimeMillis();
+        this.status = success ? COMPLETED : FAILED;
+        this.call = null;
+    }
+
+    /**
+     * Cancel the job and its in-flight call
+     *
+     * @return {@code false} if the job had already finished
+     */
+    public synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        this.finishedAt = System.currentTimeMillis();
+        this.status = CANCELLED;
+        if (call != null) {
+            call.cancel(true);
+            call = null;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,92 @@
+package com.mlhybrid.task;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory registry of jobs submitted through the asynchronous API.
+ * <p>
+ * Finished jobs are kept for {@code tasks.retention-ms} so that clients
+ * can poll their result, and at most {@code tasks.max-retained} jobs are
+ * held at once; the oldest finished jobs are evicted first. Running jobs
+ * are never evicted, so submission is refused once the registry is full
+ * of them.
+ */
+@Component
+public class TaskRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        TaskRegistry.class
+    );
+
+    // Insertion order is submission order, which eviction relies on
+    private final Map<String, TaskRecord> tasks = new LinkedHashMap<>();
+
+    @Value("${tasks.max-retained:1000}")
+    private int maxRetained;
+
+    @Value("${tasks.retention-ms:600000}")
+    private long retentionMs;
+
+    /**
+     * Register a new running job
+     *
+     * @throws IllegalStateException if a job with the same id is still
+     *         running or the registry is full of running jobs
+     */
+    public TaskRecord submit(String taskId, String kind) {
+        synchronized (tasks) {
+            TaskRecord existing = tasks.get(taskId);
+            if (existing != null && !existing.isFinished()) {
+                throw new IllegalStateException(
+                    "Task " + taskId + " is already running"
+                );
+            }
+            tasks.remove(taskId);
+            evict(1);
+            if (tasks.size() >= maxRetained) {
+                throw new IllegalStateException(
+                    "Too many running tasks (" + tasks.size() + ")"
+                );
+            }
+
+            TaskRecord task = new TaskRecord(taskId, kind);
+            tasks.put(taskId, task);
+            logger.debug("Registered {} task {}", kind, taskId);
+            return task;
+        }
+    }
+
+    public Optional<TaskRecord> get(String taskId) {
+        synchronized (tasks) {
+            evict(0);
+            return Optional.ofNullable(tasks.get(taskId));
+        }
+    }
+
+    /**
+     * Drop finished jobs past their retention, and the oldest finished jobs
+     * until {@code room} more fit. Must hold the lock.
+     */
+    private void evict(int room) {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        int excess = tasks.size() + room - maxRetained;
+        Iterator<TaskRecord> it = tasks.values().iterator();
+        while (it.hasNext()) {
+            TaskRecord task = it.next();
+            if (!task.isFinished()) {
+                continue;
+            }
+            if (excess > 0 || task.getFinishedAt() < cutoff) {
+                it.remove();
+                excess--;
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.mlhybrid.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends finished spans to a file, one JSON object per line, with the
+ * field names of OTLP/JSON spans. Stands in for an OTLP collector: the
+ * file can be grepped by trace id or loaded into any trace viewer that
+ * reads OTLP spans.
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        FileSpanExporter.class
+    );
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BufferedWriter writer;
+
+    public FileSpanExporter(Path path) throws IOException {
+        this.writer = Files.newBufferedWriter(
+            path,
+            StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND
+        );
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(
+        Collection<SpanData> spans
+    ) {
+        try {
+            for (SpanData span : spans) {
+                writer.write(objectMapper.writeValueAsString(toJson(span)));
+                writer.newLine();
+            }
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            logger.warn("Failed to export {} spans: {}", spans.size(), e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            writer.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    private static Map<String, Object> toJson(SpanData span) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("traceId", span.getTraceId());
+        json.put("spanId", span.getSpanId());
+        if (span.getParentSpanContext().isValid()) {
+            json.put("parentSpanId", span.getParentSpanId());
+        }
+        json.put("name", span.getName());
+        json.put("kind", span.getKind().name());
+        json.put("startTimeUnixNano", span.getStartEpochNanos());
+        json.put("endTimeUnixNano", span.getEndEpochNanos());
+
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        span
+            .getAttributes()
+            .forEach((AttributeKey<?> key, Object value) ->
+                attributes.put(key.getKey(), value)
+            );
+        json.put("attributes", attributes);
+        if (!span.getLinks().isEmpty()) {
+            List<Map<String, Object>> links = new ArrayList<>();
+            for (LinkData link : span.getLinks()) {
+                links.add(
+                    Map.of(
+                        "traceId",
+                        link.getSpanContext().getTraceId(),
+                        "spanId",
+                        link.getSpanContext().getSpanId()
+                    )
+                );
+            }
+            json.put("links", links);
+        }
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("code", span.getStatus().getStatusCode().name());
+        if (!span.getStatus().getDescription().isEmpty()) {
+            status.put("message", span.getStatus().getDescription());
+        }
+        json.put("status", status);
+        json.put(
+            "resource",
+            Map.of(
+                "service.name",
+                String.valueOf(
+                    span
+                        .getResource()
+                        .getAttribute(AttributeKey.stringKey("service.name"))
+                )
+            )
+        );
+        return json;
+    }
+}
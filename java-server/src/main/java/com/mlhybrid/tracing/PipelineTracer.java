@@ -0,0 +1,125 @@
+package com.mlhybrid.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spans for the stages of a request, children of the span that is current
+ * on the calling thread. Every stage span carries the task id, so a trace
+ * can be found from the {@code taskId} in logs and WebSocket events, and
+ * vice versa through the {@code traceId} those events carry.
+ */
+@Component
+public class PipelineTracer {
+
+    public static final AttributeKey<String> TASK_ID = AttributeKey.stringKey(
+        "task.id"
+    );
+    public static final AttributeKey<String> OPERATION =
+        AttributeKey.stringKey("matrix.operation");
+    public static final AttributeKey<Long> ELEMENTS = AttributeKey.longKey(
+        "matrix.elements"
+    );
+
+    private final Tracer tracer;
+
+    @Autowired
+    public PipelineTracer(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Start a stage span; the caller ends it with {@link #end(Span, Throwable)}
+     */
+    public Span start(String name, String taskId) {
+        return tracer
+            .spanBuilder(name)
+            .setAttribute(TASK_ID, String.valueOf(taskId))
+            .startSpan();
+    }
+
+    /**
+     * Start a span for work shared by several requests, such as a batched
+     * call, in a trace of its own that links to the span current for each
+     * of them; it carries all their task ids, comma-separated
+     */
+    public Span startShared(
+        String name,
+        List<String> taskIds,
+        List<Context> contexts
+    ) {
+        SpanBuilder builder = tracer
+            .spanBuilder(name)
+            .setNoParent()
+            .setAttribute(TASK_ID, String.join(",", taskIds));
+        for (Context context : contexts) {
+            Span span = Span.fromContext(context);
+            if (span.getSpanContext().isValid()) {
+                builder.addLink(span.getSpanContext());
+            }
+        }
+        return builder.startSpan();
+    }
+
+    /**
+     * Run asynchronous work under a stage span that ends when the returned
+     * future completes. Calls started by {@code work} on this thread are
+     * children of the span.
+     */
+    public <T> CompletableFuture<T> traced(
+        String name,
+        String taskId,
+        Supplier<CompletableFuture<T>> work
+    ) {
+        Span span = start(name, taskId);
+        CompletableFuture<T> result;
+        try (Scope ignored = span.makeCurrent()) {
+            result = work.get();
+        } catch (RuntimeException e) {
+            end(span, e);
+            throw e;
+        }
+        result.whenComplete((value, error) -> end(span, error));
+        return result;
+    }
+
+    /**
+     * Tag the span of the current HTTP request with its task
+     */
+    public void tagRequest(String taskId, String operation, long elements) {
+        Span span = Span.current();
+        span.setAttribute(TASK_ID, String.valueOf(taskId));
+        if (operation != null) {
+            span.setAttribute(OPERATION, operation);
+        }
+        span.setAttribute(ELEMENTS, elements);
+    }
+
+    public static void end(Span span, Throwable error) {
+        if (error != null) {
+            span.recordException(error);
+            span.setStatus(StatusCode.ERROR, String.valueOf(error.getMessage()));
+        }
+        span.end();
+    }
+
+    /**
+     * Trace id of the current span, or {@code null} outside of a trace
+     */
+    public static String currentTraceId() {
+        Span span = Span.current();
+        return span.getSpanContext().isValid()
+            ? span.getSpanContext().getTraceId()
+            : null;
+    }
+}
@@ -0,0 +1,105 @@
+package com.mlhybrid.tracing;
+
+import com.mlhybrid.grpc.MLGrpc;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opens a client span for every call to the Rust servers and sends its
+ * context in the W3C {@code traceparent} metadata entry, so that server
+ * logs can be joined with the Java trace. The span is a child of the
+ * span current when the call is started; health checks are not traced.
+ */
+@Component
+public class TracingClientInterceptor implements ClientInterceptor {
+
+    /** Task id to record on the span, set with {@code stub.withOption} */
+    public static final CallOptions.Key<String> TASK_ID =
+        CallOptions.Key.create("mlhybrid.taskId");
+
+    private static final TextMapSetter<Metadata> SETTER = (metadata, key, value) ->
+        metadata.put(Metadata.Key.of(key, Metadata.ASCII_STRING_MARSHALLER), value);
+
+    private final Tracer tracer;
+    private final TextMapPropagator propagator;
+
+    @Autowired
+    public TracingClientInterceptor(
+        Tracer tracer,
+        OpenTelemetry openTelemetry
+    ) {
+        this.tracer = tracer;
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+        MethodDescriptor<ReqT, RespT> method,
+        CallOptions callOptions,
+        Channel next
+    ) {
+        if (method.equals(MLGrpc.getStatusMethod())) {
+            return next.newCall(method, callOptions);
+        }
+
+        Span span = tracer
+            .spanBuilder(method.getFullMethodName())
+            .setSpanKind(SpanKind.CLIENT)
+            .setAttribute("rpc.system", "grpc")
+            .setAttribute("rpc.service", method.getServiceName())
+            .setAttribute("rpc.method", method.getBareMethodName())
+            .setAttribute("net.peer.name", next.authority())
+            .startSpan();
+        String taskId = callOptions.getOption(TASK_ID);
+        if (taskId != null) {
+            span.setAttribute(PipelineTracer.TASK_ID, taskId);
+        }
+        Context context = Context.current().with(span);
+
+        return new SimpleForwardingClientCall<ReqT, RespT>(
+            next.newCall(method, callOptions)
+        ) {
+            @Override
+            public void start(Listener<RespT> listener, Metadata headers) {
+                propagator.inject(context, headers, SETTER);
+                super.start(
+                    new SimpleForwardingClientCallListener<RespT>(listener) {
+                        @Override
+                        public void onClose(Status status, Metadata trailers) {
+                            span.setAttribute(
+                                "rpc.grpc.status_code",
+                                status.getCode().value()
+                            );
+                            if (!status.isOk()) {
+                                span.setStatus(
+                                    StatusCode.ERROR,
+                                    status.getCode().name()
+                                );
+                            }
+                            span.end();
+                            super.onClose(status, trailers);
+                        }
+                    },
+                    headers
+                );
+            }
+        };
+    }
+}
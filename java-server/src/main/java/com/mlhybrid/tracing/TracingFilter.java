@@ -0,0 +1,137 @@
+package com.mlhybrid.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import java.io.IOException;
+import java.util.Collections;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Opens a server span for each {@code /api} request, continuing the trace
+ * of an incoming {@code traceparent} header if there is one. The span
+ * stays open until an asynchronous response is written, and its trace id
+ * is returned in the {@code X-Trace-Id} header.
+ */
+@Component
+public class TracingFilter extends OncePerRequestFilter {
+
+    private static final TextMapGetter<HttpServletRequest> GETTER =
+        new TextMapGetter<HttpServletRequest>() {
+            @Override
+            public Iterable<String> keys(HttpServletRequest request) {
+                return Collections.list(request.getHeaderNames());
+            }
+
+            @Override
+            public String get(HttpServletRequest request, String key) {
+                return request == null ? null : request.getHeader(key);
+            }
+        };
+
+    private final Tracer tracer;
+    private final TextMapPropagator propagator;
+
+    @Autowired
+    public TracingFilter(Tracer tracer, OpenTelemetry openTelemetry) {
+        this.tracer = tracer;
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        FilterChain chain
+    ) throws ServletException, IOException {
+        Context parent = propagator.extract(Context.root(), request, GETTER);
+        Span span = tracer
+            .spanBuilder(request.getMethod() + " " + request.getRequestURI())
+            .setParent(parent)
+            .setSpanKind(SpanKind.SERVER)
+            .setAttribute("http.method", request.getMethod())
+            .setAttribute("http.target", request.getRequestURI())
+            .startSpan();
+        if (span.getSpanContext().isValid()) {
+            response.setHeader("X-Trace-Id", span.getSpanContext().getTraceId());
+        }
+
+        try (Scope ignored = span.makeCurrent()) {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR, String.valueOf(e.getMessage()));
+            throw e;
+        } finally {
+            // Name by route rather than URI to keep span names bounded
+            Object route = request.getAttribute(
+                HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE
+            );
+            if (route != null) {
+                span.updateName(request.getMethod() + " " + route);
+            }
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new EndSpan(span, response));
+            } else {
+                end(span, response.getStatus());
+            }
+        }
+    }
+
+    private static void end(Span span, int status) {
+        span.setAttribute("http.status_code", status);
+        if (status >= 500) {
+            span.setStatus(StatusCode.ERROR);
+        }
+        span.end();
+    }
+
+    private static class EndSpan implements AsyncListener {
+
+        private final Span span;
+        private final HttpServletResponse response;
+
+        EndSpan(Span span, HttpServletResponse response) {
+            this.span = span;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            end(span, response.getStatus());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            span.setStatus(StatusCode.ERROR, "Async request timed out");
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            span.recordException(event.getThrowable());
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {}
+    }
+}
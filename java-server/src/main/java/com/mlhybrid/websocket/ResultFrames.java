@@ -0,0 +1,76 @@
+package com.mlhybrid.websocket;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoder for binary WebSocket result frames.
+ * <p>
+ * A result is split into frames of at most {@code chunkElements} values.
+ * Each frame is little-endian:
+ * <pre>
+ *  0  uint8   frame type, 1 = result chunk
+ *  1  uint8   element type, 1 = float32
+ *  2  uint16  task id length n (UTF-8 bytes)
+ *  4  int32   rows
+ *  8  int32   cols
+ * 12  int32   offset of the first element in this frame
+ * 16  int32   number of elements in this frame
+ * 20  n       task id, zero-padded to a multiple of 4 bytes
+ *     ...     elements
+ * </pre>
+ * The padding keeps the elements 4-byte aligned so clients can view them
+ * directly as a {@code Float32Array}.
+ */
+final class ResultFrames {
+
+    static final byte FRAME_RESULT_CHUNK = 1;
+    static final byte ELEMENT_FLOAT32 = 1;
+    static final int HEADER_BYTES = 20;
+
+    private ResultFrames() {}
+
+    static List<byte[]> encode(
+        String taskId,
+        int rows,
+        int cols,
+        float[] data,
+        int chunkElements
+    ) {
+        byte[] id = taskId != null
+            ? taskId.getBytes(StandardCharsets.UTF_8)
+            : new byte[0];
+        if (id.length > 0xFFFF) {
+            throw new IllegalArgumentException("Task id too long");
+        }
+        int prefix = HEADER_BYTES + ((id.length + 3) & ~3);
+        int chunk = Math.max(1, chunkElements);
+
+        List<byte[]> frames = new ArrayList<>(
+            Math.max(1, (data.length + chunk - 1) / chunk)
+        );
+        int offset = 0;
+        do {
+            int count = Math.min(chunk, data.length - offset);
+            ByteBuffer frame = ByteBuffer.allocate(prefix + count * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            frame
+                .put(FRAME_RESULT_CHUNK)
+                .put(ELEMENT_FLOAT32)
+                .putShort((short) id.length)
+                .putInt(rows)
+                .putInt(cols)
+                .putInt(offset)
+                .putInt(count)
+                .put(id);
+            frame.position(prefix);
+            frame.asFloatBuffer().put(data, offset, count);
+            frames.add(frame.array());
+            offset += count;
+        } while (offset < data.length);
+        return frames;
+    }
+}
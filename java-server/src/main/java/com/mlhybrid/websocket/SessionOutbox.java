@@ -0,0 +1,191 @@
+package com.mlhybrid.websocket;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Bounded outbound queue for one WebSocket session, drained by a shared
+ * executor so that a slow client only ever delays its own messages.
+ * <p>
+ * When the queue is full, a queued message with the same coalesce key as
+ * the new one (e.g. an older update for the same task) is replaced;
+ * otherwise the oldest queued message is dropped. A binary result is
+ * queued as one unit of its header and frames, so it is delivered or
+ * dropped whole; a dropped result is replaced by its drop notice, which
+ * goes out ahead of the rest of the queue.
+ */
+class SessionOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        SessionOutbox.class
+    );
+
+    private final WebSocketSession session;
+    private final Executor executor;
+    private final int capacity;
+    private final ArrayDeque<Outbound> queue = new ArrayDeque<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private boolean draining;
+    private volatile boolean binaryResults;
+
+    SessionOutbox(WebSocketSession session, Executor executor, int capacity) {
+        this.session = session;
+        this.executor = executor;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * Whether the client asked for results as binary frames
+     */
+    boolean isBinaryResults() {
+        return binaryResults;
+    }
+
+    void setBinaryResults(boolean binaryResults) {
+        this.binaryResults = binaryResults;
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Queue a message without blocking and schedule a drain if none is
+     * running
+     */
+    void offer(WebSocketMessage<?> message, String coalesceKey) {
+        enqueue(new Outbound(List.of(message), coalesceKey, null, false));
+    }
+
+    /**
+     * Queue messages that are sent back to back and dropped together.
+     * If they are dropped for lack of room, {@code dropNotice} is sent in
+     * their place.
+     */
+    void offerUnit(
+        List<WebSocketMessage<?>> messages,
+        String coalesceKey,
+        WebSocketMessage<?> dropNotice
+    ) {
+        enqueue(new Outbound(messages, coalesceKey, dropNotice, false));
+    }
+
+    private void enqueue(Outbound outbound) {
+        boolean schedule;
+        synchronized (queue) {
+            while (queue.size() >= capacity) {
+                evictFor(outbound.coalesceKey);
+            }
+            queue.addLast(outbound);
+            schedule = !draining;
+            draining = true;
+        }
+        if (schedule) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Drop one queued entry: one with the same coalesce key, else the
+     * oldest one that is not a drop notice. A dropped unit leaves its
+     * notice at the head of the queue, so this may have to run again.
+     */
+    private void evictFor(String coalesceKey) {
+        if (coalesceKey != null) {
+            Iterator<Outbound> it = queue.iterator();
+            while (it.hasNext()) {
+                Outbound queued = it.next();
+                if (!queued.notice && coalesceKey.equals(queued.coalesceKey)) {
+                    it.remove();
+                    dropped.incrementAndGet();
+                    return;
+                }
+            }
+        }
+
+        Outbound victim = null;
+        for (Outbound queued : queue) {
+            if (!queued.notice) {
+                victim = queued;
+                break;
+            }
+        }
+        if (victim == null) {
+            victim = queue.peekFirst();
+        }
+        queue.removeFirstOccurrence(victim);
+        if (victim.dropNotice != null) {
+            queue.addFirst(
+                new Outbound(List.of(victim.dropNotice), null, null, true)
+            );
+        }
+        long count = dropped.incrementAndGet();
+        logger.debug(
+            "Outbound queue full for session {}, dropped {} message(s) so far",
+            session.getId(),
+            count
+        );
+    }
+
+    private void drain() {
+        while (true) {
+            Outbound next;
+            synchronized (queue) {
+                next = queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+            }
+
+            for (WebSocketMessage<?> message : next.messages) {
+                if (!session.isOpen()) {
+                    break;
+                }
+                try {
+                    session.sendMessage(message);
+                } catch (IOException | RuntimeException e) {
+                    logger.error(
+                        "Error sending message to session {}: {}",
+                        session.getId(),
+                        e.getMessage(),
+                        e
+                    );
+                    break;
+                }
+            }
+        }
+    }
+
+    private static class Outbound {
+
+        private final List<WebSocketMessage<?>> messages;
+        private final String coalesceKey;
+        private final WebSocketMessage<?> dropNotice;
+        private final boolean notice;
+
+        Outbound(
+            List<WebSocketMessage<?>> messages,
+            String coalesceKey,
+            WebSocketMessage<?> dropNotice,
+            boolean notice
+        ) {
+            this.messages = List.copyOf(messages);
+            this.coalesceKey = coalesceKey;
+            this.dropNotice = dropNotice;
+            this.notice = notice;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.mlhybrid.websocket;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of WebSocket topic subscriptions: topic to subscribed outboxes,
+ * plus the reverse mapping used to clean up when a session closes.
+ * Resolving the recipients of an update costs O(subscribers) rather than
+ * O(all sessions).
+ */
+class SubscriptionRegistry {
+
+    /** Topic every session starts on; receives all updates */
+    static final String ALL = "all";
+
+    private final Map<String, Set<SessionOutbox>> subscribers =
+        new ConcurrentHashMap<>();
+    private final Map<SessionOutbox, Set<String>> topicsBySession =
+        new ConcurrentHashMap<>();
+
+    void subscribe(SessionOutbox outbox, String topic) {
+        subscribers
+            .computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet())
+            .add(outbox);
+        topicsBySession
+            .computeIfAbsent(outbox, o -> ConcurrentHashMap.newKeySet())
+            .add(topic);
+    }
+
+    void unsubscribe(SessionOutbox outbox, String topic) {
+        subscribers.computeIfPresent(
+            topic,
+            (t, outboxes) -> {
+                outboxes.remove(outbox);
+                return outboxes.isEmpty() ? null : outboxes;
+            }
+        );
+        Set<String> topics = topicsBySession.get(outbox);
+        if (topics != null) {
+            topics.remove(topic);
+        }
+    }
+
+    /**
+     * Drop every subscription of a closed session
+     */
+    void remove(SessionOutbox outbox) {
+        Set<String> topics = topicsBySession.remove(outbox);
+        if (topics != null) {
+            for (String topic : topics) {
+                unsubscribe(outbox, topic);
+            }
+        }
+    }
+
+    Set<String> topicsOf(SessionOutbox outbox) {
+        Set<String> topics = topicsBySession.get(outbox);
+        return topics != null ? topics : Collections.emptySet();
+    }
+
+    /**
+     * Outboxes subscribed to any of the topics or to {@link #ALL}, each
+     * listed once
+     */
+    Collection<SessionOutbox> recipients(Collection<String> topics) {
+        Set<SessionOutbox> all = subscribers.getOrDefault(
+            ALL,
+            Collections.emptySet()
+        );
+        Set<SessionOutbox> result = new LinkedHashSet<>(all);
+        for (String topic : topics) {
+            Set<SessionOutbox> outboxes = subscribers.get(topic);
+            if (outboxes != null) {
+                result.addAll(outboxes);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,313 @@
+package com.mlhybrid.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mlhybrid.config.VirtualThreads;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Broadcast engine for WebSocket updates.
+ * <p>
+ * Each message is serialized once and handed to a bounded
+ * {@link SessionOutbox} per session; the outboxes are drained on a small
+ * dedicated thread pool, so broadcasting never blocks the caller on
+ * socket I/O; with {@code threads.virtual.enabled}, each drain runs on a
+ * virtual thread instead. Topic-scoped updates only reach sessions subscribed to one
+ * of their topics (or to {@code all}, where every session starts).
+ * Sessions that opted into binary results receive result data as
+ * {@link ResultFrames} instead of inline JSON, which a slow session gets
+ * whole or not at all, see {@link SessionOutbox}.
+ */
+@Component
+public class WebSocketBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        WebSocketBroadcaster.class
+    );
+
+    private final Map<String, SessionOutbox> outboxes =
+        new ConcurrentHashMap<>();
+    private final SubscriptionRegistry subscriptions =
+        new SubscriptionRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor;
+    private final int queueCapacity;
+    private final int binaryChunkElements;
+
+    public WebSocketBroadcaster(
+        @Value("${websocket.outbound.queue-capacity:256}") int queueCapacity,
+        @Value("${websocket.outbound.threads:4}") int threads,
+        @Value(
+            "${websocket.binary.chunk-elements:65536}"
+        ) int binaryChunkElements,
+        @Value("${threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        this.queueCapacity = queueCapacity;
+        this.binaryChunkElements = binaryChunkElements;
+        if (virtualThreads && VirtualThreads.isAvailable()) {
+            this.executor = VirtualThreads.newThreadPerTaskExecutor(
+                "ws-broadcast-"
+            );
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+                Thread thread = new Thread(
+                    r,
+                    "ws-broadcast-" + counter.incrementAndGet()
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public void register(WebSocketSession session) {
+        SessionOutbox outbox = new SessionOutbox(
+            session,
+            executor,
+            queueCapacity
+        );
+        outboxes.put(session.getId(), outbox);
+        subscriptions.subscribe(outbox, SubscriptionRegistry.ALL);
+    }
+
+    public void unregister(WebSocketSession session) {
+        SessionOutbox outbox = outboxes.remove(session.getId());
+        if (outbox == null) {
+            return;
+        }
+        subscriptions.remove(outbox);
+        if (outbox.getDroppedCount() > 0) {
+            logger.info(
+                "Session {} closed after {} dropped message(s)",
+                session.getId(),
+                outbox.getDroppedCount()
+            );
+        }
+    }
+
+    public int getSessionCount() {
+        return outboxes.size();
+    }
+
+    /**
+     * Subscribe a session to a topic. The first specific subscription
+     * takes the session off the {@code all} topic.
+     *
+     * @return the session's topics after the change
+     */
+    public Set<String> subscribe(WebSocketSession session, String topic) {
+        SessionOutbox outbox = outboxes.get(session.getId());
+        if (outbox == null) {
+            return Collections.emptySet();
+        }
+        if (!SubscriptionRegistry.ALL.equals(topic)) {
+            subscriptions.unsubscribe(outbox, SubscriptionRegistry.ALL);
+        }
+        subscriptions.subscribe(outbox, topic);
+        return subscriptions.topicsOf(outbox);
+    }
+
+    /**
+     * @return the session's topics after the change
+     */
+    public Set<String> unsubscribe(WebSocketSession session, String topic) {
+        SessionOutbox outbox = outboxes.get(session.getId());
+        if (outbox == null) {
+            return Collections.emptySet();
+        }
+        subscriptions.unsubscribe(outbox, topic);
+        return subscriptions.topicsOf(outbox);
+    }
+
+    /**
+     * Switch a session between inline JSON and binary result frames
+     */
+    public void setBinaryResults(WebSocketSession session, boolean enabled) {
+        SessionOutbox outbox = outboxes.get(session.getId());
+        if (outbox != null) {
+            outbox.setBinaryResults(enabled);
+        }
+    }
+
+    /**
+     * Queue a message for a single session
+     */
+    public void send(WebSocketSession session, WebSocketMessage<?> message) {
+        SessionOutbox outbox = outboxes.get(session.getId());
+        if (outbox != null) {
+            outbox.offer(message, null);
+        }
+    }
+
+    /**
+     * Queue a message for every connected session
+     *
+     * @param coalesceKey key under which a newer message may replace an
+     *        older queued one for slow clients, or {@code null}
+     */
+    public void broadcast(WebSocketMessage<?> message, String coalesceKey) {
+        broadcast(outboxes.values(), message, coalesceKey);
+    }
+
+    /**
+     * Serialize a payload once and queue it for every connected session
+     */
+    public void broadcastJson(Object payload, String coalesceKey) {
+        try {
+            String json = objectMapper.writeValueAsString(payload);
+            logger.debug(
+                "Broadcasting {} bytes to {} clients",
+                json.length(),
+                outboxes.size()
+            );
+            broadcast(new TextMessage(json), coalesceKey);
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing message: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Serialize a payload once and queue it for the subscribers of any of
+     * the given topics
+     */
+    public void publishJson(
+        Collection<String> topics,
+        Object payload,
+        String coalesceKey
+    ) {
+        Collection<SessionOutbox> recipients = subscriptions.recipients(topics);
+        if (recipients.isEmpty()) {
+            return;
+        }
+        try {
+            String json = objectMapper.writeValueAsString(payload);
+            logger.debug(
+                "Publishing {} bytes on {} to {} clients",
+                json.length(),
+                topics,
+                recipients.size()
+            );
+            broadcast(recipients, new TextMessage(json), coalesceKey);
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing message: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Publish a result to the subscribers of any of the given topics. JSON
+     * clients receive {@code jsonPayload}; binary clients receive
+     * {@code binaryPayload} followed by the result frames. Each payload and
+     * the frames are encoded at most once.
+     */
+    public void publishResult(
+        Collection<String> topics,
+        Object jsonPayload,
+        Object binaryPayload,
+        String taskId,
+        int rows,
+        int cols,
+        float[] data
+    ) {
+        Collection<SessionOutbox> recipients = subscriptions.recipients(topics);
+        List<SessionOutbox> jsonClients = new ArrayList<>(recipients.size());
+        List<SessionOutbox> binaryClients = new ArrayList<>();
+        for (SessionOutbox outbox : recipients) {
+            if (outbox.isBinaryResults()) {
+                binaryClients.add(outbox);
+            } else {
+                jsonClients.add(outbox);
+            }
+        }
+
+        try {
+            if (!jsonClients.isEmpty()) {
+                String json = objectMapper.writeValueAsString(jsonPayload);
+                broadcast(jsonClients, new TextMessage(json), taskId);
+            }
+            if (!binaryClients.isEmpty()) {
+                String json = objectMapper.writeValueAsString(binaryPayload);
+                List<byte[]> frames = ResultFrames.encode(
+                    taskId,
+                    rows,
+                    cols,
+                    data,
+                    binaryChunkElements
+                );
+                logger.debug(
+                    "Publishing {} result frame(s) for {} to {} binary clients",
+                    frames.size(),
+                    taskId,
+                    binaryClients.size()
+                );
+                // Header and frames are one unit; frames share their bytes
+                List<WebSocketMessage<?>> unit = new ArrayList<>(
+                    frames.size() + 1
+                );
+                unit.add(new TextMessage(json));
+                for (byte[] frame : frames) {
+                    unit.add(new BinaryMessage(frame));
+                }
+                TextMessage dropNotice = new TextMessage(
+                    objectMapper.writeValueAsString(
+                        Map.of(
+                            "type",
+                            "result_dropped",
+                            "taskId",
+                            String.valueOf(taskId),
+                            "error",
+                            "Result dropped: outbound queue full"
+                        )
+                    )
+                );
+                for (SessionOutbox outbox : binaryClients) {
+                    outbox.offerUnit(unit, taskId, dropNotice);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing message: {}", e.getMessage(), e);
+        }
+    }
+
+    private void broadcast(
+        Collection<SessionOutbox> targets,
+        WebSocketMessage<?> message,
+        String coalesceKey
+    ) {
+        for (SessionOutbox outbox : targets) {
+            outbox.offer(message, coalesceKey);
+        }
+    }
+}
@@ -1,41 +1,57 @@
 package com.mlhybrid.websocket;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.IOException;
+import com.mlhybrid.metrics.PipelineMetrics;
+import com.mlhybrid.model.Matrix;
+import com.mlhybrid.tracing.PipelineTracer;
+import io.opentelemetry.api.trace.Span;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 @Component
-public class WebSocketHandler extends TextWebSocketHandler {
+public class WebSocketHandler extends AbstractWebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(
         WebSocketHandler.class
     );
 
-    private final List<WebSocketSession> sessions =
-        new CopyOnWriteArrayList<>();
+    private final WebSocketBroadcaster broadcaster;
+    private final PipelineMetrics metrics;
+    private final PipelineTracer tracer;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @Autowired
+    public WebSocketHandler(
+        WebSocketBroadcaster broadcaster,
+        PipelineMetrics metrics,
+        PipelineTracer tracer
+    ) {
+        this.broadcaster = broadcaster;
+        this.metrics = metrics;
+        this.tracer = tracer;
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         logger.info("WebSocket connection established: {}", session.getId());
-        sessions.add(session);
-        try {
-            session.sendMessage(
-                new TextMessage("Connected to ML Hybrid System WebSocket")
-            );
-        } catch (IOException e) {
-            logger.error("Error sending welcome message", e);
-        }
+        broadcaster.register(session);
+        broadcaster.send(
+            session,
+            new TextMessage("Connected to ML Hybrid System WebSocket")
+        );
     }
 
     @Override
@@ -48,7 +64,7 @@ public class WebSocketHandler extends TextWebSocketHandler {
             session.getId(),
             status
         );
-        sessions.remove(session);
+        broadcaster.unregister(session);
     }
 
     @Override
@@ -63,112 +79,300 @@ public class WebSocketHandler extends TextWebSocketHandler {
         );
     }
 
+    /**
+     * Handle control messages from clients, e.g.
+     * {@code {"action":"subscribe","taskId":"t1"}},
+     * {@code {"action":"unsubscribe","topic":"operation:inverse"}} or
+     * {@code {"action":"format","format":"binary"}}.
+     * Sessions receive every update, with results as JSON, until they
+     * subscribe or switch format.
+     */
     @Override
     protected void handleTextMessage(
         WebSocketSession session,
         TextMessage message
     ) {
-        // Handle incoming messages if needed
         logger.info(
             "Received message from client {}: {}",
             session.getId(),
             message.getPayload()
         );
+
+        JsonNode request;
+        try {
+            request = objectMapper.readTree(message.getPayload());
+        } catch (JsonProcessingException e) {
+            // Not a control message
+            return;
+        }
+
+        String action = request.path("action").asText("");
+        if ("format".equals(action)) {
+            boolean binary = "binary".equals(request.path("format").asText());
+            broadcaster.setBinaryResults(session, binary);
+            reply(
+                session,
+                Map.of("type", "format", "format", binary ? "binary" : "json")
+            );
+            return;
+        }
+
+        String topic = topicOf(request);
+        if (topic == null) {
+            if (!action.isEmpty()) {
+                reply(session, Map.of("type", "error", "error", "Missing topic"));
+            }
+            return;
+        }
+
+        Set<String> topics;
+        switch (action) {
+            case "subscribe":
+                topics = broadcaster.subscribe(session, topic);
+                break;
+            case "unsubscribe":
+                topics = broadcaster.unsubscribe(session, topic);
+                break;
+            default:
+                reply(
+                    session,
+                    Map.of("type", "error", "error", "Unknown action: " + action)
+                );
+                return;
+        }
+        reply(session, Map.of("type", "subscriptions", "topics", topics));
+    }
+
+    private static String topicOf(JsonNode request) {
+        if (request.hasNonNull("topic")) {
+            return request.get("topic").asText();
+        }
+        if (request.hasNonNull("taskId")) {
+            return taskTopic(request.get("taskId").asText());
+        }
+        if (request.hasNonNull("taskType")) {
+            return taskTypeTopic(request.get("taskType").asText());
+        }
+        if (request.hasNonNull("operation")) {
+            return operationTopic(request.get("operation").asText());
+        }
+        return null;
+    }
+
+    private void reply(WebSocketSession session, Map<String, Object> payload) {
+        try {
+            broadcaster.send(
+                session,
+                new TextMessage(objectMapper.writeValueAsString(payload))
+            );
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing reply: {}", e.getMessage(), e);
+        }
+    }
+
+    public static String taskTopic(String taskId) {
+        return "task:" + taskId;
+    }
+
+    public static String taskTypeTopic(String taskType) {
+        return "type:" + taskType;
+    }
+
+    public static String operationTopic(String operation) {
+        return "operation:" + operation;
     }
 
     // Send a simple text update to all connected clients
     public void sendUpdate(String message) {
         logger.info(
             "Broadcasting message to {} clients: {}",
-            sessions.size(),
+            broadcaster.getSessionCount(),
             message
         );
-        TextMessage textMessage = new TextMessage(message);
-
-        for (WebSocketSession session : sessions) {
-            try {
-                if (session.isOpen()) {
-                    session.sendMessage(textMessage);
-                }
-            } catch (IOException e) {
-                logger.error(
-                    "Error sending message to session {}: {}",
-                    session.getId(),
-                    e.getMessage(),
-                    e
-                );
-            }
-        }
+        broadcaster.broadcast(new TextMessage(message), null);
     }
 
-    // Send a structured task update to all connected clients
+    // Send a structured task update to the task's subscribers
     public void sendTaskUpdate(String taskId, String status, Object data) {
-        Map<String, Object> update = Map.of(
-            "taskId",
-            taskId,
-            "status",
-            status,
-            "data",
-            data,
-            "timestamp",
-            System.currentTimeMillis()
+        sendTaskUpdate(taskId, null, status, data);
+    }
+
+    // Send a structured task update to subscribers of the task or its type
+    public void sendTaskUpdate(
+        String taskId,
+        String taskType,
+        String status,
+        Object data
+    ) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("taskId", taskId);
+        update.put("status", status);
+        update.put("data", data);
+        update.put("timestamp", System.currentTimeMillis());
+        if (taskType != null) {
+            update.put("taskType", taskType);
+        }
+        addTraceId(update);
+
+        logger.info("Broadcasting task update: {} {}", taskId, status);
+        long start = System.nanoTime();
+        broadcaster.publishJson(topicsOf(update), update, taskId);
+        metrics.record(
+            PipelineMetrics.BROADCAST,
+            PipelineMetrics.COMPUTE,
+            0,
+            start
         );
+    }
 
-        try {
-            String json = objectMapper.writeValueAsString(update);
-            logger.info("Broadcasting task update: {}", json);
-            TextMessage message = new TextMessage(json);
-
-            for (WebSocketSession session : sessions) {
-                try {
-                    if (session.isOpen()) {
-                        session.sendMessage(message);
-                    }
-                } catch (IOException e) {
-                    logger.error(
-                        "Error sending task update to session {}: {}",
-                        session.getId(),
-                        e.getMessage(),
-                        e
-                    );
-                }
-            }
-        } catch (JsonProcessingException e) {
-            logger.error(
-                "Error serializing task update: {}",
-                e.getMessage(),
-                e
-            );
+    /**
+     * Send a completed task update with its result. JSON clients get the
+     * result inline as {@code data}; binary clients get the update without
+     * it, followed by the result frames.
+     */
+    public void sendTaskResult(
+        String taskId,
+        String taskType,
+        float[] result
+    ) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("taskId", taskId);
+        update.put("status", "completed");
+        update.put("data", result);
+        update.put("timestamp", System.currentTimeMillis());
+        if (taskType != null) {
+            update.put("taskType", taskType);
         }
+        addTraceId(update);
+
+        logger.info(
+            "Broadcasting task result: {} ({} values)",
+            taskId,
+            result.length
+        );
+        publishResult(
+            update,
+            PipelineMetrics.COMPUTE,
+            1,
+            result.length,
+            result
+        );
     }
 
     /**
-     * Broadcast a structured message to all connected WebSocket clients
+     * Publish a structured message as {@link #broadcastMessage(Map)} does;
+     * sessions that opted into binary results additionally receive the
+     * result matrix as binary frames.
+     */
+    public void broadcastResult(Map<String, Object> message, Matrix result) {
+        addTraceId(message);
+        logger.info(
+            "Broadcasting result: {} {}",
+            message.get("taskId"),
+            message.get("status")
+        );
+        publishResult(
+            message,
+            operationOf(message),
+            result.getRows(),
+            result.getCols(),
+            result.getData()
+        );
+    }
+
+    private void publishResult(
+        Map<String, Object> message,
+        String operation,
+        int rows,
+        int cols,
+        float[] data
+    ) {
+        Map<String, Object> binaryMessage = new HashMap<>(message);
+        binaryMessage.remove("data");
+        binaryMessage.put("encoding", "binary");
+        binaryMessage.put("rows", rows);
+        binaryMessage.put("cols", cols);
+        binaryMessage.put("elements", data.length);
+
+        Object taskId = message.get("taskId");
+        Span span = tracer.start("websocket.broadcast", String.valueOf(taskId));
+        span.setAttribute(PipelineTracer.ELEMENTS, (long) data.length);
+        long start = System.nanoTime();
+        broadcaster.publishResult(
+            topicsOf(message),
+            message,
+            binaryMessage,
+            taskId != null ? taskId.toString() : null,
+            rows,
+            cols,
+            data
+        );
+        span.end();
+        metrics.record(
+            PipelineMetrics.BROADCAST,
+            operation,
+            data.length,
+            start
+        );
+    }
+
+    /**
+     * Publish a structured message to the sessions subscribed to its
+     * {@code taskId}, {@code taskType} or {@code operation}. The message is
+     * serialized once and queued per session; this method does not wait
+     * for any client.
      *
      * @param message Map containing the message data to broadcast
      */
     public void broadcastMessage(Map<String, Object> message) {
-        try {
-            String json = objectMapper.writeValueAsString(message);
-            logger.info("Broadcasting message: {}", json);
-            TextMessage textMessage = new TextMessage(json);
-
-            for (WebSocketSession session : sessions) {
-                try {
-                    if (session.isOpen()) {
-                        session.sendMessage(textMessage);
-                    }
-                } catch (IOException e) {
-                    logger.error(
-                        "Error sending message to session {}: {}",
-                        session.getId(),
-                        e.getMessage(),
-                        e
-                    );
-                }
-            }
-        } catch (JsonProcessingException e) {
-            logger.error("Error serializing message: {}", e.getMessage(), e);
+        addTraceId(message);
+        Object taskId = message.get("taskId");
+        logger.info(
+            "Broadcasting message: {} {}",
+            taskId,
+            message.get("status")
+        );
+        long start = System.nanoTime();
+        broadcaster.publishJson(
+            topicsOf(message),
+            message,
+            taskId != null ? taskId.toString() : null
+        );
+        metrics.record(
+            PipelineMetrics.BROADCAST,
+            operationOf(message),
+            0,
+            start
+        );
+    }
+
+    /**
+     * Add the current trace id so that clients can look up the trace of
+     * the request behind an event
+     */
+    private static void addTraceId(Map<String, Object> message) {
+        String traceId = PipelineTracer.currentTraceId();
+        if (traceId != null) {
+            message.put("traceId", traceId);
+        }
+    }
+
+    private static String operationOf(Map<String, Object> message) {
+        Object operation = message.get("operation");
+        return operation != null ? operation.toString() : null;
+    }
+
+    private static List<String> topicsOf(Map<String, Object> message) {
+        List<String> topics = new ArrayList<>(3);
+        if (message.get("taskId") != null) {
+            topics.add(taskTopic(message.get("taskId").toString()));
+        }
+        if (message.get("taskType") != null) {
+            topics.add(taskTypeTopic(message.get("taskType").toString()));
+        }
+        if (message.get("operation") != null) {
+            topics.add(operationTopic(message.get("operation").toString()));
         }
+        return topics;
     }
 }
@@ -0,0 +1,49 @@
+package com.mlhybrid.compute;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.mlhybrid.model.Matrix;
+import org.junit.jupiter.api.Test;
+
+class LocalMatrixEngineTest {
+
+    private final LocalMatrixEngine engine = new LocalMatrixEngine();
+
+    @Test
+    void invertsTwoByTwoMatrices() {
+        Matrix inverse = engine.inverse(
+            new Matrix(2, 2, new float[] { 4, 7, 2, 6 })
+        );
+
+        assertEquals(2, inverse.getRows());
+        assertArrayEquals(
+            new float[] { 0.6f, -0.7f, -0.2f, 0.4f },
+            inverse.getData(),
+            1e-6f
+        );
+    }
+
+    @Test
+    void refusesSingularMatrices() {
+        ArithmeticException error = assertThrows(ArithmeticException.class, () ->
+            engine.inverse(new Matrix(2, 2, new float[] { 1, 2, 2, 4 }))
+        );
+
+        assertEquals(LocalMatrixEngine.SINGULAR, error.getMessage());
+    }
+
+    @Test
+    void refusesSizesTheRustServerCannotInvert() {
+        ArithmeticException error = assertThrows(ArithmeticException.class, () ->
+            engine.inverse(new Matrix(3, 3, new float[9]))
+        );
+        assertEquals(LocalMatrixEngine.INVALID_OPERATION, error.getMessage());
+
+        error = assertThrows(ArithmeticException.class, () ->
+            engine.inverse(new Matrix(2, 3, new float[6]))
+        );
+        assertEquals(LocalMatrixEngine.NON_SQUARE, error.getMessage());
+    }
+}
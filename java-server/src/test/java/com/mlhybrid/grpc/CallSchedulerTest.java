@@ -0,0 +1,231 @@
+package com.mlhybrid.grpc;
+
+import static com.mlhybrid.grpc.InProcessBackends.failure;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mlhybrid.grpc.CallScheduler.Priority;
+import com.mlhybrid.grpc.GrpcChannelPool.Strategy;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CallSchedulerTest {
+
+    private InProcessBackends servers;
+    private GrpcBackend backend;
+    private CallScheduler scheduler;
+    private final AtomicInteger started = new AtomicInteger();
+    private final List<CompletableFuture<String>> running = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servers = new InProcessBackends();
+        backend = servers.add(FakeMlService.multiplying());
+        scheduler = InProcessBackends.scheduler(
+            servers.pool(Strategy.ROUND_ROBIN)
+        );
+        ReflectionTestUtils.setField(scheduler, "initialLimit", 2);
+        ReflectionTestUtils.setField(scheduler, "minLimit", 1);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        servers.close();
+    }
+
+    @Test
+    void queuesCallsBeyondTheLimit() {
+        CompletableFuture<String> first = submit(null);
+        submit(null);
+        CompletableFuture<String> queued = submit(null);
+
+        assertEquals(2, started.get());
+        assertEquals(1, scheduler.stats().get("queuedInteractive"));
+
+        running.get(0).complete("done");
+        assertEquals("done", first.join());
+        assertEquals(3, started.get());
+        assertFalse(queued.isDone());
+    }
+
+    @Test
+    void expiresQueuedCallsWithoutStartingThem() throws Exception {
+        submit(null);
+        submit(null);
+        CompletableFuture<String> queued = submit(
+            Deadline.after(50, TimeUnit.MILLISECONDS)
+        );
+        Thread.sleep(100);
+
+        running.get(0).complete("done");
+
+        Throwable error = failure(queued);
+        assertEquals(
+            Status.Code.DEADLINE_EXCEEDED,
+            Status.fromThrowable(error).getCode()
+        );
+        assertTrue(error.getMessage().contains("scheduler queue"));
+        assertEquals(2, started.get());
+        // Waiting here says nothing about the backend
+        assertEquals(2, limit());
+        assertEquals("CLOSED", backend.getCircuitState());
+    }
+
+    @Test
+    void expiresQueuedCallsWhileNothingCompletes() throws Exception {
+        submit(null);
+        submit(null);
+        CompletableFuture<String> queued = submit(
+            Deadline.after(50, TimeUnit.MILLISECONDS)
+        );
+
+        Throwable error = failure(queued);
+        assertEquals(
+            Status.Code.DEADLINE_EXCEEDED,
+            Status.fromThrowable(error).getCode()
+        );
+        assertEquals(0, scheduler.stats().get("queuedInteractive"));
+        assertEquals(2, started.get());
+    }
+
+    @Test
+    void failsExpiredCallsRightAway() throws Exception {
+        CompletableFuture<String> call = submit(
+            Deadline.after(-1, TimeUnit.MILLISECONDS)
+        );
+
+        Throwable error = failure(call);
+        assertEquals(
+            Status.Code.DEADLINE_EXCEEDED,
+            Status.fromThrowable(error).getCode()
+        );
+        assertEquals(0, started.get());
+    }
+
+    @Test
+    void failsRightAwayWhileAllCircuitsAreOpen() throws Exception {
+        for (int i = 0; i < CircuitBreaker.DEFAULT_FAILURE_THRESHOLD; i++) {
+            backend.acquire();
+            backend.release(Status.UNAVAILABLE.asRuntimeException());
+        }
+
+        assertInstanceOf(CircuitOpenException.class, failure(submit(null)));
+        assertEquals(0, started.get());
+    }
+
+    @Test
+    void admitsASingleTrialAmongConcurrentCalls() throws Exception {
+        servers.close();
+        servers = new InProcessBackends();
+        backend = servers.add(FakeMlService.multiplying(), 1, 50);
+        scheduler = InProcessBackends.scheduler(
+            servers.pool(Strategy.ROUND_ROBIN)
+        );
+        ReflectionTestUtils.setField(scheduler, "initialLimit", 32);
+        backend.acquire();
+        backend.release(Status.UNAVAILABLE.asRuntimeException());
+        InProcessBackends.await(backend::allowsCalls);
+
+        // Calls only record their start once every thread has submitted,
+        // so admission alone has to keep all but one of them out
+        int threads = 16;
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch submitted = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<CompletableFuture<String>>> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                calls.add(
+                    executor.submit(() -> {
+                        go.await();
+                        CompletableFuture<String> call = scheduler.submit(
+                            Priority.INTERACTIVE,
+                            b -> {
+                                started.incrementAndGet();
+                                return CompletableFuture.supplyAsync(() -> {
+                                    awaitQuietly(submitted);
+                                    b.acquire();
+                                    b.release(null);
+                                    return "done";
+                                });
+                            },
+                            null,
+                            null
+                        );
+                        submitted.countDown();
+                        return call;
+                    })
+                );
+            }
+            go.countDown();
+
+            int rejected = 0;
+            for (Future<CompletableFuture<String>> call : calls) {
+                try {
+                    assertEquals("done", call.get(5, TimeUnit.SECONDS).join());
+                } catch (CompletionException e) {
+                    assertInstanceOf(CircuitOpenException.class, e.getCause());
+                    rejected++;
+                }
+            }
+            assertEquals(1, started.get());
+            assertEquals(threads - 1, rejected);
+            assertEquals("CLOSED", backend.getCircuitState());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Submit a call that runs until the test completes it
+     */
+    private CompletableFuture<String> submit(Deadline deadline) {
+        return scheduler.submit(
+            Priority.INTERACTIVE,
+            b -> {
+                started.incrementAndGet();
+                CompletableFuture<String> call = new CompletableFuture<>();
+                running.add(call);
+                return call;
+            },
+            null,
+            deadline
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private int limit() {
+        Map<String, Object> backends = (Map<String, Object>) scheduler
+            .stats()
+            .get("backends");
+        Map<String, Object> stats = (Map<String, Object>) backends.get(
+            backend.getTarget()
+        );
+        return (int) stats.get("limit");
+    }
+}
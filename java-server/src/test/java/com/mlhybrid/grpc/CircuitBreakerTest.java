@@ -0,0 +1,151 @@
+package com.mlhybrid.grpc;
+
+import static com.mlhybrid.grpc.InProcessBackends.await;
+import static com.mlhybrid.grpc.InProcessBackends.failure;
+import static com.mlhybrid.grpc.InProcessBackends.smallMultiply;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import com.mlhybrid.grpc.GrpcChannelPool.Strategy;
+import io.grpc.Status;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_MS = 200;
+
+    private InProcessBackends servers;
+    private FakeMlService service;
+    private GrpcBackend backend;
+    private GrpcClientService clientService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servers = new InProcessBackends();
+        service = FakeMlService.failing(Status.UNAVAILABLE);
+        backend = servers.add(service, 2, OPEN_MS);
+
+        ResiliencePolicy resilience = InProcessBackends.resilience();
+        // One attempt per call, so that each call is one breaker sample
+        ReflectionTestUtils.setField(resilience, "retryMaxAttempts", 1);
+        GrpcChannelPool pool = servers.pool(Strategy.ROUND_ROBIN);
+        clientService = InProcessBackends.clientService(
+            InProcessBackends.scheduler(pool),
+            resilience
+        );
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        servers.close();
+    }
+
+    @Test
+    void opensAfterConsecutiveBackendFailures() throws Exception {
+        assertUnavailable(call("first"));
+        assertEquals("CLOSED", backend.getCircuitState());
+
+        assertUnavailable(call("second"));
+        assertEquals("OPEN", backend.getCircuitState());
+
+        // Failed without reaching the backend
+        assertInstanceOf(CircuitOpenException.class, failure(call("third")));
+        assertEquals(2, service.calls.get());
+    }
+
+    @Test
+    void successfulTrialClosesTheCircuit() throws Exception {
+        open();
+        service.setHandler((request, call) ->
+            FakeMlService.completed(request, FakeMlService.product(request))
+        );
+        await(backend::allowsCalls);
+
+        assertEquals(
+            "completed",
+            call("trial").get(5, TimeUnit.SECONDS).getStatus()
+        );
+        assertEquals("CLOSED", backend.getCircuitState());
+
+        // A single failure no longer opens it
+        service.setHandler((request, call) -> {
+            throw Status.UNAVAILABLE.asRuntimeException();
+        });
+        assertUnavailable(call("after"));
+        assertEquals("CLOSED", backend.getCircuitState());
+    }
+
+    @Test
+    void failedTrialReopensTheCircuit() throws Exception {
+        open();
+        await(backend::allowsCalls);
+
+        assertUnavailable(call("trial"));
+        assertEquals("OPEN", backend.getCircuitState());
+        assertInstanceOf(CircuitOpenException.class, failure(call("next")));
+        assertEquals(3, service.calls.get());
+    }
+
+    @Test
+    void letsOneTrialThroughAtATime() throws Exception {
+        open();
+        service.setHandler((request, call) -> null);
+        await(backend::allowsCalls);
+
+        CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> trial =
+            call("trial");
+        await(() -> service.calls.get() == 3);
+        assertEquals("HALF_OPEN", backend.getCircuitState());
+        assertInstanceOf(CircuitOpenException.class, failure(call("next")));
+
+        // A cancelled trial says nothing about the backend
+        trial.cancel(true);
+        await(backend::allowsCalls);
+        assertEquals("HALF_OPEN", backend.getCircuitState());
+    }
+
+    @Test
+    void ignoresErrorsThatDoNotPointAtTheBackend() throws Exception {
+        service.setHandler((request, call) -> {
+            throw Status.INVALID_ARGUMENT.asRuntimeException();
+        });
+
+        for (int i = 0; i < 4; i++) {
+            Throwable error = failure(call("invalid-" + i));
+            assertEquals(
+                Status.Code.INVALID_ARGUMENT,
+                ((GrpcCallException) error).getCode()
+            );
+        }
+
+        assertEquals("CLOSED", backend.getCircuitState());
+        assertEquals(4, service.calls.get());
+    }
+
+    private void open() throws Exception {
+        assertUnavailable(call("first"));
+        assertUnavailable(call("second"));
+        assertEquals("OPEN", backend.getCircuitState());
+    }
+
+    private CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> call(
+        String taskId
+    ) {
+        return clientService.matrixComputeAsync(smallMultiply(taskId));
+    }
+
+    private static void assertUnavailable(CompletableFuture<?> call)
+        throws Exception {
+        Throwable error = failure(call);
+        assertInstanceOf(GrpcCallException.class, error);
+        assertEquals(
+            Status.Code.UNAVAILABLE,
+            ((GrpcCallException) error).getCode()
+        );
+    }
+}
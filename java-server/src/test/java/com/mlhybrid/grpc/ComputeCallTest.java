@@ -0,0 +1,61 @@
+package com.mlhybrid.grpc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import com.mlhybrid.grpc.GrpcChannelPool.Strategy;
+import com.mlhybrid.model.FloatArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ComputeCallTest {
+
+    private InProcessBackends servers;
+    private GrpcClientService clientService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servers = new InProcessBackends();
+        servers.add(FakeMlService.multiplying());
+        clientService = InProcessBackends.clientService(
+            InProcessBackends.scheduler(servers.pool(Strategy.ROUND_ROBIN)),
+            InProcessBackends.resilience()
+        );
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        servers.close();
+    }
+
+    @Test
+    void sendsAndReceivesPackedValues() throws Exception {
+        com.mlhybrid.model.ComputeResponse response = clientService
+            .computeAsync(
+                new FloatArrayList(new float[] { 1, 2, 3 }),
+                "packed",
+                "multiply"
+            )
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("completed", response.getStatus());
+        assertInstanceOf(FloatArrayList.class, response.getResult());
+        assertArrayEquals(
+            new float[] { 2, 4, 6 },
+            ((FloatArrayList) response.getResult()).array()
+        );
+    }
+
+    @Test
+    void packsBoxedLists() throws Exception {
+        com.mlhybrid.model.ComputeResponse response = clientService
+            .computeAsync(List.of(1f, -0.5f), "boxed", "multiply")
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2f, -1f), response.getResult());
+    }
+}
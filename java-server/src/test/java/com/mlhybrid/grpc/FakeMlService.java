@@ -0,0 +1,187 @@
+package com.mlhybrid.grpc;
+
+import com.mlhybrid.model.Matrix;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fake {@code ML} service standing in for a Rust server. Matrix calls are
+ * answered by a {@link Handler}, which may throw a status to fail the call
+ * or return {@code null} to leave it unanswered until the client cancels.
+ */
+class FakeMlService extends MLGrpc.MLImplBase {
+
+    /**
+     * Answers one {@code MatrixCompute} call
+     */
+    @FunctionalInterface
+    interface Handler {
+        /**
+         * @param call number of the call on this service, from 1
+         * @return the response, or {@code null} to never answer
+         * @throws StatusRuntimeException to fail the call
+         */
+        MatrixComputeResponse handle(MatrixComputeRequest request, int call);
+    }
+
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger cancelled = new AtomicInteger();
+    private volatile Handler handler;
+    private volatile boolean ready = true;
+
+    FakeMlService(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Service that multiplies its operands
+     */
+    static FakeMlService multiplying() {
+        return new FakeMlService((request, call) ->
+            completed(request, product(request))
+        );
+    }
+
+    /**
+     * Service that fails every call with the given status
+     */
+    static FakeMlService failing(Status status) {
+        return new FakeMlService((request, call) -> {
+            throw status.asRuntimeException();
+        });
+    }
+
+    /**
+     * Service that never answers
+     */
+    static FakeMlService hanging() {
+        return new FakeMlService((request, call) -> null);
+    }
+
+    void setHandler(Handler handler) {
+        this.handler = handler;
+    }
+
+    void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    static MatrixComputeResponse completed(
+        MatrixComputeRequest request,
+        Matrix result
+    ) {
+        return MatrixComputeResponse.newBuilder()
+            .setTaskId(request.getTaskId())
+            .setStatus("completed")
+            .setResult(result.toGrpcMatrix())
+            .setExecutionTimeMs(1)
+            .build();
+    }
+
+    static MatrixComputeResponse failed(
+        MatrixComputeRequest request,
+        String error
+    ) {
+        return MatrixComputeResponse.newBuilder()
+            .setTaskId(request.getTaskId())
+            .setStatus("failed")
+            .setErrorMessage(error)
+            .build();
+    }
+
+    /**
+     * Product of the request's operands
+     */
+    static Matrix product(MatrixComputeRequest request) {
+        Matrix a = Matrix.fromGrpcMatrix(request.getMatrixA());
+        Matrix b = Matrix.fromGrpcMatrix(request.getMatrixB());
+        return multiply(a, b);
+    }
+
+    static Matrix multiply(Matrix a, Matrix b) {
+        int n = a.getCols();
+        float[] c = new float[a.getRows() * b.getCols()];
+        for (int i = 0; i < a.getRows(); i++) {
+            for (int j = 0; j < b.getCols(); j++) {
+                float sum = 0;
+                for (int k = 0; k < n; k++) {
+                    sum +=
+                        a.getData()[i * n + k] *
+                        b.getData()[k * b.getCols() + j];
+                }
+                c[i * b.getCols() + j] = sum;
+            }
+        }
+        return new Matrix(a.getRows(), b.getCols(), c);
+    }
+
+    @Override
+    public void matrixCompute(
+        MatrixComputeRequest request,
+        StreamObserver<MatrixComputeResponse> responseObserver
+    ) {
+        int call = calls.incrementAndGet();
+        ((ServerCallStreamObserver<MatrixComputeResponse>) responseObserver)
+            .setOnCancelHandler(cancelled::incrementAndGet);
+        MatrixComputeResponse response;
+        try {
+            response = handler.handle(request, call);
+        } catch (StatusRuntimeException e) {
+            responseObserver.onError(e);
+            return;
+        }
+        if (response != null) {
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        }
+    }
+
+    /**
+     * Doubles the values, which must arrive packed, and answers packed
+     */
+    @Override
+    public void compute(
+        ComputeRequest request,
+        StreamObserver<ComputeResponse> responseObserver
+    ) {
+        calls.incrementAndGet();
+        if (request.getDataCount() > 0) {
+            responseObserver.onError(
+                Status.INVALID_ARGUMENT.withDescription(
+                    "unpacked data"
+                ).asRuntimeException()
+            );
+            return;
+        }
+        float[] values = PackedFloats.unpack(request.getPackedData());
+        for (int i = 0; i < values.length; i++) {
+            values[i] *= 2;
+        }
+        responseObserver.onNext(
+            ComputeResponse.newBuilder()
+                .setTaskId(request.getTaskId())
+                .setStatus("completed")
+                .setPackedResult(PackedFloats.pack(values))
+                .build()
+        );
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void status(
+        StatusRequest request,
+        StreamObserver<StatusResponse> responseObserver
+    ) {
+        responseObserver.onNext(
+            StatusResponse.newBuilder()
+                .setReady(ready)
+                .setGpuInfo("fake")
+                .setError(ready ? "" : "not ready")
+                .build()
+        );
+        responseObserver.onCompleted();
+    }
+}
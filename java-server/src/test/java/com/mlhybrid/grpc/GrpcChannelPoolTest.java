@@ -0,0 +1,184 @@
+package com.mlhybrid.grpc;
+
+import static com.mlhybrid.grpc.InProcessBackends.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mlhybrid.grpc.GrpcChannelPool.Strategy;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GrpcChannelPoolTest {
+
+    private InProcessBackends servers;
+    private FakeMlService serviceA;
+    private FakeMlService serviceB;
+    private GrpcBackend a;
+    private GrpcBackend b;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servers = new InProcessBackends();
+        serviceA = FakeMlService.multiplying();
+        serviceB = FakeMlService.multiplying();
+        a = servers.add(serviceA, 1, 60000);
+        b = servers.add(serviceB, 1, 60000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        servers.close();
+    }
+
+    @Test
+    void roundRobinAlternatesBetweenBackends() {
+        GrpcChannelPool pool = servers.pool(Strategy.ROUND_ROBIN);
+
+        List<GrpcBackend> picked = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            picked.add(pool.select());
+        }
+
+        assertEquals(List.of(a, b, a, b), picked);
+    }
+
+    @Test
+    void leastOutstandingPrefersTheLessBusyBackend() {
+        GrpcChannelPool pool = servers.pool(Strategy.LEAST_OUTSTANDING);
+        a.acquire();
+
+        for (int i = 0; i < 4; i++) {
+            assertSame(b, pool.select());
+        }
+        a.release(null);
+    }
+
+    @Test
+    void selectHonoursTheEligibilityFilter() {
+        GrpcChannelPool pool = servers.pool(Strategy.ROUND_ROBIN);
+
+        for (int i = 0; i < 4; i++) {
+            assertSame(b, pool.select(backend -> backend != a));
+        }
+        assertNull(pool.select(backend -> false));
+    }
+
+    @Test
+    void healthCheckSkipsBackendsThatAreNotReady() throws Exception {
+        GrpcChannelPool pool = servers.pool(Strategy.ROUND_ROBIN);
+        serviceA.setReady(false);
+
+        pool.checkHealth();
+        await(() -> !a.isReady() && b.getGpuInfo().equals("fake"));
+
+        assertEquals("not ready", a.getLastError());
+        for (int i = 0; i < 4; i++) {
+            assertSame(b, pool.select());
+        }
+
+        serviceA.setReady(true);
+        pool.checkHealth();
+        await(a::isReady);
+        Set<GrpcBackend> picked = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            picked.add(pool.select());
+        }
+        assertEquals(Set.of(a, b), picked);
+    }
+
+    @Test
+    void healthCheckMarksUnreachableBackends() throws Exception {
+        GrpcChannelPool pool = servers.pool(Strategy.ROUND_ROBIN);
+        servers.stop(a);
+
+        pool.checkHealth();
+        await(() -> !a.isReady());
+
+        assertFalse(a.getLastError().isEmpty());
+        for (int i = 0; i < 4; i++) {
+            assertSame(b, pool.select());
+        }
+    }
+
+    @Test
+    void fallsBackToAllBackendsWhenNoneIsReady() throws Exception {
+        GrpcChannelPool pool = servers.pool(Strategy.ROUND_ROBIN);
+        serviceA.setReady(false);
+        serviceB.setReady(false);
+
+        pool.checkHealth();
+        await(() -> !a.isReady() && !b.isReady());
+
+        Set<GrpcBackend> picked = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            picked.add(pool.select());
+        }
+        assertEquals(Set.of(a, b), picked);
+    }
+
+    @Test
+    void skipsBackendsWithAnOpenCircuit() {
+        GrpcChannelPool pool = servers.pool(Strategy.ROUND_ROBIN);
+        a.acquire();
+        a.release(Status.UNAVAILABLE.asRuntimeException());
+
+        assertEquals("OPEN", a.getCircuitState());
+        for (int i = 0; i < 4; i++) {
+            assertSame(b, pool.select());
+        }
+
+        b.acquire();
+        b.release(Status.UNAVAILABLE.asRuntimeException());
+        assertFalse(pool.anyAllowsCalls());
+        assertThrows(CircuitOpenException.class, pool::select);
+    }
+
+    @Test
+    void callsOnlyReachReadyBackends() throws Exception {
+        GrpcChannelPool pool = servers.pool(Strategy.ROUND_ROBIN);
+        GrpcClientService clientService = InProcessBackends.clientService(
+            InProcessBackends.scheduler(pool),
+            InProcessBackends.resilience()
+        );
+        serviceA.setReady(false);
+        pool.checkHealth();
+        await(() -> !a.isReady());
+
+        List<CompletableFuture<com.mlhybrid.model.MatrixComputeResponse>> calls =
+            new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(
+                clientService.matrixComputeAsync(
+                    InProcessBackends.smallMultiply("pool-" + i)
+                )
+            );
+        }
+        for (
+            CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> call : calls
+        ) {
+            com.mlhybrid.model.MatrixComputeResponse response = call.get(
+                5,
+                TimeUnit.SECONDS
+            );
+            assertEquals("completed", response.getStatus());
+            assertNotNull(response.getResultMatrix());
+            assertEquals(11f, response.getResultMatrix().getData()[0]);
+        }
+        assertEquals(0, serviceA.calls.get());
+        assertEquals(4, serviceB.calls.get());
+        assertTrue(a.allowsCalls());
+    }
+}
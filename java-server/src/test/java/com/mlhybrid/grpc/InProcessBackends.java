@@ -0,0 +1,194 @@
+package com.mlhybrid.grpc;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.mlhybrid.metrics.PipelineMetrics;
+import com.mlhybrid.model.Matrix;
+import com.mlhybrid.tracing.PipelineTracer;
+import io.grpc.BindableService;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Backends served by in-process gRPC servers, and the client stack over
+ * them configured with the defaults of {@code application.properties}.
+ */
+class InProcessBackends implements AutoCloseable {
+
+    private final List<Server> servers = new ArrayList<>();
+    private final List<GrpcBackend> backends = new ArrayList<>();
+
+    /**
+     * Start a server for the service and add a backend reaching it
+     */
+    GrpcBackend add(BindableService service) throws IOException {
+        return add(
+            service,
+            CircuitBreaker.DEFAULT_FAILURE_THRESHOLD,
+            CircuitBreaker.DEFAULT_OPEN_MS
+        );
+    }
+
+    GrpcBackend add(
+        BindableService service,
+        int failureThreshold,
+        long openMs
+    ) throws IOException {
+        String name = InProcessServerBuilder.generateName();
+        servers.add(
+            InProcessServerBuilder.forName(name)
+                .addService(service)
+                .build()
+                .start()
+        );
+        GrpcBackend backend = new GrpcBackend(
+            name,
+            InProcessChannelBuilder.forName(name).build(),
+            failureThreshold,
+            openMs
+        );
+        backends.add(backend);
+        return backend;
+    }
+
+    /**
+     * Stop the server of a backend, so that calls to it fail as
+     * {@code UNAVAILABLE}
+     */
+    void stop(GrpcBackend backend) {
+        servers.get(backends.indexOf(backend)).shutdownNow();
+    }
+
+    GrpcChannelPool pool(GrpcChannelPool.Strategy strategy) {
+        GrpcChannelPool pool = new GrpcChannelPool(backends, strategy);
+        ReflectionTestUtils.setField(pool, "healthTimeoutMs", 2000L);
+        return pool;
+    }
+
+    static CallScheduler scheduler(GrpcChannelPool pool) {
+        CallScheduler scheduler = new CallScheduler(pool);
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "initialLimit", 16);
+        ReflectionTestUtils.setField(scheduler, "minLimit", 2);
+        ReflectionTestUtils.setField(scheduler, "maxLimit", 256);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 1000);
+        ReflectionTestUtils.setField(scheduler, "targetQueueDelayMs", 50L);
+        ReflectionTestUtils.setField(scheduler, "backoffRatio", 0.9);
+        return scheduler;
+    }
+
+    static ResiliencePolicy resilience() {
+        ResiliencePolicy resilience = new ResiliencePolicy();
+        ReflectionTestUtils.setField(resilience, "deadlineBaseMs", 2000L);
+        ReflectionTestUtils.setField(
+            resilience,
+            "deadlineWorkPerMs",
+            100000L
+        );
+        ReflectionTestUtils.setField(resilience, "deadlineMaxMs", 55000L);
+        ReflectionTestUtils.setField(
+            resilience,
+            "asyncRequestTimeout",
+            Duration.ofSeconds(60)
+        );
+        ReflectionTestUtils.setField(resilience, "retryMaxAttempts", 3);
+        ReflectionTestUtils.setField(resilience, "retryInitialBackoffMs", 50L);
+        ReflectionTestUtils.setField(resilience, "retryMaxBackoffMs", 1000L);
+        ReflectionTestUtils.setField(resilience, "hedgingEnabled", true);
+        ReflectionTestUtils.setField(resilience, "hedgingDelayMs", 500L);
+        ReflectionTestUtils.setField(
+            resilience,
+            "hedgingMaxElements",
+            262144L
+        );
+        return resilience;
+    }
+
+    static GrpcClientService clientService(
+        CallScheduler scheduler,
+        ResiliencePolicy resilience
+    ) {
+        PipelineTracer tracer = new PipelineTracer(
+            OpenTelemetry.noop().getTracer("test")
+        );
+        GrpcClientService clientService = new GrpcClientService(
+            scheduler,
+            new ComputeBatcher(scheduler, resilience, tracer),
+            new PipelineMetrics(new SimpleMeterRegistry()),
+            tracer,
+            resilience
+        );
+        ReflectionTestUtils.setField(
+            clientService,
+            "streamThresholdElements",
+            524288L
+        );
+        ReflectionTestUtils.setField(
+            clientService,
+            "streamChunkElements",
+            262144
+        );
+        return clientService;
+    }
+
+    /**
+     * A 1x2 by 2x1 multiply, whose product is 11
+     */
+    static com.mlhybrid.model.MatrixComputeRequest smallMultiply(
+        String taskId
+    ) {
+        return new com.mlhybrid.model.MatrixComputeRequest(
+            new Matrix(1, 2, new float[] { 1, 2 }),
+            new Matrix(2, 1, new float[] { 3, 4 }),
+            taskId,
+            "multiply"
+        );
+    }
+
+    /**
+     * The error a call failed with, after at most five seconds
+     */
+    static Throwable failure(CompletableFuture<?> call) throws Exception {
+        try {
+            call.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        return fail("Call did not fail");
+    }
+
+    /**
+     * Wait up to five seconds for a condition
+     */
+    static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                fail("Condition not met within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        for (GrpcBackend backend : backends) {
+            backend.getChannel().shutdownNow();
+        }
+        for (Server server : servers) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
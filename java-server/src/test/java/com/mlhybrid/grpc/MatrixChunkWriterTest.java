@@ -0,0 +1,138 @@
+package com.mlhybrid.grpc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MatrixChunkWriterTest {
+
+    @Test
+    void sendsWholeRowsWhereTheyFit() {
+        List<MatrixChunk> chunks = write(5, 4, 10);
+
+        assertEquals(3, chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            assertEquals(2 * i, chunks.get(i).getRowOffset());
+            assertEquals(0, chunks.get(i).getColOffset());
+        }
+        assertEquals("multiply", chunks.get(0).getOperation());
+        assertArrayEquals(values(5, 4), read(chunks));
+    }
+
+    @Test
+    void splitsRowsWiderThanAChunk() {
+        List<MatrixChunk> chunks = write(3, 25, 10);
+
+        assertEquals(8, chunks.size());
+        for (MatrixChunk chunk : chunks) {
+            assertTrue(
+                PackedFloats.view(chunk.getPackedData()).remaining() <= 10
+            );
+        }
+        assertEquals(1, chunks.get(3).getRowOffset());
+        assertEquals(5, chunks.get(3).getColOffset());
+        assertArrayEquals(values(3, 25), read(chunks));
+    }
+
+    @Test
+    void sendsOneChunkForAnEmptyOperand() {
+        List<MatrixChunk> chunks = write(0, 3, 10);
+
+        assertEquals(1, chunks.size());
+        assertEquals(0, chunks.get(0).getRows());
+        assertEquals(3, chunks.get(0).getCols());
+    }
+
+    private static List<MatrixChunk> write(
+        int rows,
+        int cols,
+        int chunkElements
+    ) {
+        CollectingStream stream = new CollectingStream();
+        new MatrixChunkWriter("chunks", "multiply", chunkElements)
+            .add(
+                MatrixOperand.MATRIX_A,
+                rows,
+                cols,
+                FloatBuffer.wrap(values(rows, cols))
+            )
+            .start(stream);
+        stream.onReady.run();
+        assertTrue(stream.completed);
+        return stream.chunks;
+    }
+
+    /**
+     * Reassemble the chunks the way result chunks are
+     */
+    private static float[] read(List<MatrixChunk> chunks) {
+        MatrixChunkReader reader = new MatrixChunkReader(
+            new MatrixChunkWriter("chunks", "multiply", 1)
+        );
+        for (MatrixChunk chunk : chunks) {
+            reader.onNext(chunk);
+        }
+        reader.onCompleted();
+        return reader.getResult().join().getResultMatrix().getData();
+    }
+
+    private static float[] values(int rows, int cols) {
+        float[] values = new float[rows * cols];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    /**
+     * Request stream that is always ready and keeps what is written
+     */
+    private static class CollectingStream
+        extends ClientCallStreamObserver<MatrixChunk> {
+
+        private final List<MatrixChunk> chunks = new ArrayList<>();
+        private Runnable onReady;
+        private boolean completed;
+
+        @Override
+        public boolean isReady() {
+            return !completed;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            this.onReady = onReadyHandler;
+        }
+
+        @Override
+        public void onNext(MatrixChunk value) {
+            chunks.add(value);
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+
+        @Override
+        public void onError(Throwable t) {}
+
+        @Override
+        public void cancel(String message, Throwable cause) {}
+
+        @Override
+        public void disableAutoInboundFlowControl() {}
+
+        @Override
+        public void request(int count) {}
+
+        @Override
+        public void setMessageCompression(boolean enable) {}
+    }
+}
@@ -0,0 +1,143 @@
+package com.mlhybrid.grpc;
+
+import static com.mlhybrid.grpc.InProcessBackends.await;
+import static com.mlhybrid.grpc.InProcessBackends.failure;
+import static com.mlhybrid.grpc.InProcessBackends.smallMultiply;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import com.mlhybrid.grpc.GrpcChannelPool.Strategy;
+import io.grpc.Status;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ResilientCallTest {
+
+    private InProcessBackends servers;
+    private ResiliencePolicy resilience;
+
+    @BeforeEach
+    void setUp() {
+        servers = new InProcessBackends();
+        resilience = InProcessBackends.resilience();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        servers.close();
+    }
+
+    @Test
+    void retriesUnavailableBackends() throws Exception {
+        FakeMlService service = new FakeMlService((request, call) -> {
+            if (call <= 2) {
+                throw Status.UNAVAILABLE.asRuntimeException();
+            }
+            return FakeMlService.completed(
+                request,
+                FakeMlService.product(request)
+            );
+        });
+        servers.add(service);
+
+        com.mlhybrid.model.MatrixComputeResponse response = clientService()
+            .matrixComputeAsync(smallMultiply("retry"))
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("completed", response.getStatus());
+        assertEquals(3, service.calls.get());
+    }
+
+    @Test
+    void doesNotRetryInvalidRequests() throws Exception {
+        FakeMlService service = FakeMlService.failing(Status.INVALID_ARGUMENT);
+        servers.add(service);
+
+        Throwable error = failure(
+            clientService().matrixComputeAsync(smallMultiply("invalid"))
+        );
+
+        assertInstanceOf(GrpcCallException.class, error);
+        assertEquals(
+            Status.Code.INVALID_ARGUMENT,
+            ((GrpcCallException) error).getCode()
+        );
+        assertEquals(1, service.calls.get());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        FakeMlService service = FakeMlService.failing(Status.UNAVAILABLE);
+        servers.add(service);
+
+        Throwable error = failure(
+            clientService().matrixComputeAsync(smallMultiply("unavailable"))
+        );
+
+        assertInstanceOf(GrpcCallException.class, error);
+        assertEquals(
+            Status.Code.UNAVAILABLE,
+            ((GrpcCallException) error).getCode()
+        );
+        assertEquals(3, service.calls.get());
+    }
+
+    @Test
+    void hedgesSlowCallsOnAnotherBackend() throws Exception {
+        FakeMlService slow = FakeMlService.hanging();
+        FakeMlService fast = FakeMlService.multiplying();
+        // Round robin sends the first attempt to the slow backend
+        servers.add(slow);
+        servers.add(fast);
+        ReflectionTestUtils.setField(resilience, "hedgingDelayMs", 50L);
+
+        com.mlhybrid.model.MatrixComputeResponse response = clientService()
+            .matrixComputeAsync(smallMultiply("hedge"))
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("completed", response.getStatus());
+        assertEquals(11f, response.getResultMatrix().getData()[0]);
+        assertEquals(1, slow.calls.get());
+        assertEquals(1, fast.calls.get());
+        await(() -> slow.cancelled.get() == 1);
+    }
+
+    @Test
+    void doesNotHedgeWithoutAnotherBackend() throws Exception {
+        FakeMlService service = FakeMlService.hanging();
+        servers.add(service);
+        ReflectionTestUtils.setField(resilience, "hedgingDelayMs", 50L);
+
+        GrpcClientService clientService = clientService();
+        clientService.matrixComputeAsync(smallMultiply("alone"));
+        await(() -> service.calls.get() == 1);
+        Thread.sleep(200);
+
+        assertEquals(1, service.calls.get());
+    }
+
+    @Test
+    void cancellingTheCallCancelsTheRpc() throws Exception {
+        FakeMlService service = FakeMlService.hanging();
+        servers.add(service);
+
+        CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> call =
+            clientService().matrixComputeAsync(smallMultiply("cancel"));
+        await(() -> service.calls.get() == 1);
+        call.cancel(true);
+
+        await(() -> service.cancelled.get() == 1);
+    }
+
+    private GrpcClientService clientService() {
+        GrpcChannelPool pool = servers.pool(Strategy.ROUND_ROBIN);
+        return InProcessBackends.clientService(
+            InProcessBackends.scheduler(pool),
+            resilience
+        );
+    }
+}
@@ -0,0 +1,189 @@
+package com.mlhybrid.grpc;
+
+import static com.mlhybrid.grpc.InProcessBackends.await;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mlhybrid.grpc.CallScheduler.Priority;
+import com.mlhybrid.grpc.GrpcChannelPool.Strategy;
+import com.mlhybrid.model.Matrix;
+import io.grpc.Status;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TiledMultiplyExecutorTest {
+
+    private InProcessBackends servers;
+    private FakeMlService serviceA;
+    private FakeMlService serviceB;
+    private TiledMultiplyExecutor executor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servers = new InProcessBackends();
+        serviceA = FakeMlService.multiplying();
+        serviceB = FakeMlService.multiplying();
+        servers.add(serviceA);
+        servers.add(serviceB);
+
+        GrpcChannelPool pool = servers.pool(Strategy.ROUND_ROBIN);
+        ResiliencePolicy resilience = InProcessBackends.resilience();
+        // Hanging tiles must stay hanging rather than be hedged
+        ReflectionTestUtils.setField(resilience, "hedgingEnabled", false);
+        executor = new TiledMultiplyExecutor(
+            InProcessBackends.clientService(
+                InProcessBackends.scheduler(pool),
+                resilience
+            ),
+            pool
+        );
+        ReflectionTestUtils.setField(executor, "enabled", true);
+        ReflectionTestUtils.setField(executor, "thresholdElements", 1024L);
+        ReflectionTestUtils.setField(executor, "minTileDim", 8);
+        ReflectionTestUtils.setField(executor, "tilesPerBackend", 2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        servers.close();
+    }
+
+    @Test
+    void tilesOnlyLargeMultiplies() {
+        assertTrue(executor.shouldTile(request(40, 24, 36)));
+        assertFalse(executor.shouldTile(request(8, 8, 8)));
+
+        com.mlhybrid.model.MatrixComputeRequest add = request(40, 24, 36);
+        add.setOperation("add");
+        assertFalse(executor.shouldTile(add));
+    }
+
+    @Test
+    void assemblesTilesIntoTheProduct() throws Exception {
+        com.mlhybrid.model.MatrixComputeRequest request = request(40, 24, 36);
+
+        com.mlhybrid.model.MatrixComputeResponse response = executor
+            .multiply(request, Priority.INTERACTIVE)
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("completed", response.getStatus());
+        Matrix expected = FakeMlService.multiply(
+            request.getMatrixA(),
+            request.getMatrixB()
+        );
+        Matrix result = response.getResultMatrix();
+        assertEquals(40, result.getRows());
+        assertEquals(36, result.getCols());
+        assertArrayEquals(expected.getData(), result.getData(), 1e-4f);
+        assertEquals(4, serviceA.calls.get() + serviceB.calls.get());
+        assertTrue(serviceA.calls.get() > 0);
+        assertTrue(serviceB.calls.get() > 0);
+    }
+
+    @Test
+    void failsWhenATileHasTheWrongShape() throws Exception {
+        serviceB.setHandler((request, call) ->
+            FakeMlService.completed(
+                request,
+                new Matrix(1, 1, new float[] { 0 })
+            )
+        );
+
+        com.mlhybrid.model.MatrixComputeResponse response = executor
+            .multiply(request(40, 24, 36), Priority.INTERACTIVE)
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("failed", response.getStatus());
+        assertEquals(
+            "Tile result has the wrong shape",
+            response.getErrorMessage()
+        );
+    }
+
+    @Test
+    void failsWhenATileFailsOnTheServer() throws Exception {
+        serviceB.setHandler((request, call) ->
+            FakeMlService.failed(request, "GPU out of memory")
+        );
+
+        com.mlhybrid.model.MatrixComputeResponse response = executor
+            .multiply(request(40, 24, 36), Priority.INTERACTIVE)
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("failed", response.getStatus());
+        assertEquals("GPU out of memory", response.getErrorMessage());
+    }
+
+    @Test
+    void failedTileCallCancelsTheOtherTiles() throws Exception {
+        // The last tile to arrive fails, the others never answer
+        AtomicInteger arrived = new AtomicInteger();
+        FakeMlService.Handler handler = (request, call) -> {
+            if (arrived.incrementAndGet() == 4) {
+                throw Status.INVALID_ARGUMENT.withDescription(
+                    "bad tile"
+                ).asRuntimeException();
+            }
+            return null;
+        };
+        serviceA.setHandler(handler);
+        serviceB.setHandler(handler);
+
+        CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> result =
+            executor.multiply(request(40, 24, 36), Priority.INTERACTIVE);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () ->
+            result.get(5, TimeUnit.SECONDS)
+        );
+        assertInstanceOf(GrpcCallException.class, error.getCause());
+        assertEquals(
+            Status.Code.INVALID_ARGUMENT,
+            ((GrpcCallException) error.getCause()).getCode()
+        );
+        await(() -> serviceA.cancelled.get() + serviceB.cancelled.get() == 3);
+    }
+
+    @Test
+    void cancellingTheProductCancelsAllTiles() throws Exception {
+        serviceA.setHandler((request, call) -> null);
+        serviceB.setHandler((request, call) -> null);
+
+        CompletableFuture<com.mlhybrid.model.MatrixComputeResponse> result =
+            executor.multiply(request(40, 24, 36), Priority.INTERACTIVE);
+        await(() -> serviceA.calls.get() + serviceB.calls.get() == 4);
+        result.cancel(true);
+
+        await(() -> serviceA.cancelled.get() + serviceB.cancelled.get() == 4);
+    }
+
+    private static com.mlhybrid.model.MatrixComputeRequest request(
+        int rows,
+        int inner,
+        int cols
+    ) {
+        return new com.mlhybrid.model.MatrixComputeRequest(
+            matrix(rows, inner, 1),
+            matrix(inner, cols, 2),
+            "tiled",
+            "multiply"
+        );
+    }
+
+    private static Matrix matrix(int rows, int cols, int seed) {
+        float[] data = new float[rows * cols];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = ((i * 31 + seed * 17) % 13) / 4f - 1;
+        }
+        return new Matrix(rows, cols, data);
+    }
+}
@@ -0,0 +1,111 @@
+package com.mlhybrid.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StreamingMatrixRequestTest {
+
+    @Test
+    void forwardsWholeRowsWhereTheyFit() throws IOException {
+        List<Block> blocks = forward(
+            "{\"operation\":\"add\"," +
+            "\"matrixA\":{\"rows\":3,\"cols\":2,\"data\":[1,2,3,4,5,6]}}",
+            4
+        );
+
+        assertEquals(2, blocks.size());
+        assertEquals(0, blocks.get(0).offset);
+        assertArrayEquals(new float[] { 1, 2, 3, 4 }, blocks.get(0).values);
+        assertEquals(4, blocks.get(1).offset);
+        assertArrayEquals(new float[] { 5, 6 }, blocks.get(1).values);
+    }
+
+    @Test
+    void splitsRowsWiderThanABlock() throws IOException {
+        List<Block> blocks = forward(
+            "{\"operation\":\"transpose\"," +
+            "\"matrixA\":{\"rows\":1,\"cols\":5,\"data\":[1,2,3,4,5]}}",
+            2
+        );
+
+        assertEquals(3, blocks.size());
+        assertEquals(2, blocks.get(1).offset);
+        assertArrayEquals(new float[] { 3, 4 }, blocks.get(1).values);
+        assertArrayEquals(new float[] { 5 }, blocks.get(2).values);
+    }
+
+    @Test
+    void splitsOperandsReadBeforeTheirDimensions() throws IOException {
+        List<Block> blocks = forward(
+            "{\"operation\":\"transpose\"," +
+            "\"matrixA\":{\"data\":[1,2,3,4,5],\"rows\":1,\"cols\":5}}",
+            2
+        );
+
+        assertEquals(3, blocks.size());
+        assertEquals(4, blocks.get(2).offset);
+    }
+
+    @Test
+    void hugeDeclaredRowsAllocateNothingUpFront() {
+        List<Block> blocks = new ArrayList<>();
+        JsonParseException error = assertThrows(JsonParseException.class, () ->
+            forward(
+                "{\"operation\":\"transpose\"," +
+                "\"matrixA\":{\"rows\":1,\"cols\":2000000000,\"data\":[1]}}",
+                262144,
+                blocks
+            )
+        );
+
+        assertTrue(error.getOriginalMessage().contains("1 values"));
+        assertTrue(blocks.isEmpty());
+    }
+
+    private static List<Block> forward(String body, int blockElements)
+        throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        forward(body, blockElements, blocks);
+        return blocks;
+    }
+
+    private static void forward(
+        String body,
+        int blockElements,
+        List<Block> blocks
+    ) throws IOException {
+        StreamingMatrixRequest request = new StreamingMatrixRequest(
+            new JsonFactory().createParser(body)
+        );
+        request.readHeader();
+        request.forward(
+            (matrixB, rows, cols, offset, values) -> {
+                float[] copy = new float[values.remaining()];
+                values.get(copy);
+                blocks.add(new Block(offset, copy));
+            },
+            blockElements
+        );
+    }
+
+    private static class Block {
+
+        private final long offset;
+        private final float[] values;
+
+        Block(long offset, float[] values) {
+            this.offset = offset;
+            this.values = values;
+        }
+    }
+}
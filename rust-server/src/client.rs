@@ -68,6 +68,7 @@ async fn test_compute(
         data: data.clone(),
         task_id: format!("test-{}-{}", task_type, chrono::Utc::now().timestamp()),
         task_type: task_type.to_string(),
+        packed_data: Vec::new(),
     });
 
     let start = Instant::now();
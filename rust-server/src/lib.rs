@@ -9,4 +9,10 @@ pub mod ml {
 pub mod gpu_compute;
 
 // Include the matrix operations module
-pub mod matrix_ops;
\ No newline at end of file
+pub mod matrix_ops;
+
+// Include the operand store module
+pub mod operand_store;
+
+// Include the packed float payload module
+pub mod packed;
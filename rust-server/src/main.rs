@@ -1,41 +1,108 @@
 use std::sync::Arc;
 use std::net::SocketAddr;
-use tonic::{transport::Server, Request, Response, Status};
+use std::pin::Pin;
+use futures::Stream;
+use tonic::{transport::Server, Request, Response, Status, Streaming};
 
 // Use the shared library
 use ml_gpu_service_lib::ml;
 use ml_gpu_service_lib::gpu_compute::GpuCompute;
 use ml_gpu_service_lib::matrix_ops::MatrixOps;
+use ml_gpu_service_lib::operand_store::OperandStore;
+use ml_gpu_service_lib::packed;
 
 use ml::{ml_server::{Ml, MlServer}, ComputeRequest, ComputeResponse, StatusRequest, StatusResponse, 
-         MatrixComputeRequest, MatrixComputeResponse};
+         MatrixComputeRequest, MatrixComputeResponse, ComputeBatch, ComputeBatchResponse,
+         Matrix, MatrixChunk, MatrixOperand, MatrixExpressionRequest};
 use tokio::sync::Mutex;
 
 // Define the ML service
 #[derive(Debug)]
 pub struct MLService {
     gpu_compute: Arc<Mutex<GpuCompute>>,
+    operands: Arc<OperandStore>,
 }
 
 impl Default for MLService {
     fn default() -> Self {
         Self {
             gpu_compute: Arc::new(Mutex::new(GpuCompute::default())),
+            operands: Arc::new(OperandStore::default()),
         }
     }
 }
 
+// Maximum number of values per streamed result chunk (~1MB of floats)
+const STREAM_CHUNK_ELEMENTS: usize = 256 * 1024;
+
+// Largest operand accepted from a request stream (1 GiB of floats); the
+// first chunk's dimensions are checked against it before allocating
+const MAX_STREAM_MATRIX_ELEMENTS: usize = 256 * 1024 * 1024;
+
+// Allocate an operand for the dimensions announced by its first chunk
+fn stream_operand(chunk: &MatrixChunk) -> Result<Matrix, Status> {
+    if chunk.rows < 0 || chunk.cols < 0 {
+        return Err(Status::invalid_argument(format!(
+            "Invalid matrix dimensions {}x{}",
+            chunk.rows, chunk.cols
+        )));
+    }
+    let elements = (chunk.rows as usize)
+        .checked_mul(chunk.cols as usize)
+        .filter(|&elements| elements <= MAX_STREAM_MATRIX_ELEMENTS)
+        .ok_or_else(|| {
+            Status::invalid_argument(format!(
+                "Matrix of {}x{} exceeds {} values",
+                chunk.rows, chunk.cols, MAX_STREAM_MATRIX_ELEMENTS
+            ))
+        })?;
+    Ok(Matrix {
+        rows: chunk.rows,
+        cols: chunk.cols,
+        data: vec![0.0; elements],
+        handle: String::new(),
+        packed_data: Vec::new(),
+    })
+}
+
+// Trace context of the calling Java span, taken from the W3C `traceparent`
+// metadata entry ("00-<trace id>-<parent span id>-<flags>") so that server
+// log lines can be matched with the client's trace
+fn trace_context<T>(request: &Request<T>) -> String {
+    let parts: Vec<&str> = request
+        .metadata()
+        .get("traceparent")
+        .and_then(|value| value.to_str().ok())
+        .map(|value| value.split('-').collect())
+        .unwrap_or_default();
+    if parts.len() == 4 && parts[1].len() == 32 && parts[2].len() == 16 {
+        format!("trace_id={} parent_span_id={}", parts[1], parts[2])
+    } else {
+        "trace_id=- parent_span_id=-".to_string()
+    }
+}
+
 #[tonic::async_trait]
 impl Ml for MLService {
+    type MatrixComputeStreamStream =
+        Pin<Box<dyn Stream<Item = Result<MatrixChunk, Status>> + Send + 'static>>;
+
     async fn compute(
         &self,
         request: Request<ComputeRequest>,
     ) -> Result<Response<ComputeResponse>, Status> {
-        println!("Received compute request");
+        let trace = trace_context(&request);
+        let start_time = std::time::Instant::now();
+        println!("Received compute request [{}]", trace);
         
         // Extract the data from the request
         let compute_request = request.into_inner();
-        let data = compute_request.data;
+        let packed = !compute_request.packed_data.is_empty();
+        let data = if packed {
+            packed::floats(&compute_request.packed_data)?
+        } else {
+            compute_request.data
+        };
         let task_id = compute_request.task_id.clone();
         let task_type = compute_request.task_type;
         
@@ -44,26 +111,208 @@ impl Ml for MLService {
         // Perform the GPU computation
         let result = self.run_gpu_task(data, &task_type).await;
         
-        // Create and return the response
+        // Create and return the response, in the encoding of the request
+        let (result, packed_result) = if packed {
+            (Vec::new(), packed::bytes(&result))
+        } else {
+            (result, Vec::new())
+        };
         let response = ComputeResponse {
             result,
             task_id: task_id.clone(),
             status: "completed".to_string(),
             execution_time_ms: 100, // Simulated execution time
+            packed_result,
         };
         
-        println!("Computation completed for task: {}", task_id);
+        println!(
+            "Computation completed for task: {} in {} ms [{}]",
+            task_id,
+            start_time.elapsed().as_millis(),
+            trace
+        );
         Ok(Response::new(response))
     }
     
+    async fn matrix_compute_stream(
+        &self,
+        request: Request<Streaming<MatrixChunk>>,
+    ) -> Result<Response<Self::MatrixComputeStreamStream>, Status> {
+        let trace = trace_context(&request);
+        let start_time = std::time::Instant::now();
+        println!("Received streaming matrix compute request [{}]", trace);
+
+        let mut stream = request.into_inner();
+        let mut task_id = String::new();
+        let mut operation = String::new();
+        let mut matrix_a: Option<Matrix> = None;
+        let mut matrix_b: Option<Matrix> = None;
+        let mut packed = false;
+
+        // Reassemble the operands from their chunks
+        while let Some(chunk) = stream.message().await? {
+            if task_id.is_empty() {
+                task_id = chunk.task_id.clone();
+            }
+            if operation.is_empty() {
+                operation = chunk.operation.clone();
+            }
+
+            let target = match MatrixOperand::from_i32(chunk.operand) {
+                Some(MatrixOperand::MatrixA) => &mut matrix_a,
+                Some(MatrixOperand::MatrixB) => &mut matrix_b,
+                _ => return Err(Status::invalid_argument("Unexpected operand in request stream")),
+            };
+            if target.is_none() {
+                *target = Some(stream_operand(&chunk)?);
+            }
+            let matrix = target.as_mut().unwrap();
+            if chunk.rows != matrix.rows || chunk.cols != matrix.cols {
+                return Err(Status::invalid_argument(format!(
+                    "Chunk of a {}x{} matrix in a stream of a {}x{} one",
+                    chunk.rows, chunk.cols, matrix.rows, matrix.cols
+                )));
+            }
+            if chunk.row_offset < 0 || chunk.row_offset > matrix.rows {
+                return Err(Status::invalid_argument(format!(
+                    "Chunk row offset {} outside a matrix of {} rows",
+                    chunk.row_offset, matrix.rows
+                )));
+            }
+            // Rows wider than a chunk are split, so a chunk may start mid-row
+            if chunk.col_offset < 0 || (chunk.col_offset > 0 && chunk.col_offset >= matrix.cols) {
+                return Err(Status::invalid_argument(format!(
+                    "Chunk column offset {} outside a matrix of {} columns",
+                    chunk.col_offset, matrix.cols
+                )));
+            }
+
+            let values = if chunk.packed_data.is_empty() {
+                chunk.data
+            } else {
+                packed = true;
+                packed::floats(&chunk.packed_data)?
+            };
+            // Cannot overflow: the offsets are at most rows and cols, and
+            // rows x cols fits
+            let start = chunk.row_offset as usize * matrix.cols as usize + chunk.col_offset as usize;
+            if start > matrix.data.len() || values.len() > matrix.data.len() - start {
+                return Err(Status::invalid_argument("Chunk exceeds matrix bounds"));
+            }
+            let end = start + values.len();
+            matrix.data[start..end].copy_from_slice(&values);
+        }
+
+        println!("Task ID: {}, Operation: {} (streamed)", task_id, operation);
+
+        let response = MatrixOps::process_request(MatrixComputeRequest {
+            matrix_a,
+            matrix_b,
+            task_id,
+            operation,
+        })
+        .await;
+
+        let chunks = MatrixOps::response_chunks(response, STREAM_CHUNK_ELEMENTS, packed);
+        println!(
+            "Streaming result back in {} chunk(s) after {} ms [{}]",
+            chunks.len(),
+            start_time.elapsed().as_millis(),
+            trace
+        );
+        let output = futures::stream::iter(chunks.into_iter().map(Ok));
+        Ok(Response::new(Box::pin(output) as Self::MatrixComputeStreamStream))
+    }
+
+    async fn compute_batched(
+        &self,
+        request: Request<ComputeBatch>,
+    ) -> Result<Response<ComputeBatchResponse>, Status> {
+        let trace = trace_context(&request);
+        let mut requests = request.into_inner().requests;
+        println!("Received compute batch with {} requests [{}]", requests.len(), trace);
+
+        if requests.is_empty() {
+            return Ok(Response::new(ComputeBatchResponse { responses: Vec::new() }));
+        }
+
+        // All requests in a batch share the same task type, so the inputs are
+        // concatenated and processed by a single GPU launch
+        let task_type = requests[0].task_type.clone();
+        if requests.iter().any(|r| r.task_type != task_type) {
+            return Err(Status::invalid_argument("All requests in a batch must share the same task type"));
+        }
+
+        // Unpack packed inputs, remembering which requests to answer packed
+        let mut packed = Vec::with_capacity(requests.len());
+        for r in &mut requests {
+            let is_packed = !r.packed_data.is_empty();
+            if is_packed {
+                r.data = packed::floats(&r.packed_data)?;
+                r.packed_data = Vec::new();
+            }
+            packed.push(is_packed);
+        }
+
+        let total: usize = requests.iter().map(|r| r.data.len()).sum();
+        let mut data = Vec::with_capacity(total);
+        for r in &requests {
+            data.extend_from_slice(&r.data);
+        }
+
+        let start_time = std::time::Instant::now();
+        let result = self.run_gpu_task(data, &task_type).await;
+        let execution_time_ms = start_time.elapsed().as_millis() as i64;
+
+        // Split the combined result back into per-request responses
+        let mut offset = 0;
+        let responses = requests
+            .into_iter()
+            .zip(packed)
+            .map(|(r, packed)| {
+                let len = r.data.len();
+                let values = &result[offset..offset + len];
+                let response = ComputeResponse {
+                    result: if packed { Vec::new() } else { values.to_vec() },
+                    task_id: r.task_id,
+                    status: "completed".to_string(),
+                    execution_time_ms,
+                    packed_result: if packed { packed::bytes(values) } else { Vec::new() },
+                };
+                offset += len;
+                response
+            })
+            .collect();
+
+        println!(
+            "Batch computation completed for {} data points in {} ms [{}]",
+            total,
+            execution_time_ms,
+            trace
+        );
+        Ok(Response::new(ComputeBatchResponse { responses }))
+    }
+
     async fn matrix_compute(
         &self,
         request: Request<MatrixComputeRequest>,
     ) -> Result<Response<MatrixComputeResponse>, Status> {
-        println!("Received matrix compute request");
+        let trace = trace_context(&request);
+        let start_time = std::time::Instant::now();
+        println!("Received matrix compute request [{}]", trace);
         
-        // Extract the matrix compute request
-        let matrix_request = request.into_inner();
+        // Extract the matrix compute request, unpacking packed operands and
+        // replacing operands sent by handle with their stored copies
+        let mut matrix_request = request.into_inner();
+        let mut packed = false;
+        if let Some(matrix) = matrix_request.matrix_a.as_mut() {
+            packed |= packed::unpack(matrix)?;
+            self.operands.resolve(matrix)?;
+        }
+        if let Some(matrix) = matrix_request.matrix_b.as_mut() {
+            packed |= packed::unpack(matrix)?;
+            self.operands.resolve(matrix)?;
+        }
         let task_id = matrix_request.task_id.clone();
         let operation = matrix_request.operation.clone();
         
@@ -78,18 +327,73 @@ impl Ml for MLService {
         
         println!("Task ID: {}, Operation: {}", task_id, operation);
         
-        // Process the matrix operation request
-        let response = MatrixOps::process_request(matrix_request).await;
+        // Process the matrix operation request, answering in the encoding
+        // the request used
+        let mut response = MatrixOps::process_request(matrix_request).await;
+        if packed {
+            if let Some(result) = response.result.as_mut() {
+                packed::pack(result);
+            }
+        }
         
+        let elapsed_ms = start_time.elapsed().as_millis();
         if response.status == "completed" {
-            println!("Matrix computation completed successfully for task: {}", task_id);
+            println!(
+                "Matrix computation completed successfully for task: {} in {} ms [{}]",
+                task_id, elapsed_ms, trace
+            );
         } else {
-            println!("Matrix computation failed for task: {}: {}", task_id, response.error_message);
+            println!(
+                "Matrix computation failed for task: {}: {} [{}]",
+                task_id, response.error_message, trace
+            );
         }
         
         Ok(Response::new(response))
     }
     
+    async fn matrix_expression(
+        &self,
+        request: Request<MatrixExpressionRequest>,
+    ) -> Result<Response<MatrixComputeResponse>, Status> {
+        let trace = trace_context(&request);
+        let mut expression = request.into_inner();
+        let mut packed = false;
+        for operand in expression.operands.iter_mut() {
+            packed |= packed::unpack(operand)?;
+            self.operands.resolve(operand)?;
+        }
+        let task_id = expression.task_id.clone();
+        println!(
+            "Received matrix expression for task: {} with {} operand(s) and {} step(s) [{}]",
+            task_id,
+            expression.operands.len(),
+            expression.steps.len(),
+            trace
+        );
+
+        let mut response = MatrixOps::process_expression(expression).await;
+        if packed {
+            if let Some(result) = response.result.as_mut() {
+                packed::pack(result);
+            }
+        }
+
+        if response.status == "completed" {
+            println!(
+                "Matrix expression completed for task: {} in {} ms [{}]",
+                task_id, response.execution_time_ms, trace
+            );
+        } else {
+            println!(
+                "Matrix expression failed for task: {}: {} [{}]",
+                task_id, response.error_message, trace
+            );
+        }
+
+        Ok(Response::new(response))
+    }
+
     async fn status(
         &self,
         request: Request<StatusRequest>,
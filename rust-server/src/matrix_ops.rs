@@ -1,6 +1,8 @@
 // Matrix operations module for ML Hybrid System
 
-use crate::ml::{Matrix, MatrixComputeRequest, MatrixComputeResponse};
+use crate::ml::{ExpressionStep, Matrix, MatrixChunk, MatrixComputeRequest, MatrixComputeResponse,
+                MatrixExpressionRequest, MatrixOperand};
+use crate::packed;
 use std::time::Instant;
 
 // Error type for matrix operations
@@ -108,6 +110,108 @@ impl MatrixOps {
         }
     }
 
+    // Evaluate the steps of an expression in order. Each step reads operands
+    // or earlier results, which stay in memory here instead of travelling
+    // back to the client; the last step's result is returned
+    pub async fn process_expression(
+        request: MatrixExpressionRequest,
+    ) -> MatrixComputeResponse {
+        let start_time = Instant::now();
+        let task_id = request.task_id;
+        let mut values = request.operands;
+
+        // Without steps the expression is a single operand, which evaluates
+        // to itself
+        let mut result = if request.steps.is_empty() && values.len() != 1 {
+            Err(MatrixError::InvalidOperation)
+        } else {
+            Ok(())
+        };
+        for step in &request.steps {
+            match Self::expression_step(&values, step) {
+                Ok(matrix) => values.push(matrix),
+                Err(err) => {
+                    result = Err(err);
+                    break;
+                }
+            }
+        }
+
+        match result {
+            Ok(()) => MatrixComputeResponse {
+                result: values.pop(),
+                task_id,
+                status: "completed".to_string(),
+                execution_time_ms: start_time.elapsed().as_millis() as i64,
+                error_message: String::new(),
+            },
+            Err(err) => MatrixComputeResponse {
+                result: None,
+                task_id,
+                status: "failed".to_string(),
+                execution_time_ms: 0,
+                error_message: err.to_string(),
+            },
+        }
+    }
+
+    // Apply one expression step to the values computed so far
+    fn expression_step(values: &[Matrix], step: &ExpressionStep) -> Result<Matrix, MatrixError> {
+        let input = |index: i32| {
+            usize::try_from(index)
+                .ok()
+                .and_then(|i| values.get(i))
+                .ok_or(MatrixError::InvalidOperation)
+        };
+        let a = input(step.left)?;
+        match step.operation.as_str() {
+            "multiply" => Self::matrix_multiply(a, input(step.right)?),
+            "transpose" => Self::matrix_transpose(a),
+            "inverse" => Self::matrix_inverse(a),
+            "add" => Self::matrix_add(a, input(step.right)?),
+            "subtract" => Self::matrix_subtract(a, input(step.right)?),
+            _ => Err(MatrixError::InvalidOperation),
+        }
+    }
+
+    // Split a response into result chunks of at most `chunk_elements` values
+    // each, for the streaming RPC: whole rows where a row fits, otherwise
+    // parts of a row; with `packed` the values are sent as packed bytes
+    pub fn response_chunks(response: MatrixComputeResponse, chunk_elements: usize, packed: bool) -> Vec<MatrixChunk> {
+        let header = |rows: i32, cols: i32, row_offset: i32, col_offset: i32, data: Vec<f32>| MatrixChunk {
+            task_id: response.task_id.clone(),
+            operation: String::new(),
+            operand: MatrixOperand::Result as i32,
+            rows,
+            cols,
+            row_offset,
+            col_offset,
+            packed_data: if packed { packed::bytes(&data) } else { Vec::new() },
+            data: if packed { Vec::new() } else { data },
+            status: response.status.clone(),
+            execution_time_ms: response.execution_time_ms,
+            error_message: response.error_message.clone(),
+        };
+
+        let result = match response.result {
+            Some(ref result) if !result.data.is_empty() => result,
+            _ => return vec![header(0, 0, 0, 0, Vec::new())],
+        };
+
+        let cols = result.cols.max(1) as usize;
+        let limit = chunk_elements.max(1);
+        let chunk_values = if cols <= limit { limit / cols * cols } else { limit };
+        result
+            .data
+            .chunks(chunk_values)
+            .enumerate()
+            .map(|(i, block)| {
+                let start = i * chunk_values;
+                header(result.rows, result.cols, (start / cols) as i32, (start % cols) as i32, block.to_vec())
+            })
+            .collect()
+    }
+
     // Matrix multiplication: C = A * B
     fn matrix_multiply(a: &Matrix, b: &Matrix) -> Result<Matrix, MatrixError> {
         // Check if dimensions are compatible for multiplication
@@ -139,6 +243,8 @@ impl MatrixOps {
             rows: result_rows,
             cols: result_cols,
             data: result_data,
+            handle: String::new(),
+            packed_data: Vec::new(),
         })
     }
 
@@ -160,6 +266,8 @@ impl MatrixOps {
             rows: result_rows,
             cols: result_cols,
             data: result_data,
+            handle: String::new(),
+            packed_data: Vec::new(),
         })
     }
 
@@ -196,6 +304,8 @@ impl MatrixOps {
                 rows: 2,
                 cols: 2,
                 data: result_data,
+                handle: String::new(),
+                packed_data: Vec::new(),
             });
         }
 
@@ -222,6 +332,8 @@ impl MatrixOps {
             rows: a.rows,
             cols: a.cols,
             data: result_data,
+            handle: String::new(),
+            packed_data: Vec::new(),
         })
     }
 
@@ -243,6 +355,8 @@ impl MatrixOps {
             rows: a.rows,
             cols: a.cols,
             data: result_data,
+            handle: String::new(),
+            packed_data: Vec::new(),
         })
     }
 }
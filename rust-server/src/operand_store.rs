@@ -0,0 +1,116 @@
+// Operand store for the ML Hybrid System
+//
+// Keeps operands sent with a handle, such as model weights used by many
+// requests, so that later requests can refer to them by handle instead of
+// sending their data again. Handles are content hashes assigned by the Java
+// server, so a stored copy never goes stale. The least recently used
+// operands are dropped once the store holds more than its bound.
+
+use crate::ml::Matrix;
+use std::collections::HashMap;
+use std::sync::Mutex;
+use tonic::Status;
+
+// Default bound on stored values (256MB of floats)
+pub const DEFAULT_MAX_ELEMENTS: usize = 64 * 1024 * 1024;
+
+struct Entry {
+    matrix: Matrix,
+    last_used: u64,
+}
+
+#[derive(Default)]
+struct Entries {
+    by_handle: HashMap<String, Entry>,
+    elements: usize,
+    clock: u64,
+}
+
+pub struct OperandStore {
+    entries: Mutex<Entries>,
+    max_elements: usize,
+}
+
+impl Default for OperandStore {
+    fn default() -> Self {
+        Self::new(DEFAULT_MAX_ELEMENTS)
+    }
+}
+
+impl std::fmt::Debug for OperandStore {
+    fn fmt(&self, f: &mut std::fmt::Formatter) -> std::fmt::Result {
+        let entries = self.entries.lock().unwrap();
+        f.debug_struct("OperandStore")
+            .field("operands", &entries.by_handle.len())
+            .field("elements", &entries.elements)
+            .finish()
+    }
+}
+
+impl OperandStore {
+    pub fn new(max_elements: usize) -> Self {
+        Self {
+            entries: Mutex::new(Entries::default()),
+            max_elements,
+        }
+    }
+
+    // Replace an operand sent by handle with the stored copy, and store an
+    // operand sent with both handle and data. Operands without a handle are
+    // left alone.
+    pub fn resolve(&self, matrix: &mut Matrix) -> Result<(), Status> {
+        if matrix.handle.is_empty() {
+            return Ok(());
+        }
+
+        let mut entries = self.entries.lock().unwrap();
+        entries.clock += 1;
+        let now = entries.clock;
+
+        let by_reference = matrix.data.is_empty() && (matrix.rows as i64) * (matrix.cols as i64) > 0;
+        if by_reference {
+            return match entries.by_handle.get_mut(&matrix.handle) {
+                Some(entry) => {
+                    entry.last_used = now;
+                    *matrix = entry.matrix.clone();
+                    Ok(())
+                }
+                None => Err(Status::not_found(format!("Unknown operand handle {}", matrix.handle))),
+            };
+        }
+
+        if let Some(entry) = entries.by_handle.get_mut(&matrix.handle) {
+            entry.last_used = now;
+        } else if matrix.data.len() <= self.max_elements {
+            entries.elements += matrix.data.len();
+            entries.by_handle.insert(
+                matrix.handle.clone(),
+                Entry { matrix: matrix.clone(), last_used: now },
+            );
+            Self::evict(&mut entries, self.max_elements);
+            println!(
+                "Stored operand {} ({}x{}), {} operand(s) held",
+                matrix.handle,
+                matrix.rows,
+                matrix.cols,
+                entries.by_handle.len()
+            );
+        }
+        Ok(())
+    }
+
+    // Drop least recently used operands until the bound is met
+    fn evict(entries: &mut Entries, max_elements: usize) {
+        while entries.elements > max_elements {
+            let oldest = entries
+                .by_handle
+                .iter()
+                .min_by_key(|(_, entry)| entry.last_used)
+                .map(|(handle, _)| handle.clone());
+            match oldest.and_then(|handle| entries.by_handle.remove(&handle)) {
+                Some(entry) => entries.elements -= entry.matrix.data.len(),
+                None => break,
+            }
+        }
+    }
+}
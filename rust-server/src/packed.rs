@@ -0,0 +1,50 @@
+// Packed float payloads for the ML Hybrid System
+//
+// Matrices, stream chunks and compute requests may carry their values as
+// little-endian float32 bytes in `packed_data` instead of the repeated `data`
+// field, which
+// the Java client writes and reads with bulk buffer copies instead of one
+// call per value. Handlers unpack incoming matrices into `data` before
+// computing, and pack their results again when the request was packed.
+
+use crate::ml::Matrix;
+use tonic::Status;
+
+// Decode little-endian float32 bytes
+pub fn floats(bytes: &[u8]) -> Result<Vec<f32>, Status> {
+    if bytes.len() % 4 != 0 {
+        return Err(Status::invalid_argument(format!(
+            "Packed data of {} bytes is not a whole number of floats",
+            bytes.len()
+        )));
+    }
+    Ok(bytes
+        .chunks_exact(4)
+        .map(|b| f32::from_le_bytes([b[0], b[1], b[2], b[3]]))
+        .collect())
+}
+
+// Encode values as little-endian float32 bytes
+pub fn bytes(values: &[f32]) -> Vec<u8> {
+    let mut bytes = Vec::with_capacity(values.len() * 4);
+    for value in values {
+        bytes.extend_from_slice(&value.to_le_bytes());
+    }
+    bytes
+}
+
+// Move a matrix's packed values into `data`; returns whether it was packed
+pub fn unpack(matrix: &mut Matrix) -> Result<bool, Status> {
+    if matrix.packed_data.is_empty() {
+        return Ok(false);
+    }
+    matrix.data = floats(&matrix.packed_data)?;
+    matrix.packed_data = Vec::new();
+    Ok(true)
+}
+
+// Move a matrix's values from `data` into `packed_data`
+pub fn pack(matrix: &mut Matrix) {
+    matrix.packed_data = bytes(&matrix.data);
+    matrix.data = Vec::new();
+}